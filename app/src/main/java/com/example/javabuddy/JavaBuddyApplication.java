@@ -0,0 +1,27 @@
+package com.example.javabuddy;
+
+import android.app.Application;
+import android.util.Log;
+
+import com.example.javabuddy.compiler.CompilerLog;
+import com.example.javabuddy.compiler.ExecutionService;
+
+public class JavaBuddyApplication extends Application {
+    
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        
+        // The compiler module is plain Java; route its logs to logcat
+        CompilerLog.setSink((level, tag, message, error) -> {
+            if (level == CompilerLog.Level.ERROR) {
+                Log.e(tag, message, error);
+            } else {
+                Log.d(tag, message, error);
+            }
+        });
+        
+        // Load and compile the engines in the background so the first Run is not the slow one
+        ExecutionService.getShared().warmUp();
+    }
+}
@@ -15,9 +15,15 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import com.example.javabuddy.R;
 import com.example.javabuddy.ai.GroqApiService;
+import com.example.javabuddy.compiler.grading.Grade;
+import com.example.javabuddy.compiler.grading.TestCaseRunner;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import io.github.rosemoe.sora.widget.CodeEditor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class AIProgrammingChallengeActivity extends AppCompatActivity {
     
@@ -35,6 +41,7 @@ public class AIProgrammingChallengeActivity extends AppCompatActivity {
     private GroqApiService groqService;
     private String currentChallenge;
     private String expectedSolution;
+    private final List<TestCaseRunner.TestCase> testCases = new ArrayList<>();
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -113,12 +120,12 @@ public class AIProgrammingChallengeActivity extends AppCompatActivity {
         statusText.setText("Generating programming challenge about " + topic + "...");
         
         groqService.generateProgrammingChallenge(topic, difficulty, true)
-            .thenAccept(response -> runOnUiThread(() -> {
+            .thenAccept(response -> runWhileShown(() -> {
                 showLoading(false);
                 parseAndDisplayChallenge(response);
             }))
             .exceptionally(throwable -> {
-                runOnUiThread(() -> {
+                runWhileShown(() -> {
                     showLoading(false);
                     statusText.setText("Error generating challenge: " + throwable.getMessage());
                     Toast.makeText(this, "Failed to generate challenge", Toast.LENGTH_SHORT).show();
@@ -161,8 +168,24 @@ public class AIProgrammingChallengeActivity extends AppCompatActivity {
                 hintsText.setVisibility(View.GONE);
             }
             
+            testCases.clear();
+            int invalidCases = 0;
+            if (challengeObj.has("testCases") && challengeObj.get("testCases").isJsonArray()) {
+                for (JsonElement element : challengeObj.getAsJsonArray("testCases")) {
+                    TestCaseRunner.TestCase testCase = parseTestCase(element);
+                    if (testCase != null) {
+                        testCases.add(testCase);
+                    } else {
+                        invalidCases++;
+                    }
+                }
+            }
+            
             showSolutionButton.setEnabled(true);
-            statusText.setText("Challenge generated successfully! Start coding!");
+            statusText.setText(invalidCases == 0
+                ? "Challenge generated successfully! Start coding!"
+                : "Challenge generated successfully! Start coding! (skipped " + invalidCases
+                    + " invalid test case" + (invalidCases == 1 ? ")" : "s)"));
             
         } catch (Exception e) {
             statusText.setText("Error parsing challenge: " + e.getMessage());
@@ -170,6 +193,27 @@ public class AIProgrammingChallengeActivity extends AppCompatActivity {
         }
     }
     
+    /**
+     * A test case of the generated challenge, or null if it has no string
+     * expected output or an input that is not a string; one malformed case
+     * should not throw away the whole challenge.
+     */
+    private static TestCaseRunner.TestCase parseTestCase(JsonElement element) {
+        if (!element.isJsonObject()) {
+            return null;
+        }
+        JsonObject testCase = element.getAsJsonObject();
+        JsonElement expected = testCase.get("expectedOutput");
+        JsonElement input = testCase.get("input");
+        if (expected == null || !expected.isJsonPrimitive()
+                || (input != null && !input.isJsonNull() && !input.isJsonPrimitive())) {
+            return null;
+        }
+        return new TestCaseRunner.TestCase(
+            input != null && input.isJsonPrimitive() ? input.getAsString() : "",
+            expected.getAsString());
+    }
+    
     private String extractJsonFromResponse(String response) {
         int startIndex = response.indexOf('{');
         int endIndex = response.lastIndexOf('}');
@@ -194,6 +238,53 @@ public class AIProgrammingChallengeActivity extends AppCompatActivity {
         }
     }
     
+    private void runTests() {
+        if (testCases.isEmpty()) {
+            Toast.makeText(this, "This challenge has no test cases", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        
+        String code = codeEditor.getText().toString();
+        List<TestCaseRunner.TestCase> cases = new ArrayList<>(testCases);
+        statusText.setText("Running " + cases.size() + " test cases...");
+        
+        // Stop at the first failing case; that is the one worth fixing first
+        CompletableFuture.supplyAsync(() -> TestCaseRunner.getShared().run(code, cases, true))
+            .thenAccept(report -> runWhileShown(() -> showTestReport(report)))
+            .exceptionally(throwable -> {
+                runWhileShown(() -> statusText.setText("Error running tests: " + throwable.getMessage()));
+                return null;
+            });
+    }
+    
+    /** Runs {@code action} on the UI thread, unless the activity is finishing or destroyed by then. */
+    private void runWhileShown(Runnable action) {
+        runOnUiThread(() -> {
+            if (!isFinishing() && !isDestroyed()) {
+                action.run();
+            }
+        });
+    }
+    
+    private void showTestReport(TestCaseRunner.Report report) {
+        TestCaseRunner.CaseResult failure = report.getFirstFailure();
+        if (failure == null) {
+            statusText.setText("✅ All " + report.getResults().size() + " tests passed in "
+                + report.getElapsedNanos() / 1_000_000 + " ms");
+            return;
+        }
+        
+        Grade grade = failure.getGrade();
+        StringBuilder status = new StringBuilder("❌ Test " + (failure.getIndex() + 1) + " failed");
+        if (grade.getVerdict() == Grade.Verdict.WRONG_ANSWER) {
+            status.append("\nExpected:\n").append(grade.getExpectedOutput())
+                .append("\nYour output:\n").append(grade.getActualOutput());
+        } else {
+            status.append(": ").append(grade.getMessage());
+        }
+        statusText.setText(status.toString());
+    }
+    
     private void showLoading(boolean show) {
         loadingProgress.setVisibility(show ? View.VISIBLE : View.GONE);
         generateButton.setEnabled(!show);
@@ -215,6 +306,9 @@ public class AIProgrammingChallengeActivity extends AppCompatActivity {
         } else if (itemId == R.id.action_clear_code) {
             codeEditor.setText("// Your Java code here...\npublic class Solution {\n    \n}");
             return true;
+        } else if (itemId == R.id.action_run_code) {
+            runTests();
+            return true;
         } else if (itemId == R.id.action_save_challenge) {
             saveChallenge();
             return true;
@@ -1,30 +1,73 @@
 package com.example.javabuddy.activities;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.view.View;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.javabuddy.R;
+import com.example.javabuddy.adapters.ConsoleAdapter;
 import com.example.javabuddy.compiler.AdvancedJavaInterpreter;
-import com.example.javabuddy.compiler.RealJavaCompiler;
+import com.example.javabuddy.compiler.ExecutionService;
 import com.example.javabuddy.compiler.JavaCompiler;
+import com.example.javabuddy.compiler.runtime.ConsoleBuffer;
+import com.example.javabuddy.compiler.runtime.ExecutionBudget;
+import com.example.javabuddy.compiler.runtime.HeapMeter;
+import com.example.javabuddy.compiler.runtime.Profiler;
+import com.example.javabuddy.ui.EditorDiagnostics;
+import com.example.javabuddy.ui.ProfileGutterView;
 
 import io.github.rosemoe.sora.widget.CodeEditor;
 import io.github.rosemoe.sora.langs.java.JavaLanguage;
 import io.github.rosemoe.sora.widget.schemes.EditorColorScheme;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
 public class IDEActivity extends AppCompatActivity {
 
     private CodeEditor codeEditor;
+    private EditorDiagnostics editorDiagnostics;
+    private ProfileGutterView profileGutter;
     private String currentCode = "";
-    private JavaCompiler javaCompiler;
-    private AdvancedJavaInterpreter advancedInterpreter;
-    private RealJavaCompiler realCompiler;
-    private int compilerMode = 2; // 0=Basic, 1=Advanced, 2=Real Compiler
+    private int compilerMode = 2; // 0=Basic, 1=Advanced, 2=Real Compiler, 3=Bytecode VM
+    
+    // Programs run on the app's shared, pre-warmed workers; a new run replaces this screen's previous one
+    private final ExecutionService executionService = ExecutionService.getShared();
+    private ExecutionBudget currentRun;
+    /** Budget of the run whose result is on screen, for its memory use. */
+    private ExecutionBudget shownRun;
+    private com.google.android.material.floatingactionbutton.FloatingActionButton fabRun;
+    
+    // Output streams into the console while the program runs
+    private static final long CONSOLE_REFRESH_MILLIS = 50;
+    private final Handler consoleHandler = new Handler(Looper.getMainLooper());
+    private final Runnable consoleRefresh = new Runnable() {
+        @Override
+        public void run() {
+            drainConsole();
+            if (currentRun != null) {
+                consoleHandler.postDelayed(this, CONSOLE_REFRESH_MILLIS);
+            }
+        }
+    };
+    private final List<String> consoleLines = new ArrayList<>();
+    private View consolePanel;
+    private TextView consoleStatus;
+    private RecyclerView consoleOutput;
+    private ConsoleAdapter consoleAdapter;
+    private ConsoleBuffer console;
+    private long consoleNextLine;
     
     // Sample Java template
     private final String DEFAULT_CODE = "public class Main {\n" +
@@ -39,11 +82,6 @@ public class IDEActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_ide);
 
-        // Initialize compilers
-        javaCompiler = new JavaCompiler(this);
-        advancedInterpreter = new AdvancedJavaInterpreter(this);
-        realCompiler = new RealJavaCompiler(this);
-
         initializeViews();
         setupCodeEditor();
     }
@@ -57,10 +95,28 @@ public class IDEActivity extends AppCompatActivity {
         }
 
         codeEditor = findViewById(R.id.code_editor);
+        profileGutter = findViewById(R.id.profile_gutter);
+        
+        // Setup console
+        consolePanel = findViewById(R.id.console_panel);
+        consoleStatus = findViewById(R.id.console_status);
+        consoleOutput = findViewById(R.id.console_output);
+        consoleAdapter = new ConsoleAdapter(this);
+        LinearLayoutManager consoleLayout = new LinearLayoutManager(this);
+        consoleLayout.setStackFromEnd(true);
+        consoleOutput.setLayoutManager(consoleLayout);
+        consoleOutput.setAdapter(consoleAdapter);
+        consoleOutput.setItemAnimator(null);
         
         // Setup FAB
-        com.google.android.material.floatingactionbutton.FloatingActionButton fabRun = findViewById(R.id.fab_run);
-        fabRun.setOnClickListener(v -> runCode());
+        fabRun = findViewById(R.id.fab_run);
+        fabRun.setOnClickListener(v -> {
+            if (currentRun != null) {
+                stopCode();
+            } else {
+                runCode();
+            }
+        });
     }
 
     private void setupCodeEditor() {
@@ -74,6 +130,13 @@ public class IDEActivity extends AppCompatActivity {
         // Set default code
         codeEditor.setText(DEFAULT_CODE);
         
+        // Underline errors as the user types
+        editorDiagnostics = new EditorDiagnostics(codeEditor);
+        editorDiagnostics.refresh();
+        
+        // Heat map of the last profiled run; cleared on the next edit
+        profileGutter.attach(codeEditor);
+        
         // Configure editor settings
         codeEditor.setTextSize(14);
         codeEditor.setLineSpacing(2f, 1.0f);
@@ -86,6 +149,7 @@ public class IDEActivity extends AppCompatActivity {
         return true;
     }
 
+    
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         int itemId = item.getItemId();
@@ -96,6 +160,12 @@ public class IDEActivity extends AppCompatActivity {
         } else if (itemId == R.id.action_run) {
             runCode();
             return true;
+        } else if (itemId == R.id.action_profile) {
+            runCode(true);
+            return true;
+        } else if (itemId == R.id.action_stop) {
+            stopCode();
+            return true;
         } else if (itemId == R.id.action_clear) {
             clearCode();
             return true;
@@ -114,6 +184,14 @@ public class IDEActivity extends AppCompatActivity {
     }
 
     private void runCode() {
+        runCode(false);
+    }
+    
+    /**
+     * Runs the code in the current mode, or profiled: on the advanced
+     * interpreter if that is the mode, otherwise on the bytecode VM.
+     */
+    private void runCode(boolean profile) {
         currentCode = codeEditor.getText().toString();
         
         if (currentCode.trim().isEmpty()) {
@@ -121,39 +199,108 @@ public class IDEActivity extends AppCompatActivity {
             return;
         }
 
-        // Show loading message with current mode
-        final String mode = getCompilerModeName();
-        Toast.makeText(this, "Compiling with " + mode + "...", Toast.LENGTH_SHORT).show();
+        boolean profileWalker = compilerMode == ExecutionService.Engine.ADVANCED.ordinal();
+        final int engineMode = profile && !profileWalker ? ExecutionService.Engine.VM.ordinal() : compilerMode;
+        final String mode = !profile ? getCompilerModeName()
+                : profileWalker ? "Advanced Interpreter (profiled)" : "Bytecode VM (profiled)";
+        final Profiler profiler = profile ? new Profiler() : null;
+        profileGutter.clear();
         
-        // Run compilation and execution in background thread
-        new Thread(() -> {
-            try {
-                Object result = null;
-                
-                switch (compilerMode) {
-                    case 0: // Basic Interpreter
-                        result = javaCompiler.compileAndRun(currentCode);
-                        break;
-                    case 1: // Advanced Interpreter
-                        result = advancedInterpreter.compileAndRun(currentCode);
-                        break;
-                    case 2: // Real Java Compiler
-                        result = realCompiler.compileAndRun(currentCode);
-                        break;
-                }
-                
-                // Update UI on main thread
-                final Object finalResult = result;
-                runOnUiThread(() -> {
-                    handleCompilerResult(finalResult, mode);
-                });
-                
-            } catch (Exception e) {
-                runOnUiThread(() -> {
-                    showOutputDialog("Error", "Unexpected error in " + mode + ": " + e.getMessage());
-                });
-            }
-        }).start();
+        // Run on the shared worker pool; the run's budget lets Stop end it
+        final ConsoleBuffer output = new ConsoleBuffer();
+        ExecutionService.Run run;
+        try {
+            run = executionService.submit(this, ExecutionService.Engine.values()[engineMode],
+                    currentCode, output, profiler, (finished, result) -> runOnUiThread(() -> {
+                        if (!finishRun(finished.getBudget())) {
+                            return;
+                        }
+                        drainConsole();
+                        shownRun = finished.getBudget();
+                        if (finished.getError() != null) {
+                            reportError(mode, "Unexpected error in " + mode + ": " + finished.getError().getMessage());
+                        } else {
+                            handleCompilerResult(result, mode, engineMode);
+                            if (profiler != null) {
+                                showProfile(profiler);
+                            }
+                        }
+                    }));
+        } catch (RejectedExecutionException e) {
+            reportBusy(mode);
+            return;
+        }
+        setCurrentRun(run.getBudget());
+        startConsole(output, mode);
+    }
+    
+    private void stopCode() {
+        if (currentRun != null) {
+            currentRun.cancel();
+            Toast.makeText(this, "Stopping...", Toast.LENGTH_SHORT).show();
+        }
+    }
+    
+    private void setCurrentRun(ExecutionBudget run) {
+        currentRun = run;
+        fabRun.setImageResource(run != null ? R.drawable.ic_stop : R.drawable.ic_play);
+        fabRun.setContentDescription(run != null ? "Stop Code" : "Run Code");
+        invalidateOptionsMenu();
+    }
+    
+    /** Clears the finished run; false if its result should not be shown any more. */
+    private boolean finishRun(ExecutionBudget run) {
+        if (isFinishing() || isDestroyed()) {
+            return false;
+        }
+        if (run.isCancelled() && currentRun != run) {
+            // A newer run replaced this one and owns the console now
+            return false;
+        }
+        if (currentRun == run) {
+            setCurrentRun(null);
+        }
+        return true;
+    }
+    
+    private void startConsole(ConsoleBuffer output, String mode) {
+        console = output;
+        consoleNextLine = 0;
+        consoleAdapter.clear();
+        consolePanel.setVisibility(View.VISIBLE);
+        consoleStatus.setText("Running with " + mode + "...");
+        consoleHandler.removeCallbacks(consoleRefresh);
+        consoleHandler.post(consoleRefresh);
+    }
+    
+    /** Moves what the program printed since the last refresh into the console view. */
+    private void drainConsole() {
+        if (console == null) {
+            return;
+        }
+        boolean atBottom = !consoleOutput.canScrollVertically(1);
+        consoleLines.clear();
+        consoleNextLine = console.readLines(consoleNextLine, consoleLines);
+        consoleAdapter.appendOutput(consoleLines, console.getPartialLine());
+        if (atBottom && consoleAdapter.getItemCount() > 0) {
+            consoleOutput.scrollToPosition(consoleAdapter.getItemCount() - 1);
+        }
+    }
+    
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        consoleHandler.removeCallbacks(consoleRefresh);
+        if (editorDiagnostics != null) {
+            editorDiagnostics.release();
+        }
+        if (profileGutter != null) {
+            profileGutter.detach();
+        }
+        if (currentRun != null) {
+            currentRun.cancel();
+        }
+        executionService.cancel(this);
     }
     
     private String getCompilerModeName() {
@@ -161,71 +308,104 @@ public class IDEActivity extends AppCompatActivity {
             case 0: return "Basic Interpreter";
             case 1: return "Advanced Interpreter";
             case 2: return "Real Java Compiler";
+            case 3: return "Bytecode VM";
             default: return "Unknown";
         }
     }
     
-    private void handleCompilerResult(Object result, String mode) {
-        if (compilerMode == 0) {
+    private void handleCompilerResult(Object result, String mode, int engineMode) {
+        if (engineMode == 0) {
             // Basic Interpreter
             JavaCompiler.CompileResult basicResult = (JavaCompiler.CompileResult) result;
             if (basicResult.isSuccess()) {
-                String output = basicResult.getOutput();
-                if (output.isEmpty()) {
-                    output = "Program executed successfully! (No output)";
-                }
-                showOutputDialog(mode + " - Success", output);
+                reportSuccess(mode, basicResult.getOutput().isEmpty());
             } else {
-                showOutputDialog(mode + " - Error", basicResult.getMessage());
+                reportError(mode, basicResult.getMessage());
             }
-        } else if (compilerMode == 1) {
-            // Advanced Interpreter
+        } else if (engineMode == 1 || engineMode == 3) {
+            // Advanced Interpreter and Bytecode VM
             AdvancedJavaInterpreter.CompileResult advResult = (AdvancedJavaInterpreter.CompileResult) result;
             if (advResult.isSuccess()) {
-                String output = advResult.getOutput();
-                if (output.isEmpty()) {
-                    output = "Program executed successfully! (No output)";
-                }
-                showOutputDialog(mode + " - Success", output);
+                reportSuccess(mode, advResult.getOutput().isEmpty());
             } else {
-                showOutputDialog(mode + " - Error", advResult.getMessage());
+                reportError(mode, advResult.getMessage());
             }
-        } else if (compilerMode == 2) {
+        } else if (engineMode == 2) {
             // Real Java Compiler - can return CompileResult or String
             if (result instanceof AdvancedJavaInterpreter.CompileResult) {
                 AdvancedJavaInterpreter.CompileResult compileResult = (AdvancedJavaInterpreter.CompileResult) result;
                 if (compileResult.isSuccess()) {
-                    String output = compileResult.getOutput();
-                    if (output.isEmpty()) {
-                        output = "Program compiled and executed successfully! (No output)";
-                    }
-                    showOutputDialog(mode + " - Success", output);
+                    reportSuccess(mode, compileResult.getOutput().isEmpty());
                 } else {
-                    showOutputDialog(mode + " - Error", compileResult.getMessage());
+                    reportError(mode, compileResult.getMessage());
                 }
             } else if (result instanceof String) {
                 String output = (String) result;
                 if (output.startsWith("Compilation Error:") || output.startsWith("Runtime Error:") || output.startsWith("Error:")) {
-                    showOutputDialog(mode + " - Error", output);
+                    reportError(mode, output);
                 } else {
-                    if (output.isEmpty()) {
-                        output = "Program compiled and executed successfully! (No output)";
-                    }
-                    showOutputDialog(mode + " - Success", output);
+                    consoleAdapter.appendMessage(output, false);
+                    reportSuccess(mode, output.isEmpty());
                 }
             } else {
-                showOutputDialog(mode + " - Result", result.toString());
+                consoleAdapter.appendMessage(result.toString(), false);
+                reportSuccess(mode, false);
             }
         }
     }
-
-    private void showOutputDialog(String title, String output) {
-        androidx.appcompat.app.AlertDialog.Builder builder = 
-            new androidx.appcompat.app.AlertDialog.Builder(this);
-        builder.setTitle(title)
-               .setMessage(output)
-               .setPositiveButton("OK", null)
-               .show();
+    
+    // The program's output is already in the console; these add how the run ended
+    
+    private void reportSuccess(String mode, boolean noOutput) {
+        consoleStatus.setText(mode + " - Finished" + (noOutput ? " (no output)" : "") + peakMemoryNote()
+                + droppedLinesNote());
+    }
+    
+    private void reportError(String mode, String message) {
+        consoleStatus.setText(mode + " - Error" + peakMemoryNote() + droppedLinesNote());
+        consoleAdapter.appendMessage(message, true);
+        consoleOutput.scrollToPosition(consoleAdapter.getItemCount() - 1);
+    }
+    
+    /** The service's queue is full, so the run was not submitted. */
+    private void reportBusy(String mode) {
+        consolePanel.setVisibility(View.VISIBLE);
+        consoleStatus.setText(mode + " - Busy");
+        consoleAdapter.appendMessage("Too many programs are waiting to run. Try again in a moment.", true);
+        consoleOutput.scrollToPosition(consoleAdapter.getItemCount() - 1);
+    }
+    
+    /** Colors the lines by time in the gutter and lists the most expensive methods in the console. */
+    private void showProfile(Profiler profiler) {
+        if (profiler.getMaxLine() == 0) {
+            consoleAdapter.appendMessage("No profile recorded: the program did not run far enough to be profiled.", false);
+            return;
+        }
+        profileGutter.setProfile(profiler);
+        StringBuilder summary = new StringBuilder("Profile (" + profiler.getTotalNanos() / 1_000 + " us in total)");
+        List<Profiler.MethodProfile> methods = profiler.getMethods();
+        for (int i = 0; i < Math.min(methods.size(), 5); i++) {
+            Profiler.MethodProfile method = methods.get(i);
+            summary.append("\n  ").append(method.getName())
+                    .append(": ").append(method.getInvocations()).append(" calls, ")
+                    .append(method.getNanos() / 1_000).append(" us");
+        }
+        for (Profiler.TierTransition transition : profiler.getTierTransitions()) {
+            summary.append("\n  ").append(transition);
+        }
+        consoleAdapter.appendMessage(summary.toString(), false);
+        consoleOutput.scrollToPosition(consoleAdapter.getItemCount() - 1);
+    }
+    
+    /** Peak heap use as the engine estimated it; the basic interpreter does not keep track. */
+    private String peakMemoryNote() {
+        long peak = shownRun != null ? shownRun.getPeakHeapBytes() : 0;
+        return peak > 0 ? " - peak memory " + HeapMeter.formatBytes(peak) : "";
+    }
+    
+    private String droppedLinesNote() {
+        long dropped = console != null ? console.getDroppedLineCount() : 0;
+        return dropped > 0 ? " - " + dropped + " earlier lines not kept" : "";
     }
 
     private void clearCode() {
@@ -400,7 +580,7 @@ public class IDEActivity extends AppCompatActivity {
     }
     
     private void toggleCompilerMode() {
-        compilerMode = (compilerMode + 1) % 3; // Cycle through 0, 1, 2
+        compilerMode = (compilerMode + 1) % 4; // Cycle through 0, 1, 2, 3
         String mode = getCompilerModeName();
         
         Toast.makeText(this, "Switched to " + mode, Toast.LENGTH_LONG).show();
@@ -415,7 +595,14 @@ public class IDEActivity extends AppCompatActivity {
         if (toggleItem != null) {
             String currentMode = getCompilerModeName();
             toggleItem.setTitle("Current: " + currentMode + " (Tap to switch)");
+            toggleItem.setEnabled(currentRun == null);
         }
+        
+        // While a program runs, Run turns into Stop
+        boolean running = currentRun != null;
+        menu.findItem(R.id.action_run).setVisible(!running);
+        menu.findItem(R.id.action_stop).setVisible(running);
+        menu.findItem(R.id.action_profile).setEnabled(!running);
         return super.onPrepareOptionsMenu(menu);
     }
 }
\ No newline at end of file
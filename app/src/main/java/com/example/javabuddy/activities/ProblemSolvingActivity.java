@@ -10,12 +10,16 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 
 import com.example.javabuddy.R;
+import com.example.javabuddy.compiler.ExecutionService;
+import com.example.javabuddy.compiler.grading.Grade;
+import com.example.javabuddy.compiler.grading.Grader;
 import com.example.javabuddy.database.JavaBuddyDatabase;
 import com.example.javabuddy.database.entities.PracticeProblem;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import io.github.rosemoe.sora.widget.CodeEditor;
 import io.github.rosemoe.sora.langs.java.JavaLanguage;
@@ -29,6 +33,7 @@ public class ProblemSolvingActivity extends AppCompatActivity {
     
     private JavaBuddyDatabase database;
     private ExecutorService executor;
+    private final ExecutionService executionService = ExecutionService.getShared();
     private PracticeProblem currentProblem;
     private int problemId;
     private boolean hintsShown = false;
@@ -175,41 +180,53 @@ public class ProblemSolvingActivity extends AppCompatActivity {
             return;
         }
 
-        // Basic validation and simulation
-        if (validateBasicSyntax(code)) {
-            // In a real implementation, you would compile and run the code
-            // and compare output with expected output
-            showSimulatedResult(code);
-        } else {
-            Toast.makeText(this, "Code contains syntax errors!", Toast.LENGTH_SHORT).show();
+        if (currentProblem == null) {
+            Toast.makeText(this, "Problem is still loading", Toast.LENGTH_SHORT).show();
+            return;
         }
-    }
 
-    private boolean validateBasicSyntax(String code) {
-        return code.contains("public class") && 
-               code.contains("public static void main") &&
-               code.contains("{") && 
-               code.contains("}");
+        // Run the submission against the sample input and compare its output, on
+        // the shared worker pool so leaving the screen cancels it
+        final PracticeProblem problem = currentProblem;
+        fabRun.setEnabled(false);
+        try {
+            executionService.submit(this, budget -> Grader.getShared().grade(problem.getId(), code,
+                    problem.getSampleInput(), problem.getExpectedOutput(), budget), (run, result) -> runOnUiThread(() -> {
+                fabRun.setEnabled(true);
+                if (isFinishing() || isDestroyed()) {
+                    return;
+                }
+                if (run.getError() != null) {
+                    showResultDialog("Runtime Error", "Grading failed: " + run.getError().getMessage(), false);
+                } else {
+                    showGrade((Grade) result);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            fabRun.setEnabled(true);
+            Toast.makeText(this, "Too many programs are waiting to run. Try again in a moment.", Toast.LENGTH_SHORT).show();
+        }
     }
 
-    private void showSimulatedResult(String code) {
-        // This is a simplified simulation
-        // In a real app, you would actually execute the code and compare output
-        
-        boolean hasLogic = code.contains("System.out.println") || 
-                          code.contains("return") ||
-                          code.contains("if") ||
-                          code.contains("for") ||
-                          code.contains("while");
-        
-        if (hasLogic) {
-            showResultDialog("Good Job!", 
-                           "Your solution looks good! Keep practicing to improve your skills.", 
-                           true);
-        } else {
-            showResultDialog("Keep Trying", 
-                           "Your solution needs more implementation. Add some logic to solve the problem.", 
-                           false);
+    private void showGrade(Grade grade) {
+        switch (grade.getVerdict()) {
+            case ACCEPTED:
+                showResultDialog("Accepted!",
+                               "Your output matches the expected output. Well done!",
+                               true);
+                break;
+            case WRONG_ANSWER:
+                showResultDialog("Wrong Answer",
+                               grade.getMessage() + "\n\nExpected:\n" + grade.getExpectedOutput() +
+                               "\n\nYour output:\n" + grade.getActualOutput(),
+                               false);
+                break;
+            case COMPILE_ERROR:
+                showResultDialog("Compile Error", grade.getMessage(), false);
+                break;
+            default:
+                showResultDialog("Runtime Error", grade.getMessage(), false);
+                break;
         }
     }
 
@@ -311,6 +328,7 @@ public class ProblemSolvingActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        executionService.cancel(this);
         if (executor != null && !executor.isShutdown()) {
             executor.shutdown();
         }
@@ -0,0 +1,133 @@
+package com.example.javabuddy.adapters;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.javabuddy.R;
+import com.example.javabuddy.compiler.runtime.ConsoleBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lines of the IDE console. Only the rows on screen are bound, so the
+ * console stays responsive however much a program prints; like the
+ * {@link ConsoleBuffer} it is fed from, it keeps a bounded number of lines
+ * and drops the oldest ones first.
+ */
+public class ConsoleAdapter extends RecyclerView.Adapter<ConsoleAdapter.ConsoleLineViewHolder> {
+
+    private static final int MAX_LINES = ConsoleBuffer.DEFAULT_MAX_LINES;
+
+    private final Context context;
+    private final List<ConsoleLine> lines = new ArrayList<>();
+    /** Whether the last row is output still waiting for its newline. */
+    private boolean lastLineOpen;
+
+    private static class ConsoleLine {
+        final String text;
+        final boolean error;
+
+        ConsoleLine(String text, boolean error) {
+            this.text = text;
+            this.error = error;
+        }
+    }
+
+    public ConsoleAdapter(Context context) {
+        this.context = context;
+    }
+
+    public void clear() {
+        lines.clear();
+        lastLineOpen = false;
+        notifyDataSetChanged();
+    }
+
+    /** Adds completed output lines, then the text printed after the last newline. */
+    public void appendOutput(List<String> completed, String partial) {
+        if (completed.isEmpty() && !lastLineOpen && partial.isEmpty()) {
+            return;
+        }
+        int oldSize = lines.size();
+        int start = oldSize;
+        if (lastLineOpen) {
+            // the open row is replaced by the first completed line, or by the longer partial text
+            start--;
+            lines.remove(start);
+        }
+        for (String line : completed) {
+            lines.add(new ConsoleLine(line, false));
+        }
+        lastLineOpen = !partial.isEmpty();
+        if (lastLineOpen) {
+            lines.add(new ConsoleLine(partial, false));
+        }
+        notifyRows(start, oldSize);
+    }
+
+    /** Adds a message from the IDE, such as the reason a run failed, on a line of its own. */
+    public void appendMessage(String message, boolean error) {
+        int oldSize = lines.size();
+        lastLineOpen = false;
+        for (String line : message.split("\n")) {
+            lines.add(new ConsoleLine(line, error));
+        }
+        notifyRows(oldSize, oldSize);
+    }
+
+    /** Rows from {@code start} on were rewritten, in a list that had {@code oldSize} rows. */
+    private void notifyRows(int start, int oldSize) {
+        int overflow = lines.size() - MAX_LINES;
+        if (overflow > 0) {
+            lines.subList(0, overflow).clear();
+            notifyDataSetChanged();
+            return;
+        }
+        int newSize = lines.size();
+        int changed = Math.min(oldSize, newSize) - start;
+        if (changed > 0) {
+            notifyItemRangeChanged(start, changed);
+        }
+        if (newSize > oldSize) {
+            notifyItemRangeInserted(oldSize, newSize - oldSize);
+        } else if (newSize < oldSize) {
+            notifyItemRangeRemoved(newSize, oldSize - newSize);
+        }
+    }
+
+    @NonNull
+    @Override
+    public ConsoleLineViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(context).inflate(R.layout.item_console_line, parent, false);
+        return new ConsoleLineViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ConsoleLineViewHolder holder, int position) {
+        ConsoleLine line = lines.get(position);
+        holder.lineText.setText(line.text);
+        holder.lineText.setTextColor(ContextCompat.getColor(context, line.error ? R.color.error_color : R.color.white));
+    }
+
+    @Override
+    public int getItemCount() {
+        return lines.size();
+    }
+
+    static class ConsoleLineViewHolder extends RecyclerView.ViewHolder {
+        TextView lineText;
+
+        public ConsoleLineViewHolder(@NonNull View itemView) {
+            super(itemView);
+            lineText = itemView.findViewById(R.id.console_line_text);
+        }
+    }
+}
@@ -14,13 +14,15 @@ import androidx.fragment.app.Fragment;
 import com.example.javabuddy.R;
 import com.example.javabuddy.compiler.JavaCompiler;
 import com.example.javabuddy.compiler.AdvancedJavaInterpreter;
-import com.example.javabuddy.compiler.RealJavaCompiler;
+import com.example.javabuddy.compiler.ExecutionService;
+import com.example.javabuddy.compiler.runtime.ConsoleBuffer;
 import com.example.javabuddy.database.JavaBuddyDatabase;
 import com.example.javabuddy.database.entities.Lesson;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import io.github.rosemoe.sora.widget.CodeEditor;
 import io.github.rosemoe.sora.langs.java.JavaLanguage;
@@ -34,6 +36,7 @@ public class LessonCodeFragment extends Fragment {
     private FloatingActionButton fabTryIt;
     private JavaBuddyDatabase database;
     private ExecutorService executor;
+    private final ExecutionService executionService = ExecutionService.getShared();
     private int lessonId;
     private String originalCode = "";
 
@@ -144,62 +147,57 @@ public class LessonCodeFragment extends Fragment {
     }
     
     private void executeWithCompiler(String code, int compilerType) {
-        new Thread(() -> {
-            try {
+        // The dialog offers the first three engines, in the service's order
+        ExecutionService.Engine engine = ExecutionService.Engine.values()[compilerType];
+        try {
+            executionService.submit(this, engine, code, new ConsoleBuffer(), (run, result) -> {
+                if (run.isCancelled()) {
+                    // A newer run replaced this one, or the fragment went away
+                    return;
+                }
+                String title;
                 String output;
-                String compilerName;
-                
-                switch (compilerType) {
-                    case 0: // Basic Compiler
-                        JavaCompiler basicCompiler = new JavaCompiler(requireContext());
-                        JavaCompiler.CompileResult basicResult = basicCompiler.compileAndRun(code);
-                        output = basicResult.isSuccess() ? 
-                                basicResult.getOutput() + "\n\n" + basicResult.getMessage() :
-                                "Error: " + basicResult.getMessage();
-                        compilerName = "Basic Compiler";
-                        break;
-                    case 1: // Advanced Interpreter
-                        AdvancedJavaInterpreter advancedInterpreter = new AdvancedJavaInterpreter(requireContext());
-                        AdvancedJavaInterpreter.CompileResult advancedResult = advancedInterpreter.compileAndRun(code);
-                        output = advancedResult.isSuccess() ? 
-                                advancedResult.getOutput() + "\n\n" + advancedResult.getMessage() :
-                                "Error: " + advancedResult.getMessage();
-                        compilerName = "Advanced Interpreter";
-                        break;
-                    case 2: // Real Java Compiler
-                        RealJavaCompiler realCompiler = new RealJavaCompiler(requireContext());
-                        Object realResult = realCompiler.compileAndRun(code);
-                        if (realResult instanceof JavaCompiler.CompileResult) {
-                            JavaCompiler.CompileResult result = (JavaCompiler.CompileResult) realResult;
-                            output = result.isSuccess() ? 
-                                    result.getOutput() + "\n\n" + result.getMessage() :
-                                    "Error: " + result.getMessage();
-                        } else {
-                            output = String.valueOf(realResult);
-                        }
-                        compilerName = "Real Java Compiler";
-                        break;
-                    default:
-                        output = "Unknown compiler selected";
-                        compilerName = "Unknown";
-                        break;
+                if (run.getError() != null) {
+                    title = "Error";
+                    output = "Execution failed: " + run.getError().getMessage();
+                } else {
+                    title = getCompilerName(compilerType) + " Output";
+                    output = formatResult(result);
                 }
                 
                 // Show output on UI thread
                 if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        showOutputDialog(compilerName + " Output", output);
-                    });
+                    getActivity().runOnUiThread(() -> showOutputDialog(title, output));
                 }
-                
-            } catch (Exception e) {
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        showOutputDialog("Error", "Execution failed: " + e.getMessage());
-                    });
-                }
-            }
-        }).start();
+            });
+        } catch (RejectedExecutionException e) {
+            showOutputDialog("Busy", "Too many programs are waiting to run. Try again in a moment.");
+        }
+    }
+    
+    private static String getCompilerName(int compilerType) {
+        switch (compilerType) {
+            case 0: return "Basic Compiler";
+            case 1: return "Advanced Interpreter";
+            case 2: return "Real Java Compiler";
+            default: return "Unknown";
+        }
+    }
+    
+    private static String formatResult(Object result) {
+        if (result instanceof JavaCompiler.CompileResult) {
+            JavaCompiler.CompileResult basicResult = (JavaCompiler.CompileResult) result;
+            return basicResult.isSuccess() ?
+                    basicResult.getOutput() + "\n\n" + basicResult.getMessage() :
+                    "Error: " + basicResult.getMessage();
+        }
+        if (result instanceof AdvancedJavaInterpreter.CompileResult) {
+            AdvancedJavaInterpreter.CompileResult advancedResult = (AdvancedJavaInterpreter.CompileResult) result;
+            return advancedResult.isSuccess() ?
+                    advancedResult.getOutput() + "\n\n" + advancedResult.getMessage() :
+                    "Error: " + advancedResult.getMessage();
+        }
+        return String.valueOf(result);
     }
 
     private void showOutputDialog(String title, String output) {
@@ -231,6 +229,7 @@ public class LessonCodeFragment extends Fragment {
     @Override
     public void onDestroy() {
         super.onDestroy();
+        executionService.cancel(this);
         if (executor != null && !executor.isShutdown()) {
             executor.shutdown();
         }
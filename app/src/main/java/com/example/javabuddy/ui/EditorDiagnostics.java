@@ -0,0 +1,111 @@
+package com.example.javabuddy.ui;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.javabuddy.compiler.diagnostics.DiagnosticsSession;
+import com.example.javabuddy.compiler.diagnostics.RuleEngine;
+
+import io.github.rosemoe.sora.event.ContentChangeEvent;
+import io.github.rosemoe.sora.event.SubscriptionReceipt;
+import io.github.rosemoe.sora.lang.diagnostic.DiagnosticRegion;
+import io.github.rosemoe.sora.lang.diagnostic.DiagnosticsContainer;
+import io.github.rosemoe.sora.widget.CodeEditor;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Underlines compile errors and warnings in a {@link CodeEditor} while the
+ * user types. Edits are debounced on the main thread; only then is the text
+ * copied and handed to a background worker that updates an incremental
+ * {@link DiagnosticsSession}. A burst of keystrokes costs one analysis, and
+ * results that are out of date by the time they arrive are dropped.
+ */
+public final class EditorDiagnostics {
+    
+    private static final long DEBOUNCE_MILLIS = 250;
+    
+    private final CodeEditor editor;
+    private final DiagnosticsSession session = new DiagnosticsSession(RuleEngine.withStandardRules());
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    /** The newest snapshot the worker has not picked up yet; older ones are simply replaced. */
+    private final AtomicReference<Snapshot> pending = new AtomicReference<>();
+    private final SubscriptionReceipt<ContentChangeEvent> subscription;
+    /** Bumped on every edit, main thread only. */
+    private int version;
+    private boolean released;
+    
+    private final Runnable analyze = new Runnable() {
+        @Override
+        public void run() {
+            if (pending.getAndSet(new Snapshot(version, editor.getText().toString())) == null) {
+                worker.execute(EditorDiagnostics.this::drain);
+            }
+        }
+    };
+    
+    private static final class Snapshot {
+        final int version;
+        final String text;
+        
+        Snapshot(int version, String text) {
+            this.version = version;
+            this.text = text;
+        }
+    }
+    
+    public EditorDiagnostics(CodeEditor editor) {
+        this.editor = editor;
+        this.subscription = editor.subscribeEvent(ContentChangeEvent.class, (event, unsubscribe) -> schedule());
+    }
+    
+    /** Analyzes the current text right away, e.g. after it was replaced programmatically. */
+    public void refresh() {
+        version++;
+        mainHandler.removeCallbacks(analyze);
+        analyze.run();
+    }
+    
+    /** Stops listening to the editor and shuts the worker down; call from onDestroy. */
+    public void release() {
+        released = true;
+        subscription.unsubscribe();
+        mainHandler.removeCallbacks(analyze);
+        worker.shutdownNow();
+    }
+    
+    private void schedule() {
+        version++;
+        mainHandler.removeCallbacks(analyze);
+        mainHandler.postDelayed(analyze, DEBOUNCE_MILLIS);
+    }
+    
+    /** Worker thread: analyzes the latest snapshot until no newer one has arrived. */
+    private void drain() {
+        Snapshot snapshot;
+        while ((snapshot = pending.getAndSet(null)) != null) {
+            final List<DiagnosticsSession.Marker> markers = session.update(snapshot.text);
+            final int analyzed = snapshot.version;
+            mainHandler.post(() -> publish(analyzed, markers));
+        }
+    }
+    
+    private void publish(int analyzed, List<DiagnosticsSession.Marker> markers) {
+        if (released || analyzed != version) {
+            return;
+        }
+        DiagnosticsContainer container = new DiagnosticsContainer();
+        for (DiagnosticsSession.Marker marker : markers) {
+            short severity = marker.diagnostic.isError()
+                    ? DiagnosticRegion.SEVERITY_ERROR
+                    : DiagnosticRegion.SEVERITY_WARNING;
+            container.addDiagnostic(new DiagnosticRegion(marker.start, marker.end, severity));
+        }
+        editor.setDiagnostics(container);
+    }
+}
+
@@ -0,0 +1,121 @@
+package com.example.javabuddy.ui;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.example.javabuddy.R;
+import com.example.javabuddy.compiler.runtime.Profiler;
+
+import io.github.rosemoe.sora.event.ContentChangeEvent;
+import io.github.rosemoe.sora.event.ScrollEvent;
+import io.github.rosemoe.sora.event.SubscriptionReceipt;
+import io.github.rosemoe.sora.widget.CodeEditor;
+
+/**
+ * A narrow strip laid over the left edge of a {@link CodeEditor} that
+ * shows where a profiled run spent its time: every line that ran gets a
+ * bar, the hotter the line the stronger the color. The strip follows the
+ * editor's scrolling and goes away as soon as the code is edited, since
+ * the line numbers of the profile no longer match the text.
+ *
+ * <p>The view does not take touches, so the editor underneath still gets them.
+ */
+public class ProfileGutterView extends View {
+
+    /** Alpha of a line that ran but took next to no time, so it is still visible. */
+    private static final int MIN_ALPHA = 48;
+
+    private final Paint paint = new Paint();
+    private final int heatColor;
+    private CodeEditor editor;
+    private SubscriptionReceipt<ScrollEvent> scrollSubscription;
+    private SubscriptionReceipt<ContentChangeEvent> changeSubscription;
+    /** Per source line, numbered from 1; null while no profile is shown. */
+    private long[] lineNanos;
+    private long[] lineHits;
+    private long maxLineNanos;
+
+    public ProfileGutterView(Context context) {
+        this(context, null);
+    }
+
+    public ProfileGutterView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        heatColor = ContextCompat.getColor(context, R.color.error_color);
+        paint.setStyle(Paint.Style.FILL);
+        setWillNotDraw(false);
+    }
+
+    /** Follows {@code editor}'s scrolling and edits; the view should cover its left edge. */
+    public void attach(CodeEditor editor) {
+        detach();
+        this.editor = editor;
+        scrollSubscription = editor.subscribeEvent(ScrollEvent.class, (event, unsubscribe) -> invalidate());
+        changeSubscription = editor.subscribeEvent(ContentChangeEvent.class, (event, unsubscribe) -> clear());
+    }
+
+    /** Stops listening to the editor; call from onDestroy. */
+    public void detach() {
+        if (scrollSubscription != null) {
+            scrollSubscription.unsubscribe();
+            changeSubscription.unsubscribe();
+            scrollSubscription = null;
+            changeSubscription = null;
+        }
+        editor = null;
+    }
+
+    /** Shows the line times of a finished run. */
+    public void setProfile(Profiler profiler) {
+        int maxLine = profiler.getMaxLine();
+        lineNanos = new long[maxLine + 1];
+        lineHits = new long[maxLine + 1];
+        for (int line = 1; line <= maxLine; line++) {
+            lineNanos[line] = profiler.getLineNanos(line);
+            lineHits[line] = profiler.getLineHits(line);
+        }
+        maxLineNanos = profiler.getMaxLineNanos();
+        invalidate();
+    }
+
+    public void clear() {
+        if (lineNanos != null) {
+            lineNanos = null;
+            lineHits = null;
+            invalidate();
+        }
+    }
+
+    public boolean hasProfile() {
+        return lineNanos != null;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (editor == null || lineNanos == null) {
+            return;
+        }
+        int rowHeight = editor.getRowHeight();
+        int offsetY = editor.getOffsetY();
+        int last = Math.min(editor.getLastVisibleLine(), lineNanos.length - 2);
+        for (int row = Math.max(editor.getFirstVisibleLine(), 0); row <= last; row++) {
+            // the editor counts lines from 0, the profile from 1
+            int line = row + 1;
+            if (lineHits[line] == 0) {
+                continue;
+            }
+            float heat = maxLineNanos > 0 ? (float) lineNanos[line] / maxLineNanos : 0f;
+            int alpha = MIN_ALPHA + Math.round((255 - MIN_ALPHA) * heat);
+            paint.setColor((heatColor & 0x00FFFFFF) | (alpha << 24));
+            float top = row * rowHeight - offsetY;
+            canvas.drawRect(0, top, getWidth(), top + rowHeight, paint);
+        }
+    }
+}
\ No newline at end of file
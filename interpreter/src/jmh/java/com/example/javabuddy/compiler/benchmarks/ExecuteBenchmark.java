@@ -0,0 +1,62 @@
+package com.example.javabuddy.compiler.benchmarks;
+
+import com.example.javabuddy.compiler.ExecutionService;
+import com.example.javabuddy.compiler.runtime.ConsoleBuffer;
+import com.example.javabuddy.compiler.runtime.ExecutionBudget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole Run click in each of the IDE's engine modes, from source text to
+ * console output. Repeated runs of a program hit the shared program cache,
+ * as they do in the app, so this mostly measures validation and execution;
+ * {@link FrontEndBenchmark} covers the uncached front end.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecuteBenchmark {
+    
+    /** Every value of {@link ExecutionService.Engine}, the compiler modes of the IDE menu. */
+    @Param({"BASIC", "ADVANCED", "REAL", "VM"})
+    public ExecutionService.Engine engine;
+    
+    private ExecutionService.Engines engines;
+    
+    /**
+     * Creates the engines and runs the program once with the default budget,
+     * the one the app runs it with. A program the budget stops would be
+     * timed as a fast run, so that fails the trial instead.
+     */
+    @Setup
+    public void createEngines(Program program) {
+        engines = new ExecutionService.Engines();
+        ExecutionBudget budget = new ExecutionBudget();
+        long start = System.nanoTime();
+        engines.run(engine, program.source, budget, new ConsoleBuffer(), null);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        if (budget.getInstructionCount() > budget.getMaxInstructions() || millis >= budget.getTimeoutMillis()) {
+            throw new IllegalStateException(program.name + " does not finish on " + engine + " within the default budget");
+        }
+    }
+    
+    @Benchmark
+    public Object run(Program program) {
+        return engines.run(engine, program.source, new ExecutionBudget(), new ConsoleBuffer(), null);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.javabuddy.compiler.benchmarks;
+
+import com.example.javabuddy.compiler.diagnostics.Diagnostic;
+import com.example.javabuddy.compiler.diagnostics.RuleEngine;
+import com.example.javabuddy.compiler.parser.Lexer;
+import com.example.javabuddy.compiler.parser.ParseException;
+import com.example.javabuddy.compiler.parser.Parser;
+import com.example.javabuddy.compiler.parser.Token;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The stages every engine mode shares: lexing, parsing (with local
+ * resolution) and the "Real Java Compiler" validation rules. These run
+ * without the program cache, the way a program is handled the first time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrontEndBenchmark {
+    
+    private final RuleEngine rules = RuleEngine.withStandardRules();
+    
+    @Benchmark
+    public List<Token> lex(Program program) {
+        return new Lexer(program.source).tokenize();
+    }
+    
+    /** Programs the parser rejects are measured up to their parse error, as the user would see it. */
+    @Benchmark
+    public Object parse(Program program) {
+        try {
+            return Parser.parse(program.tokens);
+        } catch (ParseException e) {
+            return e;
+        }
+    }
+    
+    @Benchmark
+    public List<Diagnostic> validate(Program program) {
+        return rules.validate(program.tokens, program.unit);
+    }
+}
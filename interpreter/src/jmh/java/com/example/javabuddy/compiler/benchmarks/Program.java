@@ -0,0 +1,70 @@
+package com.example.javabuddy.compiler.benchmarks;
+
+import com.example.javabuddy.compiler.ProgramCache;
+import com.example.javabuddy.compiler.ast.CompilationUnit;
+import com.example.javabuddy.compiler.parser.ParseException;
+import com.example.javabuddy.compiler.parser.Token;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * One program of the benchmark corpus in {@code src/jmh/resources/corpus}:
+ * six workloads written for the benchmarks, then the code example of every
+ * lesson, copied from the app's DatabasePopulator.
+ */
+@State(Scope.Benchmark)
+public class Program {
+    
+    @Param({
+            "arithmetic", "strings", "recursion", "dispatch", "variables", "sorting",
+            "lesson01", "lesson02", "lesson03", "lesson04", "lesson05",
+            "lesson06", "lesson07", "lesson08", "lesson09", "lesson10",
+            "lesson11", "lesson12", "lesson13", "lesson14", "lesson15"
+    })
+    public String name;
+    
+    public String source;
+    /** Lexed and parsed the way the engines see them, for the stages after parsing. */
+    public List<Token> tokens;
+    /** Null for lessons that use syntax the parser does not support. */
+    public CompilationUnit unit;
+    
+    @Setup
+    public void load() throws IOException {
+        source = read("corpus/" + name + ".java");
+        ProgramCache.Entry entry = new ProgramCache(1).get(source);
+        tokens = entry.getTokens();
+        try {
+            unit = entry.getUnit();
+        } catch (ParseException e) {
+            unit = null;
+        }
+    }
+    
+    private static String read(String resource) throws IOException {
+        InputStream in = Program.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException("missing corpus program " + resource);
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            in.close();
+        }
+    }
+}
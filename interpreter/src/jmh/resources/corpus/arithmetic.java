@@ -0,0 +1,15 @@
+public class Main {
+    public static void main(String[] args) {
+        long sum = 0;
+        int product = 1;
+        for (int i = 1; i <= 20000; i++) {
+            sum += i * i % 7;
+            product = (product * 31 + i) % 1000003;
+            if (i % 3 == 0) {
+                sum -= i / 3;
+            }
+        }
+        double average = sum / 20000.0;
+        System.out.println(sum + " " + product + " " + average);
+    }
+}
@@ -0,0 +1,79 @@
+public class Main {
+    static abstract class Shape {
+        abstract double area();
+
+        String describe() {
+            return name() + " " + area();
+        }
+
+        String name() {
+            return "Shape";
+        }
+    }
+
+    static class Circle extends Shape {
+        private final double radius;
+
+        Circle(double radius) {
+            this.radius = radius;
+        }
+
+        double area() {
+            return 3.14159 * radius * radius;
+        }
+    }
+
+    static class Square extends Shape {
+        private final double side;
+
+        Square(double side) {
+            this.side = side;
+        }
+
+        double area() {
+            return side * side;
+        }
+    }
+
+    static class Rectangle extends Square {
+        private final double width;
+
+        Rectangle(double side, double width) {
+            super(side);
+            this.width = width;
+        }
+
+        @Override
+        String name() {
+            return "Rectangle";
+        }
+
+        @Override
+        double area() {
+            return super.area() / 2 + width;
+        }
+    }
+
+    public static void main(String[] args) {
+        Shape circle = new Circle(2);
+        Shape square = new Square(3);
+        Shape rectangle = new Rectangle(4, 2);
+        double total = 0;
+        for (int i = 0; i < 3000; i++) {
+            Shape shape;
+            if (i % 3 == 0) {
+                shape = circle;
+            } else if (i % 3 == 1) {
+                shape = square;
+            } else {
+                shape = rectangle;
+            }
+            total += shape.area();
+            if (i % 100 == 0) {
+                total += new Square(i).area() / 1000;
+            }
+        }
+        System.out.println(total);
+        System.out.println(rectangle.describe());
+    }
+}
@@ -0,0 +1,6 @@
+// The classic Hello World program in Java
+public class HelloWorld {
+    public static void main(String[] args) {
+        System.out.println("Hello, World!");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,5 @@
+int age = 25;
+double price = 19.99;
+char grade = 'A';
+boolean isActive = true;
+String name = "John";
\ No newline at end of file
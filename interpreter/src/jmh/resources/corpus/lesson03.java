@@ -0,0 +1,4 @@
+int a = 10, b = 5;
+int sum = a + b;     // 15
+int diff = a - b;    // 5
+boolean result = (a > b) && (sum > 10); // true
\ No newline at end of file
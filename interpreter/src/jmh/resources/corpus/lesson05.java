@@ -0,0 +1,18 @@
+// for loop
+for (int i = 1; i <= 5; i++) {
+    System.out.println("Count: " + i);
+}
+
+// while loop
+int count = 1;
+while (count <= 3) {
+    System.out.println("While: " + count);
+    count++;
+}
+
+// do-while loop
+int num = 1;
+do {
+    System.out.println("Do-While: " + num);
+    num++;
+} while (num <= 2);
\ No newline at end of file
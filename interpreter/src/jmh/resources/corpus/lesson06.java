@@ -0,0 +1,10 @@
+// Array example
+int[] scores = {85, 92, 78, 96, 88};
+System.out.println("First score: " + scores[0]);
+System.out.println("Array length: " + scores.length);
+
+// String example
+String text = "Hello World";
+System.out.println("Length: " + text.length());
+System.out.println("Uppercase: " + text.toUpperCase());
+System.out.println("Contains 'World': " + text.contains("World"));
\ No newline at end of file
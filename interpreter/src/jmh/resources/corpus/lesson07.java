@@ -0,0 +1,58 @@
+public class Calculator {
+    // Class (static) variable
+    private static double PI = 3.14159;
+    
+    // Instance variable
+    private String model;
+    
+    // Constructor
+    public Calculator(String model) {
+        this.model = model;
+    }
+    
+    // Static method - called with Calculator.add(5, 3)
+    public static int add(int a, int b) {
+        return a + b;
+    }
+    
+    // Instance method - needs Calculator object to call
+    public double multiply(double x, double y) {
+        System.out.println("Using " + model + " calculator");
+        return x * y;
+    }
+    
+    // Method overloading - same name, different parameters
+    public int add(int a, int b, int c) {
+        // Calls the other add method - reusing code
+        return add(a, b) + c;
+    }
+    
+    // Method with primitive parameters (pass by value)
+    public void incrementNumber(int number) {
+        number = number + 1;  // Only affects local copy
+    }
+    
+    // Method that returns different values based on condition
+    public String getCalculatorGrade() {
+        if (model.contains("Pro")) {
+            return "Professional";
+        } else {
+            return "Standard";
+        }
+    }
+    
+    // Method using static variable
+    public double calculateCircleArea(double radius) {
+        return PI * radius * radius;
+    }
+}
+
+// Usage
+int sum = Calculator.add(5, 3);  // Static method call
+Calculator calc = new Calculator("TI-84 Pro");
+double product = calc.multiply(4.5, 2.0);  // 9.0
+int tripleSum = calc.add(5, 3, 8);  // 16
+
+int x = 10;
+calc.incrementNumber(x);  // x still equals 10 after this call
+String grade = calc.getCalculatorGrade();  // "Professional"
\ No newline at end of file
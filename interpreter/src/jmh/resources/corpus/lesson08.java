@@ -0,0 +1,92 @@
+public class BankAccount {
+    // Private fields - Encapsulation
+    private String accountNumber;
+    private String owner;
+    private double balance;
+    private static double interestRate = 0.03;  // Class variable shared by all instances
+    
+    // Static initializer block - runs once when class is loaded
+    static {
+        System.out.println("BankAccount class loaded");
+        // Could initialize interestRate from configuration
+    }
+    
+    // Instance initializer block - runs before every constructor
+    {
+        System.out.println("Creating a new account");
+        this.balance = 0.0;
+    }
+    
+    // Default constructor
+    public BankAccount() {
+        this("Unknown", "00000000");
+        // Constructor chaining - calls parameterized constructor
+    }
+    
+    // Parameterized constructor
+    public BankAccount(String owner, String accountNumber) {
+        this.owner = owner;
+        this.accountNumber = accountNumber;
+        // balance already initialized to 0.0 by instance initializer block
+    }
+    
+    // Overloaded constructor with initial deposit
+    public BankAccount(String owner, String accountNumber, double initialDeposit) {
+        this(owner, accountNumber);  // Call the other constructor first
+        this.deposit(initialDeposit);  // Then make the deposit
+    }
+    
+    // Instance methods - define behavior
+    public void deposit(double amount) {
+        if (amount > 0) {
+            balance += amount;
+            System.out.println("Deposited: $" + amount);
+        } else {
+            System.out.println("Invalid deposit amount");
+        }
+    }
+    
+    public boolean withdraw(double amount) {
+        if (amount > 0 && amount <= balance) {
+            balance -= amount;
+            System.out.println("Withdrawn: $" + amount);
+            return true;
+        }
+        System.out.println("Invalid withdrawal or insufficient funds");
+        return false;
+    }
+    
+    // Getter methods - part of encapsulation
+    public String getAccountNumber() { return accountNumber; }
+    public String getOwner() { return owner; }
+    public double getBalance() { return balance; }
+    
+    // Static method - operates on class level
+    public static double getInterestRate() { return interestRate; }
+    public static void setInterestRate(double newRate) {
+        if (newRate >= 0) {
+            interestRate = newRate;
+        }
+    }
+    
+    // Method demonstrating this keyword
+    public void updateOwner(String owner) {
+        this.owner = owner;  // this.owner refers to instance variable
+    }
+    
+    // Method returning string representation of object
+    @Override
+    public String toString() {
+        return "Account [number=" + accountNumber + ", owner=" + owner + ", balance=$" + balance + "]"; 
+    }
+}
+
+// Usage example
+BankAccount account1 = new BankAccount();
+BankAccount account2 = new BankAccount("John Doe", "12345678");
+BankAccount account3 = new BankAccount("Jane Smith", "87654321", 1000.0);
+
+account2.deposit(500);
+boolean success = account3.withdraw(200);
+System.out.println(account3);  // Using toString method
+System.out.println("Current interest rate: " + BankAccount.getInterestRate());
\ No newline at end of file
@@ -0,0 +1,94 @@
+// The base class (parent/superclass)
+public class Animal {
+    // Protected members are accessible in subclasses
+    protected String name;
+    protected int age;
+    
+    // Constructor
+    public Animal(String name, int age) {
+        this.name = name;
+        this.age = age;
+        System.out.println("Animal constructor called");
+    }
+    
+    // Methods that can be inherited and overridden
+    public void makeSound() {
+        System.out.println("Some generic animal sound");
+    }
+    
+    public void eat() {
+        System.out.println(name + " is eating");
+    }
+    
+    // Final method that cannot be overridden
+    public final void breathe() {
+        System.out.println(name + " is breathing");
+    }
+    
+    // Static method - not overridden, but hidden
+    public static void taxonomyInfo() {
+        System.out.println("Animals are multicellular eukaryotic organisms");
+    }
+}
+
+// Dog subclass - inherits from Animal
+public class Dog extends Animal {
+    private String breed;
+    
+    // Constructor with constructor chaining
+    public Dog(String name, int age, String breed) {
+        super(name, age);  // Calls the parent constructor
+        this.breed = breed;
+        System.out.println("Dog constructor called");
+    }
+    
+    // Method overriding - note the @Override annotation
+    @Override
+    public void makeSound() {
+        System.out.println(name + " barks: Woof! Woof!");
+    }
+    
+    // Additional method specific to Dog
+    public void fetch() {
+        System.out.println(name + " is fetching the ball");
+    }
+    
+    // Overriding toString() method from Object class
+    @Override
+    public String toString() {
+        return "Dog [name=" + name + ", age=" + age + ", breed=" + breed + "]"; 
+    }
+    
+    // Static method hiding (not overriding)
+    public static void taxonomyInfo() {
+        System.out.println("Dogs belong to the family Canidae");
+    }
+}
+
+// Example of polymorphism
+public class InheritanceDemo {
+    public static void main(String[] args) {
+        // Dog object referenced by Dog type
+        Dog myDog = new Dog("Buddy", 3, "Golden Retriever");
+        myDog.makeSound();  // Calls Dog's method
+        myDog.fetch();      // Dog-specific method
+        
+        // Polymorphism: Dog object referenced by Animal type
+        Animal myAnimal = new Dog("Rex", 5, "German Shepherd");
+        myAnimal.makeSound();  // Calls Dog's overridden method
+        // myAnimal.fetch();   // Error: Animal reference doesn't know about fetch()
+        
+        // Runtime type checking with instanceof
+        if (myAnimal instanceof Dog) {
+            Dog castedDog = (Dog) myAnimal;  // Downcasting
+            castedDog.fetch();  // Now we can call Dog-specific method
+        }
+        
+        // Static method belongs to the class, not the object
+        Animal.taxonomyInfo();  // Calls Animal's static method
+        Dog.taxonomyInfo();     // Calls Dog's static method
+        
+        // Static method called through reference (not recommended)
+        myAnimal.taxonomyInfo();  // Calls Animal's method (reference type matters)
+    }
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+import java.io.*;
+import java.util.Scanner;
+
+// Custom exception class
+class InsufficientFundsException extends Exception {
+    private double amount;
+    
+    public InsufficientFundsException(double amount) {
+        super("Insufficient funds: Deficit of $" + amount);
+        this.amount = amount;
+    }
+    
+    public double getAmount() {
+        return amount;
+    }
+}
+
+class Account {
+    private String id;
+    private double balance;
+    
+    public Account(String id, double initialBalance) {
+        this.id = id;
+        this.balance = initialBalance;
+    }
+    
+    // Method with checked exception declaration
+    public void withdraw(double amount) throws InsufficientFundsException {
+        if (amount > balance) {
+            double deficit = amount - balance;
+            throw new InsufficientFundsException(deficit);  // Explicitly throw exception
+        }
+        balance -= amount;
+        System.out.println("Withdrawal successful. New balance: $" + balance);
+    }
+}
+
+public class ExceptionHandlingDemo {
+    public static void main(String[] args) {
+        Account account = new Account("12345", 500.0);
+        
+        // Basic try-catch-finally
+        try {
+            // Code that might throw exceptions
+            account.withdraw(700.0);  // Will throw InsufficientFundsException
+        } catch (InsufficientFundsException e) {
+            // Exception handler
+            System.out.println("Could not process withdrawal: " + e.getMessage());
+            System.out.println("Deficit amount: $" + e.getAmount());
+        } finally {
+            // Always executes, whether exception occurs or not
+            System.out.println("Transaction completed.\n");
+        }
+        
+        // Multiple catch blocks
+        try {
+            int[] numbers = {1, 2, 3};
+            System.out.println("Array element: " + numbers[5]);
+            int result = 10 / 0;  // ArithmeticException
+        } catch (ArrayIndexOutOfBoundsException e) {
+            System.out.println("Array index error: " + e.getMessage());
+        } catch (ArithmeticException e) {
+            System.out.println("Arithmetic error: " + e.getMessage());
+        } catch (Exception e) {
+            // General exception handler (must come last)
+            System.out.println("General error: " + e.getMessage());
+        }
+        
+        // Multi-catch (Java 7+)
+        try {
+            String number = "abc";
+            int value = Integer.parseInt(number);
+        } catch (NumberFormatException | NullPointerException e) {
+            System.out.println("Input parsing error: " + e.getMessage());
+        }
+        
+        // Try-with-resources (Java 7+)
+        try (Scanner scanner = new Scanner(new File("input.txt"))) {
+            // Resource automatically closed after this block
+            if (scanner.hasNextLine()) {
+                System.out.println(scanner.nextLine());
+            }
+        } catch (FileNotFoundException e) {
+            System.out.println("File not found: " + e.getMessage());
+        }
+        
+        // Exception propagation demonstration
+        try {
+            methodA();
+        } catch (Exception e) {
+            System.out.println("Caught in main: " + e.getMessage());
+            System.out.println("Stack trace:");
+            e.printStackTrace();
+        }
+    }
+    
+    // Exception propagation through method calls
+    public static void methodA() throws Exception {
+        methodB();
+    }
+    
+    public static void methodB() throws Exception {
+        methodC();
+    }
+    
+    public static void methodC() throws Exception {
+        // Unchecked exception - does not require throws declaration
+        // but including it documents the behavior
+        throw new RuntimeException("Exception originated in methodC");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,118 @@
+import java.util.*;
+
+public class CollectionsDemo {
+    public static void main(String[] args) {
+        // ===== LIST IMPLEMENTATIONS =====
+        
+        // ArrayList - dynamic array implementation
+        List<String> arrayList = new ArrayList<>();
+        arrayList.add("Apple");        // O(1) amortized
+        arrayList.add("Banana");
+        arrayList.add("Cherry");
+        arrayList.add(1, "Blueberry"); // O(n) - requires shifting elements
+        
+        System.out.println("ArrayList demo:");
+        System.out.println("Element at index 2: " + arrayList.get(2)); // O(1) random access
+        System.out.println("Contains 'Apple'? " + arrayList.contains("Apple")); // O(n)
+        
+        // LinkedList - doubly-linked list implementation
+        LinkedList<String> linkedList = new LinkedList<>(arrayList); // Initialize from another collection
+        linkedList.addFirst("Avocado");   // O(1) operations at ends
+        linkedList.addLast("Durian");
+        
+        System.out.println("\nLinkedList demo:");
+        System.out.println("First element: " + linkedList.getFirst());
+        System.out.println("Last element: " + linkedList.getLast());
+        
+        // ===== SET IMPLEMENTATIONS =====
+        
+        // HashSet - no duplicates, unordered
+        Set<String> hashSet = new HashSet<>();
+        hashSet.add("Dog");    // O(1) operations
+        hashSet.add("Cat");
+        hashSet.add("Bird");
+        hashSet.add("Cat");    // Duplicate not added
+        
+        System.out.println("\nHashSet demo:");
+        System.out.println("Set size: " + hashSet.size()); // 3, not 4
+        System.out.println("Contains 'Dog'? " + hashSet.contains("Dog")); // O(1)
+        
+        // TreeSet - sorted set
+        TreeSet<Integer> treeSet = new TreeSet<>();
+        treeSet.add(5);
+        treeSet.add(1);
+        treeSet.add(10);
+        treeSet.add(3);
+        
+        System.out.println("\nTreeSet demo (sorted):");
+        System.out.println("Elements in order: " + treeSet); // [1, 3, 5, 10]
+        System.out.println("First element: " + treeSet.first());
+        System.out.println("Elements ≥ 3: " + treeSet.tailSet(3)); // [3, 5, 10]
+        
+        // ===== MAP IMPLEMENTATIONS =====
+        
+        // HashMap - key-value storage
+        Map<String, Integer> studentScores = new HashMap<>();
+        studentScores.put("Alice", 95);  // O(1) operations
+        studentScores.put("Bob", 87);
+        studentScores.put("Charlie", 92);
+        studentScores.put("Alice", 98);  // Overwrites previous value
+        
+        System.out.println("\nHashMap demo:");
+        System.out.println("Bob's score: " + studentScores.get("Bob")); // O(1)
+        System.out.println("All students: " + studentScores.keySet());
+        
+        // TreeMap - sorted by keys
+        Map<String, String> countryCapitals = new TreeMap<>(); // Sorted by keys
+        countryCapitals.put("USA", "Washington D.C.");
+        countryCapitals.put("France", "Paris");
+        countryCapitals.put("Japan", "Tokyo");
+        countryCapitals.put("Australia", "Canberra");
+        
+        System.out.println("\nTreeMap demo (sorted by keys):");
+        for (Map.Entry<String, String> entry : countryCapitals.entrySet()) {
+            System.out.println(entry.getKey() + " - " + entry.getValue());
+        }
+        
+        // ===== QUEUE IMPLEMENTATIONS =====
+        
+        // PriorityQueue - heap-based priority queue
+        PriorityQueue<Integer> priorityQueue = new PriorityQueue<>(); // Min-heap by default
+        priorityQueue.offer(30);
+        priorityQueue.offer(10);
+        priorityQueue.offer(20);
+        
+        System.out.println("\nPriorityQueue demo:");
+        System.out.println("Peek (doesn't remove): " + priorityQueue.peek()); // Smallest element
+        System.out.println("Poll (removes): " + priorityQueue.poll());
+        System.out.println("Next poll: " + priorityQueue.poll());
+        
+        // ArrayDeque - efficient stack and queue implementation
+        Deque<String> stack = new ArrayDeque<>();
+        stack.push("First");      // Stack operations (LIFO)
+        stack.push("Second");
+        stack.push("Third");
+        
+        System.out.println("\nArrayDeque as Stack (LIFO):");
+        System.out.println("Pop: " + stack.pop()); // Third
+        System.out.println("Pop: " + stack.pop()); // Second
+        
+        // ===== UTILITY METHODS =====
+        
+        List<Integer> numbers = Arrays.asList(5, 2, 8, 1, 9, 3);
+        System.out.println("\nUtility methods demo:");
+        System.out.println("Original list: " + numbers);
+        
+        Collections.sort(numbers);
+        System.out.println("Sorted list: " + numbers);
+        
+        Collections.shuffle(numbers);
+        System.out.println("Shuffled list: " + numbers);
+        
+        System.out.println("Max value: " + Collections.max(numbers));
+        System.out.println("Min value: " + Collections.min(numbers));
+        
+        int index = Collections.binarySearch(Arrays.asList(1, 2, 3, 5, 8, 9), 5);
+        System.out.println("Binary search for 5: found at index " + index);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,132 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+public class FileIODemo {
+    public static void main(String[] args) {
+        // ===== TRADITIONAL FILE I/O =====
+        
+        // 1. Working with File object
+        File file = new File("example.txt");
+        System.out.println("File exists: " + file.exists());
+        System.out.println("Is directory: " + file.isDirectory());
+        
+        // 2. Writing text using FileWriter (character stream)
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("Hello, World!\n");
+            writer.write("Java I/O is powerful\n");
+        } catch (IOException e) {
+            System.out.println("Error writing to file: " + e.getMessage());
+        }
+        
+        // 3. Reading text using BufferedReader (for efficiency)
+        try (FileReader fileReader = new FileReader(file);
+             BufferedReader reader = new BufferedReader(fileReader)) {
+            
+            String line;
+            System.out.println("\nReading with BufferedReader:");
+            while ((line = reader.readLine()) != null) {
+                System.out.println(line);
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+        }
+        
+        // 4. Writing binary data
+        try (FileOutputStream fos = new FileOutputStream("data.bin");
+             DataOutputStream dos = new DataOutputStream(fos)) {
+             
+            dos.writeInt(42);
+            dos.writeDouble(3.14159);
+            dos.writeUTF("Binary data example");
+        } catch (IOException e) {
+            System.out.println("Error writing binary data: " + e.getMessage());
+        }
+        
+        // 5. Reading binary data
+        try (FileInputStream fis = new FileInputStream("data.bin");
+             DataInputStream dis = new DataInputStream(fis)) {
+             
+            System.out.println("\nReading binary data:");
+            System.out.println("Integer: " + dis.readInt());
+            System.out.println("Double: " + dis.readDouble());
+            System.out.println("String: " + dis.readUTF());
+        } catch (IOException e) {
+            System.out.println("Error reading binary data: " + e.getMessage());
+        }
+        
+        // ===== MODERN NIO.2 FILE I/O (Java 7+) =====
+        
+        // 1. Creating and writing to a file
+        Path path = Paths.get("modern_example.txt");
+        try {
+            Files.writeString(path, "Modern Java NIO.2 API\nMakes file operations easier!", 
+                              StandardCharsets.UTF_8);
+            System.out.println("\nWrote text to " + path);
+        } catch (IOException e) {
+            System.out.println("Error writing with NIO.2: " + e.getMessage());
+        }
+        
+        // 2. Reading all lines at once
+        try {
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            System.out.println("\nReading with Files.readAllLines():");
+            for (String line : lines) {
+                System.out.println(line);
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading with NIO.2: " + e.getMessage());
+        }
+        
+        // 3. Working with directory
+        Path dirPath = Paths.get("example_dir");
+        try {
+            // Create directory if it doesn't exist
+            if (!Files.exists(dirPath)) {
+                Files.createDirectory(dirPath);
+                System.out.println("\nCreated directory: " + dirPath);
+            }
+            
+            // List directory contents
+            System.out.println("\nListing directory contents:");
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dirPath.getParent())) {
+                for (Path entry : stream) {
+                    System.out.println(entry.getFileName() + 
+                                      (Files.isDirectory(entry) ? " (dir)" : " (file)"));
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error with directory operations: " + e.getMessage());
+        }
+        
+        // ===== SCANNER FOR PARSING =====
+        
+        // 1. Scanner for console input
+        Scanner scanner = new Scanner(System.in);
+        System.out.print("\nEnter your age: ");
+        
+        // Type-safe input with validation
+        int age = 0;
+        if (scanner.hasNextInt()) {
+            age = scanner.nextInt();
+            scanner.nextLine(); // consume the newline
+            System.out.println("You are " + age + " years old.");
+        } else {
+            System.out.println("That's not a valid age!");
+            scanner.nextLine(); // consume the invalid input
+        }
+        
+        // 2. Scanner for parsing a string
+        String data = "John 25 3.14159";
+        Scanner dataScanner = new Scanner(data);
+        
+        System.out.println("\nParsing string with Scanner:");
+        String name = dataScanner.next();
+        int number = dataScanner.nextInt();
+        double pi = dataScanner.nextDouble();
+        
+        System.out.printf("Name: %s, Number: %d, Pi: %.5f%n", name, number, pi);
+        dataScanner.close();
+    }
+}
\ No newline at end of file
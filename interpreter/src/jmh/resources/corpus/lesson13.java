@@ -0,0 +1,131 @@
+// Interface definition with different features
+interface Payable {
+    // Abstract method (implicitly public and abstract)
+    double calculatePayment();
+    
+    // Constants (implicitly public, static, final)
+    double MINIMUM_WAGE = 15.0;
+    
+    // Default method (Java 8+)
+    default String getPaymentDetails() {
+        return "Payment amount: $" + calculatePayment();
+    }
+    
+    // Static method (Java 8+)
+    static boolean isValidPayment(double amount) {
+        return amount >= 0;
+    }
+    
+    // Private method for internal use (Java 9+)
+    private double calculateTax(double amount) {
+        return amount * 0.2; // 20% tax
+    }
+}
+
+// Another interface to demonstrate multiple inheritance
+interface Identified {
+    String getId();
+    
+    default void printId() {
+        System.out.println("ID: " + getId());
+    }
+}
+
+// Abstract class example
+abstract class Person {
+    // Instance variables (state)
+    protected String name;
+    protected int age;
+    
+    // Constructor
+    public Person(String name, int age) {
+        this.name = name;
+        this.age = age;
+    }
+    
+    // Concrete method (implemented)
+    public void introduce() {
+        System.out.println("Hello, my name is " + name + ".");
+    }
+    
+    // Abstract method (must be implemented by subclasses)
+    public abstract String getOccupation();
+    
+    // Protected method (accessible to subclasses)
+    protected boolean isAdult() {
+        return age >= 18;
+    }
+}
+
+// Concrete implementation of both an abstract class and multiple interfaces
+class Employee extends Person implements Payable, Identified {
+    private String employeeId;
+    private double hourlyRate;
+    private int hoursWorked;
+    
+    public Employee(String name, int age, String employeeId, double hourlyRate) {
+        super(name, age);
+        this.employeeId = employeeId;
+        this.hourlyRate = hourlyRate;
+        this.hoursWorked = 0;
+    }
+    
+    public void addHours(int hours) {
+        this.hoursWorked += hours;
+    }
+    
+    // Implementing abstract method from Person
+    @Override
+    public String getOccupation() {
+        return "Employee";
+    }
+    
+    // Implementing abstract method from Payable
+    @Override
+    public double calculatePayment() {
+        return Math.max(hourlyRate * hoursWorked, MINIMUM_WAGE * hoursWorked);
+    }
+    
+    // Implementing abstract method from Identified
+    @Override
+    public String getId() {
+        return employeeId;
+    }
+    
+    // Overriding default method from Payable
+    @Override
+    public String getPaymentDetails() {
+        return "Employee: " + name + ", Payment: $" + calculatePayment();
+    }
+}
+
+// Demo code showing the use of interfaces and abstract class
+class InterfaceAbstractDemo {
+    public static void main(String[] args) {
+        // Cannot instantiate interfaces or abstract classes
+        // Person p = new Person("John", 25); // Error
+        
+        // Create employee instance
+        Employee emp = new Employee("Alice Smith", 30, "E12345", 25.0);
+        emp.addHours(40);
+        
+        // Using methods from Person (abstract class)
+        emp.introduce();  // Concrete method from abstract class
+        System.out.println("Occupation: " + emp.getOccupation());  // Implemented abstract method
+        
+        // Using methods from Payable interface
+        System.out.println(emp.getPaymentDetails());  // Default method (overridden)
+        System.out.println("Is payment valid: " + Payable.isValidPayment(emp.calculatePayment()));  // Static method
+        
+        // Using methods from Identified interface
+        emp.printId();  // Default method
+        
+        // Polymorphism with interfaces
+        Payable payableEntity = emp;
+        System.out.println("Payment through interface: $" + payableEntity.calculatePayment());
+        
+        // Polymorphism with abstract class
+        Person person = emp;
+        person.introduce();
+    }
+}
\ No newline at end of file
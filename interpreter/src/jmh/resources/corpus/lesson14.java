@@ -0,0 +1,166 @@
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+public class LambdaAndFunctionalDemo {
+    public static void main(String[] args) {
+        // ===== LAMBDA EXPRESSIONS =====
+        
+        // Basic lambda expression examples
+        Runnable noArgLambda = () -> System.out.println("No arguments lambda");
+        noArgLambda.run();
+        
+        // Single parameter (type inferred)
+        Function<String, Integer> lengthFunction = s -> s.length();
+        System.out.println("Length of 'Hello': " + lengthFunction.apply("Hello"));  // 5
+        
+        // Multiple parameters with explicit types
+        BinaryOperator<Integer> multiply = (Integer a, Integer b) -> a * b;
+        System.out.println("5 × 7 = " + multiply.apply(5, 7));  // 35
+        
+        // Block lambda with multiple statements
+        Function<Integer, Integer> factorial = n -> {
+            int result = 1;
+            for (int i = 1; i <= n; i++) {
+                result *= i;
+            }
+            return result;
+        };
+        System.out.println("Factorial of 5: " + factorial.apply(5));  // 120
+        
+        // ===== FUNCTIONAL INTERFACES =====
+        
+        List<String> names = Arrays.asList("Alice", "Bob", "Charlie", "Dave", "Eve");
+        
+        // Predicate - test a condition
+        Predicate<String> startsWithA = name -> name.startsWith("A");
+        System.out.println("\nNames starting with 'A': " + 
+                        names.stream().filter(startsWithA).collect(Collectors.toList()));
+        
+        // Consumer - perform operation without return
+        System.out.println("\nPrinting names with Consumer:");
+        Consumer<String> printUpperCase = name -> System.out.println(name.toUpperCase());
+        names.forEach(printUpperCase);
+        
+        // Function - transform input to output
+        Function<String, String> addGreeting = name -> "Hello, " + name + "!";
+        List<String> greetings = names.stream().map(addGreeting).collect(Collectors.toList());
+        System.out.println("\nGreetings: " + greetings);
+        
+        // Supplier - generate values
+        Supplier<Double> randomValue = () -> Math.random() * 100;
+        System.out.println("\nRandom values from supplier:");
+        for (int i = 0; i < 3; i++) {
+            System.out.println(randomValue.get());
+        }
+        
+        // BiFunction - takes two inputs, returns one output
+        BiFunction<String, Integer, String> repeatString = 
+            (str, times) -> str.repeat(times);  // Java 11+ feature
+        System.out.println("\nRepeated string: " + repeatString.apply("Java", 3));
+        
+        // ===== METHOD REFERENCES =====
+        
+        // Static method reference
+        Function<Double, Double> sqrt = Math::sqrt;
+        System.out.println("\nSquare root of 16: " + sqrt.apply(16.0));  // 4.0
+        
+        // Instance method reference of specific object
+        String prefix = "Mr. ";
+        Function<String, String> addPrefix = prefix::concat;
+        System.out.println(addPrefix.apply("Smith"));  // Mr. Smith
+        
+        // Instance method reference of arbitrary object of specific type
+        Function<String, String> toUpper = String::toUpperCase;
+        System.out.println(toUpper.apply("hello"));  // HELLO
+        
+        // Constructor reference
+        Supplier<List<String>> listFactory = ArrayList::new;
+        List<String> newList = listFactory.get();  // Creates new ArrayList
+        
+        // ===== STREAM API =====
+        
+        List<Person> people = Arrays.asList(
+            new Person("Alice", 28, "Engineer"),
+            new Person("Bob", 35, "Manager"),
+            new Person("Charlie", 22, "Engineer"),
+            new Person("Dave", 42, "Director"),
+            new Person("Eve", 29, "Designer")
+        );
+        
+        // Filtering
+        List<Person> engineers = people.stream()
+            .filter(p -> p.getJob().equals("Engineer"))
+            .collect(Collectors.toList());
+        System.out.println("\nEngineers: " + engineers);
+        
+        // Mapping
+        List<String> upperCaseNames = people.stream()
+            .map(Person::getName)
+            .map(String::toUpperCase)
+            .collect(Collectors.toList());
+        System.out.println("\nUpper case names: " + upperCaseNames);
+        
+        // Sorting
+        List<Person> sortedByAge = people.stream()
+            .sorted(Comparator.comparing(Person::getAge))
+            .collect(Collectors.toList());
+        System.out.println("\nPeople sorted by age: " + sortedByAge);
+        
+        // Reducing
+        int totalAge = people.stream()
+            .mapToInt(Person::getAge)
+            .sum();
+        System.out.println("\nTotal age: " + totalAge);
+        
+        double averageAge = people.stream()
+            .mapToInt(Person::getAge)
+            .average()
+            .orElse(0);
+        System.out.println("Average age: " + averageAge);
+        
+        // Collectors - groupingBy
+        Map<String, List<Person>> peopleByJob = people.stream()
+            .collect(Collectors.groupingBy(Person::getJob));
+        System.out.println("\nPeople grouped by job: " + peopleByJob);
+        
+        // Collectors - joining
+        String allNames = people.stream()
+            .map(Person::getName)
+            .collect(Collectors.joining(", ", "Names: ", "."));
+        System.out.println("\n" + allNames);
+        
+        // Finding elements
+        Optional<Person> youngest = people.stream()
+            .min(Comparator.comparing(Person::getAge));
+        System.out.println("\nYoungest person: " + youngest.orElse(null));
+        
+        // Parallel stream for potentially better performance
+        long count = people.parallelStream()
+            .filter(p -> p.getAge() > 30)
+            .count();
+        System.out.println("\nNumber of people over 30: " + count);
+    }
+    
+    // Helper class for demonstrations
+    static class Person {
+        private String name;
+        private int age;
+        private String job;
+        
+        public Person(String name, int age, String job) {
+            this.name = name;
+            this.age = age;
+            this.job = job;
+        }
+        
+        public String getName() { return name; }
+        public int getAge() { return age; }
+        public String getJob() { return job; }
+        
+        @Override
+        public String toString() {
+            return name + "(" + age + ", " + job + ")";
+        }
+    }
+}
\ No newline at end of file
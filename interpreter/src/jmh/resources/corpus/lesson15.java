@@ -0,0 +1,390 @@
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.*;
+
+public class MultithreadingAndConcurrencyDemo {
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== Thread Creation and Basic Operations ===\n");
+        threadCreationDemo();
+        
+        System.out.println("\n=== Thread Synchronization ===\n");
+        synchronizationDemo();
+        
+        System.out.println("\n=== Executor Framework ===\n");
+        executorDemo();
+        
+        System.out.println("\n=== CompletableFuture ===\n");
+        completableFutureDemo();
+        
+        System.out.println("\n=== Concurrent Collections ===\n");
+        concurrentCollectionsDemo();
+        
+        System.out.println("\n=== Synchronizers ===\n");
+        synchronizersDemo();
+    }
+    
+    // Demonstrates different ways to create and use threads
+    private static void threadCreationDemo() throws InterruptedException {
+        // 1. Extending Thread class
+        class MyThread extends Thread {
+            @Override
+            public void run() {
+                System.out.println("Thread created by extending Thread: " + Thread.currentThread().getName());
+            }
+        }
+        
+        // 2. Implementing Runnable interface
+        class MyRunnable implements Runnable {
+            @Override
+            public void run() {
+                System.out.println("Thread created with Runnable: " + Thread.currentThread().getName());
+            }
+        }
+        
+        // Create and start threads
+        Thread t1 = new MyThread();
+        t1.start();
+        
+        Thread t2 = new Thread(new MyRunnable());
+        t2.start();
+        
+        // 3. Using lambda expression (Java 8+)
+        Thread t3 = new Thread(() -> {
+            System.out.println("Thread created with lambda: " + Thread.currentThread().getName());
+        });
+        t3.start();
+        
+        // Wait for all threads to complete
+        t1.join();
+        t2.join();
+        t3.join();
+        
+        // Thread state demonstration
+        Thread stateDemo = new Thread(() -> {
+            try {
+                Thread.sleep(100); // TIMED_WAITING state
+            } catch (InterruptedException e) {
+                System.out.println("Thread interrupted");
+            }
+        });
+        
+        System.out.println("\nThread State Demo:");
+        System.out.println("Initial state: " + stateDemo.getState()); // NEW
+        stateDemo.start();
+        System.out.println("After start(): " + stateDemo.getState()); // RUNNABLE
+        Thread.sleep(50);
+        System.out.println("While sleeping: " + stateDemo.getState()); // TIMED_WAITING
+        stateDemo.join();
+        System.out.println("After completion: " + stateDemo.getState()); // TERMINATED
+    }
+    
+    // Demonstrates different synchronization mechanisms
+    private static void synchronizationDemo() throws InterruptedException {
+        // 1. Using synchronized blocks
+        Counter synchronizedCounter = new Counter();
+        
+        // 2. Using Lock interface
+        LockCounter lockCounter = new LockCounter();
+        
+        // 3. Using Atomic classes
+        AtomicCounter atomicCounter = new AtomicCounter();
+        
+        // Create threads to increment each counter
+        Runnable incrementTask = () -> {
+            for (int i = 0; i < 10000; i++) {
+                synchronizedCounter.increment();
+                lockCounter.increment();
+                atomicCounter.increment();
+            }
+        };
+        
+        Thread t1 = new Thread(incrementTask);
+        Thread t2 = new Thread(incrementTask);
+        
+        t1.start();
+        t2.start();
+        
+        t1.join();
+        t2.join();
+        
+        System.out.println("Synchronized Counter: " + synchronizedCounter.getValue());
+        System.out.println("Lock-based Counter: " + lockCounter.getValue());
+        System.out.println("Atomic Counter: " + atomicCounter.getValue());
+        
+        // 4. Demonstrating volatile keyword
+        VolatileDemo volatileDemo = new VolatileDemo();
+        Thread volatileThread = new Thread(volatileDemo);
+        volatileThread.start();
+        
+        // Give some time for the thread to start
+        Thread.sleep(100);
+        
+        // Signal the thread to stop
+        volatileDemo.stop();
+        volatileThread.join();
+        System.out.println("Volatile demo completed after " + volatileDemo.getCount() + " iterations");
+    }
+    
+    // Demonstrates the Executor framework
+    private static void executorDemo() throws Exception {
+        // Create fixed thread pool
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        
+        System.out.println("Submitting tasks to executor...");
+        
+        // Submit Runnable task (no result)
+        executor.execute(() -> {
+            System.out.println("Task executed in thread: " + Thread.currentThread().getName());
+        });
+        
+        // Submit Callable task (with result)
+        Future<String> future = executor.submit(() -> {
+            Thread.sleep(500); // Simulate work
+            return "Task completed at " + new Date();
+        });
+        
+        // Get result (blocking call)
+        System.out.println("Future result: " + future.get());
+        
+        // Shutdown executor properly
+        executor.shutdown();
+        boolean terminated = executor.awaitTermination(1, TimeUnit.SECONDS);
+        System.out.println("Executor terminated: " + terminated);
+    }
+    
+    // Demonstrates CompletableFuture for async operations
+    private static void completableFutureDemo() throws Exception {
+        // Create a CompletableFuture
+        CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> {
+            try {
+                Thread.sleep(200);
+                return "Step 1";
+            } catch (InterruptedException e) {
+                return "Error in step 1";
+            }
+        });
+        
+        // Chain operations
+        CompletableFuture<String> finalFuture = future
+            .thenApply(result -> result + " -> Step 2") // Transform result
+            .thenCompose(result -> CompletableFuture.supplyAsync(() -> {
+                // Perform another async operation
+                return result + " -> Step 3";
+            }))
+            .exceptionally(ex -> "Error occurred: " + ex.getMessage()); // Handle exceptions
+        
+        // Get final result
+        System.out.println("CompletableFuture result: " + finalFuture.get());
+        
+        // Combine two CompletableFutures
+        CompletableFuture<Integer> future1 = CompletableFuture.supplyAsync(() -> 10);
+        CompletableFuture<Integer> future2 = CompletableFuture.supplyAsync(() -> 20);
+        
+        CompletableFuture<Integer> combinedFuture = future1.thenCombine(future2, (x, y) -> x + y);
+        System.out.println("Combined future result: " + combinedFuture.get());
+    }
+    
+    // Demonstrates concurrent collections
+    private static void concurrentCollectionsDemo() throws InterruptedException {
+        // 1. ConcurrentHashMap
+        Map<String, Integer> concurrentMap = new ConcurrentHashMap<>();
+        
+        // 2. CopyOnWriteArrayList
+        List<String> concurrentList = new CopyOnWriteArrayList<>();
+        
+        // Populate collections
+        Runnable populateTask = () -> {
+            for (int i = 0; i < 100; i++) {
+                concurrentMap.put("Key-" + i, i);
+                concurrentList.add("Item-" + i);
+            }
+        };
+        
+        Thread t1 = new Thread(populateTask);
+        Thread t2 = new Thread(populateTask);
+        
+        t1.start();
+        t2.start();
+        t1.join();
+        t2.join();
+        
+        System.out.println("ConcurrentHashMap size: " + concurrentMap.size());
+        System.out.println("CopyOnWriteArrayList size: " + concurrentList.size());
+        
+        // 3. BlockingQueue example
+        BlockingQueue<String> blockingQueue = new ArrayBlockingQueue<>(10);
+        
+        // Producer thread
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 5; i++) {
+                    String item = "Item-" + i;
+                    blockingQueue.put(item); // Blocks if queue is full
+                    System.out.println("Produced: " + item);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        
+        // Consumer thread
+        Thread consumer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 5; i++) {
+                    String item = blockingQueue.take(); // Blocks if queue is empty
+                    System.out.println("Consumed: " + item);
+                    Thread.sleep(100); // Consume slower than production
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        
+        producer.start();
+        consumer.start();
+        producer.join();
+        consumer.join();
+    }
+    
+    // Demonstrates synchronizer utilities
+    private static void synchronizersDemo() throws InterruptedException {
+        // 1. CountDownLatch
+        CountDownLatch latch = new CountDownLatch(3);
+        
+        Runnable latchTask = () -> {
+            try {
+                Thread.sleep((long)(Math.random() * 200));
+                System.out.println(Thread.currentThread().getName() + " completed task");
+                latch.countDown(); // Decrements the count
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        
+        System.out.println("Starting CountDownLatch demo with 3 tasks...");
+        for (int i = 0; i < 3; i++) {
+            new Thread(latchTask, "LatchThread-" + i).start();
+        }
+        
+        // Wait for all tasks to complete
+        latch.await();
+        System.out.println("All latch tasks completed\n");
+        
+        // 2. CyclicBarrier
+        CyclicBarrier barrier = new CyclicBarrier(3, () -> {
+            // This runs when all threads reach the barrier
+            System.out.println("All threads reached the barrier!\n");
+        });
+        
+        Runnable barrierTask = () -> {
+            try {
+                System.out.println(Thread.currentThread().getName() + " waiting at barrier");
+                barrier.await(); // Wait for all threads to reach this point
+                System.out.println(Thread.currentThread().getName() + " continued after barrier");
+            } catch (InterruptedException | BrokenBarrierException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        
+        System.out.println("Starting CyclicBarrier demo...");
+        for (int i = 0; i < 3; i++) {
+            new Thread(barrierTask, "BarrierThread-" + i).start();
+        }
+        
+        // Give time for barrier demo to complete
+        Thread.sleep(500);
+        
+        // 3. Semaphore (limiting concurrent access)
+        Semaphore semaphore = new Semaphore(2); // Allow only 2 concurrent accesses
+        
+        Runnable semaphoreTask = () -> {
+            try {
+                System.out.println(Thread.currentThread().getName() + " waiting for permit");
+                semaphore.acquire();
+                System.out.println(Thread.currentThread().getName() + " acquired permit");
+                Thread.sleep(200); // Simulate work
+                System.out.println(Thread.currentThread().getName() + " releasing permit");
+                semaphore.release();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        
+        System.out.println("\nStarting Semaphore demo (2 permits, 4 threads)...");
+        for (int i = 0; i < 4; i++) {
+            new Thread(semaphoreTask, "SemaphoreThread-" + i).start();
+        }
+    }
+    
+    // Class demonstrating synchronized methods
+    static class Counter {
+        private int count = 0;
+        
+        public synchronized void increment() {
+            count++;
+        }
+        
+        public synchronized int getValue() {
+            return count;
+        }
+    }
+    
+    // Class demonstrating Lock interface
+    static class LockCounter {
+        private int count = 0;
+        private final Lock lock = new ReentrantLock();
+        
+        public void increment() {
+            lock.lock();
+            try {
+                count++;
+            } finally {
+                lock.unlock(); // Always release lock in finally block
+            }
+        }
+        
+        public int getValue() {
+            lock.lock();
+            try {
+                return count;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    // Class demonstrating Atomic variables
+    static class AtomicCounter {
+        private AtomicInteger count = new AtomicInteger(0);
+        
+        public void increment() {
+            count.incrementAndGet();
+        }
+        
+        public int getValue() {
+            return count.get();
+        }
+    }
+    
+    // Class demonstrating volatile keyword
+    static class VolatileDemo implements Runnable {
+        private volatile boolean running = true;
+        private int count = 0;
+        
+        @Override
+        public void run() {
+            while (running) {
+                count++;
+            }
+        }
+        
+        public void stop() {
+            running = false;
+        }
+        
+        public int getCount() {
+            return count;
+        }
+    }
+}
\ No newline at end of file
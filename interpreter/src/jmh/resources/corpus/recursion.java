@@ -0,0 +1,24 @@
+public class Main {
+    static int fibonacci(int n) {
+        return n < 2 ? n : fibonacci(n - 1) + fibonacci(n - 2);
+    }
+
+    static long factorial(int n) {
+        if (n <= 1) {
+            return 1;
+        }
+        return n * factorial(n - 1);
+    }
+
+    static int ackermann(int m, int n) {
+        if (m == 0) return n + 1;
+        if (n == 0) return ackermann(m - 1, 1);
+        return ackermann(m - 1, ackermann(m, n - 1));
+    }
+
+    public static void main(String[] args) {
+        System.out.println(fibonacci(18));
+        System.out.println(factorial(20));
+        System.out.println(ackermann(2, 3));
+    }
+}
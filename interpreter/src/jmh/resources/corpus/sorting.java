@@ -0,0 +1,18 @@
+public class Main {
+    public static void main(String[] args) {
+        int[] values = new int[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (i * 7919) % values.length;
+        }
+        for (int i = 0; i < values.length - 1; i++) {
+            for (int j = 0; j < values.length - 1 - i; j++) {
+                if (values[j] > values[j + 1]) {
+                    int swap = values[j];
+                    values[j] = values[j + 1];
+                    values[j + 1] = swap;
+                }
+            }
+        }
+        System.out.println(values[0] + " " + values[values.length / 2] + " " + values[values.length - 1]);
+    }
+}
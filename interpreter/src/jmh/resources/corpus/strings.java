@@ -0,0 +1,23 @@
+public class Main {
+    public static void main(String[] args) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            builder.append(i % 10);
+            if (i % 50 == 49) {
+                builder.append('\n');
+            }
+        }
+        String text = builder.toString();
+        int digits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isDigit(text.charAt(i))) {
+                digits++;
+            }
+        }
+        String line = "";
+        for (int i = 0; i < 200; i++) {
+            line = line + i + ",";
+        }
+        System.out.println(digits + " " + line.length() + " " + text.substring(0, 10).toUpperCase());
+    }
+}
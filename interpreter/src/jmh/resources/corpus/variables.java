@@ -0,0 +1,86 @@
+public class Main {
+    static int studentCount = 0;
+    static double totalScore = 0;
+    static String schoolName = "JavaBuddy High";
+    static final int PASS_MARK = 50;
+    static int passed = 0;
+    static int failed = 0;
+
+    static class Student {
+        String name;
+        int math;
+        int science;
+        int english;
+        int history;
+        int art;
+        double average;
+        boolean honors;
+
+        Student(String name, int seed) {
+            this.name = name;
+            math = (seed * 7) % 101;
+            science = (seed * 13) % 101;
+            english = (seed * 17) % 101;
+            history = (seed * 23) % 101;
+            art = (seed * 29) % 101;
+            studentCount++;
+        }
+
+        void grade() {
+            int sum = math + science + english + history + art;
+            average = sum / 5.0;
+            honors = average >= 80;
+            totalScore += average;
+            if (average >= PASS_MARK) {
+                passed++;
+            } else {
+                failed++;
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        int rounds = 200;
+        int best = 0;
+        int worst = 100;
+        int honorsCount = 0;
+        int evenSeeds = 0;
+        int oddSeeds = 0;
+        long checksum = 0;
+        double highest = 0;
+        double lowest = 100;
+        String bestName = "";
+        String worstName = "";
+        for (int round = 0; round < rounds; round++) {
+            for (int seed = 1; seed <= 25; seed++) {
+                Student student = new Student("Student" + seed, seed + round);
+                student.grade();
+                int rounded = (int) student.average;
+                if (rounded > best) {
+                    best = rounded;
+                    bestName = student.name;
+                }
+                if (rounded < worst) {
+                    worst = rounded;
+                    worstName = student.name;
+                }
+                if (student.honors) {
+                    honorsCount++;
+                }
+                if (seed % 2 == 0) {
+                    evenSeeds++;
+                } else {
+                    oddSeeds++;
+                }
+                highest = Math.max(highest, student.average);
+                lowest = Math.min(lowest, student.average);
+                checksum += student.math + student.science * 3 + student.english * 7;
+            }
+        }
+        System.out.println(schoolName + ": " + studentCount + " students graded");
+        System.out.println("Passed " + passed + ", failed " + failed + ", honors " + honorsCount);
+        System.out.println("Best " + bestName + " (" + best + "), worst " + worstName + " (" + worst + ")");
+        System.out.println("Range " + lowest + " to " + highest + ", mean " + totalScore / studentCount);
+        System.out.println("Seeds " + evenSeeds + "/" + oddSeeds + ", checksum " + checksum);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,3618 @@
+package com.example.javabuddy.compiler;
+
+import com.example.javabuddy.compiler.ast.*;
+import com.example.javabuddy.compiler.parser.ParseException;
+import com.example.javabuddy.compiler.runtime.ArrayOperations;
+import com.example.javabuddy.compiler.runtime.ConsoleBuffer;
+import com.example.javabuddy.compiler.runtime.ExecutionBudget;
+import com.example.javabuddy.compiler.runtime.HeapMeter;
+import com.example.javabuddy.compiler.runtime.HostInterop;
+import com.example.javabuddy.compiler.runtime.InterpreterException;
+import com.example.javabuddy.compiler.runtime.Operators;
+import com.example.javabuddy.compiler.runtime.Profiler;
+import com.example.javabuddy.compiler.runtime.ProgramClass;
+import com.example.javabuddy.compiler.runtime.ProgramObject;
+import com.example.javabuddy.compiler.runtime.ThrownException;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs Java source by parsing it once into a syntax tree and walking that
+ * tree. Supports classes with fields, constructors, inheritance and virtual
+ * methods, static members, the usual statements and operators with Java's
+ * numeric promotion, exceptions, and calls into the whitelisted JDK classes
+ * in {@link HostInterop}.
+ *
+ * <p>Each call site has a monomorphic inline cache: the receiver class it
+ * last saw and the method that class resolved to. A call that hits the cache
+ * skips method lookup and overload resolution entirely.
+ *
+ * <p>Execution is tiered. Code starts out walked, while every method counts
+ * its calls and the iterations of its loops. A method called
+ * {@value #METHOD_THRESHOLD} times is compiled into a tree of closures
+ * before its next call; a walked loop whose method has iterated
+ * {@value #LOOP_THRESHOLD} times is compiled in the middle of running and
+ * carries on from the iteration it was at. Compiled code keeps locals of
+ * known primitive types unboxed between operations and skips the dispatch
+ * on node kinds, which the host JIT can then inline. Short programs never
+ * get that far and pay nothing for it.
+ */
+public class AdvancedJavaInterpreter {
+    
+    private static final String TAG = "AdvancedJavaInterpreter";
+    /** Deepest recursion a program gets before its StackOverflowError; each level costs a few KB of host stack. */
+    private static final int MAX_CALL_DEPTH = 5000;
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+    private static final Variable[] NO_VARIABLES = new Variable[0];
+    private static final Action[] NO_ACTIONS = new Action[0];
+    private static final Code[] NO_CODE = new Code[0];
+    /** Orders class members as they appear in the source. */
+    private static final Comparator<Node> SOURCE_ORDER = new Comparator<Node>() {
+        @Override
+        public int compare(Node a, Node b) {
+            return a.line != b.line ? Integer.compare(a.line, b.line) : Integer.compare(a.column, b.column);
+        }
+    };
+    static final int METHOD_THRESHOLD = 500;
+    static final int LOOP_THRESHOLD = 2_000;
+    
+    /** False to walk every method, the baseline tiered execution is measured against. */
+    private final boolean tiered;
+    
+    // Runtime environment
+    private SymbolTable symbols;
+    /** The program's classes in declaration order, and by the symbol of their name. */
+    private List<ClassDecl> classes;
+    private ClassDecl[] classTable;
+    private Map<ClassDecl, ClassDecl> outerClasses;
+    private Map<ClassDecl, RuntimeClass> runtimeClasses;
+    /** Receiver class each call site last saw, and the method it resolved to; static calls use a null class. */
+    private ProgramClass[] cachedTypes;
+    private MethodDecl[] cachedMethods;
+    private List<Frame> framePool;
+    private Frame frame;
+    private int callDepth;
+    private ConsoleBuffer output;
+    private ClassDecl currentClass;
+    /** Receiver of the running instance method or constructor, or null in static code. */
+    private ProgramObject self;
+    private int currentLine;
+    private ExecutionBudget budget;
+    private boolean breakFlag = false;
+    private boolean continueFlag = false;
+    /** Label of the pending break or continue, or null when it has none. */
+    private String jumpLabel;
+    private Object returnValue = null;
+    private boolean returnFlag = false;
+    
+    // Tiers, by method index; the extra last entry stands for the static initializers
+    private int currentMethod;
+    private int[] invocations;
+    private int[] backEdges;
+    private Action[] compiledMethods;
+    private Map<Stmt, Action> compiledLoops;
+    private Profiler profiler;
+    
+    public AdvancedJavaInterpreter() {
+        this(true);
+    }
+    
+    /** An interpreter that compiles hot code if {@code tiered}, or walks the tree for everything if not. */
+    public AdvancedJavaInterpreter(boolean tiered) {
+        this.tiered = tiered;
+        this.classes = new ArrayList<>();
+        this.outerClasses = new HashMap<>();
+        this.runtimeClasses = new HashMap<>();
+        this.framePool = new ArrayList<>();
+        this.output = new ConsoleBuffer();
+    }
+    
+    public CompileResult compileAndRun(String sourceCode) {
+        return compileAndRun(sourceCode, new ExecutionBudget());
+    }
+    
+    /**
+     * Runs the program until it finishes or the budget stops it; a stopped
+     * run reports why, along with whatever it printed until then.
+     */
+    public CompileResult compileAndRun(String sourceCode, ExecutionBudget budget) {
+        return compileAndRun(sourceCode, budget, new ConsoleBuffer());
+    }
+    
+    /** Like {@link #compileAndRun(String, ExecutionBudget)}, printing into {@code console} as the program runs. */
+    public CompileResult compileAndRun(String sourceCode, ExecutionBudget budget, ConsoleBuffer console) {
+        return compileAndRun(sourceCode, budget, console, null);
+    }
+    
+    /** Like {@link #compileAndRun(String, ExecutionBudget, ConsoleBuffer)}, profiling the run if {@code profiler} is not null. */
+    public CompileResult compileAndRun(String sourceCode, ExecutionBudget budget, ConsoleBuffer console,
+                                      Profiler profiler) {
+        CompilationUnit unit;
+        try {
+            unit = ProgramCache.getShared().get(sourceCode).getUnit();
+        } catch (ParseException e) {
+            return new CompileResult(false, "Parse errors:\n" + e, "");
+        }
+        return execute(unit, budget, console, profiler);
+    }
+    
+    /**
+     * Runs an already parsed and resolved program, printing into
+     * {@code console} as it goes. The unit is only read, so a cached one
+     * can be passed in.
+     */
+    public CompileResult execute(CompilationUnit unit, ExecutionBudget budget, ConsoleBuffer console) {
+        return execute(unit, budget, console, null);
+    }
+    
+    /**
+     * Like {@link #execute(CompilationUnit, ExecutionBudget, ConsoleBuffer)},
+     * recording into {@code profiler} which lines and methods ran, and which
+     * of them were compiled on the way.
+     */
+    public CompileResult execute(CompilationUnit unit, ExecutionBudget budget, ConsoleBuffer console,
+                                 Profiler profiler) {
+        reset();
+        this.output = console;
+        this.budget = budget;
+        int methodCount = unit.methodCount;
+        currentMethod = methodCount;
+        invocations = new int[methodCount + 1];
+        backEdges = new int[methodCount + 1];
+        compiledMethods = new Action[methodCount + 1];
+        compiledLoops = new IdentityHashMap<>();
+        this.profiler = profiler;
+        if (profiler != null) {
+            String[] names = new String[methodCount + 1];
+            nameMethods(unit.classes, names);
+            names[methodCount] = "<clinit>";
+            profiler.start(names);
+        }
+        budget.setHeapRoots(heapRoots);
+        budget.start();
+        
+        try {
+            cachedTypes = new ProgramClass[unit.callSiteCount];
+            cachedMethods = new MethodDecl[unit.callSiteCount];
+            symbols = unit.symbols;
+            classTable = new ClassDecl[symbols.size()];
+            declareClasses(unit.classes, null);
+            for (ClassDecl decl : classes) {
+                loadClass(decl);
+            }
+            
+            MethodDecl mainMethod = findMain(unit);
+            if (mainMethod == null) {
+                return new CompileResult(false, "Execution errors:\nNo main method found", "");
+            }
+            
+            invoke(mainMethod, null, new Object[] { new String[0] });
+            
+            return new CompileResult(true, "Execution successful", output.toString());
+        
+        } catch (InterpreterException e) {
+            int line = e.getLine() != 0 ? e.getLine() : currentLine;
+            return new CompileResult(false, "Execution errors:\nLine " + line + ": " + e.getMessage(), output.toString());
+        } catch (ThrownException e) {
+            return uncaught(e.getValue(), e.getLine());
+        } catch (StackOverflowError e) {
+            return uncaught(e, currentLine);
+        } catch (RuntimeException e) {
+            CompilerLog.d(TAG, "Uncaught exception in interpreted program", e);
+            return uncaught(e, currentLine);
+        } finally {
+            if (profiler != null) {
+                profiler.stop();
+            }
+            budget.setHeapRoots(null);
+        }
+    }
+    
+    /** Names each method and constructor the way the bytecode VM does, so both engines' profiles read alike. */
+    private static void nameMethods(List<ClassDecl> decls, String[] names) {
+        for (ClassDecl decl : decls) {
+            for (MethodDecl method : decl.methods) {
+                names[method.index] = decl.name + "." + method.name;
+            }
+            for (MethodDecl constructor : decl.constructors) {
+                names[constructor.index] = decl.name + ".<init>";
+            }
+            nameMethods(decl.memberClasses, names);
+        }
+    }
+    
+    /** What a run can still reach: static fields, the locals of every active call and the object being built. */
+    private final HeapMeter.Roots heapRoots = new HeapMeter.Roots() {
+        @Override
+        public void addRoots(HeapMeter meter) {
+            for (RuntimeClass type : runtimeClasses.values()) {
+                for (Variable variable : type != null ? type.staticFields : NO_VARIABLES) {
+                    if (variable != null) {
+                        meter.add(variable.value);
+                    }
+                }
+            }
+            for (int i = 0; i < callDepth; i++) {
+                Frame active = framePool.get(i);
+                meter.addAll(active.values, active.size);
+            }
+            meter.add(self);
+            meter.add(returnValue);
+        }
+    };
+    
+    private void reset() {
+        symbols = null;
+        classes.clear();
+        classTable = null;
+        outerClasses.clear();
+        runtimeClasses.clear();
+        cachedTypes = null;
+        cachedMethods = null;
+        frame = null;
+        callDepth = 0;
+        currentClass = null;
+        self = null;
+        currentLine = 0;
+        budget = null;
+        breakFlag = false;
+        continueFlag = false;
+        jumpLabel = null;
+        returnValue = null;
+        returnFlag = false;
+        currentMethod = 0;
+        invocations = null;
+        backEdges = null;
+        compiledMethods = null;
+        compiledLoops = null;
+        profiler = null;
+    }
+    
+    private CompileResult uncaught(Object exception, int line) {
+        String message = "Exception in thread \"main\" " + exception + "\n\tat line " + line;
+        return new CompileResult(false, "Execution errors:\n" + message, output.toString());
+    }
+    
+    // ---------------------------------------------------------------------
+    // Declarations
+    // ---------------------------------------------------------------------
+    
+    private void declareClasses(List<ClassDecl> decls, ClassDecl outer) {
+        for (ClassDecl decl : decls) {
+            if (decl.kind == ClassDecl.Kind.ENUM) {
+                throw new InterpreterException("Enum types are not supported yet", decl.line);
+            }
+            if (classTable[decl.symbol] != null) {
+                throw new InterpreterException("duplicate class: " + decl.name, decl.line);
+            }
+            classes.add(decl);
+            classTable[decl.symbol] = decl;
+            if (outer != null) {
+                outerClasses.put(decl, outer);
+            }
+            declareClasses(decl.memberClasses, decl);
+        }
+    }
+    
+    /** Lays out the instance fields of a class after those of its superclass. */
+    private RuntimeClass loadClass(ClassDecl decl) {
+        if (runtimeClasses.containsKey(decl)) {
+            RuntimeClass loaded = runtimeClasses.get(decl);
+            if (loaded == null) {
+                throw new InterpreterException("cyclic inheritance involving " + decl.name, decl.line);
+            }
+            return loaded;
+        }
+        runtimeClasses.put(decl, null);
+        
+        ClassDecl superDecl = superclassOf(decl);
+        RuntimeClass superclass = superDecl != null ? loadClass(superDecl) : null;
+        List<ProgramClass> interfaces = new ArrayList<>();
+        for (TypeRef type : decl.interfaces) {
+            ClassDecl implemented = classNamed(type.symbol);
+            if (implemented != null) {
+                interfaces.add(loadClass(implemented));
+            }
+        }
+        int[] fieldSlots;
+        List<String> fieldTypes = new ArrayList<>();
+        if (superclass != null) {
+            fieldSlots = superclass.fieldSlots.clone();
+            fieldTypes.addAll(Arrays.asList(superclass.fieldTypes));
+        } else {
+            fieldSlots = new int[symbols.size()];
+            Arrays.fill(fieldSlots, -1);
+        }
+        for (FieldDecl field : decl.fields) {
+            if (!field.isStatic()) {
+                fieldSlots[field.symbol] = fieldTypes.size();
+                fieldTypes.add(primitiveName(field.type));
+            }
+        }
+        
+        Class<?> hostSuperclass = null;
+        if (superDecl == null && decl.superclass != null) {
+            hostSuperclass = HostInterop.resolveClass(decl.superclass.name);
+            if (hostSuperclass != null && !Throwable.class.isAssignableFrom(hostSuperclass)) {
+                hostSuperclass = null;
+            }
+        }
+        
+        RuntimeClass type = new RuntimeClass(decl, superclass, hostSuperclass, interfaces.toArray(new ProgramClass[0]),
+                fieldSlots, fieldTypes.toArray(new String[0]));
+        runtimeClasses.put(decl, type);
+        return type;
+    }
+    
+    private MethodDecl findMain(CompilationUnit unit) {
+        for (ClassDecl decl : unit.classes) {
+            for (MethodDecl method : decl.methods) {
+                if (method.name.equals("main") && method.isStatic() && method.body != null) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Initializes a class the first time it is used, as the JVM does: its
+     * superclass first, then its static field initializers and static
+     * blocks in source order. A use from within the initializer itself, or
+     * from code it calls, sees the fields as they are so far.
+     */
+    private void initializeClass(RuntimeClass type) {
+        if (type.initialization != RuntimeClass.UNINITIALIZED) {
+            return;
+        }
+        type.initialization = RuntimeClass.INITIALIZING;
+        if (type.superclass != null) {
+            initializeClass((RuntimeClass) type.superclass);
+        }
+        if (!type.staticInitializers.isEmpty()) {
+            ClassDecl savedClass = currentClass;
+            ProgramObject savedSelf = self;
+            int savedMethod = currentMethod;
+            int savedLine = currentLine;
+            Frame savedFrame = frame;
+            currentClass = type.decl;
+            self = null;
+            currentMethod = invocations.length - 1;
+            frame = pushFrame(type.decl.initializerFrameSize);
+            try {
+                for (Node member : type.staticInitializers) {
+                    if (member instanceof FieldDecl) {
+                        FieldDecl field = (FieldDecl) member;
+                        currentLine = field.line;
+                        Variable variable = type.staticFields[field.symbol];
+                        variable.value = coerce(variable.type, evaluate(field.initializer));
+                    } else {
+                        execute((Block) member);
+                    }
+                }
+            } finally {
+                popFrame(savedFrame);
+                currentClass = savedClass;
+                self = savedSelf;
+                currentMethod = savedMethod;
+                currentLine = savedLine;
+            }
+        }
+        type.initialization = RuntimeClass.INITIALIZED;
+    }
+    
+    // ---------------------------------------------------------------------
+    // Method invocation
+    // ---------------------------------------------------------------------
+    
+    private Object invoke(MethodDecl method, ProgramObject receiver, Object[] args) {
+        if (method.body == null) {
+            throw new InterpreterException("abstract method " + method.name + " cannot be called");
+        }
+        if (callDepth >= MAX_CALL_DEPTH) {
+            throw new ThrownException(new StackOverflowError(), currentLine);
+        }
+        budget.checkpoint();
+        if (method.isStatic()) {
+            initializeClass(runtimeClasses.get(method.owner));
+        }
+        int savedMethod = currentMethod;
+        if (method.index >= 0) {
+            currentMethod = method.index;
+            if (profiler != null) {
+                profiler.enter(method.index);
+            }
+        }
+        
+        Frame callee = pushFrame(method.frameSize);
+        for (int i = 0; i < method.params.size(); i++) {
+            Param param = method.params.get(i);
+            String type = primitiveName(param.type);
+            callee.declare(param.slot, type, coerce(type, args[i]));
+        }
+        
+        ClassDecl savedClass = currentClass;
+        ProgramObject savedSelf = self;
+        Frame savedFrame = frame;
+        frame = callee;
+        currentClass = method.owner;
+        self = receiver;
+        try {
+            if (method.constructor) {
+                executeConstructor(method);
+                return null;
+            }
+            Action compiled = compiledBody(method);
+            if (compiled != null) {
+                compiled.run();
+            } else {
+                execute(method.body);
+            }
+            Object result = returnFlag ? returnValue : null;
+            if (method.returnType != null && !method.returnType.isVoid()) {
+                result = coerce(primitiveName(method.returnType), result);
+            }
+            return result;
+        } finally {
+            popFrame(savedFrame);
+            currentMethod = savedMethod;
+            currentClass = savedClass;
+            self = savedSelf;
+            returnFlag = false;
+            returnValue = null;
+            breakFlag = false;
+            continueFlag = false;
+        }
+    }
+    
+    private Object callMethod(MethodCall call) {
+        Expr target = call.target;
+        
+        if (target == null) {
+            if (call.name.equals("this") || call.name.equals("super")) {
+                throw new InterpreterException("call to " + call.name + " must be first statement in constructor");
+            }
+            return callUnqualified(call, evaluateArguments(call.arguments));
+        }
+        
+        if (target instanceof FieldAccess && isSystemStream((FieldAccess) target)) {
+            return print(((FieldAccess) target).name, call);
+        }
+        
+        if (target.tag == Tag.SUPER) {
+            return callSuper(call);
+        }
+        
+        if (target instanceof Name && !isVariable((Name) target)) {
+            String name = ((Name) target).name;
+            ClassDecl decl = classNamed(((Name) target).symbol);
+            if (decl != null) {
+                Object[] args = evaluateArguments(call.arguments);
+                MethodDecl method = cachedMethod(call, null);
+                if (method == null) {
+                    List<MethodDecl> candidates = findMethods(decl, call.symbol);
+                    method = selectMethod(candidates, call.name, args);
+                    if (!method.isStatic()) {
+                        throw staticContext(method);
+                    }
+                    cacheMethod(call, null, candidates, method);
+                }
+                return invoke(method, null, args);
+            }
+            Class<?> hostClass = HostInterop.resolveClass(name);
+            if (hostClass == Arrays.class && call.arguments.size() == 1) {
+                Object array = evaluate(call.arguments.get(0));
+                if (call.name.equals("sort")) {
+                    ArrayOperations.sort(array);
+                    return null;
+                }
+                if (call.name.equals("toString")) {
+                    return charged(ArrayOperations.toString(array));
+                }
+                return HostInterop.invokeStatic(hostClass, call.name, new Object[] { array }, budget);
+            }
+            if (hostClass != null) {
+                return HostInterop.invokeStatic(hostClass, call.name, evaluateArguments(call.arguments), budget);
+            }
+            throw new InterpreterException("cannot find symbol: variable " + name);
+        }
+        
+        Object receiver = evaluate(target);
+        return callOn(call, receiver, evaluateArguments(call.arguments));
+    }
+    
+    /** A call on an object the target evaluated to, with its arguments evaluated already. */
+    private Object callOn(MethodCall call, Object receiver, Object[] args) {
+        if (receiver instanceof ProgramObject) {
+            ProgramObject object = (ProgramObject) receiver;
+            MethodDecl method = cachedMethod(call, object.type);
+            if (method == null) {
+                List<MethodDecl> candidates = virtualCandidates((RuntimeClass) object.type, call.symbol);
+                if (candidates.isEmpty()) {
+                    return invokeInherited(object, call.name, args);
+                }
+                method = selectMethod(candidates, call.name, args);
+                cacheMethod(call, object.type, candidates, method);
+            }
+            return invoke(method, method.isStatic() ? null : object, args);
+        }
+        return HostInterop.invokeVirtual(receiver, call.name, args, budget);
+    }
+    
+    /** A call without a target: a static method, or an instance method of {@code this}, which is virtual. */
+    private Object callUnqualified(MethodCall call, Object[] args) {
+        ProgramClass receiverType = self != null ? self.type : null;
+        MethodDecl method = cachedMethod(call, receiverType);
+        if (method == null) {
+            List<MethodDecl> candidates = findMethods(currentClass, call.symbol);
+            if (candidates == null && self != null && self.hostPart != null) {
+                // getMessage and the rest of what an exception inherits, unless a subclass overrides it
+                return callOn(call, self, args);
+            }
+            method = selectMethod(candidates, call.name, args);
+            if (!method.isStatic()) {
+                if (self == null || !self.type.isSubtypeOf(runtimeClasses.get(method.owner))) {
+                    throw staticContext(method);
+                }
+                if (!Modifiers.isPrivate(method.modifiers)) {
+                    candidates = virtualCandidates((RuntimeClass) self.type, call.symbol);
+                    method = selectMethod(candidates, call.name, args);
+                }
+            }
+            cacheMethod(call, receiverType, candidates, method);
+        }
+        return invoke(method, method.isStatic() ? null : self, args);
+    }
+    
+    /** {@code super.name(...)}: the superclass's method, called on {@code this} without virtual dispatch. */
+    private Object callSuper(MethodCall call) {
+        if (self == null) {
+            throw new InterpreterException("non-static variable super cannot be referenced from a static context");
+        }
+        Object[] args = evaluateArguments(call.arguments);
+        MethodDecl method = cachedMethod(call, null);
+        if (method == null) {
+            ProgramClass superclass = runtimeClasses.get(currentClass).superclass;
+            List<MethodDecl> candidates = superclass != null
+                    ? virtualCandidates((RuntimeClass) superclass, call.symbol)
+                    : Collections.<MethodDecl>emptyList();
+            if (candidates.isEmpty()) {
+                return self.hostPart != null && !isObjectMethod(call.name, args.length)
+                        ? HostInterop.invokeVirtual(self.hostPart, call.name, args, budget)
+                        : invokeObjectMethod(self, call.name, args);
+            }
+            method = selectMethod(candidates, call.name, args);
+            cacheMethod(call, null, candidates, method);
+        }
+        return invoke(method, method.isStatic() ? null : self, args);
+    }
+    
+    /**
+     * A method the program's classes do not declare: one the object
+     * inherits from its host Throwable part, such as getMessage, or
+     * toString, equals and hashCode as inherited from Object.
+     */
+    private Object invokeInherited(ProgramObject object, String name, Object[] args) {
+        if (object.hostPart != null && !isObjectMethod(name, args.length)) {
+            return HostInterop.invokeVirtual(object.hostPart, name, args, budget);
+        }
+        return HostInterop.invokeVirtual(object, name, args, budget);
+    }
+    
+    /** What Throwable.toString returns for an exception the program declares, with the message its getMessage gives. */
+    private String throwableToString(ProgramObject object) {
+        MethodDecl getMessage = ((RuntimeClass) object.type).getMessageMethod;
+        Object message = getMessage != null
+                ? invoke(getMessage, object, NO_ARGUMENTS)
+                : object.hostPart.getLocalizedMessage();
+        return message != null ? object.type.name + ": " + message : object.type.name;
+    }
+    
+    private static boolean isObjectMethod(String name, int arity) {
+        return arity == 0 ? name.equals("toString") || name.equals("hashCode") : arity == 1 && name.equals("equals");
+    }
+    
+    /** Object's own toString, equals or hashCode, which an override reaches through {@code super}. */
+    private Object invokeObjectMethod(ProgramObject object, String name, Object[] args) {
+        if (name.equals("toString") && args.length == 0) {
+            return object.hostPart != null ? throwableToString(object) : object.defaultToString();
+        }
+        if (name.equals("hashCode") && args.length == 0) {
+            return object.defaultHashCode();
+        }
+        if (name.equals("equals") && args.length == 1) {
+            return object == args[0];
+        }
+        throw new InterpreterException("cannot find symbol: method " + name + " in class Object");
+    }
+    
+    private InterpreterException staticContext(MethodDecl method) {
+        return new InterpreterException("non-static method " + method.name + "(" + parameterList(method)
+                + ") cannot be referenced from a static context");
+    }
+    
+    /** The method this call site resolved to the last time it saw a receiver of this class, or null. */
+    private MethodDecl cachedMethod(MethodCall call, ProgramClass receiverType) {
+        int site = call.site;
+        return cachedTypes[site] == receiverType ? cachedMethods[site] : null;
+    }
+    
+    /**
+     * Remembers the method a call resolved to. The receiver class and the
+     * number of arguments fix the result unless overloads of that arity
+     * remain, which are told apart by argument types on every call.
+     */
+    private void cacheMethod(MethodCall call, ProgramClass receiverType, List<MethodDecl> candidates, MethodDecl method) {
+        for (MethodDecl candidate : candidates) {
+            if (candidate != method && candidate.params.size() == method.params.size()) {
+                return;
+            }
+        }
+        cachedTypes[call.site] = receiverType;
+        cachedMethods[call.site] = method;
+    }
+    
+    /**
+     * Methods called {@code name} that an object of {@code type} responds to,
+     * most derived first and default methods of interfaces last, so an
+     * override wins over the method it overrides when both fit the
+     * arguments equally well.
+     */
+    private List<MethodDecl> virtualCandidates(RuntimeClass type, int symbol) {
+        List<MethodDecl> candidates = new ArrayList<>();
+        for (ProgramClass cls = type; cls != null; cls = cls.superclass) {
+            addMethods((RuntimeClass) cls, symbol, candidates);
+        }
+        for (ProgramClass cls = type; cls != null; cls = cls.superclass) {
+            for (ProgramClass superinterface : cls.interfaces) {
+                addDefaultMethods((RuntimeClass) superinterface, symbol, candidates);
+            }
+        }
+        return candidates;
+    }
+    
+    private static void addMethods(RuntimeClass type, int symbol, List<MethodDecl> into) {
+        List<MethodDecl> overloads = type.declaredMethods.get(symbol);
+        if (overloads != null) {
+            for (MethodDecl method : overloads) {
+                if (method.body != null) {
+                    into.add(method);
+                }
+            }
+        }
+    }
+    
+    private static void addDefaultMethods(RuntimeClass type, int symbol, List<MethodDecl> into) {
+        addMethods(type, symbol, into);
+        for (ProgramClass superinterface : type.interfaces) {
+            addDefaultMethods((RuntimeClass) superinterface, symbol, into);
+        }
+    }
+    
+    // ---------------------------------------------------------------------
+    // Objects
+    // ---------------------------------------------------------------------
+    
+    private ProgramObject instantiate(ClassDecl decl, Object[] args) {
+        if (decl.kind == ClassDecl.Kind.INTERFACE || Modifiers.isAbstract(decl.modifiers)) {
+            throw new InterpreterException(decl.name + " is abstract; cannot be instantiated");
+        }
+        RuntimeClass type = runtimeClasses.get(decl);
+        initializeClass(type);
+        ProgramObject object = new ProgramObject(type);
+        budget.allocate(HeapMeter.sizeOf(object));
+        System.arraycopy(type.fieldDefaults, 0, object.fields, 0, type.fieldCount);
+        construct(type, object, args);
+        return object;
+    }
+    
+    /** Runs the constructor of {@code type} that fits the arguments, on an object of that class or a subclass. */
+    private void construct(RuntimeClass type, ProgramObject object, Object[] args) {
+        List<MethodDecl> constructors = type.decl.constructors.isEmpty()
+                ? Collections.singletonList(type.defaultConstructor)
+                : type.decl.constructors;
+        invoke(selectMethod(constructors, type.name, args), object, args);
+    }
+    
+    /**
+     * Runs a constructor in javac's order: the {@code this(...)} or
+     * {@code super(...)} call it starts with, or an implicit {@code super()},
+     * then, unless it chained to {@code this(...)}, the instance initializers
+     * of its class, then the rest of the body.
+     */
+    private void executeConstructor(MethodDecl constructor) {
+        RuntimeClass type = runtimeClasses.get(constructor.owner);
+        MethodCall chained = chainedConstructorCall(constructor);
+        if (chained != null) {
+            currentLine = chained.line;
+        }
+        if (chained != null && chained.name.equals("this")) {
+            construct(type, self, evaluateArguments(chained.arguments));
+        } else {
+            Object[] args = chained != null ? evaluateArguments(chained.arguments) : NO_ARGUMENTS;
+            if (type.superclass != null) {
+                construct((RuntimeClass) type.superclass, self, args);
+            } else if (type.hostSuperclass != null) {
+                self.hostPart = (Throwable) HostInterop.construct(type.hostSuperclass, args, budget);
+            } else if (args.length > 0) {
+                throw new InterpreterException("constructor Object in class Object cannot be applied to given types");
+            }
+            initializeFields(type);
+        }
+        
+        List<Stmt> statements = constructor.body.statements;
+        for (int i = chained != null ? 1 : 0; i < statements.size() && !returnFlag; i++) {
+            execute(statements.get(i));
+        }
+    }
+    
+    private static MethodCall chainedConstructorCall(MethodDecl constructor) {
+        List<Stmt> statements = constructor.body.statements;
+        if (statements.isEmpty() || !(statements.get(0) instanceof ExpressionStmt)) {
+            return null;
+        }
+        Expr expression = ((ExpressionStmt) statements.get(0)).expression;
+        if (!(expression instanceof MethodCall)) {
+            return null;
+        }
+        MethodCall call = (MethodCall) expression;
+        return call.target == null && (call.name.equals("this") || call.name.equals("super")) ? call : null;
+    }
+    
+    /** Runs the field initializers and initializer blocks of one class on {@code self}. */
+    private void initializeFields(RuntimeClass type) {
+        if (type.initializers.isEmpty()) {
+            return;
+        }
+        Frame savedFrame = frame;
+        frame = pushFrame(type.decl.initializerFrameSize);
+        try {
+            for (Node member : type.initializers) {
+                if (member instanceof FieldDecl) {
+                    FieldDecl field = (FieldDecl) member;
+                    currentLine = field.line;
+                    int slot = type.fieldSlots[field.symbol];
+                    self.fields[slot] = coerce(type.fieldTypes[slot], evaluate(field.initializer));
+                } else {
+                    execute((Block) member);
+                }
+            }
+        } finally {
+            popFrame(savedFrame);
+        }
+    }
+    
+    private boolean isSystemStream(FieldAccess access) {
+        return access.target instanceof Name
+                && ((Name) access.target).name.equals("System")
+                && !isVariable((Name) access.target)
+                && (access.name.equals("out") || access.name.equals("err"));
+    }
+    
+    private Object print(String stream, MethodCall call) {
+        Object[] args = evaluateArguments(call.arguments);
+        switch (call.name) {
+            case "println":
+                if (args.length > 1) break;
+                output.println(args.length == 0 ? "" : String.valueOf(args[0]));
+                return null;
+            case "print":
+                if (args.length != 1) break;
+                output.print(String.valueOf(args[0]));
+                return null;
+            case "printf":
+            case "format":
+                if (args.length == 0) break;
+                Object[] formatArgs = new Object[args.length - 1];
+                System.arraycopy(args, 1, formatArgs, 0, formatArgs.length);
+                output.print(String.format(String.valueOf(args[0]), formatArgs));
+                return null;
+            case "flush":
+                return null;
+            default:
+                break;
+        }
+        throw new InterpreterException("cannot find symbol: method " + call.name + " in System." + stream);
+    }
+    
+    private List<MethodDecl> findMethods(ClassDecl decl, int symbol) {
+        for (ClassDecl cls = decl; cls != null; cls = outerClasses.get(cls)) {
+            List<MethodDecl> overloads = findMemberMethods(cls, symbol);
+            if (overloads != null) {
+                return overloads;
+            }
+        }
+        return null;
+    }
+    
+    /** Methods named by {@code symbol} that {@code type} declares or inherits, from a superclass or an interface. */
+    private List<MethodDecl> findMemberMethods(ClassDecl type, int symbol) {
+        for (ClassDecl cls = type; cls != null; cls = superclassOf(cls)) {
+            List<MethodDecl> overloads = runtimeClasses.get(cls).declaredMethods.get(symbol);
+            if (overloads != null) {
+                return overloads;
+            }
+        }
+        for (ClassDecl cls = type; cls != null; cls = superclassOf(cls)) {
+            for (TypeRef implemented : cls.interfaces) {
+                ClassDecl decl = classNamed(implemented.symbol);
+                List<MethodDecl> overloads = decl != null ? findMemberMethods(decl, symbol) : null;
+                if (overloads != null) {
+                    return overloads;
+                }
+            }
+        }
+        return null;
+    }
+    
+    private MethodDecl selectMethod(List<MethodDecl> candidates, String name, Object[] args) {
+        MethodDecl best = null;
+        int bestCost = Integer.MAX_VALUE;
+        if (candidates != null) {
+            for (MethodDecl method : candidates) {
+                int cost = applicability(method, args);
+                if (cost >= 0 && cost < bestCost) {
+                    best = method;
+                    bestCost = cost;
+                }
+            }
+        }
+        if (best == null) {
+            StringBuilder types = new StringBuilder();
+            for (int i = 0; i < args.length; i++) {
+                if (i > 0) types.append(", ");
+                types.append(Operators.typeName(args[i]));
+            }
+            throw new InterpreterException("cannot find symbol: method " + name + "(" + types + ")");
+        }
+        return best;
+    }
+    
+    private int applicability(MethodDecl method, Object[] args) {
+        if (method.params.size() != args.length) {
+            return -1;
+        }
+        int cost = 0;
+        for (int i = 0; i < args.length; i++) {
+            Param param = method.params.get(i);
+            if (param.varargs) {
+                throw new InterpreterException("Varargs methods are not supported yet", method.line);
+            }
+            ClassDecl declared = param.type.isArray() ? null : classNamed(param.type.symbol);
+            int c;
+            if (declared != null) {
+                c = conversionCost(runtimeClasses.get(declared), args[i]);
+            } else {
+                Class<?> type = param.type.isPrimitive()
+                        ? HostInterop.primitiveType(param.type.name)
+                        : param.type.isArray() ? null : HostInterop.resolveClass(param.type.name);
+                c = type != null ? HostInterop.conversionCost(type, asHostValue(args[i])) : 15;
+            }
+            if (c < 0) {
+                return -1;
+            }
+            cost += c;
+        }
+        return cost;
+    }
+    
+    /** Like {@link HostInterop#conversionCost}, for a parameter whose type is a class of the program. */
+    private static int conversionCost(ProgramClass type, Object arg) {
+        if (arg == null) {
+            return 1;
+        }
+        if (!type.isInstance(arg)) {
+            return -1;
+        }
+        return ((ProgramObject) arg).type == type ? 0 : 10;
+    }
+    
+    private String parameterList(MethodDecl method) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < method.params.size(); i++) {
+            if (i > 0) sb.append(",");
+            sb.append(method.params.get(i).type);
+        }
+        return sb.toString();
+    }
+    
+    private Object[] evaluateArguments(List<Expr> arguments) {
+        Object[] values = new Object[arguments.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = evaluate(arguments.get(i));
+        }
+        return values;
+    }
+    
+    // ---------------------------------------------------------------------
+    // Statements
+    // ---------------------------------------------------------------------
+    
+    private void execute(Stmt stmt) {
+        currentLine = stmt.line;
+        budget.step();
+        if (profiler != null && stmt.tag != Tag.BLOCK) {
+            profiler.line(currentMethod, stmt.line);
+        }
+        switch (stmt.tag) {
+            case BLOCK:
+                for (Stmt child : ((Block) stmt).statements) {
+                    execute(child);
+                    if (breakFlag || continueFlag || returnFlag) {
+                        return;
+                    }
+                }
+                return;
+            case LOCAL_VAR:
+                declareLocals((LocalVarDecl) stmt);
+                return;
+            case EXPRESSION_STATEMENT:
+                evaluate(((ExpressionStmt) stmt).expression);
+                return;
+            case IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                if (Operators.isTrue(evaluate(ifStmt.condition))) {
+                    execute(ifStmt.thenStatement);
+                } else if (ifStmt.elseStatement != null) {
+                    execute(ifStmt.elseStatement);
+                }
+                return;
+            }
+            case WHILE:
+            case DO_WHILE:
+            case FOR:
+            case FOR_EACH:
+                executeLoop(stmt, null);
+                return;
+            case SWITCH:
+                executeSwitch((SwitchStmt) stmt);
+                return;
+            case LABELED: {
+                LabeledStmt labeled = (LabeledStmt) stmt;
+                if (isLoop(labeled.body)) {
+                    currentLine = labeled.body.line;
+                    executeLoop(labeled.body, labeled.label);
+                } else {
+                    execute(labeled.body);
+                }
+                // a labeled loop has consumed its own break already
+                if (breakFlag && labeled.label.equals(jumpLabel)) {
+                    breakFlag = false;
+                    jumpLabel = null;
+                }
+                return;
+            }
+            case BREAK:
+                breakFlag = true;
+                jumpLabel = ((BreakStmt) stmt).label;
+                return;
+            case CONTINUE:
+                continueFlag = true;
+                jumpLabel = ((ContinueStmt) stmt).label;
+                return;
+            case RETURN: {
+                Expr value = ((ReturnStmt) stmt).value;
+                returnValue = value != null ? evaluate(value) : null;
+                returnFlag = true;
+                return;
+            }
+            case THROW: {
+                Object exception = evaluate(((ThrowStmt) stmt).exception);
+                if (exception == null) {
+                    throw new NullPointerException("Cannot throw exception because value is null");
+                }
+                if (!(asHostValue(exception) instanceof Throwable)) {
+                    throw new InterpreterException("incompatible types: " + Operators.typeName(exception)
+                            + " cannot be converted to Throwable", stmt.line);
+                }
+                throw new ThrownException(exception, stmt.line);
+            }
+            case TRY:
+                executeTry((TryStmt) stmt);
+                return;
+            case EMPTY:
+                return;
+            default:
+                throw new InterpreterException("Unsupported statement", stmt.line);
+        }
+    }
+    
+    private void declareLocals(LocalVarDecl decl) {
+        for (VarDeclarator variable : decl.variables) {
+            String type = primitiveName(variable.type);
+            Object value = variable.initializer != null ? evaluate(variable.initializer) : defaultValue(variable.type);
+            frame.declare(variable.slot, type, coerce(type, value));
+        }
+    }
+    
+    private static boolean isLoop(Stmt stmt) {
+        return stmt.tag == Tag.WHILE || stmt.tag == Tag.DO_WHILE || stmt.tag == Tag.FOR || stmt.tag == Tag.FOR_EACH;
+    }
+    
+    /** Runs a loop; {@code label} names it for labeled break and continue, or is null. */
+    private void executeLoop(Stmt loop, String label) {
+        switch (loop.tag) {
+            case WHILE:
+                executeWhile((WhileStmt) loop, label);
+                return;
+            case DO_WHILE:
+                executeDoWhile((DoWhileStmt) loop, label);
+                return;
+            case FOR:
+                executeFor((ForStmt) loop, label);
+                return;
+            default:
+                executeForEach((ForEachStmt) loop, label);
+                return;
+        }
+    }
+    
+    private void executeWhile(WhileStmt loop, String label) {
+        while (Operators.isTrue(evaluate(loop.condition))) {
+            budget.checkpoint();
+            execute(loop.body);
+            if (completesLoop(label)) {
+                break;
+            }
+            if (loopIsHot()) {
+                ((ConditionLoop) compiledLoop(loop, label)).resume();
+                return;
+            }
+        }
+    }
+    
+    private void executeDoWhile(DoWhileStmt loop, String label) {
+        do {
+            budget.checkpoint();
+            execute(loop.body);
+            if (completesLoop(label)) {
+                break;
+            }
+            if (loopIsHot()) {
+                ((ConditionLoop) compiledLoop(loop, label)).resume();
+                return;
+            }
+        } while (Operators.isTrue(evaluate(loop.condition)));
+    }
+    
+    private void executeFor(ForStmt loop, String label) {
+        for (Stmt init : loop.init) {
+            execute(init);
+        }
+        while (loop.condition == null || Operators.isTrue(evaluate(loop.condition))) {
+            budget.checkpoint();
+            execute(loop.body);
+            if (completesLoop(label)) {
+                break;
+            }
+            if (loopIsHot()) {
+                ((ConditionLoop) compiledLoop(loop, label)).resume();
+                return;
+            }
+            for (Expr update : loop.update) {
+                evaluate(update);
+            }
+        }
+    }
+    
+    private void executeForEach(ForEachStmt loop, String label) {
+        List<Object> items = iterationItems(evaluate(loop.iterable), loop);
+        String type = primitiveName(loop.variableType);
+        for (int i = 0; i < items.size(); i++) {
+            budget.checkpoint();
+            frame.declare(loop.slot, type, coerce(type, items.get(i)));
+            execute(loop.body);
+            if (completesLoop(label)) {
+                break;
+            }
+            if (loopIsHot()) {
+                ((ForEachLoop) compiledLoop(loop, label)).iterate(items, i + 1);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * The values a for-each loop goes through. A collection is copied first
+     * so the loop body may change it; an array is read as the loop goes, as
+     * in Java, so the body sees its own stores to later elements.
+     */
+    private static List<Object> iterationItems(final Object iterable, ForEachStmt loop) {
+        if (iterable != null && iterable.getClass().isArray()) {
+            final int length = Array.getLength(iterable);
+            return new AbstractList<Object>() {
+                @Override
+                public Object get(int index) {
+                    return ArrayOperations.load(iterable, index);
+                }
+                
+                @Override
+                public int size() {
+                    return length;
+                }
+            };
+        }
+        List<Object> items = new ArrayList<>();
+        if (iterable instanceof Iterable) {
+            for (Object item : (Iterable<?>) iterable) {
+                items.add(item);
+            }
+        } else if (iterable == null) {
+            throw new NullPointerException("Cannot iterate over null");
+        } else {
+            throw new InterpreterException("for-each not applicable to expression type " + Operators.typeName(iterable), loop.line);
+        }
+        return items;
+    }
+    
+    /**
+     * Consumes a pending break or continue meant for this loop; true if the
+     * loop must stop. A labeled jump to an enclosing statement stays pending
+     * and stops this loop on its way out.
+     */
+    private boolean completesLoop(String label) {
+        if (returnFlag) {
+            return true;
+        }
+        if (!breakFlag && !continueFlag) {
+            return false;
+        }
+        if (jumpLabel != null && !jumpLabel.equals(label)) {
+            return true;
+        }
+        boolean stop = breakFlag;
+        breakFlag = false;
+        continueFlag = false;
+        jumpLabel = null;
+        return stop;
+    }
+    
+    private void executeSwitch(SwitchStmt stmt) {
+        Object selector = evaluate(stmt.selector);
+        if (selector == null) {
+            throw new NullPointerException("Cannot switch on null");
+        }
+        
+        int match = -1;
+        for (int i = 0; i < stmt.cases.size() && match < 0; i++) {
+            SwitchCase switchCase = stmt.cases.get(i);
+            if (switchCase.isDefault()) {
+                continue;
+            }
+            for (Expr label : switchCase.labels) {
+                if (matchesCase(selector, evaluate(label))) {
+                    match = i;
+                    break;
+                }
+            }
+        }
+        if (match < 0) {
+            for (int i = 0; i < stmt.cases.size() && match < 0; i++) {
+                if (stmt.cases.get(i).isDefault()) {
+                    match = i;
+                }
+            }
+        }
+        if (match < 0) {
+            return;
+        }
+        
+        // colon cases fall through into the next one until a break
+        for (int i = match; i < stmt.cases.size(); i++) {
+            SwitchCase switchCase = stmt.cases.get(i);
+            for (Stmt child : switchCase.body) {
+                execute(child);
+                if (breakFlag || continueFlag || returnFlag) {
+                    break;
+                }
+            }
+            if (breakFlag || continueFlag || returnFlag || switchCase.arrow) {
+                break;
+            }
+        }
+        if (breakFlag && jumpLabel == null) {
+            breakFlag = false;
+        }
+    }
+    
+    private static boolean matchesCase(Object selector, Object label) {
+        if (selector instanceof String) {
+            return selector.equals(label);
+        }
+        return Operators.isTrue(Operators.binary(BinaryOp.EQ, selector, label));
+    }
+    
+    private void executeTry(TryStmt stmt) {
+        if (!stmt.resources.isEmpty()) {
+            throw new InterpreterException("try-with-resources is not supported yet", stmt.line);
+        }
+        
+        RuntimeException pending = null;
+        try {
+            execute(stmt.body);
+        } catch (InterpreterException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            pending = e;
+            Object exception = e instanceof ThrownException ? ((ThrownException) e).getValue() : e;
+            CatchClause handler = findHandler(stmt, exception);
+            if (handler != null) {
+                pending = null;
+                frame.declare(handler.slot, null, exception);
+                try {
+                    execute(handler.body);
+                } catch (InterpreterException inner) {
+                    throw inner;
+                } catch (RuntimeException inner) {
+                    pending = inner;
+                }
+            }
+        }
+        
+        if (stmt.finallyBlock != null) {
+            boolean savedBreak = breakFlag;
+            boolean savedContinue = continueFlag;
+            boolean savedReturn = returnFlag;
+            Object savedValue = returnValue;
+            breakFlag = false;
+            continueFlag = false;
+            returnFlag = false;
+            
+            execute(stmt.finallyBlock);
+            
+            if (breakFlag || continueFlag || returnFlag) {
+                // an abrupt finally discards the pending exception or jump
+                pending = null;
+            } else {
+                breakFlag = savedBreak;
+                continueFlag = savedContinue;
+                returnFlag = savedReturn;
+                returnValue = savedValue;
+            }
+        }
+        
+        if (pending != null) {
+            throw pending;
+        }
+    }
+    
+    private CatchClause findHandler(TryStmt stmt, Object exception) {
+        for (CatchClause clause : stmt.catches) {
+            for (TypeRef type : clause.types) {
+                ClassDecl decl = classNamed(type.symbol);
+                if (decl != null) {
+                    if (runtimeClasses.get(decl).isInstance(exception)) {
+                        return clause;
+                    }
+                    continue;
+                }
+                Class<?> exceptionClass = HostInterop.resolveClass(type.name);
+                if (exceptionClass == null) {
+                    throw new InterpreterException("cannot find symbol: class " + type.name, clause.line);
+                }
+                if (exceptionClass.isInstance(asHostValue(exception))) {
+                    return clause;
+                }
+            }
+        }
+        return null;
+    }
+    
+    // ---------------------------------------------------------------------
+    // Expressions
+    // ---------------------------------------------------------------------
+    
+    private Object evaluate(Expr expr) {
+        switch (expr.tag) {
+            case LITERAL:
+                return ((Literal) expr).value;
+            case NAME:
+                return evaluateName((Name) expr);
+            case BINARY:
+                return evaluateBinary((Binary) expr);
+            case UNARY:
+                return evaluateUnary((Unary) expr);
+            case ASSIGN:
+                return evaluateAssign((Assign) expr);
+            case CONDITIONAL: {
+                Conditional conditional = (Conditional) expr;
+                return evaluate(Operators.isTrue(evaluate(conditional.condition))
+                        ? conditional.thenValue
+                        : conditional.elseValue);
+            }
+            case METHOD_CALL:
+                return callMethod((MethodCall) expr);
+            case FIELD_ACCESS:
+                return evaluateFieldAccess((FieldAccess) expr);
+            case ARRAY_ACCESS: {
+                ArrayAccess access = (ArrayAccess) expr;
+                Object array = evaluate(access.array);
+                return ArrayOperations.load(array, Operators.intValue(evaluate(access.index)));
+            }
+            case CAST:
+                return evaluateCast((Cast) expr);
+            case INSTANCE_OF: {
+                InstanceOf test = (InstanceOf) expr;
+                Object value = evaluate(test.expression);
+                ClassDecl decl = test.type.isArray() ? null : classNamed(test.type.symbol);
+                if (decl != null) {
+                    return runtimeClasses.get(decl).isInstance(value);
+                }
+                return value != null && resolveHostClass(test.type).isInstance(asHostValue(value));
+            }
+            case NEW_OBJECT: {
+                NewObject creation = (NewObject) expr;
+                ClassDecl decl = classNamed(creation.type.symbol);
+                if (decl != null) {
+                    return instantiate(decl, evaluateArguments(creation.arguments));
+                }
+                Class<?> hostClass = resolveHostClass(creation.type);
+                return HostInterop.construct(hostClass, evaluateArguments(creation.arguments), budget);
+            }
+            case NEW_ARRAY:
+                return newArray((NewArray) expr);
+            case ARRAY_INIT:
+                throw new InterpreterException("illegal start of expression: array initializer without a type");
+            case THIS:
+            case SUPER:
+                // super is only parsed as the target of a field access or call, which use this object
+                if (self != null) {
+                    return self;
+                }
+                throw new InterpreterException("non-static variable " + (expr.tag == Tag.THIS ? "this" : "super")
+                        + " cannot be referenced from a static context");
+            default:
+                throw new InterpreterException("Unsupported expression");
+        }
+    }
+    
+    private Object evaluateName(Name name) {
+        if (name.slot >= 0) {
+            return frame.values[name.slot];
+        }
+        int field = instanceFieldSlot(name.symbol);
+        if (field >= 0) {
+            return receiverOf(name.name).fields[field];
+        }
+        Variable variable = lookupStaticField(name.symbol);
+        if (variable == null) {
+            throw new InterpreterException("cannot find symbol: variable " + name.name);
+        }
+        return variable.value;
+    }
+    
+    private Object evaluateBinary(Binary binary) {
+        if (binary.op == BinaryOp.AND) {
+            return Operators.isTrue(evaluate(binary.left)) && Operators.isTrue(evaluate(binary.right));
+        }
+        if (binary.op == BinaryOp.OR) {
+            return Operators.isTrue(evaluate(binary.left)) || Operators.isTrue(evaluate(binary.right));
+        }
+        if (binary.op == BinaryOp.ADD && isAddition(binary.left)) {
+            return evaluateAdditions(binary);
+        }
+        Object left = evaluate(binary.left);
+        Object right = evaluate(binary.right);
+        return charged(Operators.binary(binary.op, left, right));
+    }
+    
+    /**
+     * {@code a + b + c ...}: all operands are evaluated left to right and
+     * then added in one go, so a chain that turns into a String makes one
+     * String rather than one per {@code +}.
+     */
+    private Object evaluateAdditions(Binary chain) {
+        int count = 2;
+        for (Expr operand = chain.left; isAddition(operand); operand = ((Binary) operand).left) {
+            count++;
+        }
+        Object[] parts = new Object[count];
+        evaluateOperands(chain, parts);
+        return charged(Operators.concat(parts, 0, count));
+    }
+    
+    /** Evaluates the operands of a chain of {@code +} into {@code parts}; returns how many there were. */
+    private int evaluateOperands(Expr expr, Object[] parts) {
+        if (!isAddition(expr)) {
+            parts[0] = evaluate(expr);
+            return 1;
+        }
+        int next = evaluateOperands(((Binary) expr).left, parts);
+        parts[next] = evaluate(((Binary) expr).right);
+        return next + 1;
+    }
+    
+    private static boolean isAddition(Expr expr) {
+        return expr.tag == Tag.BINARY && ((Binary) expr).op == BinaryOp.ADD;
+    }
+    
+    /** The operands of a chain of {@code +}, left to right. */
+    private static void addOperands(Expr expr, List<Expr> operands) {
+        if (isAddition(expr)) {
+            addOperands(((Binary) expr).left, operands);
+            operands.add(((Binary) expr).right);
+        } else {
+            operands.add(expr);
+        }
+    }
+    
+    /** Charges the budget for a string a concatenation just made; other results are not new objects. */
+    private Object charged(Object value) {
+        if (value instanceof String) {
+            budget.allocate(HeapMeter.sizeOf(value));
+        }
+        return value;
+    }
+    
+    private Object evaluateUnary(Unary unary) {
+        if (!unary.op.isIncrementOrDecrement()) {
+            return Operators.unary(unary.op, evaluate(unary.operand));
+        }
+        int delta = unary.op == UnaryOp.PRE_INC || unary.op == UnaryOp.POST_INC ? 1 : -1;
+        boolean postfix = unary.op == UnaryOp.POST_INC || unary.op == UnaryOp.POST_DEC;
+        if (unary.operand instanceof Name && ((Name) unary.operand).slot >= 0) {
+            Object[] values = frame.values;
+            int slot = ((Name) unary.operand).slot;
+            Object old = values[slot];
+            values[slot] = Operators.increment(old, delta);
+            return postfix ? old : values[slot];
+        }
+        if (unary.operand.tag == Tag.ARRAY_ACCESS) {
+            ArrayAccess access = (ArrayAccess) unary.operand;
+            Object array = evaluate(access.array);
+            int index = Operators.intValue(evaluate(access.index));
+            Object old = ArrayOperations.load(array, index);
+            Object updated = ArrayOperations.store(array, index, Operators.increment(old, delta));
+            return postfix ? old : updated;
+        }
+        if (isInstanceField(unary.operand)) {
+            ProgramObject object = fieldOwner(unary.operand, true);
+            int slot = fieldSlot(object, fieldSymbol(unary.operand));
+            Object old = object.fields[slot];
+            object.fields[slot] = Operators.increment(old, delta);
+            return postfix ? old : object.fields[slot];
+        }
+        Variable variable = resolveAssignable(unary.operand);
+        Object old = variable.value;
+        variable.value = Operators.increment(old, delta);
+        return postfix ? old : variable.value;
+    }
+    
+    private Object evaluateAssign(Assign assign) {
+        if (assign.target instanceof Name && ((Name) assign.target).slot >= 0) {
+            Frame current = frame;
+            int slot = ((Name) assign.target).slot;
+            Object value = assignedValue(assign, current.types[slot], current.values[slot]);
+            current.values[slot] = value;
+            return value;
+        }
+        if (assign.target.tag == Tag.ARRAY_ACCESS) {
+            ArrayAccess access = (ArrayAccess) assign.target;
+            Object array = evaluate(access.array);
+            int index = Operators.intValue(evaluate(access.index));
+            if (assign.op == null) {
+                // stored after the value is evaluated, so a[i] = f() with a null a still calls f, as in Java
+                return ArrayOperations.store(array, index, evaluate(assign.value));
+            }
+            Object current = ArrayOperations.load(array, index);
+            return ArrayOperations.store(array, index,
+                    charged(Operators.binary(assign.op, current, evaluate(assign.value))));
+        }
+        if (isInstanceField(assign.target)) {
+            ProgramObject object = fieldOwner(assign.target, assign.op != null);
+            int slot = fieldSlot(object, fieldSymbol(assign.target));
+            Object value = assignedValue(assign, ((RuntimeClass) object.type).fieldTypes[slot], object.fields[slot]);
+            object.fields[slot] = value;
+            return value;
+        }
+        Variable variable = resolveAssignable(assign.target);
+        variable.value = assignedValue(assign, variable.type, variable.value);
+        return variable.value;
+    }
+    
+    private Object assignedValue(Assign assign, String type, Object current) {
+        if (assign.op == null) {
+            return coerce(type, evaluate(assign.value));
+        }
+        Object value = charged(Operators.binary(assign.op, current, evaluate(assign.value)));
+        // compound assignment narrows back to the variable's type: int x; x += 1.5;
+        return type != null ? Operators.cast(type, value) : value;
+    }
+    
+    private Object evaluateFieldAccess(FieldAccess access) {
+        if (access.target instanceof Name && !isVariable((Name) access.target)) {
+            String className = ((Name) access.target).name;
+            ClassDecl decl = classNamed(((Name) access.target).symbol);
+            if (decl != null) {
+                Variable field = findStaticField(decl, access.symbol);
+                if (field == null) {
+                    throw new InterpreterException("cannot find symbol: variable " + access.name + " in class " + className);
+                }
+                return field.value;
+            }
+            if (className.equals("System") && access.name.equals("in")) {
+                return output.getInputStream();
+            }
+            Class<?> hostClass = HostInterop.resolveClass(className);
+            if (hostClass != null) {
+                return HostInterop.getStaticField(hostClass, access.name);
+            }
+            throw new InterpreterException("cannot find symbol: variable " + className);
+        }
+        
+        Object target = evaluate(access.target);
+        if (target instanceof ProgramObject) {
+            ProgramObject object = (ProgramObject) target;
+            return object.fields[fieldSlot(object, access.symbol)];
+        }
+        if (target != null && target.getClass().isArray() && access.name.equals("length")) {
+            return Array.getLength(target);
+        }
+        if (target == null) {
+            throw new NullPointerException("Cannot read field \"" + access.name + "\" because value is null");
+        }
+        throw new InterpreterException("Field access on objects is not supported yet");
+    }
+    
+    private Object evaluateCast(Cast cast) {
+        Object value = evaluate(cast.expression);
+        if (cast.type.isPrimitive()) {
+            return Operators.cast(cast.type.name, value);
+        }
+        ClassDecl decl = cast.type.isArray() ? null : classNamed(cast.type.symbol);
+        if (decl != null) {
+            if (value != null && !runtimeClasses.get(decl).isInstance(value)) {
+                throw new ClassCastException("class " + className(value) + " cannot be cast to class " + decl.name);
+            }
+            return value;
+        }
+        Class<?> type = resolveHostClass(cast.type);
+        if (value != null && !type.isInstance(asHostValue(value))) {
+            throw new ClassCastException("class " + className(value) + " cannot be cast to class " + type.getName());
+        }
+        return value;
+    }
+    
+    private static String className(Object value) {
+        return value instanceof ProgramObject ? ((ProgramObject) value).type.name : value.getClass().getName();
+    }
+    
+    /**
+     * What stands for a value in a check against a host type: the Throwable
+     * part of an exception the program declares, else the value itself.
+     */
+    private static Object asHostValue(Object value) {
+        return value instanceof ProgramObject && ((ProgramObject) value).hostPart != null
+                ? ((ProgramObject) value).hostPart
+                : value;
+    }
+    
+    private Class<?> resolveHostClass(TypeRef type) {
+        if (type.isArray()) {
+            return ArrayOperations.arrayClass(elementClass(type), type.dimensions);
+        }
+        Class<?> hostClass = HostInterop.resolveClass(type.name);
+        if (hostClass == null) {
+            throw new InterpreterException("cannot find symbol: class " + type.name);
+        }
+        return hostClass;
+    }
+    
+    // ---------------------------------------------------------------------
+    // Arrays
+    // ---------------------------------------------------------------------
+    
+    private Object newArray(NewArray creation) {
+        Class<?> elementClass = elementClass(creation.elementType);
+        if (creation.initializer != null) {
+            return initializedArray(elementClass, creation.initializer, creation.totalDimensions);
+        }
+        int[] lengths = new int[creation.dimensions.size()];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = Operators.intValue(evaluate(creation.dimensions.get(i)));
+        }
+        return ArrayOperations.newArray(elementClass, lengths, creation.totalDimensions, budget);
+    }
+    
+    /** {@code {a, b, c}} as an array with {@code dimensions} dimensions; nested initializers make its rows. */
+    private Object initializedArray(Class<?> elementClass, ArrayInit initializer, int dimensions) {
+        List<Expr> elements = initializer.elements;
+        Object array = ArrayOperations.newArray(elementClass, new int[] { elements.size() }, dimensions, budget);
+        for (int i = 0; i < elements.size(); i++) {
+            Expr element = elements.get(i);
+            if (element.tag != Tag.ARRAY_INIT) {
+                ArrayOperations.store(array, i, evaluate(element));
+            } else if (dimensions > 1) {
+                ArrayOperations.store(array, i, initializedArray(elementClass, (ArrayInit) element, dimensions - 1));
+            } else {
+                throw new InterpreterException("illegal initializer for " + elementClass.getSimpleName(), element.line);
+            }
+        }
+        return array;
+    }
+    
+    /** What the innermost elements of an array of {@code type} are stored as; the program's classes are Object. */
+    private Class<?> elementClass(TypeRef type) {
+        return classNamed(type.symbol) != null ? Object.class : ArrayOperations.elementClass(type.name);
+    }
+    
+    // ---------------------------------------------------------------------
+    // Variables
+    // ---------------------------------------------------------------------
+    
+    private Variable resolveAssignable(Expr target) {
+        if (target instanceof Name) {
+            Variable variable = lookupStaticField(((Name) target).symbol);
+            if (variable == null) {
+                throw new InterpreterException("cannot find symbol: variable " + ((Name) target).name);
+            }
+            return variable;
+        }
+        if (target instanceof FieldAccess && ((FieldAccess) target).target instanceof Name) {
+            FieldAccess access = (FieldAccess) target;
+            ClassDecl decl = classNamed(((Name) access.target).symbol);
+            if (decl != null && !isVariable((Name) access.target)) {
+                Variable field = findStaticField(decl, access.symbol);
+                if (field != null) {
+                    return field;
+                }
+            }
+        }
+        throw new InterpreterException("Assignment to this kind of target is not supported yet");
+    }
+    
+    /** True if the name is a local or a field rather than a class name. */
+    private boolean isVariable(Name name) {
+        return name.slot >= 0 || instanceFieldSlot(name.symbol) >= 0 || lookupStaticField(name.symbol) != null;
+    }
+    
+    /** Slot of the instance field a simple name refers to in the current class, or -1. */
+    private int instanceFieldSlot(int symbol) {
+        if (currentClass == null || symbol < 0) {
+            return -1;
+        }
+        return runtimeClasses.get(currentClass).fieldSlots[symbol];
+    }
+    
+    /** The object whose field a simple name reads, which is {@code this}. */
+    private ProgramObject receiverOf(String fieldName) {
+        if (self == null) {
+            throw new InterpreterException("non-static variable " + fieldName + " cannot be referenced from a static context");
+        }
+        return self;
+    }
+    
+    /** True if an assignment target is a field of an object rather than a local or a static field. */
+    private boolean isInstanceField(Expr target) {
+        if (target instanceof Name) {
+            return ((Name) target).slot < 0 && instanceFieldSlot(((Name) target).symbol) >= 0;
+        }
+        if (target instanceof FieldAccess) {
+            Expr owner = ((FieldAccess) target).target;
+            return !(owner instanceof Name) || isVariable((Name) owner);
+        }
+        return false;
+    }
+    
+    private static int fieldSymbol(Expr target) {
+        return target instanceof Name ? ((Name) target).symbol : ((FieldAccess) target).symbol;
+    }
+    
+    /** Evaluates the object an instance field target belongs to; {@code reads} picks the message for null. */
+    private ProgramObject fieldOwner(Expr target, boolean reads) {
+        if (target instanceof Name) {
+            return receiverOf(((Name) target).name);
+        }
+        FieldAccess access = (FieldAccess) target;
+        Object owner = evaluate(access.target);
+        if (owner == null) {
+            throw new NullPointerException("Cannot " + (reads ? "read" : "assign") + " field \"" + access.name
+                    + "\" because value is null");
+        }
+        if (!(owner instanceof ProgramObject)) {
+            throw new InterpreterException("cannot find symbol: variable " + access.name + " in " + Operators.typeName(owner));
+        }
+        return (ProgramObject) owner;
+    }
+    
+    private int fieldSlot(ProgramObject object, int symbol) {
+        int slot = ((RuntimeClass) object.type).fieldSlots[symbol];
+        if (slot < 0) {
+            throw new InterpreterException("cannot find symbol: variable " + symbols.name(symbol) + " in class "
+                    + object.type.name);
+        }
+        return slot;
+    }
+    
+    private Variable lookupStaticField(int symbol) {
+        if (symbol < 0) {
+            return null;
+        }
+        for (ClassDecl cls = currentClass; cls != null; cls = outerClasses.get(cls)) {
+            Variable field = findStaticField(cls, symbol);
+            if (field != null) {
+                return field;
+            }
+        }
+        return null;
+    }
+    
+    /** The static field {@code symbol} names in {@code decl}, inherited from a superclass or an interface; null if none. */
+    private Variable findStaticField(ClassDecl decl, int symbol) {
+        for (ClassDecl type = decl; type != null; type = superclassOf(type)) {
+            RuntimeClass declaring = runtimeClasses.get(type);
+            Variable field = declaring.staticFields[symbol];
+            if (field != null) {
+                initializeClass(declaring);
+                return field;
+            }
+        }
+        for (ClassDecl type = decl; type != null; type = superclassOf(type)) {
+            for (TypeRef implemented : type.interfaces) {
+                ClassDecl superinterface = classNamed(implemented.symbol);
+                Variable field = superinterface != null ? findStaticField(superinterface, symbol) : null;
+                if (field != null) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+    
+    private ClassDecl superclassOf(ClassDecl decl) {
+        return decl.superclass != null ? classNamed(decl.superclass.symbol) : null;
+    }
+    
+    /** The class of the program a name or type refers to, or null if it is not one. */
+    private ClassDecl classNamed(int symbol) {
+        return symbol >= 0 ? classTable[symbol] : null;
+    }
+    
+    /** Primitive type name used to coerce assigned values, or null for reference types. */
+    private static String primitiveName(TypeRef type) {
+        return type != null && type.isPrimitive() ? type.name : null;
+    }
+    
+    private static Object coerce(String type, Object value) {
+        return type != null ? Operators.cast(type, value) : value;
+    }
+    
+    private static Object defaultValue(TypeRef type) {
+        return type.isPrimitive() ? defaultValue(type.name) : null;
+    }
+    
+    /** Default value of a field of the given primitive type, or null for reference types. */
+    private static Object defaultValue(String primitive) {
+        if (primitive == null) {
+            return null;
+        }
+        switch (primitive) {
+            case "int":
+                return 0;
+            case "short":
+                return (short) 0;
+            case "byte":
+                return (byte) 0;
+            case "long":
+                return 0L;
+            case "float":
+                return 0.0f;
+            case "double":
+                return 0.0;
+            case "boolean":
+                return false;
+            case "char":
+                return '\0';
+            default:
+                return null;
+        }
+    }
+    
+    // ---------------------------------------------------------------------
+    // Compiled tier
+    // ---------------------------------------------------------------------
+    
+    // Kinds of typed code, ordered like binary numeric promotion widens
+    private static final int INT = 0;
+    private static final int LONG = 1;
+    private static final int DOUBLE = 2;
+    private static final int BOOLEAN = 3;
+    private static final String[] TYPE_NAMES = { "int", "long", "double", "boolean" };
+    
+    /** What every compiled statement does first; profiled ones record the line before, see ClosureCompiler#statement. */
+    private void enterStatement(int line) {
+        currentLine = line;
+        budget.step();
+    }
+    
+    /** The body of a method as closures once it is hot; null while it is still walked. */
+    private Action compiledBody(MethodDecl method) {
+        int index = method.index;
+        if (!tiered || index < 0) {
+            return null;
+        }
+        Action body = compiledMethods[index];
+        if (body == null && ++invocations[index] >= METHOD_THRESHOLD) {
+            ClosureCompiler compiler = new ClosureCompiler(new String[method.frameSize], new String[method.frameSize]);
+            for (Param param : method.params) {
+                compiler.slotTypes[param.slot] = primitiveName(param.type);
+                compiler.arrayTypes[param.slot] = arrayTypeName(param.type);
+            }
+            body = compiler.statement(method.body);
+            compiledMethods[index] = body;
+            if (profiler != null) {
+                profiler.tierUp(index, method.line, false, invocations[index]);
+            }
+        }
+        return body;
+    }
+    
+    /** Counts an iteration of a walked loop; true once the loops of the running method are hot. */
+    private boolean loopIsHot() {
+        return tiered && ++backEdges[currentMethod] >= LOOP_THRESHOLD;
+    }
+    
+    /**
+     * A walked loop as closures, to continue it with. The types of the
+     * locals declared before the loop come from the frame it is running in,
+     * which holds the same ones every time the loop runs; so do those of the
+     * arrays in them.
+     */
+    private Action compiledLoop(Stmt loop, String label) {
+        Action compiled = compiledLoops.get(loop);
+        if (compiled == null) {
+            String[] arrayTypes = new String[frame.size];
+            for (int i = 0; i < frame.size; i++) {
+                Object value = frame.values[i];
+                if (value != null && value.getClass().isArray()) {
+                    arrayTypes[i] = value.getClass().getSimpleName();
+                }
+            }
+            compiled = new ClosureCompiler(Arrays.copyOf(frame.types, frame.size), arrayTypes).loop(loop, label);
+            compiledLoops.put(loop, compiled);
+            if (profiler != null) {
+                profiler.tierUp(currentMethod, loop.line, true, backEdges[currentMethod]);
+            }
+        }
+        return compiled;
+    }
+    
+    private static Object[] valuesOf(Code[] arguments) {
+        if (arguments.length == 0) {
+            return NO_ARGUMENTS;
+        }
+        Object[] values = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            values[i] = arguments[i].get();
+        }
+        return values;
+    }
+    
+    /** A compiled statement. It leaves breaks, continues and returns in the same flags {@link #execute} does. */
+    private abstract class Action {
+        abstract void run();
+    }
+    
+    /**
+     * A compiled expression. Nodes whose type is known to be int, long,
+     * double or boolean extend the typed subclasses below, and their parents
+     * call the typed getter, so no value is boxed between two operators.
+     */
+    private abstract class Code {
+        abstract Object get();
+        
+        int getInt() {
+            return Operators.intValue(get());
+        }
+        
+        long getLong() {
+            return Operators.longValue(get());
+        }
+        
+        double getDouble() {
+            return Operators.doubleValue(get());
+        }
+        
+        boolean test() {
+            return Operators.isTrue(get());
+        }
+        
+        /** Evaluates the expression for its side effects, as a statement. */
+        void exec() {
+            get();
+        }
+    }
+    
+    private abstract class IntCode extends Code {
+        @Override
+        Object get() {
+            return getInt();
+        }
+        
+        @Override
+        abstract int getInt();
+        
+        @Override
+        long getLong() {
+            return getInt();
+        }
+        
+        @Override
+        double getDouble() {
+            return getInt();
+        }
+        
+        @Override
+        void exec() {
+            getInt();
+        }
+    }
+    
+    private abstract class LongCode extends Code {
+        @Override
+        Object get() {
+            return getLong();
+        }
+        
+        @Override
+        abstract long getLong();
+        
+        @Override
+        double getDouble() {
+            return getLong();
+        }
+        
+        @Override
+        void exec() {
+            getLong();
+        }
+    }
+    
+    private abstract class DoubleCode extends Code {
+        @Override
+        Object get() {
+            return getDouble();
+        }
+        
+        @Override
+        abstract double getDouble();
+        
+        @Override
+        void exec() {
+            getDouble();
+        }
+    }
+    
+    private abstract class BoolCode extends Code {
+        @Override
+        Object get() {
+            return test();
+        }
+        
+        @Override
+        abstract boolean test();
+        
+        @Override
+        void exec() {
+            test();
+        }
+    }
+    
+    /** A compiled while, do-while or for loop. */
+    private final class ConditionLoop extends Action {
+        private final Action[] init;
+        /** Null for a for loop without a condition. */
+        private final Code condition;
+        private final Action body;
+        private final Code[] update;
+        private final String label;
+        private final boolean bodyFirst;
+        
+        ConditionLoop(Action[] init, Code condition, Action body, Code[] update, String label, boolean bodyFirst) {
+            this.init = init;
+            this.condition = condition;
+            this.body = body;
+            this.update = update;
+            this.label = label;
+            this.bodyFirst = bodyFirst;
+        }
+        
+        @Override
+        void run() {
+            for (Action action : init) {
+                action.run();
+            }
+            if (bodyFirst) {
+                budget.checkpoint();
+                body.run();
+                if (completesLoop(label)) {
+                    return;
+                }
+            }
+            iterate();
+        }
+        
+        /** Continues the loop after an iteration whose body the walker ran to its end. */
+        void resume() {
+            for (Code code : update) {
+                code.exec();
+            }
+            iterate();
+        }
+        
+        private void iterate() {
+            while (condition == null || condition.test()) {
+                budget.checkpoint();
+                body.run();
+                if (completesLoop(label)) {
+                    return;
+                }
+                for (Code code : update) {
+                    code.exec();
+                }
+            }
+        }
+    }
+    
+    private final class ForEachLoop extends Action {
+        private final ForEachStmt loop;
+        private final Code iterable;
+        private final String type;
+        private final Action body;
+        private final String label;
+        
+        ForEachLoop(ForEachStmt loop, Code iterable, Action body, String label) {
+            this.loop = loop;
+            this.iterable = iterable;
+            this.type = primitiveName(loop.variableType);
+            this.body = body;
+            this.label = label;
+        }
+        
+        @Override
+        void run() {
+            iterate(iterationItems(iterable.get(), loop), 0);
+        }
+        
+        /** Runs the loop over {@code items} from index {@code from} on. */
+        void iterate(List<Object> items, int from) {
+            for (int i = from; i < items.size(); i++) {
+                budget.checkpoint();
+                frame.declare(loop.slot, type, coerce(type, items.get(i)));
+                body.run();
+                if (completesLoop(label)) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Turns statements and expressions into closures bound to this
+     * interpreter. Locals, literals and the arithmetic, comparisons and
+     * assignments on them compile to typed nodes; calls compile their
+     * arguments and keep the walker's method lookup and inline caches.
+     * Anything else compiles to a node that walks its subtree, so every
+     * method compiles, however much of it stays in the walker.
+     */
+    private final class ClosureCompiler {
+        /** Declared primitive type of each local slot, by the declarations compiled so far; null for references. */
+        final String[] slotTypes;
+        /** Declared type of each local slot that holds an array, such as int[][]; null for anything else. */
+        final String[] arrayTypes;
+        
+        ClosureCompiler(String[] slotTypes, String[] arrayTypes) {
+            this.slotTypes = slotTypes;
+            this.arrayTypes = arrayTypes;
+        }
+        
+        /**
+         * Compiles a statement, recording its line in the run's profiler if
+         * there is one. That is decided here, once per run, so compiled code
+         * never checks for a profiler. Blocks have no line of their own, and
+         * walked statements record theirs in execute.
+         */
+        Action statement(Stmt stmt) {
+            final Action action = unprofiled(stmt);
+            final Profiler profiler = AdvancedJavaInterpreter.this.profiler;
+            if (profiler == null || stmt.tag == Tag.BLOCK || isWalked(stmt)) {
+                return action;
+            }
+            final int line = stmt.line;
+            return new Action() {
+                @Override
+                void run() {
+                    profiler.line(currentMethod, line);
+                    action.run();
+                }
+            };
+        }
+        
+        private boolean isWalked(Stmt stmt) {
+            return stmt.tag == Tag.SWITCH || stmt.tag == Tag.TRY || stmt.tag == Tag.THROW;
+        }
+        
+        private Action unprofiled(final Stmt stmt) {
+            final int line = stmt.line;
+            switch (stmt.tag) {
+                case BLOCK:
+                    return block((Block) stmt);
+                case LOCAL_VAR:
+                    return localVariables((LocalVarDecl) stmt);
+                case EXPRESSION_STATEMENT: {
+                    final Code expression = expression(((ExpressionStmt) stmt).expression);
+                    return new Action() {
+                        @Override
+                        void run() {
+                            enterStatement(line);
+                            expression.exec();
+                        }
+                    };
+                }
+                case IF: {
+                    IfStmt ifStmt = (IfStmt) stmt;
+                    final Code condition = expression(ifStmt.condition);
+                    final Action then = statement(ifStmt.thenStatement);
+                    final Action otherwise = ifStmt.elseStatement != null ? statement(ifStmt.elseStatement) : null;
+                    return new Action() {
+                        @Override
+                        void run() {
+                            enterStatement(line);
+                            if (condition.test()) {
+                                then.run();
+                            } else if (otherwise != null) {
+                                otherwise.run();
+                            }
+                        }
+                    };
+                }
+                case WHILE:
+                case DO_WHILE:
+                case FOR:
+                case FOR_EACH: {
+                    final Action loop = loop(stmt, null);
+                    return new Action() {
+                        @Override
+                        void run() {
+                            enterStatement(line);
+                            loop.run();
+                        }
+                    };
+                }
+                case LABELED: {
+                    final LabeledStmt labeled = (LabeledStmt) stmt;
+                    final Action body = isLoop(labeled.body)
+                            ? loop(labeled.body, labeled.label)
+                            : statement(labeled.body);
+                    return new Action() {
+                        @Override
+                        void run() {
+                            enterStatement(line);
+                            body.run();
+                            if (breakFlag && labeled.label.equals(jumpLabel)) {
+                                breakFlag = false;
+                                jumpLabel = null;
+                            }
+                        }
+                    };
+                }
+                case BREAK:
+                case CONTINUE: {
+                    final boolean isBreak = stmt.tag == Tag.BREAK;
+                    final String label = isBreak ? ((BreakStmt) stmt).label : ((ContinueStmt) stmt).label;
+                    return new Action() {
+                        @Override
+                        void run() {
+                            enterStatement(line);
+                            if (isBreak) {
+                                breakFlag = true;
+                            } else {
+                                continueFlag = true;
+                            }
+                            jumpLabel = label;
+                        }
+                    };
+                }
+                case RETURN: {
+                    Expr value = ((ReturnStmt) stmt).value;
+                    final Code result = value != null ? expression(value) : null;
+                    return new Action() {
+                        @Override
+                        void run() {
+                            enterStatement(line);
+                            returnValue = result != null ? result.get() : null;
+                            returnFlag = true;
+                        }
+                    };
+                }
+                case EMPTY:
+                    return new Action() {
+                        @Override
+                        void run() {
+                            enterStatement(line);
+                        }
+                    };
+                default:
+                    // switch, try and throw, see isWalked
+                    return new Action() {
+                        @Override
+                        void run() {
+                            execute(stmt);
+                        }
+                    };
+            }
+        }
+        
+        private Action block(Block block) {
+            final Action[] statements = new Action[block.statements.size()];
+            for (int i = 0; i < statements.length; i++) {
+                statements[i] = statement(block.statements.get(i));
+            }
+            return new Action() {
+                @Override
+                void run() {
+                    budget.step();
+                    for (Action statement : statements) {
+                        statement.run();
+                        if (breakFlag || continueFlag || returnFlag) {
+                            return;
+                        }
+                    }
+                }
+            };
+        }
+        
+        private Action localVariables(LocalVarDecl decl) {
+            final int line = decl.line;
+            final int[] slots = new int[decl.variables.size()];
+            final String[] types = new String[slots.length];
+            final Code[] values = new Code[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                VarDeclarator variable = decl.variables.get(i);
+                slots[i] = variable.slot;
+                types[i] = primitiveName(variable.type);
+                values[i] = assignable(types[i], variable.initializer != null
+                        ? expression(variable.initializer)
+                        : constant(defaultValue(variable.type)));
+                // declared after its own initializer, so int b = a + 1 already sees a's type
+                slotTypes[variable.slot] = types[i];
+                arrayTypes[variable.slot] = arrayTypeName(variable.type);
+            }
+            return new Action() {
+                @Override
+                void run() {
+                    enterStatement(line);
+                    for (int i = 0; i < slots.length; i++) {
+                        frame.declare(slots[i], types[i], values[i].get());
+                    }
+                }
+            };
+        }
+        
+        /** Compiles a loop, which a walked loop of the same statement can hand over to mid-run. */
+        Action loop(Stmt loop, String label) {
+            switch (loop.tag) {
+                case WHILE: {
+                    WhileStmt whileLoop = (WhileStmt) loop;
+                    Code condition = expression(whileLoop.condition);
+                    return new ConditionLoop(NO_ACTIONS, condition, statement(whileLoop.body), NO_CODE, label, false);
+                }
+                case DO_WHILE: {
+                    DoWhileStmt doLoop = (DoWhileStmt) loop;
+                    Action body = statement(doLoop.body);
+                    return new ConditionLoop(NO_ACTIONS, expression(doLoop.condition), body, NO_CODE, label, true);
+                }
+                case FOR: {
+                    ForStmt forLoop = (ForStmt) loop;
+                    Action[] init = new Action[forLoop.init.size()];
+                    for (int i = 0; i < init.length; i++) {
+                        init[i] = statement(forLoop.init.get(i));
+                    }
+                    Code condition = forLoop.condition != null ? expression(forLoop.condition) : null;
+                    Action body = statement(forLoop.body);
+                    Code[] update = expressions(forLoop.update);
+                    return new ConditionLoop(init, condition, body, update, label, false);
+                }
+                default: {
+                    ForEachStmt forEach = (ForEachStmt) loop;
+                    Code iterable = expression(forEach.iterable);
+                    slotTypes[forEach.slot] = primitiveName(forEach.variableType);
+                    arrayTypes[forEach.slot] = arrayTypeName(forEach.variableType);
+                    return new ForEachLoop(forEach, iterable, statement(forEach.body), label);
+                }
+            }
+        }
+        
+        Code expression(Expr expr) {
+            switch (expr.tag) {
+                case LITERAL:
+                    return constant(((Literal) expr).value);
+                case NAME: {
+                    int slot = ((Name) expr).slot;
+                    return slot >= 0 ? local(slot) : walked(expr);
+                }
+                case BINARY: {
+                    Binary binary = (Binary) expr;
+                    if (binary.op == BinaryOp.ADD && isAddition(binary.left)) {
+                        return additions(binary);
+                    }
+                    return binary(binary.op, expression(binary.left), expression(binary.right));
+                }
+                case UNARY:
+                    return unary((Unary) expr);
+                case ASSIGN:
+                    return assignment((Assign) expr);
+                case CONDITIONAL:
+                    return conditional((Conditional) expr);
+                case METHOD_CALL:
+                    return call((MethodCall) expr);
+                case CAST:
+                    return cast((Cast) expr);
+                case ARRAY_ACCESS:
+                    return element((ArrayAccess) expr);
+                case FIELD_ACCESS:
+                    return arrayLength((FieldAccess) expr);
+                default:
+                    return walked(expr);
+            }
+        }
+        
+        private Code[] expressions(List<Expr> exprs) {
+            if (exprs.isEmpty()) {
+                return NO_CODE;
+            }
+            Code[] codes = new Code[exprs.size()];
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = expression(exprs.get(i));
+            }
+            return codes;
+        }
+        
+        /** An expression left to the walker: field access, object and array creation, this, casts to classes. */
+        private Code walked(final Expr expr) {
+            return new Code() {
+                @Override
+                Object get() {
+                    return evaluate(expr);
+                }
+            };
+        }
+        
+        private Code constant(final Object value) {
+            if (value instanceof Integer) {
+                final int number = (Integer) value;
+                return new IntCode() {
+                    @Override
+                    Object get() {
+                        return value;
+                    }
+                    
+                    @Override
+                    int getInt() {
+                        return number;
+                    }
+                };
+            }
+            if (value instanceof Long) {
+                final long number = (Long) value;
+                return new LongCode() {
+                    @Override
+                    Object get() {
+                        return value;
+                    }
+                    
+                    @Override
+                    long getLong() {
+                        return number;
+                    }
+                };
+            }
+            if (value instanceof Double) {
+                final double number = (Double) value;
+                return new DoubleCode() {
+                    @Override
+                    Object get() {
+                        return value;
+                    }
+                    
+                    @Override
+                    double getDouble() {
+                        return number;
+                    }
+                };
+            }
+            if (value instanceof Boolean) {
+                final boolean truth = (Boolean) value;
+                return new BoolCode() {
+                    @Override
+                    Object get() {
+                        return value;
+                    }
+                    
+                    @Override
+                    boolean test() {
+                        return truth;
+                    }
+                };
+            }
+            return new Code() {
+                @Override
+                Object get() {
+                    return value;
+                }
+            };
+        }
+        
+        /** Reads a local; the typed nodes hand out the box already in the frame when a parent wants an object. */
+        private Code local(final int slot) {
+            String type = slotTypes[slot];
+            if ("int".equals(type)) {
+                return new IntCode() {
+                    @Override
+                    Object get() {
+                        return frame.values[slot];
+                    }
+                    
+                    @Override
+                    int getInt() {
+                        return (Integer) frame.values[slot];
+                    }
+                };
+            }
+            if ("long".equals(type)) {
+                return new LongCode() {
+                    @Override
+                    Object get() {
+                        return frame.values[slot];
+                    }
+                    
+                    @Override
+                    long getLong() {
+                        return (Long) frame.values[slot];
+                    }
+                };
+            }
+            if ("double".equals(type)) {
+                return new DoubleCode() {
+                    @Override
+                    Object get() {
+                        return frame.values[slot];
+                    }
+                    
+                    @Override
+                    double getDouble() {
+                        return (Double) frame.values[slot];
+                    }
+                };
+            }
+            if ("boolean".equals(type)) {
+                return new BoolCode() {
+                    @Override
+                    Object get() {
+                        return frame.values[slot];
+                    }
+                    
+                    @Override
+                    boolean test() {
+                        return (Boolean) frame.values[slot];
+                    }
+                };
+            }
+            return new Code() {
+                @Override
+                Object get() {
+                    return frame.values[slot];
+                }
+            };
+        }
+        
+        /** {@code value} converted as assigning it to a variable of primitive {@code type} converts it. */
+        private Code assignable(final String type, final Code value) {
+            if (type == null) {
+                return value;
+            }
+            switch (type) {
+                case "int":
+                    if (value instanceof IntCode) {
+                        return value;
+                    }
+                    break;
+                case "long":
+                    if (value instanceof LongCode) {
+                        return value;
+                    }
+                    if (value instanceof IntCode) {
+                        return new LongCode() {
+                            @Override
+                            long getLong() {
+                                return value.getInt();
+                            }
+                        };
+                    }
+                    break;
+                case "double":
+                    if (value instanceof DoubleCode) {
+                        return value;
+                    }
+                    if (value instanceof IntCode || value instanceof LongCode) {
+                        return new DoubleCode() {
+                            @Override
+                            double getDouble() {
+                                return value.getDouble();
+                            }
+                        };
+                    }
+                    break;
+                case "boolean":
+                    if (value instanceof BoolCode) {
+                        return value;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return new Code() {
+                @Override
+                Object get() {
+                    return Operators.cast(type, value.get());
+                }
+            };
+        }
+        
+        private Code assignment(final Assign assign) {
+            if (assign.target.tag == Tag.ARRAY_ACCESS) {
+                return elementAssignment(assign);
+            }
+            if (!(assign.target instanceof Name) || ((Name) assign.target).slot < 0) {
+                return walked(assign);
+            }
+            final int slot = ((Name) assign.target).slot;
+            String type = slotTypes[slot];
+            final Code value = expression(assign.value);
+            if (assign.op != null) {
+                // x op= y is x = (T) (x op y), with x read before y is evaluated
+                Code combined = binary(assign.op, local(slot), value);
+                if (type != null && kind(combined) >= 0 && type.equals(TYPE_NAMES[kind(combined)])) {
+                    return store(slot, combined);
+                }
+                final BinaryOp op = assign.op;
+                return new Code() {
+                    @Override
+                    Object get() {
+                        Frame current = frame;
+                        Object result = charged(Operators.binary(op, current.values[slot], value.get()));
+                        result = coerce(current.types[slot], result);
+                        current.values[slot] = result;
+                        return result;
+                    }
+                };
+            }
+            if (type == null) {
+                // a reference, unless it is a primitive local the compiler never saw declared
+                return new Code() {
+                    @Override
+                    Object get() {
+                        Frame current = frame;
+                        Object result = coerce(current.types[slot], value.get());
+                        current.values[slot] = result;
+                        return result;
+                    }
+                };
+            }
+            return store(slot, assignable(type, value));
+        }
+        
+        /** Stores a value of the local's own type, keeping the store typed where the value is. */
+        private Code store(final int slot, final Code value) {
+            if (value instanceof IntCode) {
+                return new IntCode() {
+                    @Override
+                    int getInt() {
+                        int result = value.getInt();
+                        frame.values[slot] = result;
+                        return result;
+                    }
+                };
+            }
+            if (value instanceof LongCode) {
+                return new LongCode() {
+                    @Override
+                    long getLong() {
+                        long result = value.getLong();
+                        frame.values[slot] = result;
+                        return result;
+                    }
+                };
+            }
+            if (value instanceof DoubleCode) {
+                return new DoubleCode() {
+                    @Override
+                    double getDouble() {
+                        double result = value.getDouble();
+                        frame.values[slot] = result;
+                        return result;
+                    }
+                };
+            }
+            return new Code() {
+                @Override
+                Object get() {
+                    Object result = value.get();
+                    frame.values[slot] = result;
+                    return result;
+                }
+            };
+        }
+        
+        private Code unary(final Unary unary) {
+            if (unary.op.isIncrementOrDecrement()) {
+                final int delta = unary.op == UnaryOp.PRE_INC || unary.op == UnaryOp.POST_INC ? 1 : -1;
+                final boolean postfix = unary.op == UnaryOp.POST_INC || unary.op == UnaryOp.POST_DEC;
+                if (unary.operand.tag == Tag.ARRAY_ACCESS) {
+                    return elementIncrement((ArrayAccess) unary.operand, delta, postfix);
+                }
+                if (!(unary.operand instanceof Name) || ((Name) unary.operand).slot < 0) {
+                    return walked(unary);
+                }
+                final int slot = ((Name) unary.operand).slot;
+                if ("int".equals(slotTypes[slot])) {
+                    return new IntCode() {
+                        @Override
+                        int getInt() {
+                            Object[] values = frame.values;
+                            int old = (Integer) values[slot];
+                            values[slot] = old + delta;
+                            return postfix ? old : old + delta;
+                        }
+                    };
+                }
+                return new Code() {
+                    @Override
+                    Object get() {
+                        Object[] values = frame.values;
+                        Object old = values[slot];
+                        values[slot] = Operators.increment(old, delta);
+                        return postfix ? old : values[slot];
+                    }
+                };
+            }
+            final Code operand = expression(unary.operand);
+            if (unary.op == UnaryOp.NOT && operand instanceof BoolCode) {
+                return new BoolCode() {
+                    @Override
+                    boolean test() {
+                        return !operand.test();
+                    }
+                };
+            }
+            if (unary.op == UnaryOp.NEG && operand instanceof IntCode) {
+                return new IntCode() {
+                    @Override
+                    int getInt() {
+                        return -operand.getInt();
+                    }
+                };
+            }
+            if (unary.op == UnaryOp.NEG && operand instanceof DoubleCode) {
+                return new DoubleCode() {
+                    @Override
+                    double getDouble() {
+                        return -operand.getDouble();
+                    }
+                };
+            }
+            final UnaryOp op = unary.op;
+            return new Code() {
+                @Override
+                Object get() {
+                    return Operators.unary(op, operand.get());
+                }
+            };
+        }
+        
+        private Code binary(final BinaryOp op, final Code left, final Code right) {
+            if (op == BinaryOp.AND || op == BinaryOp.OR) {
+                final boolean and = op == BinaryOp.AND;
+                return new BoolCode() {
+                    @Override
+                    boolean test() {
+                        return and ? left.test() && right.test() : left.test() || right.test();
+                    }
+                };
+            }
+            int kind = Math.max(kind(left), kind(right));
+            if ((op == BinaryOp.EQ || op == BinaryOp.NE) && left instanceof BoolCode && right instanceof BoolCode) {
+                final boolean equal = op == BinaryOp.EQ;
+                return new BoolCode() {
+                    @Override
+                    boolean test() {
+                        return (left.test() == right.test()) == equal;
+                    }
+                };
+            }
+            if (kind(left) < 0 || kind(right) < 0 || kind == BOOLEAN) {
+                return walkedBinary(op, left, right);
+            }
+            if (op.isShift()) {
+                return left instanceof IntCode && right instanceof IntCode
+                        ? intShift(op, left, right)
+                        : walkedBinary(op, left, right);
+            }
+            if (op.isComparison()) {
+                if (kind == INT) {
+                    return intComparison(op, left, right);
+                }
+                return kind == LONG ? new BoolCode() {
+                    @Override
+                    boolean test() {
+                        return compareLongs(op, left.getLong(), right.getLong());
+                    }
+                } : new BoolCode() {
+                    @Override
+                    boolean test() {
+                        return compareDoubles(op, left.getDouble(), right.getDouble());
+                    }
+                };
+            }
+            if (kind == INT) {
+                return intArithmetic(op, left, right);
+            }
+            if (kind == LONG) {
+                return new LongCode() {
+                    @Override
+                    long getLong() {
+                        return longArithmetic(op, left.getLong(), right.getLong());
+                    }
+                };
+            }
+            if (op == BinaryOp.BIT_AND || op == BinaryOp.BIT_OR || op == BinaryOp.BIT_XOR) {
+                // not defined on doubles; the walker reports it
+                return walkedBinary(op, left, right);
+            }
+            return new DoubleCode() {
+                @Override
+                double getDouble() {
+                    return doubleArithmetic(op, left.getDouble(), right.getDouble());
+                }
+            };
+        }
+        
+        /**
+         * {@code a + b + c ...}. Primitive operands in front are added with the
+         * typed arithmetic; from the first boxed operand on, where a String can
+         * enter, the parts go through Operators.concat together, as the walker
+         * does, and make one String.
+         */
+        private Code additions(Binary chain) {
+            List<Expr> operands = new ArrayList<>();
+            addOperands(chain, operands);
+            Code[] codes = expressions(operands);
+            Code sum = codes[0];
+            int next = 1;
+            while (next < codes.length && kind(sum) >= 0 && kind(codes[next]) >= 0) {
+                sum = binary(BinaryOp.ADD, sum, codes[next++]);
+            }
+            if (codes.length - next < 2) {
+                // nothing boxed, or too few parts left to be worth a builder
+                for (; next < codes.length; next++) {
+                    sum = binary(BinaryOp.ADD, sum, codes[next]);
+                }
+                return sum;
+            }
+            final Code[] parts = new Code[codes.length - next + 1];
+            parts[0] = sum;
+            System.arraycopy(codes, next, parts, 1, parts.length - 1);
+            return new Code() {
+                @Override
+                Object get() {
+                    Object[] values = valuesOf(parts);
+                    return charged(Operators.concat(values, 0, values.length));
+                }
+            };
+        }
+        
+        private Code walkedBinary(final BinaryOp op, final Code left, final Code right) {
+            return new Code() {
+                @Override
+                Object get() {
+                    return charged(Operators.binary(op, left.get(), right.get()));
+                }
+            };
+        }
+        
+        private Code intArithmetic(BinaryOp op, final Code left, final Code right) {
+            switch (op) {
+                case ADD:
+                    return new IntCode() {
+                        @Override
+                        int getInt() {
+                            return left.getInt() + right.getInt();
+                        }
+                    };
+                case SUB:
+                    return new IntCode() {
+                        @Override
+                        int getInt() {
+                            return left.getInt() - right.getInt();
+                        }
+                    };
+                case MUL:
+                    return new IntCode() {
+                        @Override
+                        int getInt() {
+                            return left.getInt() * right.getInt();
+                        }
+                    };
+                case DIV:
+                    return new IntCode() {
+                        @Override
+                        int getInt() {
+                            return left.getInt() / right.getInt();
+                        }
+                    };
+                case REM:
+                    return new IntCode() {
+                        @Override
+                        int getInt() {
+                            return left.getInt() % right.getInt();
+                        }
+                    };
+                case BIT_AND:
+                    return new IntCode() {
+                        @Override
+                        int getInt() {
+                            return left.getInt() & right.getInt();
+                        }
+                    };
+                case BIT_OR:
+                    return new IntCode() {
+                        @Override
+                        int getInt() {
+                            return left.getInt() | right.getInt();
+                        }
+                    };
+                default:
+                    return new IntCode() {
+                        @Override
+                        int getInt() {
+                            return left.getInt() ^ right.getInt();
+                        }
+                    };
+            }
+        }
+        
+        private Code intShift(BinaryOp op, final Code left, final Code right) {
+            switch (op) {
+                case SHL:
+                    return new IntCode() {
+                        @Override
+                        int getInt() {
+                            return left.getInt() << right.getInt();
+                        }
+                    };
+                case SHR:
+                    return new IntCode() {
+                        @Override
+                        int getInt() {
+                            return left.getInt() >> right.getInt();
+                        }
+                    };
+                default:
+                    return new IntCode() {
+                        @Override
+                        int getInt() {
+                            return left.getInt() >>> right.getInt();
+                        }
+                    };
+            }
+        }
+        
+        private Code intComparison(BinaryOp op, final Code left, final Code right) {
+            switch (op) {
+                case LT:
+                    return new BoolCode() {
+                        @Override
+                        boolean test() {
+                            return left.getInt() < right.getInt();
+                        }
+                    };
+                case LE:
+                    return new BoolCode() {
+                        @Override
+                        boolean test() {
+                            return left.getInt() <= right.getInt();
+                        }
+                    };
+                case GT:
+                    return new BoolCode() {
+                        @Override
+                        boolean test() {
+                            return left.getInt() > right.getInt();
+                        }
+                    };
+                case GE:
+                    return new BoolCode() {
+                        @Override
+                        boolean test() {
+                            return left.getInt() >= right.getInt();
+                        }
+                    };
+                case EQ:
+                    return new BoolCode() {
+                        @Override
+                        boolean test() {
+                            return left.getInt() == right.getInt();
+                        }
+                    };
+                default:
+                    return new BoolCode() {
+                        @Override
+                        boolean test() {
+                            return left.getInt() != right.getInt();
+                        }
+                    };
+            }
+        }
+        
+        private Code conditional(Conditional conditional) {
+            final Code condition = expression(conditional.condition);
+            final Code then = expression(conditional.thenValue);
+            final Code otherwise = expression(conditional.elseValue);
+            int kind = Math.max(kind(then), kind(otherwise));
+            if (kind(then) < 0 || kind(otherwise) < 0 || kind == BOOLEAN) {
+                return new Code() {
+                    @Override
+                    Object get() {
+                        return condition.test() ? then.get() : otherwise.get();
+                    }
+                };
+            }
+            if (kind == INT) {
+                return new IntCode() {
+                    @Override
+                    int getInt() {
+                        return condition.test() ? then.getInt() : otherwise.getInt();
+                    }
+                };
+            }
+            if (kind == LONG) {
+                return new LongCode() {
+                    @Override
+                    long getLong() {
+                        return condition.test() ? then.getLong() : otherwise.getLong();
+                    }
+                };
+            }
+            return new DoubleCode() {
+                @Override
+                double getDouble() {
+                    return condition.test() ? then.getDouble() : otherwise.getDouble();
+                }
+            };
+        }
+        
+        private Code cast(Cast cast) {
+            final Code operand = expression(cast.expression);
+            if (cast.type.isPrimitive() && kind(operand) >= INT && kind(operand) <= DOUBLE) {
+                switch (cast.type.name) {
+                    case "int":
+                        if (operand instanceof IntCode) {
+                            return operand;
+                        }
+                        return operand instanceof LongCode ? new IntCode() {
+                            @Override
+                            int getInt() {
+                                return (int) operand.getLong();
+                            }
+                        } : new IntCode() {
+                            @Override
+                            int getInt() {
+                                return (int) operand.getDouble();
+                            }
+                        };
+                    case "long":
+                        if (operand instanceof LongCode) {
+                            return operand;
+                        }
+                        return operand instanceof IntCode ? new LongCode() {
+                            @Override
+                            long getLong() {
+                                return operand.getInt();
+                            }
+                        } : new LongCode() {
+                            @Override
+                            long getLong() {
+                                return (long) operand.getDouble();
+                            }
+                        };
+                    case "double":
+                        return operand instanceof DoubleCode ? operand : new DoubleCode() {
+                            @Override
+                            double getDouble() {
+                                return operand.getDouble();
+                            }
+                        };
+                    default:
+                        break;
+                }
+            }
+            return walked(cast);
+        }
+        
+        // -----------------------------------------------------------------
+        // Arrays: int, long, double and boolean elements of arrays whose type
+        // the declarations give are read and written unboxed. The nodes still
+        // check that the array is one, and take the boxed path if it is not.
+        // -----------------------------------------------------------------
+        
+        /** The type of an array-valued expression, such as int[], if the declarations of locals tell it; else null. */
+        private String arrayType(Expr expr) {
+            if (expr instanceof Name && ((Name) expr).slot >= 0) {
+                return arrayTypes[((Name) expr).slot];
+            }
+            if (expr.tag == Tag.ARRAY_ACCESS) {
+                String outer = arrayType(((ArrayAccess) expr).array);
+                if (outer != null) {
+                    String element = outer.substring(0, outer.length() - 2);
+                    return element.endsWith("[]") ? element : null;
+                }
+            }
+            return null;
+        }
+        
+        /** The kind of the elements of {@code array}, or -1 if they are not int, long, double or boolean. */
+        private int elementKind(Expr array) {
+            String type = arrayType(array);
+            return type != null ? Arrays.asList(TYPE_NAMES).indexOf(type.substring(0, type.length() - 2)) : -1;
+        }
+        
+        private Code element(ArrayAccess access) {
+            final Code array = expression(access.array);
+            final Code index = expression(access.index);
+            switch (elementKind(access.array)) {
+                case INT:
+                    return new IntCode() {
+                        @Override
+                        int getInt() {
+                            Object values = array.get();
+                            int i = index.getInt();
+                            if (values instanceof int[]) {
+                                int[] ints = (int[]) values;
+                                ArrayOperations.checkIndex(i, ints.length);
+                                return ints[i];
+                            }
+                            return Operators.intValue(ArrayOperations.load(values, i));
+                        }
+                    };
+                case LONG:
+                    return new LongCode() {
+                        @Override
+                        long getLong() {
+                            Object values = array.get();
+                            int i = index.getInt();
+                            if (values instanceof long[]) {
+                                long[] longs = (long[]) values;
+                                ArrayOperations.checkIndex(i, longs.length);
+                                return longs[i];
+                            }
+                            return Operators.longValue(ArrayOperations.load(values, i));
+                        }
+                    };
+                case DOUBLE:
+                    return new DoubleCode() {
+                        @Override
+                        double getDouble() {
+                            Object values = array.get();
+                            int i = index.getInt();
+                            if (values instanceof double[]) {
+                                double[] doubles = (double[]) values;
+                                ArrayOperations.checkIndex(i, doubles.length);
+                                return doubles[i];
+                            }
+                            return Operators.doubleValue(ArrayOperations.load(values, i));
+                        }
+                    };
+                case BOOLEAN:
+                    return new BoolCode() {
+                        @Override
+                        boolean test() {
+                            Object values = array.get();
+                            int i = index.getInt();
+                            if (values instanceof boolean[]) {
+                                boolean[] flags = (boolean[]) values;
+                                ArrayOperations.checkIndex(i, flags.length);
+                                return flags[i];
+                            }
+                            return Operators.isTrue(ArrayOperations.load(values, i));
+                        }
+                    };
+                default:
+                    return new Code() {
+                        @Override
+                        Object get() {
+                            Object values = array.get();
+                            return ArrayOperations.load(values, index.getInt());
+                        }
+                    };
+            }
+        }
+        
+        /** {@code a.length} on an array local; other field accesses are walked. */
+        private Code arrayLength(FieldAccess access) {
+            if (!access.name.equals("length") || arrayType(access.target) == null) {
+                return walked(access);
+            }
+            final Code array = expression(access.target);
+            return new IntCode() {
+                @Override
+                int getInt() {
+                    return ArrayOperations.length(array.get());
+                }
+            };
+        }
+        
+        /**
+         * {@code a[i] = v} stores once the value is evaluated, as in Java;
+         * {@code a[i] op= v} reads the element, which checks the array and
+         * the index, before it evaluates v.
+         */
+        private Code elementAssignment(Assign assign) {
+            ArrayAccess access = (ArrayAccess) assign.target;
+            final Code array = expression(access.array);
+            final Code index = expression(access.index);
+            final Code value = expression(assign.value);
+            int kind = elementKind(access.array);
+            if (assign.op != null) {
+                return elementUpdate(assign.op, kind, array, index, value);
+            }
+            final Code converted = kind >= INT && kind <= DOUBLE ? assignable(TYPE_NAMES[kind], value) : value;
+            if (kind == INT && converted instanceof IntCode) {
+                return new IntCode() {
+                    @Override
+                    int getInt() {
+                        Object values = array.get();
+                        int i = index.getInt();
+                        int result = converted.getInt();
+                        if (values instanceof int[]) {
+                            int[] ints = (int[]) values;
+                            ArrayOperations.checkIndex(i, ints.length);
+                            ints[i] = result;
+                            return result;
+                        }
+                        return Operators.intValue(ArrayOperations.store(values, i, result));
+                    }
+                };
+            }
+            if (kind == LONG && converted instanceof LongCode) {
+                return new LongCode() {
+                    @Override
+                    long getLong() {
+                        Object values = array.get();
+                        int i = index.getInt();
+                        long result = converted.getLong();
+                        if (values instanceof long[]) {
+                            long[] longs = (long[]) values;
+                            ArrayOperations.checkIndex(i, longs.length);
+                            longs[i] = result;
+                            return result;
+                        }
+                        return Operators.longValue(ArrayOperations.store(values, i, result));
+                    }
+                };
+            }
+            if (kind == DOUBLE && converted instanceof DoubleCode) {
+                return new DoubleCode() {
+                    @Override
+                    double getDouble() {
+                        Object values = array.get();
+                        int i = index.getInt();
+                        double result = converted.getDouble();
+                        if (values instanceof double[]) {
+                            double[] doubles = (double[]) values;
+                            ArrayOperations.checkIndex(i, doubles.length);
+                            doubles[i] = result;
+                            return result;
+                        }
+                        return Operators.doubleValue(ArrayOperations.store(values, i, result));
+                    }
+                };
+            }
+            return new Code() {
+                @Override
+                Object get() {
+                    Object values = array.get();
+                    int i = index.getInt();
+                    return ArrayOperations.store(values, i, value.get());
+                }
+            };
+        }
+        
+        private Code elementUpdate(final BinaryOp op, int kind, final Code array, final Code index, final Code value) {
+            if (kind == INT && (value instanceof IntCode || value instanceof LongCode) && !op.isShift()) {
+                // (int) of the long result is what the int operation gives, overflow and MIN_VALUE / -1 included
+                return new IntCode() {
+                    @Override
+                    int getInt() {
+                        Object values = array.get();
+                        int i = index.getInt();
+                        if (values instanceof int[]) {
+                            int[] ints = (int[]) values;
+                            ArrayOperations.checkIndex(i, ints.length);
+                            int result = (int) longArithmetic(op, ints[i], value.getLong());
+                            ints[i] = result;
+                            return result;
+                        }
+                        return Operators.intValue(updatedElement(op, values, i, value));
+                    }
+                };
+            }
+            if (kind == DOUBLE && kind(value) >= INT && kind(value) <= DOUBLE
+                    && op != BinaryOp.BIT_AND && op != BinaryOp.BIT_OR && op != BinaryOp.BIT_XOR && !op.isShift()) {
+                return new DoubleCode() {
+                    @Override
+                    double getDouble() {
+                        Object values = array.get();
+                        int i = index.getInt();
+                        if (values instanceof double[]) {
+                            double[] doubles = (double[]) values;
+                            ArrayOperations.checkIndex(i, doubles.length);
+                            double result = doubleArithmetic(op, doubles[i], value.getDouble());
+                            doubles[i] = result;
+                            return result;
+                        }
+                        return Operators.doubleValue(updatedElement(op, values, i, value));
+                    }
+                };
+            }
+            return new Code() {
+                @Override
+                Object get() {
+                    Object values = array.get();
+                    return updatedElement(op, values, index.getInt(), value);
+                }
+            };
+        }
+        
+        private Object updatedElement(BinaryOp op, Object array, int index, Code value) {
+            Object current = ArrayOperations.load(array, index);
+            return ArrayOperations.store(array, index, charged(Operators.binary(op, current, value.get())));
+        }
+        
+        private Code elementIncrement(ArrayAccess access, final int delta, final boolean postfix) {
+            final Code array = expression(access.array);
+            final Code index = expression(access.index);
+            if (elementKind(access.array) == INT) {
+                return new IntCode() {
+                    @Override
+                    int getInt() {
+                        Object values = array.get();
+                        int i = index.getInt();
+                        if (values instanceof int[]) {
+                            int[] ints = (int[]) values;
+                            ArrayOperations.checkIndex(i, ints.length);
+                            int old = ints[i];
+                            ints[i] = old + delta;
+                            return postfix ? old : old + delta;
+                        }
+                        return Operators.intValue(incrementedElement(values, i, delta, postfix));
+                    }
+                };
+            }
+            return new Code() {
+                @Override
+                Object get() {
+                    Object values = array.get();
+                    return incrementedElement(values, index.getInt(), delta, postfix);
+                }
+            };
+        }
+        
+        private Object incrementedElement(Object array, int index, int delta, boolean postfix) {
+            Object old = ArrayOperations.load(array, index);
+            Object updated = ArrayOperations.store(array, index, Operators.increment(old, delta));
+            return postfix ? old : updated;
+        }
+        
+        /**
+         * A call without a target or on a local, this or another call's
+         * result: the arguments are compiled, the lookup is the walker's.
+         * Static calls by class name and printing stay walked.
+         */
+        private Code call(final MethodCall call) {
+            Expr target = call.target;
+            if (target == null && !call.name.equals("this") && !call.name.equals("super")) {
+                final Code[] arguments = expressions(call.arguments);
+                return new Code() {
+                    @Override
+                    Object get() {
+                        return callUnqualified(call, valuesOf(arguments));
+                    }
+                };
+            }
+            if (target != null && (target.tag == Tag.THIS || target.tag == Tag.METHOD_CALL
+                    || target instanceof Name && ((Name) target).slot >= 0)) {
+                final Code receiver = target.tag == Tag.THIS ? walked(target) : expression(target);
+                final Code[] arguments = expressions(call.arguments);
+                return new Code() {
+                    @Override
+                    Object get() {
+                        Object object = receiver.get();
+                        return callOn(call, object, valuesOf(arguments));
+                    }
+                };
+            }
+            return walked(call);
+        }
+    }
+    
+    /** The kind of value a compiled expression is known to produce, or -1 if only its boxed value is. */
+    private static int kind(Code code) {
+        if (code instanceof IntCode) {
+            return INT;
+        }
+        if (code instanceof LongCode) {
+            return LONG;
+        }
+        if (code instanceof DoubleCode) {
+            return DOUBLE;
+        }
+        return code instanceof BoolCode ? BOOLEAN : -1;
+    }
+    
+    /** The declared type of an array variable as the compiled tier tracks it, such as int[][]; null if not an array. */
+    private static String arrayTypeName(TypeRef type) {
+        return type.isArray() ? type.toString() : null;
+    }
+    
+    private static boolean compareLongs(BinaryOp op, long a, long b) {
+        switch (op) {
+            case LT: return a < b;
+            case LE: return a <= b;
+            case GT: return a > b;
+            case GE: return a >= b;
+            case EQ: return a == b;
+            default: return a != b;
+        }
+    }
+    
+    private static boolean compareDoubles(BinaryOp op, double a, double b) {
+        switch (op) {
+            case LT: return a < b;
+            case LE: return a <= b;
+            case GT: return a > b;
+            case GE: return a >= b;
+            case EQ: return a == b;
+            default: return a != b;
+        }
+    }
+    
+    private static long longArithmetic(BinaryOp op, long a, long b) {
+        switch (op) {
+            case ADD: return a + b;
+            case SUB: return a - b;
+            case MUL: return a * b;
+            case DIV: return a / b;
+            case REM: return a % b;
+            case BIT_AND: return a & b;
+            case BIT_OR: return a | b;
+            default: return a ^ b;
+        }
+    }
+    
+    private static double doubleArithmetic(BinaryOp op, double a, double b) {
+        switch (op) {
+            case ADD: return a + b;
+            case SUB: return a - b;
+            case MUL: return a * b;
+            case DIV: return a / b;
+            default: return a % b;
+        }
+    }
+    
+    // ---------------------------------------------------------------------
+    // Frames
+    // ---------------------------------------------------------------------
+    
+    /** Takes the pooled frame for the next call depth and clears the slots the method uses. */
+    private Frame pushFrame(int size) {
+        if (callDepth == framePool.size()) {
+            framePool.add(new Frame());
+        }
+        Frame next = framePool.get(callDepth++);
+        next.reset(size);
+        return next;
+    }
+    
+    private void popFrame(Frame saved) {
+        frame.clear();
+        callDepth--;
+        frame = saved;
+    }
+    
+    /**
+     * Local variable slots of one call, indexed by the slots the parser
+     * assigned. Frames are kept per call depth and reused by later calls.
+     */
+    private static class Frame {
+        private Object[] values = new Object[8];
+        private String[] types = new String[8];
+        private int size;
+        
+        void reset(int size) {
+            if (values.length < size) {
+                values = new Object[size];
+                types = new String[size];
+            }
+            this.size = size;
+        }
+        
+        void declare(int slot, String type, Object value) {
+            types[slot] = type;
+            values[slot] = value;
+        }
+        
+        /** Drops references so a pooled frame does not keep the program's objects alive. */
+        void clear() {
+            Arrays.fill(values, 0, size, null);
+        }
+    }
+    
+    /** A static field, with its declared primitive type if it has one. */
+    private static class Variable {
+        private final String type;
+        private Object value;
+        
+        Variable(String type, Object value) {
+            this.type = type;
+            this.value = value;
+        }
+    }
+    
+    /**
+     * A class of the program as this interpreter runs it: where each
+     * instance field lives, what initializes it, and the overrides of
+     * Object's methods, which run here when the host calls them.
+     */
+    private final class RuntimeClass extends ProgramClass {
+        static final int UNINITIALIZED = 0;
+        static final int INITIALIZING = 1;
+        static final int INITIALIZED = 2;
+        
+        final ClassDecl decl;
+        /** The Throwable class this class extends when the program does not declare its superclass, else null. */
+        final Class<?> hostSuperclass;
+        /** Slot of each instance field by symbol, inherited fields included; -1 for other symbols. */
+        final int[] fieldSlots;
+        /** Primitive type name of each slot, or null for reference fields. */
+        final String[] fieldTypes;
+        final Object[] fieldDefaults;
+        /** Field initializers and initializer blocks of this class, in source order. */
+        final List<Node> initializers = new ArrayList<>();
+        /** Static field initializers and static blocks, in source order. */
+        final List<Node> staticInitializers = new ArrayList<>();
+        /** Stands in for the constructor javac adds to a class that declares none. */
+        final MethodDecl defaultConstructor;
+        final MethodDecl toStringMethod;
+        final MethodDecl equalsMethod;
+        final MethodDecl hashCodeMethod;
+        /** The program's override of Throwable.getMessage, which Throwable.toString reports. */
+        final MethodDecl getMessageMethod;
+        /** Methods the class itself declares, grouped by the symbol of their name; null for other symbols. */
+        final List<List<MethodDecl>> declaredMethods;
+        /** Static fields the class itself declares, by symbol, holding their default values until initialized. */
+        final Variable[] staticFields;
+        int initialization = UNINITIALIZED;
+        
+        RuntimeClass(ClassDecl decl, RuntimeClass superclass, Class<?> hostSuperclass, ProgramClass[] interfaces,
+                     int[] fieldSlots, String[] fieldTypes) {
+            super(decl.name, superclass, interfaces, fieldTypes.length, 0);
+            this.decl = decl;
+            this.hostSuperclass = hostSuperclass;
+            this.fieldSlots = fieldSlots;
+            this.fieldTypes = fieldTypes;
+            this.fieldDefaults = new Object[fieldTypes.length];
+            for (int i = 0; i < fieldTypes.length; i++) {
+                fieldDefaults[i] = defaultValue(fieldTypes[i]);
+            }
+            staticFields = new Variable[symbols.size()];
+            for (FieldDecl field : decl.fields) {
+                if (field.isStatic()) {
+                    String type = primitiveName(field.type);
+                    staticFields[field.symbol] = new Variable(type, defaultValue(type));
+                }
+                if (field.initializer != null) {
+                    (field.isStatic() ? staticInitializers : initializers).add(field);
+                }
+            }
+            initializers.addAll(decl.initializers);
+            staticInitializers.addAll(decl.staticInitializers);
+            Collections.sort(initializers, SOURCE_ORDER);
+            Collections.sort(staticInitializers, SOURCE_ORDER);
+            
+            defaultConstructor = new MethodDecl(Modifiers.PUBLIC, null, decl.name, Collections.<Param>emptyList(),
+                    new Block(Collections.<Stmt>emptyList()), true);
+            defaultConstructor.owner = decl;
+            defaultConstructor.frameSize = 1;
+            declaredMethods = new ArrayList<>(Collections.<List<MethodDecl>>nCopies(symbols.size(), null));
+            for (MethodDecl method : decl.methods) {
+                List<MethodDecl> overloads = declaredMethods.get(method.symbol);
+                if (overloads == null) {
+                    overloads = new ArrayList<>();
+                    declaredMethods.set(method.symbol, overloads);
+                }
+                overloads.add(method);
+            }
+            toStringMethod = findOverride("toString", 0);
+            equalsMethod = findOverride("equals", 1);
+            hashCodeMethod = findOverride("hashCode", 0);
+            getMessageMethod = findOverride("getMessage", 0);
+        }
+        
+        private MethodDecl findOverride(String name, int arity) {
+            for (ClassDecl type = decl; type != null; type = superclassOf(type)) {
+                for (MethodDecl method : type.methods) {
+                    if (method.name.equals(name) && method.params.size() == arity && !method.isStatic()
+                            && method.body != null) {
+                        return method;
+                    }
+                }
+            }
+            return null;
+        }
+        
+        @Override
+        protected String invokeToString(ProgramObject object) {
+            if (toStringMethod != null) {
+                return String.valueOf(invoke(toStringMethod, object, NO_ARGUMENTS));
+            }
+            return object.hostPart != null ? throwableToString(object) : object.defaultToString();
+        }
+        
+        @Override
+        protected boolean invokeEquals(ProgramObject object, Object other) {
+            return equalsMethod != null
+                    ? Operators.isTrue(invoke(equalsMethod, object, new Object[] { other }))
+                    : object == other;
+        }
+        
+        @Override
+        protected int invokeHashCode(ProgramObject object) {
+            return hashCodeMethod != null
+                    ? Operators.intValue(invoke(hashCodeMethod, object, NO_ARGUMENTS))
+                    : object.defaultHashCode();
+        }
+    }
+    
+    public static class CompileResult {
+        private final boolean success;
+        private final String message;
+        private final String output;
+        private final StageTimings timings;
+        
+        public CompileResult(boolean success, String message, String output) {
+            this(success, message, output, null);
+        }
+        
+        public CompileResult(boolean success, String message, String output, StageTimings timings) {
+            this.success = success;
+            this.message = message;
+            this.output = output;
+            this.timings = timings;
+        }
+        
+        public boolean isSuccess() { return success; }
+        public String getMessage() { return message; }
+        public String getOutput() { return output; }
+        /** Per-stage timings when the run went through a {@link CompilationPipeline}, otherwise null. */
+        public StageTimings getTimings() { return timings; }
+    }
+}
\ No newline at end of file
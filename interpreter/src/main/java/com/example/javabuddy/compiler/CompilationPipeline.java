@@ -0,0 +1,143 @@
+package com.example.javabuddy.compiler;
+
+import com.example.javabuddy.compiler.AdvancedJavaInterpreter.CompileResult;
+import com.example.javabuddy.compiler.ast.CompilationUnit;
+import com.example.javabuddy.compiler.diagnostics.Diagnostic;
+import com.example.javabuddy.compiler.parser.ParseException;
+import com.example.javabuddy.compiler.parser.Token;
+import com.example.javabuddy.compiler.runtime.ConsoleBuffer;
+import com.example.javabuddy.compiler.runtime.ExecutionBudget;
+import com.example.javabuddy.compiler.runtime.Profiler;
+import com.example.javabuddy.compiler.vm.BytecodeProgram;
+import com.example.javabuddy.compiler.vm.UnsupportedFeatureException;
+import com.example.javabuddy.compiler.vm.VirtualMachine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The front end and back end of a run in one place: the source is lexed
+ * once, the tokens are parsed once, and validation, bytecode compilation
+ * and execution all read that same token stream and tree from the
+ * {@link ProgramCache} entry. Programs run on the {@link VirtualMachine},
+ * or on the tree-walking interpreter when the VM does not support them.
+ *
+ * <p>Every result carries {@link StageTimings} for the run.
+ */
+public final class CompilationPipeline {
+    
+    private static final String TAG = "CompilationPipeline";
+    
+    /**
+     * Checks a parsed program before it runs, such as the stricter rules of
+     * the "Real Java Compiler" mode. Any error keeps the program from
+     * running; warnings are added to the message of the result.
+     */
+    public interface Validator {
+        List<Diagnostic> validate(String source, List<Token> tokens, CompilationUnit unit);
+    }
+    
+    private static final Validator NO_VALIDATION = new Validator() {
+        @Override
+        public List<Diagnostic> validate(String source, List<Token> tokens, CompilationUnit unit) {
+            return Collections.emptyList();
+        }
+    };
+    
+    private final ProgramCache cache;
+    private final Validator validator;
+    
+    public CompilationPipeline() {
+        this(NO_VALIDATION);
+    }
+    
+    public CompilationPipeline(Validator validator) {
+        this(validator, ProgramCache.getShared());
+    }
+    
+    public CompilationPipeline(Validator validator, ProgramCache cache) {
+        this.validator = validator;
+        this.cache = cache;
+    }
+    
+    public CompileResult run(String sourceCode) {
+        return run(sourceCode, new ExecutionBudget(), new ConsoleBuffer());
+    }
+    
+    /** Runs the program through every stage, printing into {@code console} as it executes. */
+    public CompileResult run(String sourceCode, ExecutionBudget budget, ConsoleBuffer console) {
+        return run(sourceCode, budget, console, null);
+    }
+    
+    /**
+     * Like {@link #run(String, ExecutionBudget, ConsoleBuffer)}, recording a
+     * line and method profile into {@code profiler} if it is not null.
+     * Programs that need the tree-walking interpreter are profiled there,
+     * along with the methods and loops it compiled as they got hot.
+     */
+    public CompileResult run(String sourceCode, ExecutionBudget budget, ConsoleBuffer console, Profiler profiler) {
+        ProgramCache.Entry entry = cache.get(sourceCode);
+        
+        long start = System.nanoTime();
+        List<Token> tokens;
+        try {
+            tokens = entry.getTokens();
+        } catch (ParseException e) {
+            return new CompileResult(false, "Parse errors:\n" + e, "",
+                    new StageTimings(System.nanoTime() - start, 0, 0, 0, 0));
+        }
+        long lex = System.nanoTime() - start;
+        
+        start = System.nanoTime();
+        CompilationUnit unit;
+        try {
+            unit = entry.getUnit();
+        } catch (ParseException e) {
+            return new CompileResult(false, "Parse errors:\n" + e, "",
+                    new StageTimings(lex, System.nanoTime() - start, 0, 0, 0));
+        }
+        long parse = System.nanoTime() - start;
+        CompilerLog.d(TAG, "Optimized: " + entry.getOptimizationReport());
+        
+        start = System.nanoTime();
+        List<Diagnostic> diagnostics = validator.validate(entry.getSource(), tokens, unit);
+        long validate = System.nanoTime() - start;
+        List<String> errors = new ArrayList<>();
+        List<String> warnings = new ArrayList<>();
+        for (Diagnostic diagnostic : diagnostics) {
+            if (diagnostic.isError()) {
+                errors.add(diagnostic.toString());
+            } else {
+                warnings.add(diagnostic.toString());
+            }
+        }
+        if (!errors.isEmpty()) {
+            return new CompileResult(false, "Compilation errors:\n" + String.join("\n", errors), "",
+                    new StageTimings(lex, parse, validate, 0, 0));
+        }
+        
+        start = System.nanoTime();
+        BytecodeProgram program = null;
+        try {
+            program = profiler != null ? entry.getProfiledBytecode() : entry.getBytecode();
+        } catch (UnsupportedFeatureException e) {
+            CompilerLog.d(TAG, "Running on the tree-walking interpreter: " + e.getMessage());
+        }
+        long compile = System.nanoTime() - start;
+        
+        start = System.nanoTime();
+        CompileResult result = program != null
+                ? new VirtualMachine().execute(program, budget, console, profiler)
+                : new AdvancedJavaInterpreter().execute(unit, budget, console, profiler);
+        long execute = System.nanoTime() - start;
+        
+        StageTimings timings = new StageTimings(lex, parse, validate, compile, execute);
+        CompilerLog.d(TAG, "Ran in " + timings);
+        String message = result.getMessage();
+        if (!warnings.isEmpty()) {
+            message += "\nWarnings:\n" + String.join("\n", warnings);
+        }
+        return new CompileResult(result.isSuccess(), message, result.getOutput(), timings);
+    }
+}
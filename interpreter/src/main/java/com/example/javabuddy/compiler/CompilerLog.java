@@ -0,0 +1,44 @@
+package com.example.javabuddy.compiler;
+
+/**
+ * Where the engines write their debug and error logs. The compiler module
+ * runs on a plain JVM, so it cannot call android.util.Log itself; the app
+ * installs a sink that forwards to it, while tests and benchmarks keep the
+ * default, which discards everything.
+ */
+public final class CompilerLog {
+    
+    public enum Level { DEBUG, ERROR }
+    
+    public interface Sink {
+        /** {@code error} is null when the message has no exception attached. */
+        void log(Level level, String tag, String message, Throwable error);
+    }
+    
+    public static final Sink DISCARD = new Sink() {
+        @Override
+        public void log(Level level, String tag, String message, Throwable error) {
+        }
+    };
+    
+    private static volatile Sink sink = DISCARD;
+    
+    private CompilerLog() {
+    }
+    
+    public static void setSink(Sink newSink) {
+        sink = newSink != null ? newSink : DISCARD;
+    }
+    
+    public static void d(String tag, String message) {
+        sink.log(Level.DEBUG, tag, message, null);
+    }
+    
+    public static void d(String tag, String message, Throwable error) {
+        sink.log(Level.DEBUG, tag, message, error);
+    }
+    
+    public static void e(String tag, String message, Throwable error) {
+        sink.log(Level.ERROR, tag, message, error);
+    }
+}
\ No newline at end of file
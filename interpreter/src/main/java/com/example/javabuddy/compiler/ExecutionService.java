@@ -0,0 +1,388 @@
+package com.example.javabuddy.compiler;
+
+import com.example.javabuddy.compiler.runtime.ConsoleBuffer;
+import com.example.javabuddy.compiler.runtime.ExecutionBudget;
+import com.example.javabuddy.compiler.runtime.Profiler;
+import com.example.javabuddy.compiler.vm.VirtualMachine;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs programs on a small, fixed pool of worker threads. There is one set
+ * of engines per worker, created once and reused for every run; the
+ * engines reset their state at the start of a run, so nothing leaks from
+ * one program to the next.
+ *
+ * <p>Runs are submitted on behalf of an owner, usually a screen. A new run
+ * cancels the owner's previous one if it is still queued or running, so
+ * rapid taps on Run cost one execution, not a backlog of them. Every run's
+ * callback is still called exactly once; a run cancelled before it started
+ * goes through its engine with a cancelled budget, which stops it at the
+ * engine's first check.
+ */
+public final class ExecutionService {
+    
+    private static final String TAG = "ExecutionService";
+    private static final int MAX_QUEUED_RUNS = 16;
+    /**
+     * Stack of each worker thread. The engines recurse on the host stack for
+     * every call the program makes, and a walked call takes a few KB of it,
+     * so the platform's default would overflow long before the engines'
+     * own call depth limit.
+     */
+    private static final long WORKER_STACK_BYTES = 32L << 20;
+    
+    private static final String WARM_UP_PROGRAM =
+            "public class Main {\n" +
+            "    static int square(int n) { return n * n; }\n" +
+            "    public static void main(String[] args) {\n" +
+            "        int total = 0;\n" +
+            "        for (int i = 0; i < 200; i++) { total += square(i) % 7; }\n" +
+            "        String text = \"total: \" + total;\n" +
+            "        System.out.println(text);\n" +
+            "    }\n" +
+            "}";
+    
+    private static ExecutionService shared;
+    
+    /** The compiler modes of the IDE. */
+    public enum Engine { BASIC, ADVANCED, REAL, VM }
+    
+    /**
+     * Called on the worker thread once a run has ended, with whatever its
+     * engine returned; null if the engine failed, see {@link Run#getError()}.
+     */
+    public interface Callback {
+        void onFinished(Run run, Object result);
+    }
+    
+    /**
+     * Work that runs on the pool in place of an engine, such as grading a
+     * submission. It must run its program with {@code budget}, which is how
+     * the service cancels it.
+     */
+    public interface Task {
+        Object run(ExecutionBudget budget);
+    }
+    
+    /** One submitted program. */
+    public static final class Run {
+        private final Object owner;
+        private final Engine engine;
+        private final String source;
+        private final Task task;
+        private final ExecutionBudget budget;
+        private final ConsoleBuffer console;
+        private final Profiler profiler;
+        private final Callback callback;
+        private final long submittedNanos = System.nanoTime();
+        private volatile long startedNanos;
+        private volatile long finishedNanos;
+        private volatile Throwable error;
+        
+        Run(Object owner, Engine engine, String source, Task task, ExecutionBudget budget, ConsoleBuffer console,
+            Profiler profiler, Callback callback) {
+            this.owner = owner;
+            this.engine = engine;
+            this.source = source;
+            this.task = task;
+            this.budget = budget;
+            this.console = console;
+            this.profiler = profiler;
+            this.callback = callback;
+        }
+        
+        /** The engine of the run, or null for a {@link Task}. */
+        public Engine getEngine() { return engine; }
+        public ExecutionBudget getBudget() { return budget; }
+        
+        /** The console of the run, or null for a {@link Task}, which brings its own. */
+        public ConsoleBuffer getConsole() { return console; }
+        
+        /** The profile of the run, or null if it was not profiled. */
+        public Profiler getProfiler() { return profiler; }
+        
+        /** Stops the run, or makes it end at once if it has not started yet. */
+        public void cancel() {
+            budget.cancel();
+        }
+        
+        public boolean isCancelled() {
+            return budget.isCancelled();
+        }
+        
+        /** What the engine threw instead of returning a result, errors included, if anything. */
+        public Throwable getError() {
+            return error;
+        }
+        
+        /** Time spent waiting for a worker; valid once the run has finished. */
+        public long getQueuedNanos() {
+            return startedNanos - submittedNanos;
+        }
+        
+        /** Time from submission to the end of the run; valid once the run has finished. */
+        public long getLatencyNanos() {
+            return finishedNanos - submittedNanos;
+        }
+    }
+    
+    /**
+     * The engines one worker uses; never shared between two runs at the same
+     * time. Benchmarks drive a set directly to time runs the way the app
+     * dispatches them.
+     */
+    public static final class Engines {
+        final JavaCompiler basic = new JavaCompiler();
+        final AdvancedJavaInterpreter advanced = new AdvancedJavaInterpreter();
+        final RealJavaCompiler real = new RealJavaCompiler();
+        final VirtualMachine vm = new VirtualMachine();
+        
+        /** Runs {@code source} on {@code engine}, profiling into {@code profiler} if it is not null. */
+        public Object run(Engine engine, String source, ExecutionBudget budget, ConsoleBuffer console, Profiler profiler) {
+            switch (engine) {
+                case BASIC:
+                    return basic.compileAndRun(source, budget, console);
+                case ADVANCED:
+                    return advanced.compileAndRun(source, budget, console, profiler);
+                case REAL:
+                    return real.compileAndRun(source, budget, console);
+                case VM:
+                    return vm.compileAndRun(source, budget, console, profiler);
+                default:
+                    throw new IllegalArgumentException("Unknown engine " + engine);
+            }
+        }
+    }
+    
+    private final ThreadPoolExecutor pool;
+    private final BlockingQueue<Engines> idleEngines;
+    private final Map<Object, Run> latestRuns = new HashMap<>();
+    private final Object lock = new Object();
+    private long completedRuns;
+    private long cancelledRuns;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+    private long totalQueuedNanos;
+    
+    public ExecutionService(int workers) {
+        ThreadFactory threads = new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(null, task, "program-runner-" + count.incrementAndGet(), WORKER_STACK_BYTES);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        this.pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(MAX_QUEUED_RUNS), threads);
+        this.idleEngines = new ArrayBlockingQueue<>(workers);
+        for (int i = 0; i < workers; i++) {
+            idleEngines.add(new Engines());
+        }
+    }
+    
+    /** The service used by every screen of the app: one worker, or two on devices with cores to spare. */
+    public static synchronized ExecutionService getShared() {
+        if (shared == null) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            shared = new ExecutionService(cores > 2 ? 2 : 1);
+        }
+        return shared;
+    }
+    
+    /**
+     * Queues a run for {@code owner}, cancelling the owner's previous run.
+     *
+     * @throws RejectedExecutionException if too many runs are already waiting
+     */
+    public Run submit(Object owner, Engine engine, String source, ConsoleBuffer console, Callback callback) {
+        return submit(owner, engine, source, console, null, callback);
+    }
+    
+    /**
+     * Like {@link #submit(Object, Engine, String, ConsoleBuffer, Callback)},
+     * recording a line and method profile into {@code profiler}. The
+     * {@link Engine#VM} and {@link Engine#ADVANCED} engines profile; the
+     * others leave it empty.
+     */
+    public Run submit(Object owner, Engine engine, String source, ConsoleBuffer console, Profiler profiler,
+                      Callback callback) {
+        return enqueue(new Run(owner, engine, source, null, new ExecutionBudget(), console, profiler, callback));
+    }
+    
+    /**
+     * Queues {@code task} for {@code owner} like a program run, cancelling
+     * the owner's previous run; the callback gets what the task returned.
+     *
+     * @throws RejectedExecutionException if too many runs are already waiting
+     */
+    public Run submit(Object owner, Task task, Callback callback) {
+        return enqueue(new Run(owner, null, null, task, new ExecutionBudget(), null, null, callback));
+    }
+    
+    private Run enqueue(final Run run) {
+        synchronized (lock) {
+            Run previous = latestRuns.put(run.owner, run);
+            if (previous != null) {
+                previous.cancel();
+            }
+        }
+        try {
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    execute(run);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            forget(run);
+            throw e;
+        }
+        return run;
+    }
+    
+    /** Cancels the owner's current run, if any; call when the owner goes away. */
+    public void cancel(Object owner) {
+        synchronized (lock) {
+            Run run = latestRuns.remove(owner);
+            if (run != null) {
+                run.cancel();
+            }
+        }
+    }
+    
+    /**
+     * Runs a small program through every engine in the background, so
+     * classes are loaded and the hot paths compiled before the user's first
+     * Run. Both are per process, so once per engine is enough.
+     */
+    public void warmUp() {
+        for (final Engine engine : Engine.values()) {
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    Engines engines = idleEngines.poll();
+                    try {
+                        engines.run(engine, WARM_UP_PROGRAM, new ExecutionBudget(), new ConsoleBuffer(), null);
+                    } catch (Throwable e) {
+                        // An Error such as a stack overflow must not take the worker down either
+                        CompilerLog.e(TAG, "Warm-up of " + engine + " failed", e);
+                    } finally {
+                        idleEngines.add(engines);
+                    }
+                }
+            });
+        }
+    }
+    
+    private void execute(Run run) {
+        // No more tasks run at once than there are workers, so a set is always free
+        Engines engines = idleEngines.poll();
+        run.startedNanos = System.nanoTime();
+        Object result = null;
+        try {
+            result = run.task != null
+                    ? run.task.run(run.budget)
+                    : engines.run(run.engine, run.source, run.budget, run.console, run.profiler);
+        } catch (Throwable e) {
+            // An Error such as a stack overflow fails this run, not the worker
+            CompilerLog.e(TAG, "Run failed", e);
+            run.error = e;
+        } finally {
+            idleEngines.add(engines);
+            run.finishedNanos = System.nanoTime();
+            record(run);
+            forget(run);
+            run.callback.onFinished(run, result);
+        }
+    }
+    
+    private void forget(Run run) {
+        synchronized (lock) {
+            if (latestRuns.get(run.owner) == run) {
+                latestRuns.remove(run.owner);
+            }
+        }
+    }
+    
+    private void record(Run run) {
+        synchronized (lock) {
+            completedRuns++;
+            if (run.isCancelled()) {
+                cancelledRuns++;
+            }
+            long latency = run.getLatencyNanos();
+            totalLatencyNanos += latency;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+            totalQueuedNanos += run.getQueuedNanos();
+        }
+    }
+    
+    // ---------------------------------------------------------------------
+    // Metrics
+    // ---------------------------------------------------------------------
+    
+    /** Runs waiting for a worker, warm-up included. */
+    public int getQueueDepth() {
+        return pool.getQueue().size();
+    }
+    
+    /** Runs currently executing. */
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+    
+    public long getCompletedRunCount() {
+        synchronized (lock) {
+            return completedRuns;
+        }
+    }
+    
+    /** Completed runs that were cancelled, by the user or by a newer run of the same owner. */
+    public long getCancelledRunCount() {
+        synchronized (lock) {
+            return cancelledRuns;
+        }
+    }
+    
+    /** Average time from submission to result, queueing included. */
+    public long getAverageLatencyNanos() {
+        synchronized (lock) {
+            return completedRuns == 0 ? 0 : totalLatencyNanos / completedRuns;
+        }
+    }
+    
+    public long getMaxLatencyNanos() {
+        synchronized (lock) {
+            return maxLatencyNanos;
+        }
+    }
+    
+    public long getAverageQueuedNanos() {
+        synchronized (lock) {
+            return completedRuns == 0 ? 0 : totalQueuedNanos / completedRuns;
+        }
+    }
+    
+    @Override
+    public String toString() {
+        synchronized (lock) {
+            return "ExecutionService[queued=" + getQueueDepth() + ", active=" + getActiveCount()
+                    + ", completed=" + completedRuns + ", cancelled=" + cancelledRuns
+                    + ", avgLatency=" + getAverageLatencyNanos() / 1_000_000 + "ms"
+                    + ", maxLatency=" + maxLatencyNanos / 1_000_000 + "ms"
+                    + ", avgQueued=" + getAverageQueuedNanos() / 1_000_000 + "ms]";
+        }
+    }
+}
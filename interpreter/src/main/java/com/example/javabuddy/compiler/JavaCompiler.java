@@ -1,7 +1,14 @@
 package com.example.javabuddy.compiler;
 
-import android.content.Context;
-import android.util.Log;
+import com.example.javabuddy.compiler.ast.*;
+import com.example.javabuddy.compiler.optimizer.OptimizationReport;
+import com.example.javabuddy.compiler.parser.ParseException;
+import com.example.javabuddy.compiler.parser.Parser;
+import com.example.javabuddy.compiler.runtime.ConsoleBuffer;
+import com.example.javabuddy.compiler.runtime.ExecutionBudget;
+import com.example.javabuddy.compiler.runtime.InterpreterException;
+import com.example.javabuddy.compiler.runtime.Operators;
+import com.example.javabuddy.compiler.vm.VirtualMachine;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
@@ -15,31 +22,41 @@ import java.util.regex.Pattern;
 public class JavaCompiler {
     
     private static final String TAG = "JavaCompiler";
-    private Context context;
     
     // Variable storage for the interpreter
     private Map<String, Object> variables;
-    private StringBuilder output;
+    private ConsoleBuffer output;
     private PrintStream originalOut;
     private ByteArrayOutputStream outputStream;
     
-    public JavaCompiler(Context context) {
-        this.context = context;
+    public JavaCompiler() {
         this.variables = new HashMap<>();
-        this.output = new StringBuilder();
+        this.output = new ConsoleBuffer();
     }
     
     public CompileResult compileAndRun(String sourceCode) {
+        return compileAndRun(sourceCode, new ExecutionBudget(), new ConsoleBuffer());
+    }
+    
+    /** Runs the program, printing into {@code console} line by line as it executes. */
+    public CompileResult compileAndRun(String sourceCode, ExecutionBudget budget, ConsoleBuffer console) {
         try {
             // Reset state
             variables.clear();
-            output.setLength(0);
+            output = console;
             
             // Validate basic structure
             if (!validateBasicStructure(sourceCode)) {
                 return new CompileResult(false, "Error: Invalid Java structure. Must contain 'public class' and 'public static void main'", "");
             }
             
+            // Loops, ifs and switches need block structure, which line-by-line execution cannot give them
+            if (hasControlFlow(sourceCode)) {
+                AdvancedJavaInterpreter.CompileResult result =
+                        new VirtualMachine().compileAndRun(sourceCode, budget, console);
+                return new CompileResult(result.isSuccess(), result.getMessage(), result.getOutput());
+            }
+            
             // Extract main method content
             String mainContent = extractMainContent(sourceCode);
             if (mainContent == null) {
@@ -54,15 +71,54 @@ public class JavaCompiler {
             } else {
                 return new CompileResult(false, "Runtime error occurred", output.toString());
             }
-            
+        
         } catch (Exception e) {
-            Log.e(TAG, "Error in compileAndRun", e);
+            CompilerLog.e(TAG, "Error in compileAndRun", e);
             return new CompileResult(false, "Error: " + e.getMessage(), "");
         }
     }
     
+    /**
+     * True if main contains a compound statement, or the program declares
+     * classes, fields or methods of its own; a program that does not parse is
+     * left to the line executor.
+     */
+    private boolean hasControlFlow(String sourceCode) {
+        ProgramCache.Entry entry = ProgramCache.getShared().get(sourceCode);
+        CompilationUnit unit;
+        try {
+            unit = entry.getUnit();
+        } catch (ParseException e) {
+            return false;
+        }
+        // an if on a constant is gone from the tree, but the line executor would still run it from the source
+        if (unit.classes.size() > 1 || entry.getOptimizationReport().getRewriteCount(OptimizationReport.DEAD_CODE) > 0) {
+            return true;
+        }
+        for (ClassDecl decl : unit.classes) {
+            if (!decl.memberClasses.isEmpty() || !decl.fields.isEmpty() || decl.methods.size() > 1) {
+                return true;
+            }
+            for (MethodDecl method : decl.methods) {
+                if (method.name.equals("main") && method.body != null) {
+                    for (Stmt stmt : method.body.statements) {
+                        switch (stmt.tag) {
+                            case LOCAL_VAR:
+                            case EXPRESSION_STATEMENT:
+                            case EMPTY:
+                                break;
+                            default:
+                                return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+    
     private boolean validateBasicStructure(String code) {
-        return code.contains("public class") && 
+        return code.contains("public class") &&
                code.contains("public static void main") &&
                code.contains("String[] args") &&
                countBraces(code) >= 0;
@@ -104,7 +160,7 @@ public class JavaCompiler {
             
             return null;
         } catch (Exception e) {
-            Log.e(TAG, "Error extracting main content", e);
+            CompilerLog.e(TAG, "Error extracting main content", e);
             return null;
         }
     }
@@ -124,9 +180,9 @@ public class JavaCompiler {
             }
             
             return true;
-            
+        
         } catch (Exception e) {
-            output.append("Runtime Error: ").append(e.getMessage()).append("\n");
+            output.println("Runtime Error: " + e.getMessage());
             return false;
         }
     }
@@ -152,9 +208,9 @@ public class JavaCompiler {
             
             // If we can't handle the line, just ignore it (like comments, braces, etc.)
             return true;
-            
+        
         } catch (Exception e) {
-            output.append("Error executing line: ").append(line).append(" - ").append(e.getMessage()).append("\n");
+            output.println("Error executing line: " + line + " - " + e.getMessage());
             return false;
         }
     }
@@ -163,7 +219,7 @@ public class JavaCompiler {
         String content = extractPrintContent(line);
         if (content != null) {
             String evaluated = evaluateExpression(content);
-            output.append(evaluated).append("\n");
+            output.println(evaluated);
             return true;
         }
         return false;
@@ -173,7 +229,7 @@ public class JavaCompiler {
         String content = extractPrintContent(line);
         if (content != null) {
             String evaluated = evaluateExpression(content);
-            output.append(evaluated);
+            output.print(evaluated);
             return true;
         }
         return false;
@@ -287,281 +343,79 @@ public class JavaCompiler {
     
     private String evaluateExpression(String expr) {
         try {
-            // Handle string literals first
-            if (expr.startsWith("\"") && expr.endsWith("\"")) {
-                return expr.substring(1, expr.length() - 1);
-            }
-            
-            // Check if it's a pure numeric expression (no strings involved)
-            if (isPureNumericExpression(expr)) {
-                return String.valueOf(evaluateNumericExpression(expr));
-            }
-            
-            // Handle string concatenation only if strings are involved
-            if (expr.contains("+") && (expr.contains("\"") || hasStringVariable(expr))) {
-                return evaluateStringConcatenation(expr);
-            }
-            
-            // Handle other numeric expressions  
-            if (expr.matches(".*[+\\-*/].*")) {
-                return String.valueOf(evaluateNumericExpression(expr));
-            }
-            
-            // Handle variables
-            if (variables.containsKey(expr.trim())) {
-                return String.valueOf(variables.get(expr.trim()));
-            }
-            
+            return String.valueOf(evaluate(Parser.parseExpression(expr)));
+        } catch (RuntimeException e) {
             // Return as is if can't evaluate
             return expr;
-            
-        } catch (Exception e) {
-            return expr;
-        }
-    }
-    
-    private boolean isPureNumericExpression(String expr) {
-        // Remove parentheses and whitespace for analysis
-        String cleanExpr = expr.replaceAll("[()\\s]", "");
-        
-        // Check if expression contains only numbers, operators, and variable names that are numeric
-        String[] tokens = cleanExpr.split("[+\\-*/]");
-        for (String token : tokens) {
-            token = token.trim();
-            if (token.isEmpty()) continue;
-            
-            // Check if it's a number
-            if (token.matches("-?\\d+(\\.\\d+)?")) {
-                continue; // It's a number
-            }
-            
-            // Check if it's a numeric variable
-            if (variables.containsKey(token) && variables.get(token) instanceof Number) {
-                continue; // It's a numeric variable
-            }
-            
-            // Check if it's a string literal or string variable
-            if (token.startsWith("\"") || (variables.containsKey(token) && variables.get(token) instanceof String)) {
-                return false; // Contains strings, not pure numeric
-            }
-        }
-        
-        // If we get here, it's purely numeric
-        return cleanExpr.matches(".*[+\\-*/].*"); // Must contain at least one operator
-    }
-    
-    private boolean hasStringVariable(String expr) {
-        for (String varName : variables.keySet()) {
-            if (expr.contains(varName) && variables.get(varName) instanceof String) {
-                return true;
-            }
-        }
-        return false;
-    }
-    
-    private String evaluateStringConcatenation(String expr) {
-        StringBuilder result = new StringBuilder();
-        String[] parts = expr.split("\\+");
-        
-        for (String part : parts) {
-            part = part.trim();
-            if (part.startsWith("\"") && part.endsWith("\"")) {
-                result.append(part.substring(1, part.length() - 1));
-            } else if (variables.containsKey(part)) {
-                result.append(variables.get(part));
-            } else {
-                result.append(part);
-            }
         }
-        
-        return result.toString();
     }
     
-    private double evaluateNumericExpression(String expr) {
-        try {
-            // Replace variables with their numeric values
-            for (Map.Entry<String, Object> entry : variables.entrySet()) {
-                if (entry.getValue() instanceof Number) {
-                    expr = expr.replace(entry.getKey(), String.valueOf(entry.getValue()));
+    /**
+     * Evaluates an expression parsed by the shared {@link Parser}, so operator
+     * precedence and semantics match the full interpreter.
+     */
+    private Object evaluate(Expr expr) {
+        switch (expr.tag) {
+            case LITERAL:
+                return ((Literal) expr).value;
+            case NAME: {
+                String name = ((Name) expr).name;
+                if (!variables.containsKey(name)) {
+                    throw new InterpreterException("cannot find symbol: variable " + name);
                 }
+                return variables.get(name);
             }
-            
-            // Remove all whitespace
-            expr = expr.replaceAll("\\s", "");
-            
-            // Handle parentheses first (recursive evaluation)
-            while (expr.contains("(")) {
-                int start = expr.lastIndexOf("(");
-                int end = expr.indexOf(")", start);
-                if (end == -1) break; // Malformed expression
-                
-                String subExpr = expr.substring(start + 1, end);
-                double subResult = evaluateSimpleExpression(subExpr);
-                expr = expr.substring(0, start) + subResult + expr.substring(end + 1);
-            }
-            
-            // Evaluate the remaining expression
-            return evaluateSimpleExpression(expr);
-            
-        } catch (Exception e) {
-            return 0;
-        }
-    }
-    
-    private double evaluateSimpleExpression(String expr) {
-        try {
-            // Handle simple case - just a number
-            if (expr.matches("-?\\d+(\\.\\d+)?")) {
-                return Double.parseDouble(expr);
-            }
-            
-            // Handle multiplication and division first (order of operations)
-            expr = evaluateMultiplicationDivision(expr);
-            
-            // Then handle addition and subtraction
-            return evaluateAdditionSubtraction(expr);
-            
-        } catch (Exception e) {
-            return 0;
-        }
-    }
-    
-    private String evaluateMultiplicationDivision(String expr) {
-        // Handle * and / from left to right
-        while (expr.contains("*") || expr.contains("/")) {
-            // Find the first * or /
-            int mulIndex = expr.indexOf("*");
-            int divIndex = expr.indexOf("/");
-            
-            int opIndex;
-            char operator;
-            if (mulIndex == -1) {
-                opIndex = divIndex;
-                operator = '/';
-            } else if (divIndex == -1) {
-                opIndex = mulIndex;
-                operator = '*';
-            } else {
-                if (mulIndex < divIndex) {
-                    opIndex = mulIndex;
-                    operator = '*';
-                } else {
-                    opIndex = divIndex;
-                    operator = '/';
+            case BINARY: {
+                Binary binary = (Binary) expr;
+                if (binary.op == BinaryOp.AND) {
+                    return Operators.isTrue(evaluate(binary.left)) && Operators.isTrue(evaluate(binary.right));
+                }
+                if (binary.op == BinaryOp.OR) {
+                    return Operators.isTrue(evaluate(binary.left)) || Operators.isTrue(evaluate(binary.right));
                 }
+                return Operators.binary(binary.op, evaluate(binary.left), evaluate(binary.right));
             }
-            
-            // Find the operands
-            double left = extractLeftOperand(expr, opIndex);
-            double right = extractRightOperand(expr, opIndex);
-            
-            // Calculate result
-            double result = (operator == '*') ? left * right : left / right;
-            
-            // Replace the expression with the result
-            expr = replaceOperation(expr, left, operator, right, result);
-        }
-        
-        return expr;
-    }
-    
-    private double evaluateAdditionSubtraction(String expr) {
-        // Handle + and - from left to right
-        double result = 0;
-        String currentNumber = "";
-        char lastOperator = '+';
-        
-        for (int i = 0; i < expr.length(); i++) {
-            char c = expr.charAt(i);
-            
-            if (c == '+' || c == '-') {
-                if (!currentNumber.isEmpty()) {
-                    double num = Double.parseDouble(currentNumber);
-                    result = (lastOperator == '+') ? result + num : result - num;
-                    currentNumber = "";
+            case UNARY: {
+                Unary unary = (Unary) expr;
+                if (unary.op.isIncrementOrDecrement()) {
+                    throw new InterpreterException("Increment and decrement are not supported in this mode");
                 }
-                lastOperator = c;
-            } else {
-                currentNumber += c;
+                return Operators.unary(unary.op, evaluate(unary.operand));
             }
-        }
-        
-        // Handle the last number
-        if (!currentNumber.isEmpty()) {
-            double num = Double.parseDouble(currentNumber);
-            result = (lastOperator == '+') ? result + num : result - num;
-        }
-        
-        return result;
-    }
-    
-    private double extractLeftOperand(String expr, int opIndex) {
-        StringBuilder num = new StringBuilder();
-        for (int i = opIndex - 1; i >= 0; i--) {
-            char c = expr.charAt(i);
-            if (Character.isDigit(c) || c == '.') {
-                num.insert(0, c);
-            } else if (c == '-' && (i == 0 || "+-*/".indexOf(expr.charAt(i-1)) >= 0)) {
-                num.insert(0, c); // Negative number
-            } else {
-                break;
+            case CONDITIONAL: {
+                Conditional conditional = (Conditional) expr;
+                return evaluate(Operators.isTrue(evaluate(conditional.condition))
+                        ? conditional.thenValue
+                        : conditional.elseValue);
             }
-        }
-        return Double.parseDouble(num.toString());
-    }
-    
-    private double extractRightOperand(String expr, int opIndex) {
-        StringBuilder num = new StringBuilder();
-        boolean isNegative = false;
-        
-        for (int i = opIndex + 1; i < expr.length(); i++) {
-            char c = expr.charAt(i);
-            if (i == opIndex + 1 && c == '-') {
-                isNegative = true;
-            } else if (Character.isDigit(c) || c == '.') {
-                num.append(c);
-            } else {
-                break;
+            case CAST: {
+                Cast cast = (Cast) expr;
+                Object value = evaluate(cast.expression);
+                return cast.type.isPrimitive() ? Operators.cast(cast.type.name, value) : value;
             }
+            default:
+                throw new InterpreterException("Unsupported expression");
         }
-        
-        double result = Double.parseDouble(num.toString());
-        return isNegative ? -result : result;
-    }
-    
-    private String replaceOperation(String expr, double left, char operator, double right, double result) {
-        String leftStr = String.valueOf(left);
-        String rightStr = String.valueOf(right);
-        String operatorStr = String.valueOf(operator);
-        
-        // Handle negative numbers in the search string
-        if (left < 0) leftStr = String.valueOf(left);
-        if (right < 0) rightStr = String.valueOf(right);
-        
-        String searchPattern = leftStr + operatorStr + rightStr;
-        String resultStr = String.valueOf(result);
-        
-        return expr.replace(searchPattern, resultStr);
     }
     
     private boolean handleForLoop(String line) {
         // This would be complex to implement properly
         // For now, just acknowledge it exists
-        output.append("// For loop detected (simplified execution)\n");
+        output.println("// For loop detected (simplified execution)");
         return true;
     }
     
     private boolean handleWhileLoop(String line) {
         // This would be complex to implement properly
         // For now, just acknowledge it exists
-        output.append("// While loop detected (simplified execution)\n");
+        output.println("// While loop detected (simplified execution)");
         return true;
     }
     
     private boolean handleIfStatement(String line) {
         // This would be complex to implement properly
         // For now, just acknowledge it exists
-        output.append("// If statement detected (simplified execution)\n");
+        output.println("// If statement detected (simplified execution)");
         return true;
     }
     
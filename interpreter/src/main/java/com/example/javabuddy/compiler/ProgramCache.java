@@ -0,0 +1,259 @@
+package com.example.javabuddy.compiler;
+
+import com.example.javabuddy.compiler.ast.CompilationUnit;
+import com.example.javabuddy.compiler.optimizer.OptimizationReport;
+import com.example.javabuddy.compiler.optimizer.Optimizer;
+import com.example.javabuddy.compiler.parser.Lexer;
+import com.example.javabuddy.compiler.parser.ParseException;
+import com.example.javabuddy.compiler.parser.Parser;
+import com.example.javabuddy.compiler.parser.Token;
+import com.example.javabuddy.compiler.vm.BytecodeCompiler;
+import com.example.javabuddy.compiler.vm.BytecodeProgram;
+import com.example.javabuddy.compiler.vm.UnsupportedFeatureException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of front-end results, shared by the interpreter modes so
+ * that running unchanged code again skips lexing, parsing, optimization and
+ * bytecode compilation. Entries are keyed by a SHA-256 hash of the source with line
+ * endings and trailing whitespace normalized. Neither changes line numbers,
+ * so cached errors still point at the right line.
+ *
+ * <p>Cached trees and programs are never modified by the engines that run
+ * them, so one entry can be used by several runs at once.
+ */
+public final class ProgramCache {
+    
+    private static final int DEFAULT_CAPACITY = 32;
+    private static final ProgramCache SHARED = new ProgramCache(DEFAULT_CAPACITY);
+    
+    private final int capacity;
+    private final Map<String, Entry> entries;
+    private final Object lock = new Object();
+    private long hits;
+    private long misses;
+    private long evictions;
+    
+    public ProgramCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ProgramCache.Entry> eldest) {
+                if (size() > ProgramCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /** The cache used by every compiler mode in the app. */
+    public static ProgramCache getShared() {
+        return SHARED;
+    }
+    
+    /**
+     * Returns the entry for this source, creating an empty one on a miss.
+     * Parsing happens lazily in the entry, outside the cache lock.
+     */
+    public Entry get(String source) {
+        String key = hash(normalize(source));
+        synchronized (lock) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+                return entry;
+            }
+            misses++;
+            entry = new Entry(source);
+            entries.put(key, entry);
+            return entry;
+        }
+    }
+    
+    public void clear() {
+        synchronized (lock) {
+            entries.clear();
+        }
+    }
+    
+    public int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+    
+    public long getHitCount() {
+        synchronized (lock) {
+            return hits;
+        }
+    }
+    
+    public long getMissCount() {
+        synchronized (lock) {
+            return misses;
+        }
+    }
+    
+    public long getEvictionCount() {
+        synchronized (lock) {
+            return evictions;
+        }
+    }
+    
+    @Override
+    public String toString() {
+        synchronized (lock) {
+            return "ProgramCache[size=" + entries.size() + "/" + capacity + ", hits=" + hits + ", misses=" + misses
+                    + ", evictions=" + evictions + "]";
+        }
+    }
+    
+    /**
+     * A hash of the source that is the same for every text this cache would
+     * treat as the same program, for callers that key their own results on it.
+     */
+    public static String fingerprint(String source) {
+        return hash(normalize(source));
+    }
+    
+    /** Unifies line endings and drops trailing whitespace, which does not change what a program means. */
+    static String normalize(String source) {
+        String[] lines = source.split("\r\n|\r|\n", -1);
+        StringBuilder normalized = new StringBuilder(source.length());
+        for (int i = 0; i < lines.length; i++) {
+            if (i > 0) {
+                normalized.append('\n');
+            }
+            String line = lines[i];
+            int end = line.length();
+            while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) {
+                end--;
+            }
+            normalized.append(line, 0, end);
+        }
+        return normalized.toString();
+    }
+    
+    private static String hash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * Front-end output for one source text. Each stage runs at most once;
+     * failures are remembered as well, so re-running a program with a
+     * syntax error does not parse it again either.
+     */
+    public static final class Entry {
+        
+        private final String source;
+        private List<Token> tokens;
+        private ParseException lexError;
+        private CompilationUnit unit;
+        private OptimizationReport optimizations;
+        private ParseException parseError;
+        private BytecodeProgram bytecode;
+        private BytecodeProgram profiledBytecode;
+        private UnsupportedFeatureException unsupported;
+        
+        private Entry(String source) {
+            this.source = source;
+        }
+        
+        /** The source text this entry was created for. */
+        public String getSource() {
+            return source;
+        }
+        
+        /**
+         * The tokens of the source, read-only, or the error the lexer stopped
+         * at. The unit is parsed from these, so lexing happens once per entry.
+         */
+        public synchronized List<Token> getTokens() {
+            if (tokens == null && lexError == null) {
+                try {
+                    tokens = Collections.unmodifiableList(new Lexer(source).tokenize());
+                } catch (ParseException e) {
+                    lexError = e;
+                }
+            }
+            if (lexError != null) {
+                throw lexError;
+            }
+            return tokens;
+        }
+        
+        /** The parsed program with locals resolved and optimized, or the parse error it produced. */
+        public synchronized CompilationUnit getUnit() {
+            if (unit == null && parseError == null) {
+                try {
+                    CompilationUnit parsed = Parser.parse(getTokens());
+                    optimizations = new Optimizer().optimize(parsed);
+                    unit = parsed;
+                } catch (ParseException e) {
+                    parseError = e;
+                }
+            }
+            if (parseError != null) {
+                throw parseError;
+            }
+            return unit;
+        }
+        
+        /** What the optimizer changed in the unit, or null if the source did not parse. */
+        public synchronized OptimizationReport getOptimizationReport() {
+            try {
+                getUnit();
+            } catch (ParseException e) {
+                return null;
+            }
+            return optimizations;
+        }
+        
+        /**
+         * The program compiled for the VM. Throws the parse error, or the
+         * {@link UnsupportedFeatureException} that sends it to the tree-walking
+         * interpreter.
+         */
+        public synchronized BytecodeProgram getBytecode() {
+            if (bytecode == null && unsupported == null) {
+                try {
+                    bytecode = new BytecodeCompiler().compile(getUnit());
+                } catch (UnsupportedFeatureException e) {
+                    unsupported = e;
+                }
+            }
+            if (unsupported != null) {
+                throw unsupported;
+            }
+            return bytecode;
+        }
+        
+        /** Like {@link #getBytecode()}, compiled for profiling; only built when a profiled run asks for it. */
+        public synchronized BytecodeProgram getProfiledBytecode() {
+            getBytecode();
+            if (profiledBytecode == null) {
+                profiledBytecode = new BytecodeCompiler(true).compile(getUnit());
+            }
+            return profiledBytecode;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.example.javabuddy.compiler;
+
+import com.example.javabuddy.compiler.ast.CompilationUnit;
+import com.example.javabuddy.compiler.diagnostics.Diagnostic;
+import com.example.javabuddy.compiler.diagnostics.RuleEngine;
+import com.example.javabuddy.compiler.parser.Token;
+import com.example.javabuddy.compiler.runtime.ConsoleBuffer;
+import com.example.javabuddy.compiler.runtime.ExecutionBudget;
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.*;
+
+/**
+ * Real Java Compiler using Android's built-in capabilities
+ * Simulates real compilation by parsing, validating, and executing Java code
+ *
+ * <p>Validation runs the rules of {@link RuleEngine#withStandardRules()} over
+ * the pipeline's tokens and tree, so javac's errors and a few style
+ * warnings are reported with line and column before anything runs.
+ */
+public class RealJavaCompiler {
+    private final RuleEngine rules = RuleEngine.withStandardRules();
+    private final CompilationPipeline pipeline;
+    
+    public RealJavaCompiler() {
+        this.pipeline = new CompilationPipeline(new CompilationPipeline.Validator() {
+            @Override
+            public List<Diagnostic> validate(String source, List<Token> tokens, CompilationUnit unit) {
+                return rules.validate(tokens, unit);
+            }
+        });
+    }
+    
+    public Object compileAndRun(String code) {
+        return compileAndRun(code, new ExecutionBudget());
+    }
+    
+    public Object compileAndRun(String code, ExecutionBudget budget) {
+        return compileAndRun(code, budget, new ConsoleBuffer());
+    }
+    
+    public Object compileAndRun(String code, ExecutionBudget budget, ConsoleBuffer console) {
+        try {
+            // Lex and parse once; validation and execution share the result
+            return pipeline.run(code, budget, console);
+        } catch (Exception e) {
+            return "Runtime Error: " + e.getMessage();
+        }
+    }
+}
\ No newline at end of file
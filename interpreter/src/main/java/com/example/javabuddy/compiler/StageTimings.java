@@ -0,0 +1,36 @@
+package com.example.javabuddy.compiler;
+
+/**
+ * How long each stage of one {@link CompilationPipeline} run took. Stages
+ * whose output was already in the {@link ProgramCache} cost next to
+ * nothing, which is what a re-run of unchanged code should show.
+ */
+public final class StageTimings {
+    
+    public final long lexNanos;
+    /** Parsing, local resolution and optimization. */
+    public final long parseNanos;
+    public final long validateNanos;
+    /** Compiling to bytecode, or finding out that the program needs the tree-walking interpreter. */
+    public final long compileNanos;
+    public final long executeNanos;
+    
+    StageTimings(long lexNanos, long parseNanos, long validateNanos, long compileNanos, long executeNanos) {
+        this.lexNanos = lexNanos;
+        this.parseNanos = parseNanos;
+        this.validateNanos = validateNanos;
+        this.compileNanos = compileNanos;
+        this.executeNanos = executeNanos;
+    }
+    
+    public long getTotalNanos() {
+        return lexNanos + parseNanos + validateNanos + compileNanos + executeNanos;
+    }
+    
+    @Override
+    public String toString() {
+        return "StageTimings[lex " + lexNanos / 1_000 + "us, parse " + parseNanos / 1_000
+                + "us, validate " + validateNanos / 1_000 + "us, compile " + compileNanos / 1_000
+                + "us, execute " + executeNanos / 1_000 + "us]";
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.javabuddy.compiler.ast;
+
+public class ArrayAccess extends Expr {
+    
+    public final Expr array;
+    public final Expr index;
+    
+    public ArrayAccess(Expr array, Expr index) {
+        super(Tag.ARRAY_ACCESS);
+        this.array = array;
+        this.index = index;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.javabuddy.compiler.ast;
+
+import java.util.List;
+
+/** {@code {1, 2, 3}} in a declaration or after {@code new int[]}. */
+public class ArrayInit extends Expr {
+    
+    public final List<Expr> elements;
+    
+    public ArrayInit(List<Expr> elements) {
+        super(Tag.ARRAY_INIT);
+        this.elements = elements;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.javabuddy.compiler.ast;
+
+public class Assign extends Expr {
+    
+    public final Expr target;
+    /** Operator of a compound assignment such as {@code +=}, or null for plain {@code =}. */
+    public final BinaryOp op;
+    public final Expr value;
+    
+    public Assign(Expr target, BinaryOp op, Expr value) {
+        super(Tag.ASSIGN);
+        this.target = target;
+        this.op = op;
+        this.value = value;
+    }
+}
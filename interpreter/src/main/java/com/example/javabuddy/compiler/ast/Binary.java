@@ -0,0 +1,15 @@
+package com.example.javabuddy.compiler.ast;
+
+public class Binary extends Expr {
+    
+    public final BinaryOp op;
+    public final Expr left;
+    public final Expr right;
+    
+    public Binary(BinaryOp op, Expr left, Expr right) {
+        super(Tag.BINARY);
+        this.op = op;
+        this.left = left;
+        this.right = right;
+    }
+}
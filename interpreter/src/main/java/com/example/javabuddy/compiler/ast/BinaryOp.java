@@ -0,0 +1,45 @@
+package com.example.javabuddy.compiler.ast;
+
+public enum BinaryOp {
+    
+    ADD("+", 10),
+    SUB("-", 10),
+    MUL("*", 11),
+    DIV("/", 11),
+    REM("%", 11),
+    LT("<", 8),
+    GT(">", 8),
+    LE("<=", 8),
+    GE(">=", 8),
+    EQ("==", 7),
+    NE("!=", 7),
+    AND("&&", 3),
+    OR("||", 2),
+    BIT_AND("&", 6),
+    BIT_OR("|", 4),
+    BIT_XOR("^", 5),
+    SHL("<<", 9),
+    SHR(">>", 9),
+    USHR(">>>", 9);
+    
+    private final String symbol;
+    private final int precedence;
+    
+    BinaryOp(String symbol, int precedence) {
+        this.symbol = symbol;
+        this.precedence = precedence;
+    }
+    
+    public String getSymbol() { return symbol; }
+    
+    /** Binding strength in Java's operator table; higher binds tighter. */
+    public int getPrecedence() { return precedence; }
+    
+    public boolean isComparison() {
+        return this == LT || this == GT || this == LE || this == GE || this == EQ || this == NE;
+    }
+    
+    public boolean isShift() {
+        return this == SHL || this == SHR || this == USHR;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.javabuddy.compiler.ast;
+
+import java.util.List;
+
+public class Block extends Stmt {
+    
+    public final List<Stmt> statements;
+    
+    public Block(List<Stmt> statements) {
+        super(Tag.BLOCK);
+        this.statements = statements;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.javabuddy.compiler.ast;
+
+public class BreakStmt extends Stmt {
+    
+    /** Null for an unlabeled break. */
+    public final String label;
+    
+    public BreakStmt(String label) {
+        super(Tag.BREAK);
+        this.label = label;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.javabuddy.compiler.ast;
+
+public class Cast extends Expr {
+    
+    public final TypeRef type;
+    public final Expr expression;
+    
+    public Cast(TypeRef type, Expr expression) {
+        super(Tag.CAST);
+        this.type = type;
+        this.expression = expression;
+    }
+}
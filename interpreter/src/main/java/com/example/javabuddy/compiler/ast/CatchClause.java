@@ -0,0 +1,20 @@
+package com.example.javabuddy.compiler.ast;
+
+import java.util.List;
+
+public class CatchClause extends Node {
+    
+    /** More than one entry for multi-catch {@code catch (A | B e)}. */
+    public final List<TypeRef> types;
+    public final String name;
+    public final Block body;
+    /** Frame slot of the exception parameter. */
+    public int slot = -1;
+    
+    public CatchClause(List<TypeRef> types, String name, Block body) {
+        super(Tag.CATCH);
+        this.types = types;
+        this.name = name;
+        this.body = body;
+    }
+}
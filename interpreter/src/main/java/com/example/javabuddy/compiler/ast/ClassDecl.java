@@ -0,0 +1,44 @@
+package com.example.javabuddy.compiler.ast;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ClassDecl extends Node {
+    
+    public enum Kind { CLASS, INTERFACE, ENUM }
+    
+    public final Kind kind;
+    public final int modifiers;
+    public final String name;
+    public final TypeRef superclass;
+    public final List<TypeRef> interfaces;
+    public final List<FieldDecl> fields = new ArrayList<>();
+    public final List<MethodDecl> methods = new ArrayList<>();
+    public final List<MethodDecl> constructors = new ArrayList<>();
+    public final List<Block> initializers = new ArrayList<>();
+    public final List<Block> staticInitializers = new ArrayList<>();
+    public final List<ClassDecl> memberClasses = new ArrayList<>();
+    public final List<String> enumConstants = new ArrayList<>();
+    /** Slots needed by the largest initializer block. */
+    public int initializerFrameSize;
+    /** Symbol of the class name, which engines index their class tables by. */
+    public int symbol = -1;
+    
+    public ClassDecl(Kind kind, int modifiers, String name, TypeRef superclass, List<TypeRef> interfaces) {
+        super(Tag.CLASS);
+        this.kind = kind;
+        this.modifiers = modifiers;
+        this.name = name;
+        this.superclass = superclass;
+        this.interfaces = interfaces;
+    }
+    
+    public MethodDecl findMethod(String methodName) {
+        for (MethodDecl method : methods) {
+            if (method.name.equals(methodName)) {
+                return method;
+            }
+        }
+        return null;
+    }
+}
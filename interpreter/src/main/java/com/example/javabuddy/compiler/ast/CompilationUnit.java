@@ -0,0 +1,24 @@
+package com.example.javabuddy.compiler.ast;
+
+import java.util.List;
+
+public class CompilationUnit extends Node {
+    
+    public final List<String> imports;
+    public final List<ClassDecl> classes;
+    /** True when the source was a bare snippet wrapped in an implicit class and main method. */
+    public final boolean snippet;
+    /** Number of method call sites, numbered by the local resolver. */
+    public int callSiteCount;
+    /** Number of methods and constructors, numbered by the local resolver. */
+    public int methodCount;
+    /** Every identifier of the program, interned by the local resolver. */
+    public final SymbolTable symbols = new SymbolTable();
+    
+    public CompilationUnit(List<String> imports, List<ClassDecl> classes, boolean snippet) {
+        super(Tag.COMPILATION_UNIT);
+        this.imports = imports;
+        this.classes = classes;
+        this.snippet = snippet;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.javabuddy.compiler.ast;
+
+/** The ternary {@code condition ? thenValue : elseValue}. */
+public class Conditional extends Expr {
+    
+    public final Expr condition;
+    public final Expr thenValue;
+    public final Expr elseValue;
+    
+    public Conditional(Expr condition, Expr thenValue, Expr elseValue) {
+        super(Tag.CONDITIONAL);
+        this.condition = condition;
+        this.thenValue = thenValue;
+        this.elseValue = elseValue;
+    }
+}
\ No newline at end of file
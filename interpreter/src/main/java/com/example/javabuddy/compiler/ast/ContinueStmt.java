@@ -0,0 +1,12 @@
+package com.example.javabuddy.compiler.ast;
+
+public class ContinueStmt extends Stmt {
+    
+    /** Null for an unlabeled continue. */
+    public final String label;
+    
+    public ContinueStmt(String label) {
+        super(Tag.CONTINUE);
+        this.label = label;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.javabuddy.compiler.ast;
+
+public class DoWhileStmt extends Stmt {
+    
+    public final Stmt body;
+    public final Expr condition;
+    
+    public DoWhileStmt(Stmt body, Expr condition) {
+        super(Tag.DO_WHILE);
+        this.body = body;
+        this.condition = condition;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.javabuddy.compiler.ast;
+
+public class EmptyStmt extends Stmt {
+    
+    public EmptyStmt() {
+        super(Tag.EMPTY);
+    }
+}
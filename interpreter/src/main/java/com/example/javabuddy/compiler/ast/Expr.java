@@ -0,0 +1,8 @@
+package com.example.javabuddy.compiler.ast;
+
+public abstract class Expr extends Node {
+    
+    protected Expr(Tag tag) {
+        super(tag);
+    }
+}
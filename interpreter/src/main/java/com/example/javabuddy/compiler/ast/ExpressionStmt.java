@@ -0,0 +1,11 @@
+package com.example.javabuddy.compiler.ast;
+
+public class ExpressionStmt extends Stmt {
+    
+    public final Expr expression;
+    
+    public ExpressionStmt(Expr expression) {
+        super(Tag.EXPRESSION_STATEMENT);
+        this.expression = expression;
+    }
+}
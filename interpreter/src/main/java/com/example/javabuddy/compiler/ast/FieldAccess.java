@@ -0,0 +1,15 @@
+package com.example.javabuddy.compiler.ast;
+
+public class FieldAccess extends Expr {
+    
+    public final Expr target;
+    public final String name;
+    /** Symbol of {@link #name}. */
+    public int symbol = -1;
+    
+    public FieldAccess(Expr target, String name) {
+        super(Tag.FIELD_ACCESS);
+        this.target = target;
+        this.name = name;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.javabuddy.compiler.ast;
+
+public class FieldDecl extends Node {
+    
+    public final int modifiers;
+    public final TypeRef type;
+    public final String name;
+    public final Expr initializer;
+    /** Symbol of the field name. */
+    public int symbol = -1;
+    
+    public FieldDecl(int modifiers, TypeRef type, String name, Expr initializer) {
+        super(Tag.FIELD);
+        this.modifiers = modifiers;
+        this.type = type;
+        this.name = name;
+        this.initializer = initializer;
+    }
+    
+    public boolean isStatic() {
+        return Modifiers.isStatic(modifiers);
+    }
+}
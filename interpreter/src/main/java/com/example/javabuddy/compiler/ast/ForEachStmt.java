@@ -0,0 +1,19 @@
+package com.example.javabuddy.compiler.ast;
+
+public class ForEachStmt extends Stmt {
+    
+    public final TypeRef variableType;
+    public final String variableName;
+    public final Expr iterable;
+    public final Stmt body;
+    /** Frame slot of the loop variable. */
+    public int slot = -1;
+    
+    public ForEachStmt(TypeRef variableType, String variableName, Expr iterable, Stmt body) {
+        super(Tag.FOR_EACH);
+        this.variableType = variableType;
+        this.variableName = variableName;
+        this.iterable = iterable;
+        this.body = body;
+    }
+}
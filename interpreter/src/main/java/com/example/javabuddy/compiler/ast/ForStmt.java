@@ -0,0 +1,20 @@
+package com.example.javabuddy.compiler.ast;
+
+import java.util.List;
+
+public class ForStmt extends Stmt {
+    
+    public final List<Stmt> init;
+    /** Null for {@code for (;;)}. */
+    public final Expr condition;
+    public final List<Expr> update;
+    public final Stmt body;
+    
+    public ForStmt(List<Stmt> init, Expr condition, List<Expr> update, Stmt body) {
+        super(Tag.FOR);
+        this.init = init;
+        this.condition = condition;
+        this.update = update;
+        this.body = body;
+    }
+}
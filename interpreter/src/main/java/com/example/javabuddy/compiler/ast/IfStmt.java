@@ -0,0 +1,16 @@
+package com.example.javabuddy.compiler.ast;
+
+public class IfStmt extends Stmt {
+    
+    public final Expr condition;
+    public final Stmt thenStatement;
+    /** Null when there is no else branch. */
+    public final Stmt elseStatement;
+    
+    public IfStmt(Expr condition, Stmt thenStatement, Stmt elseStatement) {
+        super(Tag.IF);
+        this.condition = condition;
+        this.thenStatement = thenStatement;
+        this.elseStatement = elseStatement;
+    }
+}
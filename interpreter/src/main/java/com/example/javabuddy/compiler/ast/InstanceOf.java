@@ -0,0 +1,13 @@
+package com.example.javabuddy.compiler.ast;
+
+public class InstanceOf extends Expr {
+    
+    public final Expr expression;
+    public final TypeRef type;
+    
+    public InstanceOf(Expr expression, TypeRef type) {
+        super(Tag.INSTANCE_OF);
+        this.expression = expression;
+        this.type = type;
+    }
+}
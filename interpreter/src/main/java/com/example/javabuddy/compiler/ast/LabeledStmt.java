@@ -0,0 +1,13 @@
+package com.example.javabuddy.compiler.ast;
+
+public class LabeledStmt extends Stmt {
+    
+    public final String label;
+    public final Stmt body;
+    
+    public LabeledStmt(String label, Stmt body) {
+        super(Tag.LABELED);
+        this.label = label;
+        this.body = body;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.javabuddy.compiler.ast;
+
+public class Literal extends Expr {
+    
+    /** Integer, Long, Float, Double, Character, Boolean, String, or null for the null literal. */
+    public final Object value;
+    
+    public Literal(Object value) {
+        super(Tag.LITERAL);
+        this.value = value;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.javabuddy.compiler.ast;
+
+import java.util.List;
+
+/** {@code int a = 1, b;} declares one variable per declarator. */
+public class LocalVarDecl extends Stmt {
+    
+    public final TypeRef type;
+    public final List<VarDeclarator> variables;
+    
+    public LocalVarDecl(TypeRef type, List<VarDeclarator> variables) {
+        super(Tag.LOCAL_VAR);
+        this.type = type;
+        this.variables = variables;
+    }
+}
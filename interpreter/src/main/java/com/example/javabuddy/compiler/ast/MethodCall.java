@@ -0,0 +1,22 @@
+package com.example.javabuddy.compiler.ast;
+
+import java.util.List;
+
+public class MethodCall extends Expr {
+    
+    /** Null for an unqualified call such as {@code greet("Bob")}. */
+    public final Expr target;
+    public final String name;
+    public final List<Expr> arguments;
+    /** Number of this call among the program's call sites, which engines use to index per-run inline caches. */
+    public int site = -1;
+    /** Symbol of the method name. */
+    public int symbol = -1;
+    
+    public MethodCall(Expr target, String name, List<Expr> arguments) {
+        super(Tag.METHOD_CALL);
+        this.target = target;
+        this.name = name;
+        this.arguments = arguments;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.javabuddy.compiler.ast;
+
+import java.util.List;
+
+public class MethodDecl extends Node {
+    
+    public final int modifiers;
+    /** Null for constructors. */
+    public final TypeRef returnType;
+    public final String name;
+    public final List<Param> params;
+    /** Null for abstract and interface methods. */
+    public final Block body;
+    public final boolean constructor;
+    public ClassDecl owner;
+    /** Number of local variable slots the body needs, including parameters. */
+    public int frameSize;
+    /** Symbol of the method name; engines group overloads by it. */
+    public int symbol = -1;
+    /** Position among the unit's methods and constructors; -1 for one an engine made up. */
+    public int index = -1;
+    
+    public MethodDecl(int modifiers, TypeRef returnType, String name, List<Param> params, Block body, boolean constructor) {
+        super(Tag.METHOD);
+        this.modifiers = modifiers;
+        this.returnType = returnType;
+        this.name = name;
+        this.params = params;
+        this.body = body;
+        this.constructor = constructor;
+    }
+    
+    public boolean isStatic() {
+        return Modifiers.isStatic(modifiers);
+    }
+}
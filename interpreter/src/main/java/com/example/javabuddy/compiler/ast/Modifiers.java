@@ -0,0 +1,36 @@
+package com.example.javabuddy.compiler.ast;
+
+/** Bit flags for declaration modifiers. */
+public final class Modifiers {
+    
+    public static final int PUBLIC = 1;
+    public static final int PRIVATE = 1 << 1;
+    public static final int PROTECTED = 1 << 2;
+    public static final int STATIC = 1 << 3;
+    public static final int FINAL = 1 << 4;
+    public static final int ABSTRACT = 1 << 5;
+    public static final int DEFAULT = 1 << 6;
+    
+    private Modifiers() {
+    }
+    
+    public static boolean isPublic(int flags) {
+        return (flags & PUBLIC) != 0;
+    }
+    
+    public static boolean isStatic(int flags) {
+        return (flags & STATIC) != 0;
+    }
+    
+    public static boolean isFinal(int flags) {
+        return (flags & FINAL) != 0;
+    }
+    
+    public static boolean isAbstract(int flags) {
+        return (flags & ABSTRACT) != 0;
+    }
+    
+    public static boolean isPrivate(int flags) {
+        return (flags & PRIVATE) != 0;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.javabuddy.compiler.ast;
+
+/** A bare identifier: a local variable, a field, or a class name used as a qualifier. */
+public class Name extends Expr {
+    
+    public final String name;
+    /** Frame slot of the local variable this name refers to, or -1 for fields and class names. */
+    public int slot = -1;
+    /** The name as interned in the unit's {@link SymbolTable} by the local resolver. */
+    public int symbol = -1;
+    
+    public Name(String name) {
+        super(Tag.NAME);
+        this.name = name;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.javabuddy.compiler.ast;
+
+import java.util.List;
+
+/** {@code new int[n][m]}, {@code new int[n][]} or {@code new int[] {1, 2}}. */
+public class NewArray extends Expr {
+    
+    public final TypeRef elementType;
+    public final List<Expr> dimensions;
+    /** Total number of dimensions, including the ones without a size. */
+    public final int totalDimensions;
+    public final ArrayInit initializer;
+    
+    public NewArray(TypeRef elementType, List<Expr> dimensions, int totalDimensions, ArrayInit initializer) {
+        super(Tag.NEW_ARRAY);
+        this.elementType = elementType;
+        this.dimensions = dimensions;
+        this.totalDimensions = totalDimensions;
+        this.initializer = initializer;
+    }
+}
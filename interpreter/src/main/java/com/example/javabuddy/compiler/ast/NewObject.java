@@ -0,0 +1,15 @@
+package com.example.javabuddy.compiler.ast;
+
+import java.util.List;
+
+public class NewObject extends Expr {
+    
+    public final TypeRef type;
+    public final List<Expr> arguments;
+    
+    public NewObject(TypeRef type, List<Expr> arguments) {
+        super(Tag.NEW_OBJECT);
+        this.type = type;
+        this.arguments = arguments;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.javabuddy.compiler.ast;
+
+/**
+ * Base class of every syntax tree node. The tag identifies the concrete node
+ * type so engines can dispatch with a switch instead of instanceof chains.
+ */
+public abstract class Node {
+    
+    public final Tag tag;
+    
+    /** 1-based position of the node's first token. */
+    public int line;
+    public int column;
+    
+    protected Node(Tag tag) {
+        this.tag = tag;
+    }
+}
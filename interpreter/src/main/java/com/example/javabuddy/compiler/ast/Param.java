@@ -0,0 +1,17 @@
+package com.example.javabuddy.compiler.ast;
+
+public class Param extends Node {
+    
+    public final TypeRef type;
+    public final String name;
+    public final boolean varargs;
+    /** Frame slot assigned by the local resolver; parameters take the first slots after {@code this}. */
+    public int slot = -1;
+    
+    public Param(TypeRef type, String name, boolean varargs) {
+        super(Tag.PARAM);
+        this.type = type;
+        this.name = name;
+        this.varargs = varargs;
+    }
+}
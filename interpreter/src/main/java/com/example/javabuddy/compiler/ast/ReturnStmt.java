@@ -0,0 +1,12 @@
+package com.example.javabuddy.compiler.ast;
+
+public class ReturnStmt extends Stmt {
+    
+    /** Null for a bare {@code return;}. */
+    public final Expr value;
+    
+    public ReturnStmt(Expr value) {
+        super(Tag.RETURN);
+        this.value = value;
+    }
+}
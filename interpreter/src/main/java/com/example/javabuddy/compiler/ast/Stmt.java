@@ -0,0 +1,8 @@
+package com.example.javabuddy.compiler.ast;
+
+public abstract class Stmt extends Node {
+    
+    protected Stmt(Tag tag) {
+        super(tag);
+    }
+}
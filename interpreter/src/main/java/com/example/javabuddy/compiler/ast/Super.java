@@ -0,0 +1,9 @@
+package com.example.javabuddy.compiler.ast;
+
+/** {@code super} as the target of a field access or method call. */
+public class Super extends Expr {
+    
+    public Super() {
+        super(Tag.SUPER);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.javabuddy.compiler.ast;
+
+import java.util.List;
+
+public class SwitchCase extends Node {
+    
+    /** Empty for the default case. */
+    public final List<Expr> labels;
+    public final List<Stmt> body;
+    /** True for {@code case X ->} cases, which never fall through. */
+    public final boolean arrow;
+    
+    public SwitchCase(List<Expr> labels, List<Stmt> body, boolean arrow) {
+        super(Tag.CASE);
+        this.labels = labels;
+        this.body = body;
+        this.arrow = arrow;
+    }
+    
+    public boolean isDefault() {
+        return labels.isEmpty();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.javabuddy.compiler.ast;
+
+import java.util.List;
+
+public class SwitchStmt extends Stmt {
+    
+    public final Expr selector;
+    public final List<SwitchCase> cases;
+    
+    public SwitchStmt(Expr selector, List<SwitchCase> cases) {
+        super(Tag.SWITCH);
+        this.selector = selector;
+        this.cases = cases;
+    }
+}
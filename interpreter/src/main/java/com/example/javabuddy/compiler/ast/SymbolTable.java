@@ -0,0 +1,45 @@
+package com.example.javabuddy.compiler.ast;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The identifiers of one program, each interned to a small int: names of
+ * variables, fields, methods and types. The local resolver fills it while
+ * it walks the tree and stores the id in each node that names something,
+ * so engines can index arrays by symbol and compare ints where they would
+ * otherwise hash and compare strings.
+ */
+public final class SymbolTable {
+    
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    
+    /** The id of {@code name}, giving it the next free one if it has none yet. */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+    
+    /** The id of {@code name}, or -1 if the program never mentions it. */
+    public int lookup(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : -1;
+    }
+    
+    public String name(int symbol) {
+        return names.get(symbol);
+    }
+    
+    /** Number of symbols; ids run from 0 to one less than this. */
+    public int size() {
+        return names.size();
+    }
+}
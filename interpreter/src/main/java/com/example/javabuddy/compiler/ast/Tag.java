@@ -0,0 +1,51 @@
+package com.example.javabuddy.compiler.ast;
+
+public enum Tag {
+    
+    // Declarations
+    COMPILATION_UNIT,
+    CLASS,
+    METHOD,
+    FIELD,
+    PARAM,
+    TYPE,
+    
+    // Statements
+    BLOCK,
+    LOCAL_VAR,
+    VAR_DECLARATOR,
+    EXPRESSION_STATEMENT,
+    IF,
+    WHILE,
+    DO_WHILE,
+    FOR,
+    FOR_EACH,
+    SWITCH,
+    CASE,
+    BREAK,
+    CONTINUE,
+    RETURN,
+    THROW,
+    TRY,
+    CATCH,
+    LABELED,
+    EMPTY,
+    
+    // Expressions
+    LITERAL,
+    NAME,
+    FIELD_ACCESS,
+    METHOD_CALL,
+    NEW_OBJECT,
+    NEW_ARRAY,
+    ARRAY_INIT,
+    ARRAY_ACCESS,
+    UNARY,
+    BINARY,
+    ASSIGN,
+    CONDITIONAL,
+    CAST,
+    INSTANCE_OF,
+    THIS,
+    SUPER
+}
@@ -0,0 +1,8 @@
+package com.example.javabuddy.compiler.ast;
+
+public class This extends Expr {
+    
+    public This() {
+        super(Tag.THIS);
+    }
+}
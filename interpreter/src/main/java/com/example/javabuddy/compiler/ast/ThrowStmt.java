@@ -0,0 +1,11 @@
+package com.example.javabuddy.compiler.ast;
+
+public class ThrowStmt extends Stmt {
+    
+    public final Expr exception;
+    
+    public ThrowStmt(Expr exception) {
+        super(Tag.THROW);
+        this.exception = exception;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.javabuddy.compiler.ast;
+
+import java.util.List;
+
+public class TryStmt extends Stmt {
+    
+    public final List<LocalVarDecl> resources;
+    public final Block body;
+    public final List<CatchClause> catches;
+    /** Null when there is no finally block. */
+    public final Block finallyBlock;
+    
+    public TryStmt(List<LocalVarDecl> resources, Block body, List<CatchClause> catches, Block finallyBlock) {
+        super(Tag.TRY);
+        this.resources = resources;
+        this.body = body;
+        this.catches = catches;
+        this.finallyBlock = finallyBlock;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.javabuddy.compiler.ast;
+
+import java.util.Collections;
+import java.util.List;
+
+/** A type as written in the source, e.g. {@code int}, {@code String[]} or {@code List<Integer>}. */
+public class TypeRef extends Node {
+    
+    public final String name;
+    public final List<TypeRef> typeArguments;
+    public final int dimensions;
+    /** Id of {@link #name} in the program's {@link SymbolTable}, assigned by the local resolver. */
+    public int symbol = -1;
+    
+    public TypeRef(String name, List<TypeRef> typeArguments, int dimensions) {
+        super(Tag.TYPE);
+        this.name = name;
+        this.typeArguments = typeArguments != null ? typeArguments : Collections.<TypeRef>emptyList();
+        this.dimensions = dimensions;
+    }
+    
+    public TypeRef withDimensions(int extra) {
+        if (extra == 0) {
+            return this;
+        }
+        TypeRef copy = new TypeRef(name, typeArguments, dimensions + extra);
+        copy.symbol = symbol;
+        copy.line = line;
+        copy.column = column;
+        return copy;
+    }
+    
+    public boolean isArray() {
+        return dimensions > 0;
+    }
+    
+    public boolean isPrimitive() {
+        if (dimensions > 0) {
+            return false;
+        }
+        switch (name) {
+            case "boolean":
+            case "byte":
+            case "char":
+            case "short":
+            case "int":
+            case "long":
+            case "float":
+            case "double":
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    public boolean isVoid() {
+        return dimensions == 0 && "void".equals(name);
+    }
+    
+    /** Simple name without any package qualifier. */
+    public String simpleName() {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? name : name.substring(dot + 1);
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(name);
+        if (!typeArguments.isEmpty()) {
+            sb.append('<');
+            for (int i = 0; i < typeArguments.size(); i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(typeArguments.get(i));
+            }
+            sb.append('>');
+        }
+        for (int i = 0; i < dimensions; i++) {
+            sb.append("[]");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.javabuddy.compiler.ast;
+
+public class Unary extends Expr {
+    
+    public final UnaryOp op;
+    public final Expr operand;
+    
+    public Unary(UnaryOp op, Expr operand) {
+        super(Tag.UNARY);
+        this.op = op;
+        this.operand = operand;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.javabuddy.compiler.ast;
+
+public enum UnaryOp {
+    
+    NEG("-"),
+    PLUS("+"),
+    NOT("!"),
+    BIT_NOT("~"),
+    PRE_INC("++"),
+    PRE_DEC("--"),
+    POST_INC("++"),
+    POST_DEC("--");
+    
+    private final String symbol;
+    
+    UnaryOp(String symbol) {
+        this.symbol = symbol;
+    }
+    
+    public String getSymbol() { return symbol; }
+    
+    public boolean isIncrementOrDecrement() {
+        return this == PRE_INC || this == PRE_DEC || this == POST_INC || this == POST_DEC;
+    }
+}
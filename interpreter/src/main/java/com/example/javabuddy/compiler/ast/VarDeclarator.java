@@ -0,0 +1,18 @@
+package com.example.javabuddy.compiler.ast;
+
+public class VarDeclarator extends Node {
+    
+    public final String name;
+    /** Type of this variable, including any {@code []} written after the name. */
+    public final TypeRef type;
+    public final Expr initializer;
+    /** Frame slot assigned by the local resolver. */
+    public int slot = -1;
+    
+    public VarDeclarator(String name, TypeRef type, Expr initializer) {
+        super(Tag.VAR_DECLARATOR);
+        this.name = name;
+        this.type = type;
+        this.initializer = initializer;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.javabuddy.compiler.ast;
+
+public class WhileStmt extends Stmt {
+    
+    public final Expr condition;
+    public final Stmt body;
+    
+    public WhileStmt(Expr condition, Stmt body) {
+        super(Tag.WHILE);
+        this.condition = condition;
+        this.body = body;
+    }
+}
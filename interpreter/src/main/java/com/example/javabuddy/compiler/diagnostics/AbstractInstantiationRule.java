@@ -0,0 +1,49 @@
+package com.example.javabuddy.compiler.diagnostics;
+
+import com.example.javabuddy.compiler.ast.ClassDecl;
+import com.example.javabuddy.compiler.ast.Modifiers;
+import com.example.javabuddy.compiler.ast.NewObject;
+import com.example.javabuddy.compiler.ast.Node;
+import com.example.javabuddy.compiler.ast.Tag;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/** {@code new} on an abstract class or an interface declared in the program. */
+final class AbstractInstantiationRule extends Rule {
+    
+    private final Set<String> abstractClasses = new HashSet<>();
+    
+    @Override
+    protected Set<Tag> getNodeTags() {
+        return EnumSet.of(Tag.NEW_OBJECT);
+    }
+    
+    @Override
+    protected void begin(RuleContext context) {
+        abstractClasses.clear();
+        if (context.getUnit() != null) {
+            collect(context.getUnit().classes);
+        }
+    }
+    
+    private void collect(List<ClassDecl> decls) {
+        for (ClassDecl decl : decls) {
+            if (decl.kind == ClassDecl.Kind.INTERFACE || Modifiers.isAbstract(decl.modifiers)) {
+                abstractClasses.add(decl.name);
+            }
+            collect(decl.memberClasses);
+        }
+    }
+    
+    @Override
+    protected void visitNode(Node node, RuleContext context) {
+        NewObject creation = (NewObject) node;
+        String name = creation.type.simpleName();
+        if (abstractClasses.contains(name)) {
+            context.error(creation, name + " is abstract; cannot be instantiated");
+        }
+    }
+}
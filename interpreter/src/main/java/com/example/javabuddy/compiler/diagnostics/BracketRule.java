@@ -0,0 +1,91 @@
+package com.example.javabuddy.compiler.diagnostics;
+
+import com.example.javabuddy.compiler.parser.Token;
+import com.example.javabuddy.compiler.parser.TokenType;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Matches every {@code (}, {@code [} and {@code {} with its closing bracket.
+ * Brackets inside strings and comments never reach a rule, since the lexer
+ * has already turned those into single tokens or dropped them.
+ */
+final class BracketRule extends Rule {
+    
+    private final List<Token> open = new ArrayList<>();
+    
+    @Override
+    protected Set<TokenType> getTokenTypes() {
+        return EnumSet.of(TokenType.LPAREN, TokenType.RPAREN, TokenType.LBRACKET, TokenType.RBRACKET,
+                TokenType.LBRACE, TokenType.RBRACE);
+    }
+    
+    @Override
+    protected void begin(RuleContext context) {
+        open.clear();
+    }
+    
+    @Override
+    protected void visitToken(Token token, int index, RuleContext context) {
+        TokenType opening = openingFor(token.getType());
+        if (opening == null) {
+            open.add(token);
+            return;
+        }
+        if (open.isEmpty()) {
+            context.error(token, "'" + token.getText() + "' has no matching '" + opening.getText() + "'");
+            return;
+        }
+        Token last = open.get(open.size() - 1);
+        if (last.getType() == opening) {
+            open.remove(open.size() - 1);
+            return;
+        }
+        context.error(token, "expected '" + closingFor(last.getType()).getText() + "' to close '" + last.getText()
+                + "' from line " + last.getLine() + ", found '" + token.getText() + "'");
+        // a closer that matches something further out means the inner brackets were never closed
+        for (int i = open.size() - 2; i >= 0; i--) {
+            if (open.get(i).getType() == opening) {
+                for (int j = i + 1; j < open.size() - 1; j++) {
+                    context.error(open.get(j), "'" + open.get(j).getText() + "' is never closed");
+                }
+                open.subList(i, open.size()).clear();
+                return;
+            }
+        }
+    }
+    
+    @Override
+    protected void end(RuleContext context) {
+        for (Token token : open) {
+            context.error(token, "'" + token.getText() + "' is never closed");
+        }
+    }
+    
+    private static TokenType openingFor(TokenType type) {
+        switch (type) {
+            case RPAREN:
+                return TokenType.LPAREN;
+            case RBRACKET:
+                return TokenType.LBRACKET;
+            case RBRACE:
+                return TokenType.LBRACE;
+            default:
+                return null;
+        }
+    }
+    
+    private static TokenType closingFor(TokenType type) {
+        switch (type) {
+            case LPAREN:
+                return TokenType.RPAREN;
+            case LBRACKET:
+                return TokenType.RBRACKET;
+            default:
+                return TokenType.RBRACE;
+        }
+    }
+}
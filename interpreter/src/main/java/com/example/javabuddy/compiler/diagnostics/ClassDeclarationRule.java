@@ -0,0 +1,27 @@
+package com.example.javabuddy.compiler.diagnostics;
+
+import com.example.javabuddy.compiler.ast.CompilationUnit;
+import com.example.javabuddy.compiler.ast.Node;
+import com.example.javabuddy.compiler.ast.Tag;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The parser accepts bare statements and wraps them in an implicit class,
+ * but javac needs the program to declare a class of its own.
+ */
+final class ClassDeclarationRule extends Rule {
+    
+    @Override
+    protected Set<Tag> getNodeTags() {
+        return EnumSet.of(Tag.COMPILATION_UNIT);
+    }
+    
+    @Override
+    protected void visitNode(Node node, RuleContext context) {
+        if (((CompilationUnit) node).snippet) {
+            context.error(node, "No class, interface, or enum declaration found");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.javabuddy.compiler.diagnostics;
+
+import com.example.javabuddy.compiler.ast.Expr;
+import com.example.javabuddy.compiler.ast.FieldDecl;
+import com.example.javabuddy.compiler.ast.Literal;
+import com.example.javabuddy.compiler.ast.Node;
+import com.example.javabuddy.compiler.ast.Tag;
+import com.example.javabuddy.compiler.ast.TypeRef;
+import com.example.javabuddy.compiler.ast.VarDeclarator;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * A variable initialized with a constant of a type it cannot hold, such as
+ * {@code int n = "5"} or {@code int half = 2.5}. Initializers are checked
+ * after constant folding, so {@code byte b = 100 + 100} is caught as well,
+ * following the same rules for constants that javac applies.
+ */
+final class ConstantAssignmentRule extends Rule {
+    
+    @Override
+    protected Set<Tag> getNodeTags() {
+        return EnumSet.of(Tag.VAR_DECLARATOR, Tag.FIELD);
+    }
+    
+    @Override
+    protected void visitNode(Node node, RuleContext context) {
+        TypeRef type;
+        Expr initializer;
+        if (node.tag == Tag.FIELD) {
+            type = ((FieldDecl) node).type;
+            initializer = ((FieldDecl) node).initializer;
+        } else {
+            type = ((VarDeclarator) node).type;
+            initializer = ((VarDeclarator) node).initializer;
+        }
+        if (!(initializer instanceof Literal) || type.isArray()) {
+            return;
+        }
+        String problem = check(type.name, ((Literal) initializer).value);
+        if (problem != null) {
+            context.error(initializer, "incompatible types: " + problem);
+        }
+    }
+    
+    /** Why {@code value} cannot initialize a variable of type {@code name}, or null if it can. */
+    private static String check(String name, Object value) {
+        String source = typeOf(value);
+        switch (name) {
+            case "boolean":
+                return value instanceof Boolean ? null : cannotConvert(source, name);
+            case "String":
+                return value == null || value instanceof String ? null : cannotConvert(source, name);
+            case "byte":
+                return narrowing(value, source, name, Byte.MIN_VALUE, Byte.MAX_VALUE);
+            case "short":
+                return narrowing(value, source, name, Short.MIN_VALUE, Short.MAX_VALUE);
+            case "char":
+                return narrowing(value, source, name, Character.MIN_VALUE, Character.MAX_VALUE);
+            case "int":
+                return narrowing(value, source, name, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            case "long":
+                return widening(value, source, name, value instanceof Long);
+            case "float":
+                return widening(value, source, name, value instanceof Long || value instanceof Float);
+            case "double":
+                return widening(value, source, name, value instanceof Number);
+            default:
+                return null;
+        }
+    }
+    
+    /** int constants, and char constants, fit any integral type whose range holds their value. */
+    private static String narrowing(Object value, String source, String target, int min, int max) {
+        if (value instanceof Integer || value instanceof Character) {
+            int n = value instanceof Integer ? (Integer) value : (Character) value;
+            return n >= min && n <= max ? null : "possible lossy conversion from " + source + " to " + target;
+        }
+        if (value instanceof Long || value instanceof Float || value instanceof Double) {
+            return "possible lossy conversion from " + source + " to " + target;
+        }
+        return cannotConvert(source, target);
+    }
+    
+    private static String widening(Object value, String source, String target, boolean accepted) {
+        if (accepted || value instanceof Integer || value instanceof Character) {
+            return null;
+        }
+        if (value instanceof Number) {
+            return "possible lossy conversion from " + source + " to " + target;
+        }
+        return cannotConvert(source, target);
+    }
+    
+    private static String cannotConvert(String source, String target) {
+        return source + " cannot be converted to " + target;
+    }
+    
+    private static String typeOf(Object value) {
+        if (value == null) {
+            return "<null>";
+        }
+        if (value instanceof String) {
+            return "String";
+        }
+        if (value instanceof Boolean) {
+            return "boolean";
+        }
+        if (value instanceof Character) {
+            return "char";
+        }
+        if (value instanceof Long) {
+            return "long";
+        }
+        if (value instanceof Float) {
+            return "float";
+        }
+        if (value instanceof Double) {
+            return "double";
+        }
+        return "int";
+    }
+}
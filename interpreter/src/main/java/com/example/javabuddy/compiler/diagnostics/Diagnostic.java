@@ -0,0 +1,36 @@
+package com.example.javabuddy.compiler.diagnostics;
+
+/** One problem found in a program, at the position of the token or node it is about. */
+public final class Diagnostic {
+    
+    public enum Severity { ERROR, WARNING }
+    
+    private final Severity severity;
+    private final String message;
+    private final int line;
+    private final int column;
+    
+    public Diagnostic(Severity severity, String message, int line, int column) {
+        this.severity = severity;
+        this.message = message;
+        this.line = line;
+        this.column = column;
+    }
+    
+    public Severity getSeverity() { return severity; }
+    public String getMessage() { return message; }
+    /** 1-based line. */
+    public int getLine() { return line; }
+    /** 1-based column. */
+    public int getColumn() { return column; }
+    
+    public boolean isError() {
+        return severity == Severity.ERROR;
+    }
+    
+    /** Formatted like a {@link com.example.javabuddy.compiler.parser.ParseException}: "Line 3:14: ...". */
+    @Override
+    public String toString() {
+        return "Line " + line + ":" + column + ": " + message;
+    }
+}
@@ -0,0 +1,338 @@
+package com.example.javabuddy.compiler.diagnostics;
+
+import com.example.javabuddy.compiler.ast.CompilationUnit;
+import com.example.javabuddy.compiler.ast.MethodDecl;
+import com.example.javabuddy.compiler.ast.Node;
+import com.example.javabuddy.compiler.ast.Tag;
+import com.example.javabuddy.compiler.ast.VarDeclarator;
+import com.example.javabuddy.compiler.parser.Lexer;
+import com.example.javabuddy.compiler.parser.ParseException;
+import com.example.javabuddy.compiler.parser.Parser;
+import com.example.javabuddy.compiler.parser.Token;
+import com.example.javabuddy.compiler.parser.TokenType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the diagnostics of a document up to date while it is being edited.
+ * Each {@link #update} compares the new text with the previous one, lexes
+ * only from the token before the first change until the lexer is back in
+ * step with the old tokens, and shifts the rest. Methods whose tokens did
+ * not change are handed back to the parser instead of being parsed again,
+ * so typing inside one method of a long file costs about as much as
+ * parsing that method.
+ *
+ * <p>The tree is analyzed as parsed: locals are not resolved and constants
+ * are not folded, so checks that depend on folding only report once the
+ * program is run. A session is not thread-safe; give each document its own.
+ */
+public final class DiagnosticsSession {
+    
+    /** A diagnostic with the source range to underline, {@code start} inclusive, {@code end} exclusive. */
+    public static final class Marker {
+        public final int start;
+        public final int end;
+        public final Diagnostic diagnostic;
+        
+        Marker(int start, int end, Diagnostic diagnostic) {
+            this.start = start;
+            this.end = end;
+            this.diagnostic = diagnostic;
+        }
+        
+        @Override
+        public String toString() {
+            return start + "-" + end + " " + diagnostic;
+        }
+    }
+    
+    private final RuleEngine engine;
+    
+    private String source = "";
+    /** Tokens of {@link #source}, or null when it did not lex; the next update then lexes everything. */
+    private List<Token> tokens;
+    private CompilationUnit unit;
+    private List<Parser.MethodSpan> spans = Collections.emptyList();
+    private int relexedTokenCount;
+    private int reusedMethodCount;
+    
+    public DiagnosticsSession(RuleEngine engine) {
+        this.engine = engine;
+    }
+    
+    /** Analyzes the document's new text and returns every marker, in source order. */
+    public List<Marker> update(String newSource) {
+        Map<Integer, Parser.MethodSpan> reusable;
+        try {
+            reusable = tokens == null ? relexAll(newSource) : relexChange(newSource);
+        } catch (ParseException e) {
+            source = newSource;
+            tokens = null;
+            unit = null;
+            spans = Collections.emptyList();
+            relexedTokenCount = 0;
+            reusedMethodCount = 0;
+            return toMarkers(Collections.singletonList(
+                    new Diagnostic(Diagnostic.Severity.ERROR, e.getMessage(), e.getLine(), e.getColumn())));
+        }
+        source = newSource;
+        
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        Parser parser = new Parser(tokens);
+        parser.setReusableMethods(reusable);
+        try {
+            unit = parser.parseCompilationUnit();
+            spans = parser.getMethodSpans();
+        } catch (ParseException e) {
+            unit = null;
+            spans = keepUnused(parser.getMethodSpans(), reusable);
+            diagnostics.add(new Diagnostic(Diagnostic.Severity.ERROR, e.getMessage(), e.getLine(), e.getColumn()));
+        }
+        reusedMethodCount = countReused(reusable);
+        diagnostics.addAll(engine.validate(tokens, unit));
+        return toMarkers(diagnostics);
+    }
+    
+    /** The current tokens, or null if the text did not lex. */
+    public List<Token> getTokens() {
+        return tokens;
+    }
+    
+    /** The current tree, or null if the text did not parse. */
+    public CompilationUnit getUnit() {
+        return unit;
+    }
+    
+    /** How many tokens the last update lexed. */
+    public int getRelexedTokenCount() {
+        return relexedTokenCount;
+    }
+    
+    /** How many methods the last update took over from the previous tree. */
+    public int getReusedMethodCount() {
+        return reusedMethodCount;
+    }
+    
+    private Map<Integer, Parser.MethodSpan> relexAll(String newSource) {
+        tokens = new Lexer(newSource).tokenize();
+        relexedTokenCount = tokens.size();
+        return Collections.emptyMap();
+    }
+    
+    // ---------------------------------------------------------------------
+    // Relexing
+    // ---------------------------------------------------------------------
+    
+    private Map<Integer, Parser.MethodSpan> relexChange(String newSource) {
+        List<Token> old = tokens;
+        int oldLength = source.length();
+        int newLength = newSource.length();
+        int limit = Math.min(oldLength, newLength);
+        int prefix = 0;
+        while (prefix < limit && source.charAt(prefix) == newSource.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < limit - prefix
+                && source.charAt(oldLength - 1 - suffix) == newSource.charAt(newLength - 1 - suffix)) {
+            suffix++;
+        }
+        int newChangeEnd = newLength - suffix;
+        int delta = newLength - oldLength;
+        
+        // A token ending right at the change can grow into it ("+" becoming "+="),
+        // so lexing resumes after the token before it.
+        int restart = firstEndingAtOrAfter(old, prefix);
+        Lexer lexer;
+        if (restart == 0) {
+            lexer = new Lexer(newSource);
+        } else {
+            Token before = old.get(restart - 1);
+            lexer = new Lexer(newSource, before.getEnd(), before.getLine(),
+                    before.getColumn() + before.getEnd() - before.getStart());
+        }
+        
+        // Lex until a token in the unchanged tail starts where an old token,
+        // shifted, started and reads the same; from there on the old tokens are right.
+        List<Token> fresh = new ArrayList<>();
+        int resume = restart;
+        Token anchor = null;
+        while (true) {
+            Token token = lexer.nextToken();
+            if (token.getStart() >= newChangeEnd) {
+                int oldStart = token.getStart() - delta;
+                while (resume < old.size() && old.get(resume).getStart() < oldStart) {
+                    resume++;
+                }
+                if (resume < old.size() && sameToken(old.get(resume), token, oldStart)) {
+                    anchor = token;
+                    break;
+                }
+            }
+            fresh.add(token);
+            if (token.getType() == TokenType.EOF) {
+                resume = old.size();
+                break;
+            }
+        }
+        relexedTokenCount = fresh.size();
+        
+        List<Token> spliced = new ArrayList<>(restart + fresh.size() + old.size() - resume);
+        spliced.addAll(old.subList(0, restart));
+        spliced.addAll(fresh);
+        int anchorLine = 0;
+        int lineDelta = 0;
+        int columnDelta = 0;
+        if (anchor != null) {
+            Token oldAnchor = old.get(resume);
+            anchorLine = oldAnchor.getLine();
+            lineDelta = anchor.getLine() - anchorLine;
+            columnDelta = anchor.getColumn() - oldAnchor.getColumn();
+            for (int i = resume; i < old.size(); i++) {
+                spliced.add(shift(old.get(i), delta, anchorLine, lineDelta, columnDelta));
+            }
+        }
+        tokens = spliced;
+        
+        // Methods entirely before the change keep their indices; methods after
+        // it move with the tail. A method starting on the line the tail was
+        // joined at would need its columns fixed too, and is parsed again.
+        Map<Integer, Parser.MethodSpan> reusable = new HashMap<>();
+        int offset = restart + fresh.size() - resume;
+        for (Parser.MethodSpan span : spans) {
+            if (span.end <= restart) {
+                reusable.put(span.start, span);
+            } else if (anchor != null && span.start >= resume
+                    && (old.get(span.start).getLine() > anchorLine || (lineDelta == 0 && columnDelta == 0))) {
+                if (lineDelta != 0) {
+                    shiftLines(span.method, lineDelta);
+                }
+                int start = span.start + offset;
+                reusable.put(start, new Parser.MethodSpan(span.method, start, span.end + offset));
+            }
+        }
+        return reusable;
+    }
+    
+    /** Index of the first token ending at or after {@code offset}; EOF ends last, so there always is one. */
+    private static int firstEndingAtOrAfter(List<Token> tokens, int offset) {
+        int low = 0;
+        int high = tokens.size() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokens.get(mid).getEnd() < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private static boolean sameToken(Token old, Token token, int oldStart) {
+        return old.getStart() == oldStart
+                && old.getType() == token.getType()
+                && old.getText().equals(token.getText());
+    }
+    
+    private static Token shift(Token token, int delta, int anchorLine, int lineDelta, int columnDelta) {
+        int column = token.getLine() == anchorLine ? token.getColumn() + columnDelta : token.getColumn();
+        if (delta == 0 && lineDelta == 0 && column == token.getColumn()) {
+            return token;
+        }
+        return new Token(token.getType(), token.getText(), token.getValue(),
+                token.getLine() + lineDelta, column, token.getStart() + delta, token.getEnd() + delta);
+    }
+    
+    /** Moves every node of a method down by {@code lineDelta} lines; shared type nodes only once. */
+    private static void shiftLines(MethodDecl method, final int lineDelta) {
+        final Set<Node> shifted = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+        new TreeScanner() {
+            @Override
+            protected void visit(Node node) {
+                shift(node);
+                if (node.tag == Tag.VAR_DECLARATOR) {
+                    // "int a[]" gives the declarator its own copy of the type
+                    shift(((VarDeclarator) node).type);
+                }
+            }
+            
+            private void shift(Node node) {
+                if (node != null && shifted.add(node)) {
+                    node.line += lineDelta;
+                }
+            }
+        }.scanMethod(method);
+    }
+    
+    // ---------------------------------------------------------------------
+    // Bookkeeping
+    // ---------------------------------------------------------------------
+    
+    /**
+     * After a parse error, the methods the parser got through plus the
+     * reusable ones it never reached; their tokens are still valid for the
+     * next update.
+     */
+    private static List<Parser.MethodSpan> keepUnused(List<Parser.MethodSpan> parsed, Map<Integer, Parser.MethodSpan> reusable) {
+        List<Parser.MethodSpan> kept = new ArrayList<>(parsed);
+        int reached = parsed.isEmpty() ? 0 : parsed.get(parsed.size() - 1).end;
+        List<Parser.MethodSpan> rest = new ArrayList<>();
+        for (Parser.MethodSpan span : reusable.values()) {
+            if (span.start >= reached) {
+                rest.add(span);
+            }
+        }
+        Collections.sort(rest, new Comparator<Parser.MethodSpan>() {
+            @Override
+            public int compare(Parser.MethodSpan a, Parser.MethodSpan b) {
+                return Integer.compare(a.start, b.start);
+            }
+        });
+        kept.addAll(rest);
+        return kept;
+    }
+    
+    private int countReused(Map<Integer, Parser.MethodSpan> reusable) {
+        int count = 0;
+        for (Parser.MethodSpan span : spans) {
+            Parser.MethodSpan offered = reusable.get(span.start);
+            if (offered != null && offered.method == span.method) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /** Converts line and column to offsets; a marker covers the token at its position, or one character. */
+    private List<Marker> toMarkers(List<Diagnostic> diagnostics) {
+        List<Integer> lineStarts = new ArrayList<>();
+        lineStarts.add(0);
+        for (int i = 0; i < source.length(); i++) {
+            if (source.charAt(i) == '\n') {
+                lineStarts.add(i + 1);
+            }
+        }
+        List<Marker> markers = new ArrayList<>(diagnostics.size());
+        for (Diagnostic diagnostic : diagnostics) {
+            int line = Math.min(Math.max(diagnostic.getLine(), 1), lineStarts.size());
+            int start = Math.min(lineStarts.get(line - 1) + Math.max(diagnostic.getColumn(), 1) - 1, source.length());
+            int end = Math.min(start + 1, source.length());
+            if (tokens != null) {
+                Token token = tokens.get(firstEndingAtOrAfter(tokens, start + 1));
+                if (token.getStart() == start && token.getEnd() > start) {
+                    end = token.getEnd();
+                }
+            }
+            markers.add(new Marker(start, end, diagnostic));
+        }
+        return markers;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.javabuddy.compiler.diagnostics;
+
+import com.example.javabuddy.compiler.ast.MethodDecl;
+import com.example.javabuddy.compiler.ast.Modifiers;
+import com.example.javabuddy.compiler.ast.Node;
+import com.example.javabuddy.compiler.ast.Tag;
+import com.example.javabuddy.compiler.ast.TypeRef;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/** A {@code main(String[])} the JVM would not start from, because it is not public, static and void. */
+final class MainSignatureRule extends Rule {
+    
+    @Override
+    protected Set<Tag> getNodeTags() {
+        return EnumSet.of(Tag.METHOD);
+    }
+    
+    @Override
+    protected void visitNode(Node node, RuleContext context) {
+        MethodDecl method = (MethodDecl) node;
+        if (method.constructor || !method.name.equals("main") || method.params.size() != 1) {
+            return;
+        }
+        TypeRef param = method.params.get(0).type;
+        boolean stringArray = param.simpleName().equals("String")
+                && (param.dimensions == 1 || (param.dimensions == 0 && method.params.get(0).varargs));
+        if (!stringArray) {
+            return;
+        }
+        if (!Modifiers.isPublic(method.modifiers) || !method.isStatic() || !method.returnType.isVoid()) {
+            context.error(method, "main method should be: public static void main(String[] args)");
+        }
+    }
+}
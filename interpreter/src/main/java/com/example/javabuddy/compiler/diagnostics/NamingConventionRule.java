@@ -0,0 +1,26 @@
+package com.example.javabuddy.compiler.diagnostics;
+
+import com.example.javabuddy.compiler.ast.Node;
+import com.example.javabuddy.compiler.ast.Param;
+import com.example.javabuddy.compiler.ast.Tag;
+import com.example.javabuddy.compiler.ast.VarDeclarator;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/** Local variables and parameters start with a lowercase letter by Java convention. */
+final class NamingConventionRule extends Rule {
+    
+    @Override
+    protected Set<Tag> getNodeTags() {
+        return EnumSet.of(Tag.VAR_DECLARATOR, Tag.PARAM);
+    }
+    
+    @Override
+    protected void visitNode(Node node, RuleContext context) {
+        String name = node.tag == Tag.PARAM ? ((Param) node).name : ((VarDeclarator) node).name;
+        if (Character.isUpperCase(name.charAt(0))) {
+            context.warning(node, "Variable '" + name + "' should start with a lowercase letter");
+        }
+    }
+}
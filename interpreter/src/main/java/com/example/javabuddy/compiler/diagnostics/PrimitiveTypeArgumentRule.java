@@ -0,0 +1,27 @@
+package com.example.javabuddy.compiler.diagnostics;
+
+import com.example.javabuddy.compiler.ast.Node;
+import com.example.javabuddy.compiler.ast.Tag;
+import com.example.javabuddy.compiler.ast.TypeRef;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/** Generic type arguments must be reference types: {@code List<Integer>}, not {@code List<int>}. */
+final class PrimitiveTypeArgumentRule extends Rule {
+    
+    @Override
+    protected Set<Tag> getNodeTags() {
+        return EnumSet.of(Tag.TYPE);
+    }
+    
+    @Override
+    protected void visitNode(Node node, RuleContext context) {
+        for (TypeRef argument : ((TypeRef) node).typeArguments) {
+            if (argument.isPrimitive()) {
+                context.error(argument, "unexpected type: type arguments must be reference types, found "
+                        + argument.name);
+            }
+        }
+    }
+}
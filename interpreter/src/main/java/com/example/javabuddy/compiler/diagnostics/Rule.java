@@ -0,0 +1,45 @@
+package com.example.javabuddy.compiler.diagnostics;
+
+import com.example.javabuddy.compiler.ast.Node;
+import com.example.javabuddy.compiler.ast.Tag;
+import com.example.javabuddy.compiler.parser.Token;
+import com.example.javabuddy.compiler.parser.TokenType;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * One check run by a {@link RuleEngine}. A rule subscribes to the token
+ * types and node tags it needs and is only called for those, so adding a
+ * rule does not add another pass over the source.
+ *
+ * <p>Rules may keep state between events; {@link #begin} is called before
+ * every validation so they can reset it.
+ */
+public abstract class Rule {
+    
+    /** Token types passed to {@link #visitToken}; none by default. */
+    protected Set<TokenType> getTokenTypes() {
+        return EnumSet.noneOf(TokenType.class);
+    }
+    
+    /** Node tags passed to {@link #visitNode}; none by default. */
+    protected Set<Tag> getNodeTags() {
+        return EnumSet.noneOf(Tag.class);
+    }
+    
+    protected void begin(RuleContext context) {
+    }
+    
+    /** Called in source order; {@code index} is the token's position in {@link RuleContext#getTokens()}. */
+    protected void visitToken(Token token, int index, RuleContext context) {
+    }
+    
+    /** Called for each node before its children; only when the program parsed. */
+    protected void visitNode(Node node, RuleContext context) {
+    }
+    
+    /** Called after the last token and node, for checks that need to have seen the whole program. */
+    protected void end(RuleContext context) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.javabuddy.compiler.diagnostics;
+
+import com.example.javabuddy.compiler.ast.CompilationUnit;
+import com.example.javabuddy.compiler.ast.Node;
+import com.example.javabuddy.compiler.parser.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** What the rules of one validation share: the program and the diagnostics found so far. */
+public final class RuleContext {
+    
+    private final List<Token> tokens;
+    private final CompilationUnit unit;
+    private final List<Diagnostic> diagnostics = new ArrayList<>();
+    
+    RuleContext(List<Token> tokens, CompilationUnit unit) {
+        this.tokens = tokens;
+        this.unit = unit;
+    }
+    
+    /** Every token of the source, ending with EOF. */
+    public List<Token> getTokens() {
+        return tokens;
+    }
+    
+    /** The parsed program, or null if it did not parse; token rules still run then. */
+    public CompilationUnit getUnit() {
+        return unit;
+    }
+    
+    public void error(Token token, String message) {
+        report(Diagnostic.Severity.ERROR, message, token.getLine(), token.getColumn());
+    }
+    
+    public void error(Node node, String message) {
+        report(Diagnostic.Severity.ERROR, message, node.line, node.column);
+    }
+    
+    public void warning(Token token, String message) {
+        report(Diagnostic.Severity.WARNING, message, token.getLine(), token.getColumn());
+    }
+    
+    public void warning(Node node, String message) {
+        report(Diagnostic.Severity.WARNING, message, node.line, node.column);
+    }
+    
+    public void report(Diagnostic.Severity severity, String message, int line, int column) {
+        diagnostics.add(new Diagnostic(severity, message, line, column));
+    }
+    
+    List<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.javabuddy.compiler.diagnostics;
+
+import com.example.javabuddy.compiler.ast.CompilationUnit;
+import com.example.javabuddy.compiler.ast.Node;
+import com.example.javabuddy.compiler.ast.Tag;
+import com.example.javabuddy.compiler.parser.Token;
+import com.example.javabuddy.compiler.parser.TokenType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Runs a set of {@link Rule}s over a program in one pass over its tokens and
+ * one walk over its tree. Each token type and node tag is routed only to the
+ * rules that subscribed to it, so the cost of a validation grows with the
+ * size of the program, not with the number of rules.
+ *
+ * <p>Rules keep state while they run, so an engine validates one program at a time.
+ */
+public final class RuleEngine {
+    
+    private static final Rule[] NO_RULES = new Rule[0];
+    
+    private static final Comparator<Diagnostic> BY_POSITION = new Comparator<Diagnostic>() {
+        @Override
+        public int compare(Diagnostic a, Diagnostic b) {
+            if (a.getLine() != b.getLine()) {
+                return Integer.compare(a.getLine(), b.getLine());
+            }
+            return Integer.compare(a.getColumn(), b.getColumn());
+        }
+    };
+    
+    private final List<Rule> rules;
+    private final Rule[][] tokenRules;
+    private final Rule[][] nodeRules;
+    
+    public RuleEngine(List<Rule> rules) {
+        this.rules = new ArrayList<>(rules);
+        this.tokenRules = new Rule[TokenType.values().length][];
+        this.nodeRules = new Rule[Tag.values().length][];
+        Arrays.fill(tokenRules, NO_RULES);
+        Arrays.fill(nodeRules, NO_RULES);
+        for (Rule rule : rules) {
+            for (TokenType type : rule.getTokenTypes()) {
+                tokenRules[type.ordinal()] = append(tokenRules[type.ordinal()], rule);
+            }
+            for (Tag tag : rule.getNodeTags()) {
+                nodeRules[tag.ordinal()] = append(nodeRules[tag.ordinal()], rule);
+            }
+        }
+    }
+    
+    /** The checks of the "Real Java Compiler" mode: errors javac would report, plus a few style warnings. */
+    public static RuleEngine withStandardRules() {
+        List<Rule> rules = new ArrayList<>();
+        rules.add(new BracketRule());
+        rules.add(new UnreachableStatementRule());
+        rules.add(new UnusedImportRule());
+        rules.add(new ClassDeclarationRule());
+        rules.add(new MainSignatureRule());
+        rules.add(new ConstantAssignmentRule());
+        rules.add(new AbstractInstantiationRule());
+        rules.add(new PrimitiveTypeArgumentRule());
+        rules.add(new NamingConventionRule());
+        return new RuleEngine(rules);
+    }
+    
+    private static Rule[] append(Rule[] rules, Rule rule) {
+        Rule[] grown = Arrays.copyOf(rules, rules.length + 1);
+        grown[rules.length] = rule;
+        return grown;
+    }
+    
+    /**
+     * Validates a lexed program. {@code unit} is null when the tokens did not
+     * parse; then only token rules have anything to look at. Diagnostics are
+     * returned in source order.
+     */
+    public synchronized List<Diagnostic> validate(List<Token> tokens, CompilationUnit unit) {
+        final RuleContext context = new RuleContext(tokens, unit);
+        for (Rule rule : rules) {
+            rule.begin(context);
+        }
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
+            for (Rule rule : tokenRules[token.getType().ordinal()]) {
+                rule.visitToken(token, i, context);
+            }
+        }
+        if (unit != null) {
+            new TreeScanner() {
+                @Override
+                protected void visit(Node node) {
+                    for (Rule rule : nodeRules[node.tag.ordinal()]) {
+                        rule.visitNode(node, context);
+                    }
+                }
+            }.scan(unit);
+        }
+        for (Rule rule : rules) {
+            rule.end(context);
+        }
+        List<Diagnostic> diagnostics = context.getDiagnostics();
+        Collections.sort(diagnostics, BY_POSITION);
+        return diagnostics;
+    }
+}
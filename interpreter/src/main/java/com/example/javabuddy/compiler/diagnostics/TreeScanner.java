@@ -0,0 +1,278 @@
+package com.example.javabuddy.compiler.diagnostics;
+
+import com.example.javabuddy.compiler.ast.*;
+
+import java.util.List;
+
+/**
+ * Read-only, pre-order walk over every declaration, statement, expression
+ * and written type of a program. A local's type is visited once, on its
+ * declaration, not again on each declarator.
+ */
+abstract class TreeScanner {
+    
+    protected abstract void visit(Node node);
+    
+    void scan(CompilationUnit unit) {
+        visit(unit);
+        scanClasses(unit.classes);
+    }
+    
+    private void scanClasses(List<ClassDecl> decls) {
+        for (ClassDecl decl : decls) {
+            scanClass(decl);
+        }
+    }
+    
+    private void scanClass(ClassDecl decl) {
+        visit(decl);
+        if (decl.superclass != null) {
+            scanType(decl.superclass);
+        }
+        scanTypes(decl.interfaces);
+        for (FieldDecl field : decl.fields) {
+            visit(field);
+            scanType(field.type);
+            if (field.initializer != null) {
+                scanExpression(field.initializer);
+            }
+        }
+        for (Block block : decl.staticInitializers) {
+            scanStatement(block);
+        }
+        for (Block block : decl.initializers) {
+            scanStatement(block);
+        }
+        for (MethodDecl constructor : decl.constructors) {
+            scanMethod(constructor);
+        }
+        for (MethodDecl method : decl.methods) {
+            scanMethod(method);
+        }
+        scanClasses(decl.memberClasses);
+    }
+    
+    void scanMethod(MethodDecl method) {
+        visit(method);
+        if (method.returnType != null) {
+            scanType(method.returnType);
+        }
+        for (Param param : method.params) {
+            visit(param);
+            scanType(param.type);
+        }
+        if (method.body != null) {
+            scanStatement(method.body);
+        }
+    }
+    
+    private void scanType(TypeRef type) {
+        visit(type);
+        scanTypes(type.typeArguments);
+    }
+    
+    private void scanTypes(List<TypeRef> types) {
+        for (TypeRef type : types) {
+            scanType(type);
+        }
+    }
+    
+    // ---------------------------------------------------------------------
+    // Statements
+    // ---------------------------------------------------------------------
+    
+    private void scanStatement(Stmt stmt) {
+        visit(stmt);
+        switch (stmt.tag) {
+            case BLOCK:
+                scanStatements(((Block) stmt).statements);
+                break;
+            case LOCAL_VAR: {
+                LocalVarDecl decl = (LocalVarDecl) stmt;
+                scanType(decl.type);
+                for (VarDeclarator variable : decl.variables) {
+                    visit(variable);
+                    if (variable.initializer != null) {
+                        scanExpression(variable.initializer);
+                    }
+                }
+                break;
+            }
+            case EXPRESSION_STATEMENT:
+                scanExpression(((ExpressionStmt) stmt).expression);
+                break;
+            case IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                scanExpression(ifStmt.condition);
+                scanStatement(ifStmt.thenStatement);
+                if (ifStmt.elseStatement != null) {
+                    scanStatement(ifStmt.elseStatement);
+                }
+                break;
+            }
+            case WHILE: {
+                WhileStmt loop = (WhileStmt) stmt;
+                scanExpression(loop.condition);
+                scanStatement(loop.body);
+                break;
+            }
+            case DO_WHILE: {
+                DoWhileStmt loop = (DoWhileStmt) stmt;
+                scanStatement(loop.body);
+                scanExpression(loop.condition);
+                break;
+            }
+            case FOR: {
+                ForStmt loop = (ForStmt) stmt;
+                scanStatements(loop.init);
+                if (loop.condition != null) {
+                    scanExpression(loop.condition);
+                }
+                scanExpressions(loop.update);
+                scanStatement(loop.body);
+                break;
+            }
+            case FOR_EACH: {
+                ForEachStmt loop = (ForEachStmt) stmt;
+                scanType(loop.variableType);
+                scanExpression(loop.iterable);
+                scanStatement(loop.body);
+                break;
+            }
+            case SWITCH: {
+                SwitchStmt switchStmt = (SwitchStmt) stmt;
+                scanExpression(switchStmt.selector);
+                for (SwitchCase switchCase : switchStmt.cases) {
+                    visit(switchCase);
+                    scanExpressions(switchCase.labels);
+                    scanStatements(switchCase.body);
+                }
+                break;
+            }
+            case RETURN: {
+                ReturnStmt returnStmt = (ReturnStmt) stmt;
+                if (returnStmt.value != null) {
+                    scanExpression(returnStmt.value);
+                }
+                break;
+            }
+            case THROW:
+                scanExpression(((ThrowStmt) stmt).exception);
+                break;
+            case TRY: {
+                TryStmt tryStmt = (TryStmt) stmt;
+                for (LocalVarDecl resource : tryStmt.resources) {
+                    scanStatement(resource);
+                }
+                scanStatement(tryStmt.body);
+                for (CatchClause clause : tryStmt.catches) {
+                    visit(clause);
+                    scanTypes(clause.types);
+                    scanStatement(clause.body);
+                }
+                if (tryStmt.finallyBlock != null) {
+                    scanStatement(tryStmt.finallyBlock);
+                }
+                break;
+            }
+            case LABELED:
+                scanStatement(((LabeledStmt) stmt).body);
+                break;
+            default:
+                break;
+        }
+    }
+    
+    private void scanStatements(List<Stmt> statements) {
+        for (Stmt stmt : statements) {
+            scanStatement(stmt);
+        }
+    }
+    
+    // ---------------------------------------------------------------------
+    // Expressions
+    // ---------------------------------------------------------------------
+    
+    private void scanExpression(Expr expr) {
+        visit(expr);
+        switch (expr.tag) {
+            case FIELD_ACCESS:
+                scanExpression(((FieldAccess) expr).target);
+                break;
+            case METHOD_CALL: {
+                MethodCall call = (MethodCall) expr;
+                if (call.target != null) {
+                    scanExpression(call.target);
+                }
+                scanExpressions(call.arguments);
+                break;
+            }
+            case NEW_OBJECT: {
+                NewObject creation = (NewObject) expr;
+                scanType(creation.type);
+                scanExpressions(creation.arguments);
+                break;
+            }
+            case NEW_ARRAY: {
+                NewArray creation = (NewArray) expr;
+                scanType(creation.elementType);
+                scanExpressions(creation.dimensions);
+                if (creation.initializer != null) {
+                    scanExpression(creation.initializer);
+                }
+                break;
+            }
+            case ARRAY_INIT:
+                scanExpressions(((ArrayInit) expr).elements);
+                break;
+            case ARRAY_ACCESS: {
+                ArrayAccess access = (ArrayAccess) expr;
+                scanExpression(access.array);
+                scanExpression(access.index);
+                break;
+            }
+            case UNARY:
+                scanExpression(((Unary) expr).operand);
+                break;
+            case BINARY: {
+                Binary binary = (Binary) expr;
+                scanExpression(binary.left);
+                scanExpression(binary.right);
+                break;
+            }
+            case ASSIGN: {
+                Assign assign = (Assign) expr;
+                scanExpression(assign.target);
+                scanExpression(assign.value);
+                break;
+            }
+            case CONDITIONAL: {
+                Conditional conditional = (Conditional) expr;
+                scanExpression(conditional.condition);
+                scanExpression(conditional.thenValue);
+                scanExpression(conditional.elseValue);
+                break;
+            }
+            case CAST: {
+                Cast cast = (Cast) expr;
+                scanType(cast.type);
+                scanExpression(cast.expression);
+                break;
+            }
+            case INSTANCE_OF: {
+                InstanceOf test = (InstanceOf) expr;
+                scanExpression(test.expression);
+                scanType(test.type);
+                break;
+            }
+            default:
+                break;
+        }
+    }
+    
+    private void scanExpressions(List<Expr> expressions) {
+        for (Expr expr : expressions) {
+            scanExpression(expr);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.javabuddy.compiler.diagnostics;
+
+import com.example.javabuddy.compiler.parser.Token;
+import com.example.javabuddy.compiler.parser.TokenType;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reports a statement that follows a {@code return}, {@code throw},
+ * {@code break} or {@code continue} in the same block, which javac rejects
+ * as unreachable. This works on tokens because the optimizer removes such
+ * statements from the tree before rules see it.
+ */
+final class UnreachableStatementRule extends Rule {
+    
+    @Override
+    protected Set<TokenType> getTokenTypes() {
+        return EnumSet.of(TokenType.RETURN, TokenType.THROW, TokenType.BREAK, TokenType.CONTINUE);
+    }
+    
+    @Override
+    protected void visitToken(Token token, int index, RuleContext context) {
+        List<Token> tokens = context.getTokens();
+        // the jump is a statement of its own block only after another statement or a label;
+        // after "if (x)" or "else" the next statement can still run
+        if (index > 0) {
+            switch (tokens.get(index - 1).getType()) {
+                case LBRACE:
+                case RBRACE:
+                case SEMICOLON:
+                case COLON:
+                    break;
+                default:
+                    return;
+            }
+        }
+        int end = endOfStatement(tokens, index);
+        if (end + 1 >= tokens.size()) {
+            return;
+        }
+        Token next = tokens.get(end + 1);
+        switch (next.getType()) {
+            case RBRACE:
+            case CASE:
+            case DEFAULT:
+            case EOF:
+                return;
+            default:
+                context.error(next, "unreachable statement");
+        }
+    }
+    
+    /** Index of the semicolon ending the statement that starts at {@code start}, skipping nested brackets. */
+    private static int endOfStatement(List<Token> tokens, int start) {
+        int depth = 0;
+        for (int i = start; i < tokens.size(); i++) {
+            switch (tokens.get(i).getType()) {
+                case LPAREN:
+                case LBRACKET:
+                case LBRACE:
+                    depth++;
+                    break;
+                case RPAREN:
+                case RBRACKET:
+                case RBRACE:
+                    if (--depth < 0) {
+                        return i - 1;
+                    }
+                    break;
+                case SEMICOLON:
+                    if (depth == 0) {
+                        return i;
+                    }
+                    break;
+                case EOF:
+                    return i;
+                default:
+                    break;
+            }
+        }
+        return tokens.size();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.javabuddy.compiler.diagnostics;
+
+import com.example.javabuddy.compiler.parser.Token;
+import com.example.javabuddy.compiler.parser.TokenType;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/** Warns about single-type imports whose simple name never appears in the rest of the program. */
+final class UnusedImportRule extends Rule {
+    
+    /** Last identifier of each single-type import, e.g. {@code List} for {@code java.util.List}. */
+    private final List<Token> imported = new ArrayList<>();
+    private final Set<String> used = new HashSet<>();
+    private int importEnd;
+    
+    @Override
+    protected Set<TokenType> getTokenTypes() {
+        return EnumSet.of(TokenType.IMPORT, TokenType.IDENTIFIER);
+    }
+    
+    @Override
+    protected void begin(RuleContext context) {
+        imported.clear();
+        used.clear();
+        importEnd = -1;
+    }
+    
+    @Override
+    protected void visitToken(Token token, int index, RuleContext context) {
+        if (index <= importEnd) {
+            return;
+        }
+        if (token.getType() == TokenType.IDENTIFIER) {
+            used.add(token.getText());
+            return;
+        }
+        List<Token> tokens = context.getTokens();
+        boolean isStatic = index + 1 < tokens.size() && tokens.get(index + 1).is(TokenType.STATIC);
+        Token last = null;
+        int i = index + 1;
+        while (i < tokens.size() && !tokens.get(i).is(TokenType.SEMICOLON) && !tokens.get(i).is(TokenType.EOF)) {
+            last = tokens.get(i);
+            i++;
+        }
+        importEnd = i;
+        // on-demand and static imports bring in names that cannot be told apart by their text
+        if (!isStatic && last != null && last.is(TokenType.IDENTIFIER)) {
+            imported.add(last);
+        }
+    }
+    
+    @Override
+    protected void end(RuleContext context) {
+        for (Token name : imported) {
+            if (!used.contains(name.getText())) {
+                context.warning(name, "unused import '" + name.getText() + "'");
+            }
+        }
+    }
+}
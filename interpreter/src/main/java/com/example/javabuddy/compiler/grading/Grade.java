@@ -0,0 +1,41 @@
+package com.example.javabuddy.compiler.grading;
+
+/**
+ * The outcome of grading one submission: a verdict, the engine's message,
+ * and both outputs in the normalized form they were compared in.
+ */
+public final class Grade {
+    
+    public enum Verdict { ACCEPTED, WRONG_ANSWER, COMPILE_ERROR, RUNTIME_ERROR }
+    
+    private final Verdict verdict;
+    private final String message;
+    private final String expectedOutput;
+    private final String actualOutput;
+    private final int mismatchLine;
+    
+    Grade(Verdict verdict, String message, String expectedOutput, String actualOutput, int mismatchLine) {
+        this.verdict = verdict;
+        this.message = message;
+        this.expectedOutput = expectedOutput;
+        this.actualOutput = actualOutput;
+        this.mismatchLine = mismatchLine;
+    }
+    
+    public Verdict getVerdict() { return verdict; }
+    public String getMessage() { return message; }
+    public String getExpectedOutput() { return expectedOutput; }
+    public String getActualOutput() { return actualOutput; }
+    
+    /** The first output line, counting from 1, that differs from the expected one; 0 unless the answer is wrong. */
+    public int getMismatchLine() { return mismatchLine; }
+    
+    public boolean isAccepted() {
+        return verdict == Verdict.ACCEPTED;
+    }
+    
+    @Override
+    public String toString() {
+        return verdict + (mismatchLine > 0 ? " at line " + mismatchLine : "");
+    }
+}
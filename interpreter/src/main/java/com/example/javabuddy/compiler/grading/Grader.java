@@ -0,0 +1,192 @@
+package com.example.javabuddy.compiler.grading;
+
+import com.example.javabuddy.compiler.AdvancedJavaInterpreter.CompileResult;
+import com.example.javabuddy.compiler.CompilationPipeline;
+import com.example.javabuddy.compiler.ProgramCache;
+import com.example.javabuddy.compiler.ast.CompilationUnit;
+import com.example.javabuddy.compiler.diagnostics.Diagnostic;
+import com.example.javabuddy.compiler.diagnostics.RuleEngine;
+import com.example.javabuddy.compiler.parser.Token;
+import com.example.javabuddy.compiler.runtime.ConsoleBuffer;
+import com.example.javabuddy.compiler.runtime.ExecutionBudget;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grades practice problem submissions by running them, with the problem's
+ * sample input on {@code System.in}, and comparing what they print with the
+ * expected output. Both outputs are normalized first, so line endings,
+ * trailing spaces and trailing blank lines never decide a verdict.
+ *
+ * <p>Grades are cached per problem and program, keyed by
+ * {@link ProgramCache#fingerprint(String)}: submitting the same solution
+ * again, or one that differs only in whitespace the cache ignores, returns
+ * the earlier grade without running anything.
+ */
+public final class Grader {
+    
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final Grader SHARED = new Grader(DEFAULT_CAPACITY);
+    
+    private final RuleEngine rules = RuleEngine.withStandardRules();
+    private final CompilationPipeline pipeline;
+    private final int capacity;
+    private final Map<String, Grade> grades;
+    private final Object lock = new Object();
+    private long hits;
+    private long misses;
+    
+    public Grader() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    public Grader(int capacity) {
+        this.capacity = capacity;
+        this.pipeline = new CompilationPipeline(new CompilationPipeline.Validator() {
+            @Override
+            public List<Diagnostic> validate(String source, List<Token> tokens, CompilationUnit unit) {
+                return rules.validate(tokens, unit);
+            }
+        });
+        this.grades = new LinkedHashMap<String, Grade>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Grade> eldest) {
+                return size() > Grader.this.capacity;
+            }
+        };
+    }
+    
+    /** The grader of the practice screens, so grades outlive the screen that made them. */
+    public static Grader getShared() {
+        return SHARED;
+    }
+    
+    /**
+     * Runs {@code source} with {@code input} on {@code System.in} and compares
+     * its output with {@code expectedOutput}. Blocks until the program ends,
+     * so call it off the main thread.
+     */
+    public Grade grade(int problemId, String source, String input, String expectedOutput) {
+        return grade(problemId, source, input, expectedOutput, new ExecutionBudget());
+    }
+    
+    /**
+     * Like {@link #grade(int, String, String, String)}, running the program
+     * with {@code budget}, so that cancelling it stops the grading.
+     */
+    public Grade grade(int problemId, String source, String input, String expectedOutput, ExecutionBudget budget) {
+        String key = problemId + ":" + ProgramCache.fingerprint(source);
+        synchronized (lock) {
+            Grade cached = grades.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+        
+        ConsoleBuffer console = new ConsoleBuffer();
+        console.setInput(input);
+        long start = System.nanoTime();
+        CompileResult result = pipeline.run(source, budget, console);
+        long elapsed = System.nanoTime() - start;
+        Grade grade = judge(result, normalizeOutput(expectedOutput));
+        
+        // A timeout depends on how busy the device was, and a cancelled run did not get to
+        // the end, so neither is worth remembering
+        if (elapsed < TimeUnit.MILLISECONDS.toNanos(budget.getTimeoutMillis()) && !budget.isCancelled()) {
+            synchronized (lock) {
+                grades.put(key, grade);
+            }
+        }
+        return grade;
+    }
+    
+    /** Turns a finished run into a grade; {@code expected} is already normalized. */
+    static Grade judge(CompileResult result, String expected) {
+        String actual = normalizeOutput(result.getOutput());
+        if (!result.isSuccess()) {
+            String message = result.getMessage();
+            Grade.Verdict verdict = message.startsWith("Parse errors:") || message.startsWith("Compilation errors:")
+                    ? Grade.Verdict.COMPILE_ERROR
+                    : Grade.Verdict.RUNTIME_ERROR;
+            return new Grade(verdict, message, expected, actual, 0);
+        }
+        int mismatch = firstDifferentLine(expected, actual);
+        if (mismatch == 0) {
+            return new Grade(Grade.Verdict.ACCEPTED, result.getMessage(), expected, actual, 0);
+        }
+        return new Grade(Grade.Verdict.WRONG_ANSWER, "Output differs at line " + mismatch, expected, actual, mismatch);
+    }
+    
+    /** Unifies line endings, drops trailing whitespace on every line and blank lines at the end. */
+    public static String normalizeOutput(String output) {
+        if (output == null) {
+            return "";
+        }
+        String[] lines = output.split("\r\n|\r|\n", -1);
+        StringBuilder normalized = new StringBuilder(output.length());
+        int kept = 0;
+        for (String line : lines) {
+            int end = line.length();
+            while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) {
+                end--;
+            }
+            if (kept > 0) {
+                normalized.append('\n');
+            }
+            normalized.append(line, 0, end);
+            kept++;
+        }
+        int end = normalized.length();
+        while (end > 0 && normalized.charAt(end - 1) == '\n') {
+            end--;
+        }
+        normalized.setLength(end);
+        return normalized.toString();
+    }
+    
+    /** 1-based number of the first line that differs, or 0 when the outputs are equal. */
+    private static int firstDifferentLine(String expected, String actual) {
+        if (expected.equals(actual)) {
+            return 0;
+        }
+        String[] expectedLines = expected.split("\n", -1);
+        String[] actualLines = actual.split("\n", -1);
+        int common = Math.min(expectedLines.length, actualLines.length);
+        for (int i = 0; i < common; i++) {
+            if (!expectedLines[i].equals(actualLines[i])) {
+                return i + 1;
+            }
+        }
+        return common + 1;
+    }
+    
+    public void clear() {
+        synchronized (lock) {
+            grades.clear();
+        }
+    }
+    
+    public long getHitCount() {
+        synchronized (lock) {
+            return hits;
+        }
+    }
+    
+    public long getMissCount() {
+        synchronized (lock) {
+            return misses;
+        }
+    }
+    
+    @Override
+    public String toString() {
+        synchronized (lock) {
+            return "Grader[size=" + grades.size() + "/" + capacity + ", hits=" + hits + ", misses=" + misses + "]";
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.javabuddy.compiler.grading;
+
+import com.example.javabuddy.compiler.AdvancedJavaInterpreter.CompileResult;
+import com.example.javabuddy.compiler.CompilationPipeline;
+import com.example.javabuddy.compiler.ast.CompilationUnit;
+import com.example.javabuddy.compiler.diagnostics.Diagnostic;
+import com.example.javabuddy.compiler.diagnostics.RuleEngine;
+import com.example.javabuddy.compiler.parser.Token;
+import com.example.javabuddy.compiler.runtime.ConsoleBuffer;
+import com.example.javabuddy.compiler.runtime.ExecutionBudget;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs one submission against a list of test cases at the same time, on a
+ * fork-join pool. The program is parsed once through the shared
+ * {@link com.example.javabuddy.compiler.ProgramCache}; each case then gets
+ * its own engine, console and {@link ExecutionBudget}, so cases see
+ * nothing of each other and a runaway case only uses up its own time.
+ *
+ * <p>With enough workers a suite takes about as long as its slowest case.
+ * When asked to stop at the first failure, the failing case cancels the
+ * cases still running and the ones not started yet are skipped.
+ */
+public final class TestCaseRunner {
+    
+    public static final long DEFAULT_CASE_TIMEOUT_MILLIS = 2_000L;
+    
+    private static TestCaseRunner shared;
+    
+    /** Input for {@code System.in} and the output it should produce. */
+    public static final class TestCase {
+        private final String input;
+        private final String expectedOutput;
+        
+        public TestCase(String input, String expectedOutput) {
+            this.input = input;
+            this.expectedOutput = expectedOutput;
+        }
+        
+        public String getInput() { return input; }
+        public String getExpectedOutput() { return expectedOutput; }
+    }
+    
+    /** How one case went; a skipped case has no grade. */
+    public static final class CaseResult {
+        private final int index;
+        private final Grade grade;
+        private final long elapsedNanos;
+        
+        CaseResult(int index, Grade grade, long elapsedNanos) {
+            this.index = index;
+            this.grade = grade;
+            this.elapsedNanos = elapsedNanos;
+        }
+        
+        public int getIndex() { return index; }
+        public Grade getGrade() { return grade; }
+        public long getElapsedNanos() { return elapsedNanos; }
+        
+        public boolean isSkipped() {
+            return grade == null;
+        }
+        
+        public boolean isPassed() {
+            return grade != null && grade.isAccepted();
+        }
+    }
+    
+    /** The results of a whole suite, in the order of its cases. */
+    public static final class Report {
+        private final List<CaseResult> results;
+        private final long elapsedNanos;
+        
+        Report(List<CaseResult> results, long elapsedNanos) {
+            this.results = Collections.unmodifiableList(results);
+            this.elapsedNanos = elapsedNanos;
+        }
+        
+        public List<CaseResult> getResults() { return results; }
+        
+        /** Wall-clock time of the whole suite. */
+        public long getElapsedNanos() { return elapsedNanos; }
+        
+        public int getPassedCount() {
+            int passed = 0;
+            for (CaseResult result : results) {
+                if (result.isPassed()) {
+                    passed++;
+                }
+            }
+            return passed;
+        }
+        
+        public int getSkippedCount() {
+            int skipped = 0;
+            for (CaseResult result : results) {
+                if (result.isSkipped()) {
+                    skipped++;
+                }
+            }
+            return skipped;
+        }
+        
+        public boolean isAllPassed() {
+            return getPassedCount() == results.size();
+        }
+        
+        /** The failed case with the lowest index, or null if none failed. */
+        public CaseResult getFirstFailure() {
+            for (CaseResult result : results) {
+                if (!result.isSkipped() && !result.isPassed()) {
+                    return result;
+                }
+            }
+            return null;
+        }
+        
+        @Override
+        public String toString() {
+            return "Report[passed=" + getPassedCount() + "/" + results.size() + ", skipped=" + getSkippedCount()
+                    + ", elapsed=" + elapsedNanos / 1_000_000 + "ms]";
+        }
+    }
+    
+    private final RuleEngine rules = RuleEngine.withStandardRules();
+    private final CompilationPipeline pipeline;
+    private final ForkJoinPool pool;
+    private final long caseTimeoutMillis;
+    
+    public TestCaseRunner(ForkJoinPool pool, long caseTimeoutMillis) {
+        this.pool = pool;
+        this.caseTimeoutMillis = caseTimeoutMillis;
+        this.pipeline = new CompilationPipeline(new CompilationPipeline.Validator() {
+            @Override
+            public List<Diagnostic> validate(String source, List<Token> tokens, CompilationUnit unit) {
+                return rules.validate(tokens, unit);
+            }
+        });
+    }
+    
+    /** The runner of the challenge screens: one worker per core, two seconds per case. */
+    public static synchronized TestCaseRunner getShared() {
+        if (shared == null) {
+            shared = new TestCaseRunner(new ForkJoinPool(Runtime.getRuntime().availableProcessors()),
+                    DEFAULT_CASE_TIMEOUT_MILLIS);
+        }
+        return shared;
+    }
+    
+    /**
+     * Runs {@code source} once per case and grades each output. Blocks until
+     * every case has finished or been skipped, so call it off the main thread.
+     */
+    public Report run(String source, List<TestCase> cases, boolean stopOnFirstFailure) {
+        Suite suite = new Suite(source, cases, stopOnFirstFailure);
+        long start = System.nanoTime();
+        if (!cases.isEmpty()) {
+            pool.invoke(new Cases(suite, 0, cases.size()));
+        }
+        List<CaseResult> results = new ArrayList<>(cases.size());
+        for (int i = 0; i < cases.size(); i++) {
+            results.add(suite.results[i] != null ? suite.results[i] : new CaseResult(i, null, 0));
+        }
+        return new Report(results, System.nanoTime() - start);
+    }
+    
+    /** One call to {@link #run}: its cases, their budgets and what has been found so far. */
+    private final class Suite {
+        final String source;
+        final List<TestCase> cases;
+        final boolean stopOnFirstFailure;
+        final ExecutionBudget[] budgets;
+        final CaseResult[] results;
+        final AtomicBoolean failed = new AtomicBoolean();
+        
+        Suite(String source, List<TestCase> cases, boolean stopOnFirstFailure) {
+            this.source = source;
+            this.cases = cases;
+            this.stopOnFirstFailure = stopOnFirstFailure;
+            this.budgets = new ExecutionBudget[cases.size()];
+            this.results = new CaseResult[cases.size()];
+            for (int i = 0; i < budgets.length; i++) {
+                budgets[i] = new ExecutionBudget(ExecutionBudget.DEFAULT_MAX_INSTRUCTIONS, caseTimeoutMillis);
+            }
+        }
+        
+        boolean isStopped() {
+            return stopOnFirstFailure && failed.get();
+        }
+        
+        void runCase(int index) {
+            if (isStopped()) {
+                return;
+            }
+            TestCase testCase = cases.get(index);
+            ExecutionBudget budget = budgets[index];
+            ConsoleBuffer console = new ConsoleBuffer();
+            console.setInput(testCase.getInput());
+            long start = System.nanoTime();
+            CompileResult result = pipeline.run(source, budget, console);
+            long elapsed = System.nanoTime() - start;
+            if (budget.isCancelled()) {
+                // stopped by another case's failure; it did not fail on its own
+                return;
+            }
+            Grade grade = Grader.judge(result, Grader.normalizeOutput(testCase.getExpectedOutput()));
+            results[index] = new CaseResult(index, grade, elapsed);
+            if (!grade.isAccepted() && !failed.getAndSet(true) && stopOnFirstFailure) {
+                for (ExecutionBudget other : budgets) {
+                    other.cancel();
+                }
+            }
+        }
+    }
+    
+    /** Splits a range of cases in halves until one case is left, then runs it. */
+    private static final class Cases extends RecursiveAction {
+        private final Suite suite;
+        private final int from;
+        private final int to;
+        
+        Cases(Suite suite, int from, int to) {
+            this.suite = suite;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                suite.runCase(from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Cases(suite, from, middle), new Cases(suite, middle, to));
+        }
+    }
+}
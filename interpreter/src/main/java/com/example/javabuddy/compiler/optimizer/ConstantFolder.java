@@ -0,0 +1,177 @@
+package com.example.javabuddy.compiler.optimizer;
+
+import com.example.javabuddy.compiler.ast.*;
+import com.example.javabuddy.compiler.runtime.InterpreterException;
+import com.example.javabuddy.compiler.runtime.Operators;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Evaluates operators whose operands are literals, as javac does for
+ * constant expressions, so {@code 60 * 60 * 24} and
+ * {@code "Hello" + " " + "World"} reach the engines as single literals.
+ *
+ * <p>Also inlined are reads of {@code static final} fields of primitive or
+ * String type whose initializer folds to a literal, and a literal tail of a
+ * string concatenation is joined onto the string before it, so
+ * {@code "Name: " + name + "!" + "\n"} keeps one concatenation fewer.
+ *
+ * <p>An operation that would throw, such as {@code 1 / 0}, or that has
+ * operands of the wrong type is left in place, so the engine reports it
+ * when and where the program runs it.
+ */
+final class ConstantFolder extends OptimizationPass {
+    
+    /** Constant fields visible by simple name, innermost class first. */
+    private final ArrayDeque<Map<String, Literal>> constants = new ArrayDeque<>();
+    
+    @Override
+    String getName() {
+        return OptimizationReport.CONSTANT_FOLDING;
+    }
+    
+    @Override
+    protected void rewriteClass(ClassDecl decl) {
+        Map<String, Literal> visible = new HashMap<>();
+        // a member class sees the constants of the classes around it, unless an inherited field could hide them
+        if (!constants.isEmpty() && decl.superclass == null && decl.interfaces.isEmpty()) {
+            visible.putAll(constants.peek());
+        }
+        for (FieldDecl field : decl.fields) {
+            visible.remove(field.name);
+        }
+        constants.push(visible);
+        super.rewriteClass(decl);
+        constants.pop();
+    }
+    
+    @Override
+    protected void rewriteField(ClassDecl decl, FieldDecl field) {
+        if (!field.isStatic() || !Modifiers.isFinal(field.modifiers) || !(field.initializer instanceof Literal)) {
+            return;
+        }
+        Object value = constantValue(field.type, ((Literal) field.initializer).value);
+        if (value != null) {
+            constants.peek().put(field.name, at(new Literal(value), field.initializer));
+        }
+    }
+    
+    /** The initializer converted to the field's type, or null if the field is not a constant variable. */
+    private static Object constantValue(TypeRef type, Object value) {
+        return type.isArray() ? null : castValue(type.name, value);
+    }
+    
+    @Override
+    protected Expr transform(Expr expr) {
+        switch (expr.tag) {
+            case NAME: {
+                Name name = (Name) expr;
+                Literal constant = name.slot < 0 ? constants.peek().get(name.name) : null;
+                if (constant == null) {
+                    return expr;
+                }
+                countRewrite();
+                return at(new Literal(constant.value), expr);
+            }
+            case BINARY:
+                return foldBinary((Binary) expr);
+            case UNARY: {
+                Unary unary = (Unary) expr;
+                if (unary.op.isIncrementOrDecrement() || !isConstant(unary.operand)) {
+                    return expr;
+                }
+                return fold(expr, unaryValue(unary));
+            }
+            case CAST: {
+                Cast cast = (Cast) expr;
+                if (!isConstant(cast.expression)) {
+                    return expr;
+                }
+                return fold(expr, constantValue(cast.type, ((Literal) cast.expression).value));
+            }
+            default:
+                return expr;
+        }
+    }
+    
+    private Expr foldBinary(Binary binary) {
+        if (binary.op == BinaryOp.AND || binary.op == BinaryOp.OR) {
+            // short-circuit operators are left to dead-code elimination
+            return binary;
+        }
+        if (isConstant(binary.left) && isConstant(binary.right)) {
+            return fold(binary, binaryValue(binary.op, ((Literal) binary.left).value, ((Literal) binary.right).value));
+        }
+        // (x + "a") + "b" is x + "ab" whatever the type of x, since x + "a" is already a String
+        if (binary.op == BinaryOp.ADD && isConstant(binary.right) && binary.left instanceof Binary) {
+            Binary inner = (Binary) binary.left;
+            if (inner.op == BinaryOp.ADD && isConstant(inner.right) && ((Literal) inner.right).value instanceof String) {
+                Object joined = Operators.binary(BinaryOp.ADD, ((Literal) inner.right).value, ((Literal) binary.right).value);
+                countRewrite();
+                return at(new Binary(BinaryOp.ADD, inner.left, at(new Literal(joined), inner.right)), binary);
+            }
+        }
+        return binary;
+    }
+    
+    private Expr fold(Expr expr, Object value) {
+        if (value == null) {
+            return expr;
+        }
+        countRewrite();
+        return at(new Literal(value), expr);
+    }
+    
+    /** The value of the operation, or null when it is better left to the engine. */
+    private static Object binaryValue(BinaryOp op, Object left, Object right) {
+        if ((op == BinaryOp.EQ || op == BinaryOp.NE) && !(isPrimitive(left) && isPrimitive(right))) {
+            // string identity depends on interning, which is the engine's business
+            return null;
+        }
+        try {
+            return Operators.binary(op, left, right);
+        } catch (InterpreterException | ArithmeticException e) {
+            return null;
+        }
+    }
+    
+    private static Object unaryValue(Unary unary) {
+        try {
+            return Operators.unary(unary.op, ((Literal) unary.operand).value);
+        } catch (InterpreterException e) {
+            return null;
+        }
+    }
+    
+    /** The literal converted to a type as a cast would convert it, or null when that is not folded. */
+    private static Object castValue(String type, Object value) {
+        if (value == null) {
+            return null;
+        }
+        switch (type) {
+            case "String":
+                return value instanceof String ? value : null;
+            case "boolean":
+                return value instanceof Boolean ? value : null;
+            case "char":
+            case "int":
+            case "long":
+            case "float":
+            case "double":
+                return Operators.isNumeric(value) ? Operators.cast(type, value) : null;
+            default:
+                // byte and short have no literal form of their own
+                return null;
+        }
+    }
+    
+    private static boolean isConstant(Expr expr) {
+        return expr instanceof Literal && ((Literal) expr).value != null;
+    }
+    
+    private static boolean isPrimitive(Object value) {
+        return Operators.isNumeric(value) || value instanceof Boolean;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,136 @@
+package com.example.javabuddy.compiler.optimizer;
+
+import com.example.javabuddy.compiler.ast.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drops code that can never run once conditions have been folded: the dead
+ * branch of an {@code if} on a constant, the unused side of a constant
+ * {@code ?:}, the right operand of {@code false && x} and
+ * {@code true || x}, and statements after a {@code return}, {@code throw},
+ * {@code break} or {@code continue} in the same block.
+ */
+final class DeadCodeEliminator extends OptimizationPass {
+    
+    @Override
+    String getName() {
+        return OptimizationReport.DEAD_CODE;
+    }
+    
+    @Override
+    protected Stmt transform(Stmt stmt) {
+        switch (stmt.tag) {
+            case IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                if (!(ifStmt.condition instanceof Literal) || !(((Literal) ifStmt.condition).value instanceof Boolean)) {
+                    return stmt;
+                }
+                countRewrite();
+                Stmt taken = (Boolean) ((Literal) ifStmt.condition).value ? ifStmt.thenStatement : ifStmt.elseStatement;
+                return taken != null ? taken : at(new EmptyStmt(), stmt);
+            }
+            case BLOCK:
+                return pruneBlock((Block) stmt);
+            default:
+                return stmt;
+        }
+    }
+    
+    @Override
+    protected void rewriteInPlace(List<Stmt> statements) {
+        super.rewriteInPlace(statements);
+        List<Stmt> live = liveStatements(statements);
+        if (live != statements) {
+            statements.clear();
+            statements.addAll(live);
+        }
+    }
+    
+    private Stmt pruneBlock(Block block) {
+        List<Stmt> live = liveStatements(block.statements);
+        return live == block.statements ? block : at(new Block(live), block);
+    }
+    
+    /** The statements without empty ones and without the unreachable tail, or the same list if nothing goes. */
+    private List<Stmt> liveStatements(List<Stmt> statements) {
+        List<Stmt> live = null;
+        for (int i = 0; i < statements.size(); i++) {
+            Stmt stmt = statements.get(i);
+            if (stmt.tag == Tag.EMPTY) {
+                if (live == null) {
+                    live = new ArrayList<>(statements.subList(0, i));
+                }
+                continue;
+            }
+            if (live != null) {
+                live.add(stmt);
+            }
+            if (endsAbruptly(stmt) && i + 1 < statements.size()) {
+                countRewrite();
+                if (live == null) {
+                    live = new ArrayList<>(statements.subList(0, i + 1));
+                }
+                break;
+            }
+        }
+        return live != null ? live : statements;
+    }
+    
+    private static boolean endsAbruptly(Stmt stmt) {
+        switch (stmt.tag) {
+            case RETURN:
+            case THROW:
+            case BREAK:
+            case CONTINUE:
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    @Override
+    protected Expr transform(Expr expr) {
+        switch (expr.tag) {
+            case BINARY: {
+                Binary binary = (Binary) expr;
+                if ((binary.op != BinaryOp.AND && binary.op != BinaryOp.OR) || !isBoolean(binary.left)) {
+                    return expr;
+                }
+                boolean left = (Boolean) ((Literal) binary.left).value;
+                if (left == (binary.op == BinaryOp.OR)) {
+                    // false && x and true || x never evaluate x
+                    countRewrite();
+                    return binary.left;
+                }
+                if (isBoolean(binary.right)) {
+                    countRewrite();
+                    return binary.right;
+                }
+                return expr;
+            }
+            case CONDITIONAL: {
+                Conditional conditional = (Conditional) expr;
+                // the type of ?: comes from both branches, so only literals of one type can stand in for it
+                if (!isBoolean(conditional.condition) || !(conditional.thenValue instanceof Literal)
+                        || !(conditional.elseValue instanceof Literal)) {
+                    return expr;
+                }
+                Object thenValue = ((Literal) conditional.thenValue).value;
+                Object elseValue = ((Literal) conditional.elseValue).value;
+                if (thenValue == null || elseValue == null || thenValue.getClass() != elseValue.getClass()) {
+                    return expr;
+                }
+                countRewrite();
+                return (Boolean) ((Literal) conditional.condition).value ? conditional.thenValue : conditional.elseValue;
+            }
+            default:
+                return expr;
+        }
+    }
+    
+    private static boolean isBoolean(Expr expr) {
+        return expr instanceof Literal && ((Literal) expr).value instanceof Boolean;
+    }
+}
\ No newline at end of file
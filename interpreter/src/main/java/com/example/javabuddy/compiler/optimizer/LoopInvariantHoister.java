@@ -0,0 +1,394 @@
+package com.example.javabuddy.compiler.optimizer;
+
+import com.example.javabuddy.compiler.ast.*;
+import com.example.javabuddy.compiler.runtime.Operators;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Moves arithmetic that gives the same value on every iteration out of
+ * loops: {@code i < n * 2} in a loop that never assigns {@code n} becomes a
+ * local computed once before the loop, in a fresh slot past the method's
+ * resolved frame.
+ *
+ * <p>Only expressions over literals and primitive locals that the loop does
+ * not assign are moved, and only operators that cannot throw (integer
+ * division only by a non-zero literal), so computing them before the loop,
+ * even one that never iterates, cannot change what the program does.
+ * Method calls, fields and array elements are never invariant, since the
+ * loop body may change what they read.
+ */
+final class LoopInvariantHoister extends OptimizationPass {
+    
+    private MethodDecl method;
+    /** Declared type of each slot, from the declaration most recently passed; slots are reused by later blocks. */
+    private final List<TypeRef> slotTypes = new ArrayList<>();
+    /** Blocks this pass wrapped around a loop, which a label has to move in front of. */
+    private final List<Block> hoisted = new ArrayList<>();
+    /** Declarations of the locals this pass introduced. */
+    private final List<Stmt> temporaries = new ArrayList<>();
+    
+    @Override
+    String getName() {
+        return OptimizationReport.LOOP_INVARIANTS;
+    }
+    
+    @Override
+    protected void rewriteClass(ClassDecl decl) {
+        // initializer blocks and field initializers have no frame of their own to grow
+        MethodDecl outer = method;
+        method = null;
+        super.rewriteClass(decl);
+        method = outer;
+    }
+    
+    @Override
+    protected void rewriteMethod(MethodDecl method) {
+        this.method = method;
+        slotTypes.clear();
+        for (Param param : method.params) {
+            declare(param.slot, param.varargs ? param.type.withDimensions(1) : param.type);
+        }
+        super.rewriteMethod(method);
+        this.method = null;
+    }
+    
+    private void declare(int slot, TypeRef type) {
+        while (slotTypes.size() <= slot) {
+            slotTypes.add(null);
+        }
+        slotTypes.set(slot, type);
+    }
+    
+    @Override
+    protected Stmt transform(Stmt stmt) {
+        switch (stmt.tag) {
+            case LOCAL_VAR:
+                for (VarDeclarator variable : ((LocalVarDecl) stmt).variables) {
+                    declare(variable.slot, variable.type);
+                }
+                return stmt;
+            case WHILE:
+            case DO_WHILE:
+            case FOR:
+            case FOR_EACH:
+                return method != null ? hoist(stmt) : stmt;
+            case LABELED: {
+                LabeledStmt labeled = (LabeledStmt) stmt;
+                if (!hoisted.contains(labeled.body)) {
+                    return stmt;
+                }
+                // break and continue name the loop, so the label stays on it and the declarations go before both
+                List<Stmt> statements = ((Block) labeled.body).statements;
+                Stmt loop = statements.get(statements.size() - 1);
+                List<Stmt> wrapped = new ArrayList<>(statements.subList(0, statements.size() - 1));
+                wrapped.add(at(new LabeledStmt(labeled.label, loop), labeled));
+                Block block = at(new Block(wrapped), labeled);
+                hoisted.add(block);
+                return block;
+            }
+            default:
+                return stmt;
+        }
+    }
+    
+    private Stmt hoist(Stmt loop) {
+        BitSet assigned = new BitSet();
+        new AssignedSlots(assigned).rewriteStatement(loop);
+        Hoist hoist = new Hoist(assigned);
+        Stmt rewritten;
+        switch (loop.tag) {
+            case WHILE: {
+                WhileStmt whileStmt = (WhileStmt) loop;
+                Expr condition = hoist.rewriteExpression(whileStmt.condition);
+                Stmt body = hoist.rewriteStatement(whileStmt.body);
+                rewritten = hoist.declarations.isEmpty() ? loop : at(new WhileStmt(condition, body), loop);
+                break;
+            }
+            case DO_WHILE: {
+                DoWhileStmt doWhile = (DoWhileStmt) loop;
+                Stmt body = hoist.rewriteStatement(doWhile.body);
+                Expr condition = hoist.rewriteExpression(doWhile.condition);
+                rewritten = hoist.declarations.isEmpty() ? loop : at(new DoWhileStmt(body, condition), loop);
+                break;
+            }
+            case FOR: {
+                // the initializers run once already
+                ForStmt forStmt = (ForStmt) loop;
+                Expr condition = forStmt.condition != null ? hoist.rewriteExpression(forStmt.condition) : null;
+                List<Expr> update = hoist.rewriteExpressions(forStmt.update);
+                Stmt body = hoist.rewriteStatement(forStmt.body);
+                rewritten = hoist.declarations.isEmpty() ? loop : at(new ForStmt(forStmt.init, condition, update, body), loop);
+                break;
+            }
+            default: {
+                ForEachStmt forEach = (ForEachStmt) loop;
+                Stmt body = hoist.rewriteStatement(forEach.body);
+                if (hoist.declarations.isEmpty()) {
+                    rewritten = loop;
+                } else {
+                    ForEachStmt copy = at(new ForEachStmt(forEach.variableType, forEach.variableName, forEach.iterable, body), loop);
+                    copy.slot = forEach.slot;
+                    rewritten = copy;
+                }
+                break;
+            }
+        }
+        if (rewritten == loop) {
+            return loop;
+        }
+        List<Stmt> statements = new ArrayList<Stmt>(hoist.declarations);
+        statements.add(rewritten);
+        Block block = at(new Block(statements), loop);
+        hoisted.add(block);
+        return block;
+    }
+    
+    /** Static type of an expression the loop cannot change, or null if it may change or might throw. */
+    private String invariantType(Expr expr, BitSet assigned) {
+        switch (expr.tag) {
+            case LITERAL: {
+                Object value = ((Literal) expr).value;
+                if (value instanceof Integer) return "int";
+                if (value instanceof Long) return "long";
+                if (value instanceof Float) return "float";
+                if (value instanceof Double) return "double";
+                if (value instanceof Character) return "char";
+                if (value instanceof Boolean) return "boolean";
+                return null;
+            }
+            case NAME: {
+                Name name = (Name) expr;
+                if (name.slot < 0 || assigned.get(name.slot) || name.slot >= slotTypes.size()) {
+                    return null;
+                }
+                TypeRef type = slotTypes.get(name.slot);
+                return type != null && type.isPrimitive() ? type.name : null;
+            }
+            case UNARY: {
+                Unary unary = (Unary) expr;
+                String operand = unary.op.isIncrementOrDecrement() ? null : invariantType(unary.operand, assigned);
+                if (operand == null) {
+                    return null;
+                }
+                if (unary.op == UnaryOp.NOT) {
+                    return operand.equals("boolean") ? operand : null;
+                }
+                if (operand.equals("boolean") || (unary.op == UnaryOp.BIT_NOT && !isIntegral(operand))) {
+                    return null;
+                }
+                return promote(operand);
+            }
+            case BINARY: {
+                Binary binary = (Binary) expr;
+                String left = invariantType(binary.left, assigned);
+                String right = left != null ? invariantType(binary.right, assigned) : null;
+                if (right == null) {
+                    return null;
+                }
+                String type = binaryType(binary.op, left, right);
+                if ((binary.op == BinaryOp.DIV || binary.op == BinaryOp.REM) && type != null && isIntegral(type)
+                        && !isNonZero(binary.right)) {
+                    // integer division by zero throws
+                    return null;
+                }
+                return type;
+            }
+            case CAST: {
+                Cast cast = (Cast) expr;
+                String operand = invariantType(cast.expression, assigned);
+                if (operand == null || !cast.type.isPrimitive() || operand.equals("boolean") != cast.type.name.equals("boolean")) {
+                    return null;
+                }
+                return cast.type.name;
+            }
+            default:
+                return null;
+        }
+    }
+    
+    private static String binaryType(BinaryOp op, String left, String right) {
+        boolean logical = left.equals("boolean");
+        if (logical != right.equals("boolean")) {
+            return null;
+        }
+        if (logical) {
+            switch (op) {
+                case AND:
+                case OR:
+                case BIT_AND:
+                case BIT_OR:
+                case BIT_XOR:
+                case EQ:
+                case NE:
+                    return "boolean";
+                default:
+                    return null;
+            }
+        }
+        if (op == BinaryOp.AND || op == BinaryOp.OR) {
+            return null;
+        }
+        if (op.isComparison()) {
+            return "boolean";
+        }
+        if (op.isShift()) {
+            return isIntegral(left) && isIntegral(right) ? promote(left) : null;
+        }
+        String type = promote(left, right);
+        switch (op) {
+            case BIT_AND:
+            case BIT_OR:
+            case BIT_XOR:
+                return isIntegral(type) ? type : null;
+            default:
+                return type;
+        }
+    }
+    
+    private static boolean isNonZero(Expr divisor) {
+        if (!(divisor instanceof Literal)) {
+            return false;
+        }
+        Object value = ((Literal) divisor).value;
+        return (value instanceof Integer || value instanceof Long || value instanceof Character)
+                && Operators.longValue(value) != 0;
+    }
+    
+    /** Unary numeric promotion: byte, short and char compute as int. */
+    private static String promote(String type) {
+        switch (type) {
+            case "byte":
+            case "short":
+            case "char":
+                return "int";
+            default:
+                return type;
+        }
+    }
+    
+    /** Binary numeric promotion. */
+    private static String promote(String left, String right) {
+        if (left.equals("double") || right.equals("double")) return "double";
+        if (left.equals("float") || right.equals("float")) return "float";
+        if (left.equals("long") || right.equals("long")) return "long";
+        return "int";
+    }
+    
+    private static boolean isIntegral(String type) {
+        return !type.equals("float") && !type.equals("double") && !type.equals("boolean");
+    }
+    
+    /** Replaces the largest invariant expressions in one loop with reads of locals declared before it. */
+    private final class Hoist extends TreeRewriter {
+        
+        private final BitSet assigned;
+        final List<Stmt> declarations = new ArrayList<>();
+        private final List<Stmt> moved = new ArrayList<>();
+        
+        Hoist(BitSet assigned) {
+            this.assigned = assigned;
+        }
+        
+        @Override
+        protected Stmt rewriteStatement(Stmt stmt) {
+            if (temporaries.contains(stmt)
+                    && invariantType(((LocalVarDecl) stmt).variables.get(0).initializer, assigned) != null) {
+                // hoisted out of an inner loop and invariant in this one too, so it moves on out
+                declarations.add(stmt);
+                Stmt placeholder = at(new EmptyStmt(), stmt);
+                moved.add(placeholder);
+                return placeholder;
+            }
+            return super.rewriteStatement(stmt);
+        }
+        
+        /** Drops the placeholders left where declarations moved out. */
+        @Override
+        protected Stmt transform(Stmt stmt) {
+            if (stmt.tag != Tag.BLOCK || moved.isEmpty()) {
+                return stmt;
+            }
+            List<Stmt> statements = new ArrayList<>();
+            for (Stmt child : ((Block) stmt).statements) {
+                if (!moved.contains(child)) {
+                    statements.add(child);
+                }
+            }
+            return statements.size() == ((Block) stmt).statements.size() ? stmt : at(new Block(statements), stmt);
+        }
+        
+        @Override
+        protected Expr rewriteExpression(Expr expr) {
+            if (expr.tag == Tag.NAME || expr.tag == Tag.LITERAL) {
+                return expr;
+            }
+            String type = invariantType(expr, assigned);
+            if (type == null) {
+                return super.rewriteExpression(expr);
+            }
+            int slot = method.frameSize++;
+            String name = "$invariant" + temporaries.size();
+            TypeRef typeRef = at(new TypeRef(type, null, 0), expr);
+            VarDeclarator variable = at(new VarDeclarator(name, typeRef, expr), expr);
+            variable.slot = slot;
+            LocalVarDecl declaration = at(new LocalVarDecl(typeRef, Collections.singletonList(variable)), expr);
+            declarations.add(declaration);
+            temporaries.add(declaration);
+            declare(slot, typeRef);
+            Name read = at(new Name(name), expr);
+            read.slot = slot;
+            countRewrite();
+            return read;
+        }
+    }
+    
+    /** Collects the slots a loop assigns or declares; it rewrites nothing. */
+    private static final class AssignedSlots extends TreeRewriter {
+        
+        private final BitSet assigned;
+        
+        AssignedSlots(BitSet assigned) {
+            this.assigned = assigned;
+        }
+        
+        @Override
+        protected Stmt transform(Stmt stmt) {
+            switch (stmt.tag) {
+                case LOCAL_VAR:
+                    for (VarDeclarator variable : ((LocalVarDecl) stmt).variables) {
+                        assigned.set(variable.slot);
+                    }
+                    break;
+                case FOR_EACH:
+                    assigned.set(((ForEachStmt) stmt).slot);
+                    break;
+                case TRY:
+                    for (CatchClause clause : ((TryStmt) stmt).catches) {
+                        assigned.set(clause.slot);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return stmt;
+        }
+        
+        @Override
+        protected Expr transform(Expr expr) {
+            Expr target = null;
+            if (expr.tag == Tag.ASSIGN) {
+                target = ((Assign) expr).target;
+            } else if (expr.tag == Tag.UNARY && ((Unary) expr).op.isIncrementOrDecrement()) {
+                target = ((Unary) expr).operand;
+            }
+            if (target instanceof Name && ((Name) target).slot >= 0) {
+                assigned.set(((Name) target).slot);
+            }
+            return expr;
+        }
+    }
+}
\ No newline at end of file
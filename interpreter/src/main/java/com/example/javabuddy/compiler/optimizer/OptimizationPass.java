@@ -0,0 +1,76 @@
+package com.example.javabuddy.compiler.optimizer;
+
+import com.example.javabuddy.compiler.ast.*;
+
+import java.util.List;
+
+/**
+ * One rewrite over every method body, constructor, initializer block and
+ * field initializer of a program. Passes count what they change, which the
+ * {@link Optimizer} reports per pass.
+ */
+abstract class OptimizationPass extends TreeRewriter {
+    
+    private int rewrites;
+    
+    /** Short name shown in the {@link OptimizationReport}. */
+    abstract String getName();
+    
+    int getRewriteCount() {
+        return rewrites;
+    }
+    
+    protected void countRewrite() {
+        rewrites++;
+    }
+    
+    void run(CompilationUnit unit) {
+        rewriteClasses(unit.classes);
+    }
+    
+    private void rewriteClasses(List<ClassDecl> decls) {
+        for (ClassDecl decl : decls) {
+            rewriteClass(decl);
+        }
+    }
+    
+    protected void rewriteClass(ClassDecl decl) {
+        List<FieldDecl> fields = decl.fields;
+        for (int i = 0; i < fields.size(); i++) {
+            FieldDecl field = fields.get(i);
+            if (field.initializer != null) {
+                Expr initializer = rewriteExpression(field.initializer);
+                if (initializer != field.initializer) {
+                    FieldDecl rewritten = at(new FieldDecl(field.modifiers, field.type, field.name, initializer), field);
+                    rewritten.symbol = field.symbol;
+                    field = rewritten;
+                    fields.set(i, field);
+                }
+            }
+            rewriteField(decl, field);
+        }
+        for (Block block : decl.staticInitializers) {
+            rewriteInPlace(block.statements);
+        }
+        for (Block block : decl.initializers) {
+            rewriteInPlace(block.statements);
+        }
+        for (MethodDecl constructor : decl.constructors) {
+            rewriteMethod(constructor);
+        }
+        for (MethodDecl method : decl.methods) {
+            if (method.body != null) {
+                rewriteMethod(method);
+            }
+        }
+        rewriteClasses(decl.memberClasses);
+    }
+    
+    /** Called after each field's initializer has been rewritten. */
+    protected void rewriteField(ClassDecl decl, FieldDecl field) {
+    }
+    
+    protected void rewriteMethod(MethodDecl method) {
+        rewriteInPlace(method.body.statements);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.example.javabuddy.compiler.optimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** What each optimization pass changed in one program, and how long it took. */
+public final class OptimizationReport {
+    
+    public static final String CONSTANT_FOLDING = "constant folding";
+    public static final String DEAD_CODE = "dead code";
+    public static final String LOOP_INVARIANTS = "loop invariants";
+    
+    public static final class PassResult {
+        public final String pass;
+        /** Expressions folded, branches dropped or expressions hoisted, depending on the pass. */
+        public final int rewrites;
+        public final long nanos;
+        
+        PassResult(String pass, int rewrites, long nanos) {
+            this.pass = pass;
+            this.rewrites = rewrites;
+            this.nanos = nanos;
+        }
+    }
+    
+    private final List<PassResult> passes = new ArrayList<>();
+    
+    void add(String pass, int rewrites, long nanos) {
+        passes.add(new PassResult(pass, rewrites, nanos));
+    }
+    
+    public List<PassResult> getPasses() {
+        return passes;
+    }
+    
+    /** Rewrites made by the named pass, or 0 if it did not run. */
+    public int getRewriteCount(String pass) {
+        for (PassResult result : passes) {
+            if (result.pass.equals(pass)) {
+                return result.rewrites;
+            }
+        }
+        return 0;
+    }
+    
+    public int getTotalRewriteCount() {
+        int total = 0;
+        for (PassResult result : passes) {
+            total += result.rewrites;
+        }
+        return total;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("OptimizationReport[");
+        for (int i = 0; i < passes.size(); i++) {
+            PassResult result = passes.get(i);
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(result.pass).append(": ").append(result.rewrites)
+                    .append(" in ").append(result.nanos / 1_000).append("us");
+        }
+        return text.append(']').toString();
+    }
+}
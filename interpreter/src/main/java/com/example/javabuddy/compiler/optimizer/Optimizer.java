@@ -0,0 +1,32 @@
+package com.example.javabuddy.compiler.optimizer;
+
+import com.example.javabuddy.compiler.ast.CompilationUnit;
+
+/**
+ * Rewrites a parsed, resolved program before it runs: constants are folded,
+ * branches that can never run are dropped, and invariant arithmetic is
+ * moved out of loops. Both engines run the result, so each pass only makes
+ * changes that neither the walker nor the VM can tell apart from the
+ * original program.
+ *
+ * <p>The passes replace nodes rather than modify them, except for the
+ * statement lists of bodies and the frame sizes of methods; a unit must be
+ * optimized before it is shared, as {@link com.example.javabuddy.compiler.ProgramCache}
+ * does when it parses a program.
+ */
+public final class Optimizer {
+    
+    public OptimizationReport optimize(CompilationUnit unit) {
+        OptimizationReport report = new OptimizationReport();
+        run(new ConstantFolder(), unit, report);
+        run(new DeadCodeEliminator(), unit, report);
+        run(new LoopInvariantHoister(), unit, report);
+        return report;
+    }
+    
+    private static void run(OptimizationPass pass, CompilationUnit unit, OptimizationReport report) {
+        long start = System.nanoTime();
+        pass.run(unit);
+        report.add(pass.getName(), pass.getRewriteCount(), System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,390 @@
+package com.example.javabuddy.compiler.optimizer;
+
+import com.example.javabuddy.compiler.ast.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copy-on-write walk over statements and expressions. Nodes are immutable,
+ * so a node whose children changed is rebuilt and everything else is
+ * returned as is; the slots and call-site numbers assigned by the local
+ * resolver are carried over to the copies.
+ *
+ * <p>Subclasses rewrite bottom-up by overriding the {@code transform} hooks,
+ * which see each node after its children, or top-down by overriding
+ * {@link #rewriteExpression} itself.
+ */
+abstract class TreeRewriter {
+    
+    protected Stmt transform(Stmt stmt) {
+        return stmt;
+    }
+    
+    protected Expr transform(Expr expr) {
+        return expr;
+    }
+    
+    /** Rewrites a method body or initializer block, whose list is owned by a declaration that cannot be rebuilt. */
+    protected void rewriteInPlace(List<Stmt> statements) {
+        for (int i = 0; i < statements.size(); i++) {
+            statements.set(i, rewriteStatement(statements.get(i)));
+        }
+    }
+    
+    // ---------------------------------------------------------------------
+    // Statements
+    // ---------------------------------------------------------------------
+    
+    protected Stmt rewriteStatement(Stmt stmt) {
+        return transform(rebuild(stmt));
+    }
+    
+    private Stmt rebuild(Stmt stmt) {
+        switch (stmt.tag) {
+            case BLOCK:
+                return rewriteBlock((Block) stmt);
+            case LOCAL_VAR: {
+                LocalVarDecl decl = (LocalVarDecl) stmt;
+                List<VarDeclarator> variables = rewriteDeclarators(decl.variables);
+                return variables == decl.variables ? decl : at(new LocalVarDecl(decl.type, variables), decl);
+            }
+            case EXPRESSION_STATEMENT: {
+                ExpressionStmt statement = (ExpressionStmt) stmt;
+                Expr expression = rewriteExpression(statement.expression);
+                return expression == statement.expression ? statement : at(new ExpressionStmt(expression), statement);
+            }
+            case IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                Expr condition = rewriteExpression(ifStmt.condition);
+                Stmt thenStatement = rewriteStatement(ifStmt.thenStatement);
+                Stmt elseStatement = ifStmt.elseStatement != null ? rewriteStatement(ifStmt.elseStatement) : null;
+                if (condition == ifStmt.condition && thenStatement == ifStmt.thenStatement
+                        && elseStatement == ifStmt.elseStatement) {
+                    return ifStmt;
+                }
+                return at(new IfStmt(condition, thenStatement, elseStatement), ifStmt);
+            }
+            case WHILE: {
+                WhileStmt loop = (WhileStmt) stmt;
+                Expr condition = rewriteExpression(loop.condition);
+                Stmt body = rewriteStatement(loop.body);
+                if (condition == loop.condition && body == loop.body) {
+                    return loop;
+                }
+                return at(new WhileStmt(condition, body), loop);
+            }
+            case DO_WHILE: {
+                DoWhileStmt loop = (DoWhileStmt) stmt;
+                Stmt body = rewriteStatement(loop.body);
+                Expr condition = rewriteExpression(loop.condition);
+                if (condition == loop.condition && body == loop.body) {
+                    return loop;
+                }
+                return at(new DoWhileStmt(body, condition), loop);
+            }
+            case FOR: {
+                ForStmt loop = (ForStmt) stmt;
+                List<Stmt> init = rewriteStatements(loop.init);
+                Expr condition = loop.condition != null ? rewriteExpression(loop.condition) : null;
+                List<Expr> update = rewriteExpressions(loop.update);
+                Stmt body = rewriteStatement(loop.body);
+                if (init == loop.init && condition == loop.condition && update == loop.update && body == loop.body) {
+                    return loop;
+                }
+                return at(new ForStmt(init, condition, update, body), loop);
+            }
+            case FOR_EACH: {
+                ForEachStmt loop = (ForEachStmt) stmt;
+                Expr iterable = rewriteExpression(loop.iterable);
+                Stmt body = rewriteStatement(loop.body);
+                if (iterable == loop.iterable && body == loop.body) {
+                    return loop;
+                }
+                ForEachStmt copy = at(new ForEachStmt(loop.variableType, loop.variableName, iterable, body), loop);
+                copy.slot = loop.slot;
+                return copy;
+            }
+            case SWITCH:
+                return rewriteSwitch((SwitchStmt) stmt);
+            case RETURN: {
+                ReturnStmt returnStmt = (ReturnStmt) stmt;
+                if (returnStmt.value == null) {
+                    return returnStmt;
+                }
+                Expr value = rewriteExpression(returnStmt.value);
+                return value == returnStmt.value ? returnStmt : at(new ReturnStmt(value), returnStmt);
+            }
+            case THROW: {
+                ThrowStmt throwStmt = (ThrowStmt) stmt;
+                Expr exception = rewriteExpression(throwStmt.exception);
+                return exception == throwStmt.exception ? throwStmt : at(new ThrowStmt(exception), throwStmt);
+            }
+            case TRY:
+                return rewriteTry((TryStmt) stmt);
+            case LABELED: {
+                LabeledStmt labeled = (LabeledStmt) stmt;
+                Stmt body = rewriteStatement(labeled.body);
+                return body == labeled.body ? labeled : at(new LabeledStmt(labeled.label, body), labeled);
+            }
+            default:
+                return stmt;
+        }
+    }
+    
+    protected List<Stmt> rewriteStatements(List<Stmt> statements) {
+        List<Stmt> rewritten = null;
+        for (int i = 0; i < statements.size(); i++) {
+            Stmt stmt = statements.get(i);
+            Stmt result = rewriteStatement(stmt);
+            if (result != stmt && rewritten == null) {
+                rewritten = new ArrayList<>(statements.subList(0, i));
+            }
+            if (rewritten != null) {
+                rewritten.add(result);
+            }
+        }
+        return rewritten != null ? rewritten : statements;
+    }
+    
+    private Block rewriteBlock(Block block) {
+        List<Stmt> statements = rewriteStatements(block.statements);
+        return statements == block.statements ? block : at(new Block(statements), block);
+    }
+    
+    private List<VarDeclarator> rewriteDeclarators(List<VarDeclarator> variables) {
+        List<VarDeclarator> rewritten = null;
+        for (int i = 0; i < variables.size(); i++) {
+            VarDeclarator variable = variables.get(i);
+            VarDeclarator result = variable;
+            if (variable.initializer != null) {
+                Expr initializer = rewriteExpression(variable.initializer);
+                if (initializer != variable.initializer) {
+                    result = at(new VarDeclarator(variable.name, variable.type, initializer), variable);
+                    result.slot = variable.slot;
+                }
+            }
+            if (result != variable && rewritten == null) {
+                rewritten = new ArrayList<>(variables.subList(0, i));
+            }
+            if (rewritten != null) {
+                rewritten.add(result);
+            }
+        }
+        return rewritten != null ? rewritten : variables;
+    }
+    
+    private Stmt rewriteSwitch(SwitchStmt switchStmt) {
+        Expr selector = rewriteExpression(switchStmt.selector);
+        List<SwitchCase> cases = null;
+        for (int i = 0; i < switchStmt.cases.size(); i++) {
+            SwitchCase switchCase = switchStmt.cases.get(i);
+            List<Expr> labels = rewriteExpressions(switchCase.labels);
+            List<Stmt> body = rewriteStatements(switchCase.body);
+            SwitchCase result = labels == switchCase.labels && body == switchCase.body
+                    ? switchCase
+                    : at(new SwitchCase(labels, body, switchCase.arrow), switchCase);
+            if (result != switchCase && cases == null) {
+                cases = new ArrayList<>(switchStmt.cases.subList(0, i));
+            }
+            if (cases != null) {
+                cases.add(result);
+            }
+        }
+        if (selector == switchStmt.selector && cases == null) {
+            return switchStmt;
+        }
+        return at(new SwitchStmt(selector, cases != null ? cases : switchStmt.cases), switchStmt);
+    }
+    
+    private Stmt rewriteTry(TryStmt tryStmt) {
+        boolean changed = false;
+        List<LocalVarDecl> resources = new ArrayList<>(tryStmt.resources.size());
+        for (LocalVarDecl resource : tryStmt.resources) {
+            LocalVarDecl result = (LocalVarDecl) rewriteStatement(resource);
+            changed |= result != resource;
+            resources.add(result);
+        }
+        Block body = rewriteBlock(tryStmt.body);
+        List<CatchClause> catches = new ArrayList<>(tryStmt.catches.size());
+        for (CatchClause clause : tryStmt.catches) {
+            Block clauseBody = rewriteBlock(clause.body);
+            CatchClause result = clause;
+            if (clauseBody != clause.body) {
+                result = at(new CatchClause(clause.types, clause.name, clauseBody), clause);
+                result.slot = clause.slot;
+            }
+            changed |= result != clause;
+            catches.add(result);
+        }
+        Block finallyBlock = tryStmt.finallyBlock != null ? rewriteBlock(tryStmt.finallyBlock) : null;
+        if (!changed && body == tryStmt.body && finallyBlock == tryStmt.finallyBlock) {
+            return tryStmt;
+        }
+        return at(new TryStmt(resources, body, catches, finallyBlock), tryStmt);
+    }
+    
+    // ---------------------------------------------------------------------
+    // Expressions
+    // ---------------------------------------------------------------------
+    
+    protected Expr rewriteExpression(Expr expr) {
+        return transform(rebuild(expr));
+    }
+    
+    private Expr rebuild(Expr expr) {
+        switch (expr.tag) {
+            case FIELD_ACCESS: {
+                FieldAccess access = (FieldAccess) expr;
+                Expr target = rewriteExpression(access.target);
+                return target == access.target ? access : copy(access, target);
+            }
+            case METHOD_CALL: {
+                MethodCall call = (MethodCall) expr;
+                Expr target = call.target != null ? rewriteExpression(call.target) : null;
+                List<Expr> arguments = rewriteExpressions(call.arguments);
+                if (target == call.target && arguments == call.arguments) {
+                    return call;
+                }
+                MethodCall copy = at(new MethodCall(target, call.name, arguments), call);
+                copy.site = call.site;
+                copy.symbol = call.symbol;
+                return copy;
+            }
+            case NEW_OBJECT: {
+                NewObject creation = (NewObject) expr;
+                List<Expr> arguments = rewriteExpressions(creation.arguments);
+                return arguments == creation.arguments
+                        ? creation
+                        : at(new NewObject(creation.type, arguments), creation);
+            }
+            case NEW_ARRAY: {
+                NewArray creation = (NewArray) expr;
+                List<Expr> dimensions = rewriteExpressions(creation.dimensions);
+                ArrayInit initializer = creation.initializer != null ? rewriteArrayInit(creation.initializer) : null;
+                if (dimensions == creation.dimensions && initializer == creation.initializer) {
+                    return creation;
+                }
+                return at(new NewArray(creation.elementType, dimensions, creation.totalDimensions, initializer), creation);
+            }
+            case ARRAY_INIT:
+                return rewriteArrayInit((ArrayInit) expr);
+            case ARRAY_ACCESS: {
+                ArrayAccess access = (ArrayAccess) expr;
+                Expr array = rewriteExpression(access.array);
+                Expr index = rewriteExpression(access.index);
+                if (array == access.array && index == access.index) {
+                    return access;
+                }
+                return at(new ArrayAccess(array, index), access);
+            }
+            case UNARY: {
+                Unary unary = (Unary) expr;
+                Expr operand = unary.op.isIncrementOrDecrement()
+                        ? rewriteTarget(unary.operand)
+                        : rewriteExpression(unary.operand);
+                return operand == unary.operand ? unary : at(new Unary(unary.op, operand), unary);
+            }
+            case BINARY: {
+                Binary binary = (Binary) expr;
+                Expr left = rewriteExpression(binary.left);
+                Expr right = rewriteExpression(binary.right);
+                if (left == binary.left && right == binary.right) {
+                    return binary;
+                }
+                return at(new Binary(binary.op, left, right), binary);
+            }
+            case ASSIGN: {
+                Assign assign = (Assign) expr;
+                Expr target = rewriteTarget(assign.target);
+                Expr value = rewriteExpression(assign.value);
+                if (target == assign.target && value == assign.value) {
+                    return assign;
+                }
+                return at(new Assign(target, assign.op, value), assign);
+            }
+            case CONDITIONAL: {
+                Conditional conditional = (Conditional) expr;
+                Expr condition = rewriteExpression(conditional.condition);
+                Expr thenValue = rewriteExpression(conditional.thenValue);
+                Expr elseValue = rewriteExpression(conditional.elseValue);
+                if (condition == conditional.condition && thenValue == conditional.thenValue
+                        && elseValue == conditional.elseValue) {
+                    return conditional;
+                }
+                return at(new Conditional(condition, thenValue, elseValue), conditional);
+            }
+            case CAST: {
+                Cast cast = (Cast) expr;
+                Expr expression = rewriteExpression(cast.expression);
+                return expression == cast.expression ? cast : at(new Cast(cast.type, expression), cast);
+            }
+            case INSTANCE_OF: {
+                InstanceOf test = (InstanceOf) expr;
+                Expr expression = rewriteExpression(test.expression);
+                return expression == test.expression ? test : at(new InstanceOf(expression, test.type), test);
+            }
+            default:
+                return expr;
+        }
+    }
+    
+    protected List<Expr> rewriteExpressions(List<Expr> expressions) {
+        List<Expr> rewritten = null;
+        for (int i = 0; i < expressions.size(); i++) {
+            Expr expr = expressions.get(i);
+            Expr result = rewriteExpression(expr);
+            if (result != expr && rewritten == null) {
+                rewritten = new ArrayList<>(expressions.subList(0, i));
+            }
+            if (rewritten != null) {
+                rewritten.add(result);
+            }
+        }
+        return rewritten != null ? rewritten : expressions;
+    }
+    
+    private ArrayInit rewriteArrayInit(ArrayInit init) {
+        List<Expr> elements = rewriteExpressions(init.elements);
+        return elements == init.elements ? init : at(new ArrayInit(elements), init);
+    }
+    
+    /**
+     * The target of an assignment or of {@code ++}/{@code --} is a variable,
+     * not a value, so only the expressions inside it are rewritten.
+     */
+    private Expr rewriteTarget(Expr target) {
+        switch (target.tag) {
+            case FIELD_ACCESS: {
+                FieldAccess access = (FieldAccess) target;
+                Expr object = rewriteExpression(access.target);
+                return object == access.target ? access : copy(access, object);
+            }
+            case ARRAY_ACCESS: {
+                ArrayAccess access = (ArrayAccess) target;
+                Expr array = rewriteExpression(access.array);
+                Expr index = rewriteExpression(access.index);
+                if (array == access.array && index == access.index) {
+                    return access;
+                }
+                return at(new ArrayAccess(array, index), access);
+            }
+            default:
+                return target;
+        }
+    }
+    
+    /** The same field of another target. */
+    private static FieldAccess copy(FieldAccess access, Expr target) {
+        FieldAccess copy = at(new FieldAccess(target, access.name), access);
+        copy.symbol = access.symbol;
+        return copy;
+    }
+    
+    /** Gives a rebuilt or replacement node the source position of the node it stands for. */
+    static <T extends Node> T at(T node, Node original) {
+        node.line = original.line;
+        node.column = original.column;
+        return node;
+    }
+}
\ No newline at end of file
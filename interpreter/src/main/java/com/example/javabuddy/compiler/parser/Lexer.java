@@ -0,0 +1,402 @@
+package com.example.javabuddy.compiler.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass scanner that turns Java source into tokens.
+ * Comments and whitespace are skipped; every token remembers its line,
+ * column and source offsets so later stages can report positions.
+ */
+public class Lexer {
+    
+    private final String source;
+    private final int length;
+    private int pos = 0;
+    private int line = 1;
+    private int lineStart = 0;
+    
+    public Lexer(String source) {
+        this.source = source;
+        this.length = source.length();
+    }
+    
+    /**
+     * Starts scanning at {@code offset}, which is at the given 1-based line and
+     * column. The offset must not be inside a token or comment; the end of
+     * any earlier token is a safe place to resume.
+     */
+    public Lexer(String source, int offset, int line, int column) {
+        this(source);
+        this.pos = offset;
+        this.line = line;
+        this.lineStart = offset - (column - 1);
+    }
+    
+    public List<Token> tokenize() {
+        List<Token> tokens = new ArrayList<>(length / 4 + 16);
+        while (true) {
+            Token token = nextToken();
+            tokens.add(token);
+            if (token.is(TokenType.EOF)) {
+                return tokens;
+            }
+        }
+    }
+    
+    public Token nextToken() {
+        skipWhitespaceAndComments();
+        
+        int start = pos;
+        int startLine = line;
+        int startColumn = pos - lineStart + 1;
+        
+        if (pos >= length) {
+            return new Token(TokenType.EOF, "", null, startLine, startColumn, start, start);
+        }
+        
+        char c = source.charAt(pos);
+        
+        if (Character.isJavaIdentifierStart(c)) {
+            while (pos < length && Character.isJavaIdentifierPart(source.charAt(pos))) {
+                pos++;
+            }
+            String word = source.substring(start, pos);
+            TokenType keyword = TokenType.keyword(word);
+            TokenType type = keyword != null ? keyword : TokenType.IDENTIFIER;
+            return new Token(type, word, null, startLine, startColumn, start, pos);
+        }
+        
+        if (isDigit(c) || (c == '.' && pos + 1 < length && isDigit(source.charAt(pos + 1)))) {
+            return scanNumber(start, startLine, startColumn);
+        }
+        
+        if (c == '"') {
+            return scanString(start, startLine, startColumn);
+        }
+        
+        if (c == '\'') {
+            return scanChar(start, startLine, startColumn);
+        }
+        
+        TokenType operator = scanOperator();
+        if (operator == null) {
+            throw new ParseException("Illegal character '" + c + "'", startLine, startColumn);
+        }
+        return new Token(operator, operator.getText(), null, startLine, startColumn, start, pos);
+    }
+    
+    private void skipWhitespaceAndComments() {
+        while (pos < length) {
+            char c = source.charAt(pos);
+            if (c == '\n') {
+                pos++;
+                line++;
+                lineStart = pos;
+            } else if (c == ' ' || c == '\t' || c == '\r' || c == '\f') {
+                pos++;
+            } else if (c == '/' && pos + 1 < length && source.charAt(pos + 1) == '/') {
+                while (pos < length && source.charAt(pos) != '\n') {
+                    pos++;
+                }
+            } else if (c == '/' && pos + 1 < length && source.charAt(pos + 1) == '*') {
+                int commentLine = line;
+                int commentColumn = pos - lineStart + 1;
+                pos += 2;
+                while (true) {
+                    if (pos >= length) {
+                        throw new ParseException("Unterminated comment", commentLine, commentColumn);
+                    }
+                    char ch = source.charAt(pos);
+                    if (ch == '*' && pos + 1 < length && source.charAt(pos + 1) == '/') {
+                        pos += 2;
+                        break;
+                    }
+                    if (ch == '\n') {
+                        line++;
+                        lineStart = pos + 1;
+                    }
+                    pos++;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+    
+    private Token scanNumber(int start, int startLine, int startColumn) {
+        boolean floating = false;
+        int radix = 10;
+        
+        if (source.charAt(pos) == '0' && pos + 1 < length
+                && (source.charAt(pos + 1) == 'x' || source.charAt(pos + 1) == 'X')) {
+            radix = 16;
+            pos += 2;
+            while (pos < length && (Character.digit(source.charAt(pos), 16) >= 0 || source.charAt(pos) == '_')) {
+                pos++;
+            }
+        } else if (source.charAt(pos) == '0' && pos + 1 < length
+                && (source.charAt(pos + 1) == 'b' || source.charAt(pos + 1) == 'B')) {
+            radix = 2;
+            pos += 2;
+            while (pos < length && (source.charAt(pos) == '0' || source.charAt(pos) == '1' || source.charAt(pos) == '_')) {
+                pos++;
+            }
+        } else {
+            skipDigits();
+            if (pos < length && source.charAt(pos) == '.'
+                    && !(pos + 1 < length && source.charAt(pos + 1) == '.')
+                    && !(pos + 1 < length && Character.isJavaIdentifierStart(source.charAt(pos + 1)))) {
+                floating = true;
+                pos++;
+                skipDigits();
+            }
+            if (pos < length && (source.charAt(pos) == 'e' || source.charAt(pos) == 'E')) {
+                floating = true;
+                pos++;
+                if (pos < length && (source.charAt(pos) == '+' || source.charAt(pos) == '-')) {
+                    pos++;
+                }
+                skipDigits();
+            }
+        }
+        
+        char suffix = pos < length ? Character.toLowerCase(source.charAt(pos)) : '\0';
+        String digits = source.substring(start, pos).replace("_", "");
+        
+        try {
+            if (suffix == 'l') {
+                pos++;
+                return numberToken(TokenType.LONG_LITERAL, parseInteger(digits, radix, true), start, startLine, startColumn);
+            }
+            if (suffix == 'f' && radix == 10) {
+                pos++;
+                return numberToken(TokenType.FLOAT_LITERAL, Float.parseFloat(digits), start, startLine, startColumn);
+            }
+            if (suffix == 'd' && radix == 10) {
+                pos++;
+                return numberToken(TokenType.DOUBLE_LITERAL, Double.parseDouble(digits), start, startLine, startColumn);
+            }
+            if (floating) {
+                return numberToken(TokenType.DOUBLE_LITERAL, Double.parseDouble(digits), start, startLine, startColumn);
+            }
+            long value = parseInteger(digits, radix, false);
+            return numberToken(TokenType.INT_LITERAL, (int) value, start, startLine, startColumn);
+        } catch (NumberFormatException e) {
+            throw new ParseException("Malformed number '" + source.substring(start, pos) + "'", startLine, startColumn);
+        }
+    }
+    
+    private long parseInteger(String digits, int radix, boolean isLong) {
+        String body = radix == 10 ? digits : digits.substring(2);
+        if (radix == 10 && body.length() > 1 && body.charAt(0) == '0') {
+            radix = 8;
+        }
+        if (radix == 10) {
+            long value = Long.parseLong(body);
+            // 2147483648 is only legal as the operand of unary minus, which the parser folds
+            if (!isLong && value > 2147483648L) {
+                throw new NumberFormatException(digits);
+            }
+            return value;
+        }
+        long value = Long.parseUnsignedLong(body, radix);
+        if (!isLong && (value >>> 32) != 0) {
+            throw new NumberFormatException(digits);
+        }
+        return value;
+    }
+    
+    private Token numberToken(TokenType type, Object value, int start, int startLine, int startColumn) {
+        if (pos < length && Character.isJavaIdentifierPart(source.charAt(pos))) {
+            throw new ParseException("Malformed number '" + source.substring(start, pos + 1) + "'", startLine, startColumn);
+        }
+        return new Token(type, source.substring(start, pos), value, startLine, startColumn, start, pos);
+    }
+    
+    private void skipDigits() {
+        while (pos < length && (isDigit(source.charAt(pos)) || source.charAt(pos) == '_')) {
+            pos++;
+        }
+    }
+    
+    private Token scanString(int start, int startLine, int startColumn) {
+        StringBuilder value = new StringBuilder();
+        pos++; // opening quote
+        while (true) {
+            if (pos >= length || source.charAt(pos) == '\n') {
+                throw new ParseException("Unterminated string literal", startLine, startColumn);
+            }
+            char c = source.charAt(pos);
+            if (c == '"') {
+                pos++;
+                break;
+            }
+            if (c == '\\') {
+                value.append(scanEscape());
+            } else {
+                value.append(c);
+                pos++;
+            }
+        }
+        // Java interns string literals, so "a" == "a" holds between literals
+        String literal = value.toString().intern();
+        return new Token(TokenType.STRING_LITERAL, source.substring(start, pos), literal, startLine, startColumn, start, pos);
+    }
+    
+    private Token scanChar(int start, int startLine, int startColumn) {
+        pos++; // opening quote
+        if (pos >= length || source.charAt(pos) == '\'' || source.charAt(pos) == '\n') {
+            throw new ParseException("Empty character literal", startLine, startColumn);
+        }
+        char value;
+        if (source.charAt(pos) == '\\') {
+            value = scanEscape();
+        } else {
+            value = source.charAt(pos++);
+        }
+        if (pos >= length || source.charAt(pos) != '\'') {
+            throw new ParseException("Unterminated character literal", startLine, startColumn);
+        }
+        pos++;
+        return new Token(TokenType.CHAR_LITERAL, source.substring(start, pos), value, startLine, startColumn, start, pos);
+    }
+    
+    private char scanEscape() {
+        int escapeColumn = pos - lineStart + 1;
+        pos++; // backslash
+        if (pos >= length) {
+            throw new ParseException("Illegal escape sequence", line, escapeColumn);
+        }
+        char c = source.charAt(pos++);
+        switch (c) {
+            case 'n': return '\n';
+            case 't': return '\t';
+            case 'b': return '\b';
+            case 'r': return '\r';
+            case 'f': return '\f';
+            case 's': return ' ';
+            case '\'': return '\'';
+            case '"': return '"';
+            case '\\': return '\\';
+            case 'u': {
+                while (pos < length && source.charAt(pos) == 'u') {
+                    pos++;
+                }
+                if (pos + 4 > length) {
+                    throw new ParseException("Illegal unicode escape", line, escapeColumn);
+                }
+                try {
+                    char value = (char) Integer.parseInt(source.substring(pos, pos + 4), 16);
+                    pos += 4;
+                    return value;
+                } catch (NumberFormatException e) {
+                    throw new ParseException("Illegal unicode escape", line, escapeColumn);
+                }
+            }
+            default:
+                if (c >= '0' && c <= '7') {
+                    int value = c - '0';
+                    int max = c <= '3' ? 2 : 1;
+                    for (int i = 0; i < max && pos < length && source.charAt(pos) >= '0' && source.charAt(pos) <= '7'; i++) {
+                        value = value * 8 + (source.charAt(pos++) - '0');
+                    }
+                    return (char) value;
+                }
+                throw new ParseException("Illegal escape sequence '\\" + c + "'", line, escapeColumn);
+        }
+    }
+    
+    private TokenType scanOperator() {
+        char c = source.charAt(pos);
+        char next = pos + 1 < length ? source.charAt(pos + 1) : '\0';
+        char third = pos + 2 < length ? source.charAt(pos + 2) : '\0';
+        
+        switch (c) {
+            case '(': pos++; return TokenType.LPAREN;
+            case ')': pos++; return TokenType.RPAREN;
+            case '{': pos++; return TokenType.LBRACE;
+            case '}': pos++; return TokenType.RBRACE;
+            case '[': pos++; return TokenType.LBRACKET;
+            case ']': pos++; return TokenType.RBRACKET;
+            case ';': pos++; return TokenType.SEMICOLON;
+            case ',': pos++; return TokenType.COMMA;
+            case '@': pos++; return TokenType.AT;
+            case '~': pos++; return TokenType.TILDE;
+            case '?': pos++; return TokenType.QUESTION;
+            case '.':
+                if (next == '.' && third == '.') { pos += 3; return TokenType.ELLIPSIS; }
+                pos++;
+                return TokenType.DOT;
+            case ':':
+                if (next == ':') { pos += 2; return TokenType.COLON_COLON; }
+                pos++;
+                return TokenType.COLON;
+            case '=':
+                if (next == '=') { pos += 2; return TokenType.EQ_EQ; }
+                pos++;
+                return TokenType.ASSIGN;
+            case '!':
+                if (next == '=') { pos += 2; return TokenType.BANG_EQ; }
+                pos++;
+                return TokenType.BANG;
+            case '+':
+                if (next == '+') { pos += 2; return TokenType.PLUS_PLUS; }
+                if (next == '=') { pos += 2; return TokenType.PLUS_EQ; }
+                pos++;
+                return TokenType.PLUS;
+            case '-':
+                if (next == '-') { pos += 2; return TokenType.MINUS_MINUS; }
+                if (next == '=') { pos += 2; return TokenType.MINUS_EQ; }
+                if (next == '>') { pos += 2; return TokenType.ARROW; }
+                pos++;
+                return TokenType.MINUS;
+            case '*':
+                if (next == '=') { pos += 2; return TokenType.STAR_EQ; }
+                pos++;
+                return TokenType.STAR;
+            case '/':
+                if (next == '=') { pos += 2; return TokenType.SLASH_EQ; }
+                pos++;
+                return TokenType.SLASH;
+            case '%':
+                if (next == '=') { pos += 2; return TokenType.PERCENT_EQ; }
+                pos++;
+                return TokenType.PERCENT;
+            case '^':
+                if (next == '=') { pos += 2; return TokenType.CARET_EQ; }
+                pos++;
+                return TokenType.CARET;
+            case '&':
+                if (next == '&') { pos += 2; return TokenType.AMP_AMP; }
+                if (next == '=') { pos += 2; return TokenType.AMP_EQ; }
+                pos++;
+                return TokenType.AMP;
+            case '|':
+                if (next == '|') { pos += 2; return TokenType.BAR_BAR; }
+                if (next == '=') { pos += 2; return TokenType.BAR_EQ; }
+                pos++;
+                return TokenType.BAR;
+            case '<':
+                if (next == '<') {
+                    if (third == '=') { pos += 3; return TokenType.LT_LT_EQ; }
+                    pos += 2;
+                    return TokenType.LT_LT;
+                }
+                if (next == '=') { pos += 2; return TokenType.LT_EQ; }
+                pos++;
+                return TokenType.LT;
+            case '>':
+                // '>' is always scanned alone so that nested generics like List<List<String>>
+                // close properly; the parser reassembles >>, >>>, >= and friends from adjacent tokens
+                pos++;
+                return TokenType.GT;
+            default:
+                return null;
+        }
+    }
+    
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,386 @@
+package com.example.javabuddy.compiler.parser;
+
+import com.example.javabuddy.compiler.ast.*;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Assigns every local variable a fixed slot in its method's frame and points
+ * each {@link Name} that reads one at that slot, so engines index an array
+ * instead of looking names up. Slots of a block's variables are reused once
+ * the block ends. Names that are not locals keep slot -1. Instance methods,
+ * constructors and instance initializers keep slot 0 for {@code this}.
+ *
+ * <p>Method calls are numbered as well, so an engine can keep per-run state
+ * for each call site, such as an inline cache, in a plain array. So are
+ * methods and constructors, for per-method state such as call counters.
+ *
+ * <p>Every identifier is interned into the unit's {@link SymbolTable} on the
+ * way, and scopes are resolved by symbol too: a table from symbol to the
+ * innermost slot declared for it, undone as scopes close.
+ */
+class LocalResolver {
+    
+    private static class Scope {
+        final int base;
+        /** Number of declarations made before the scope opened. */
+        final int mark;
+        
+        Scope(int base, int mark) {
+            this.base = base;
+            this.mark = mark;
+        }
+    }
+    
+    private final ArrayDeque<Scope> scopes = new ArrayDeque<>();
+    private SymbolTable symbols;
+    /** Slot each symbol is declared in by the innermost scope that has it, or -1. */
+    private int[] slots = new int[0];
+    /** Symbols declared in the open scopes, and the slot each one hid, in declaration order. */
+    private int[] declared = new int[16];
+    private int[] hidden = new int[16];
+    private int declaredCount;
+    private int nextSlot;
+    private int frameSize;
+    private int callSites;
+    private int methods;
+    
+    void resolve(CompilationUnit unit) {
+        symbols = unit.symbols;
+        resolveClasses(unit.classes);
+        unit.callSiteCount = callSites;
+        unit.methodCount = methods;
+    }
+    
+    private void resolveClasses(List<ClassDecl> decls) {
+        for (ClassDecl decl : decls) {
+            decl.symbol = intern(decl.name);
+            if (decl.superclass != null) {
+                resolveType(decl.superclass);
+            }
+            for (TypeRef implemented : decl.interfaces) {
+                resolveType(implemented);
+            }
+            for (MethodDecl method : decl.methods) {
+                resolveMethod(method);
+            }
+            for (MethodDecl constructor : decl.constructors) {
+                resolveMethod(constructor);
+            }
+            int initializerFrameSize = 0;
+            for (FieldDecl field : decl.fields) {
+                field.symbol = intern(field.name);
+                if (field.initializer != null) {
+                    beginFrame(!field.isStatic());
+                    resolveExpression(field.initializer);
+                }
+            }
+            for (Block block : decl.staticInitializers) {
+                beginFrame(false);
+                resolveStatement(block);
+                initializerFrameSize = Math.max(initializerFrameSize, frameSize);
+            }
+            for (Block block : decl.initializers) {
+                beginFrame(true);
+                resolveStatement(block);
+                initializerFrameSize = Math.max(initializerFrameSize, frameSize);
+            }
+            decl.initializerFrameSize = initializerFrameSize;
+            resolveClasses(decl.memberClasses);
+        }
+    }
+    
+    private void resolveMethod(MethodDecl method) {
+        method.symbol = intern(method.name);
+        method.index = methods++;
+        beginFrame(!method.isStatic());
+        for (Param param : method.params) {
+            resolveType(param.type);
+            param.slot = declare(param.name);
+        }
+        if (method.body != null) {
+            resolveStatement(method.body);
+        }
+        method.frameSize = frameSize;
+    }
+    
+    private void beginFrame(boolean hasThis) {
+        int base = hasThis ? 1 : 0;
+        undeclare(0);
+        scopes.clear();
+        scopes.push(new Scope(base, 0));
+        nextSlot = base;
+        frameSize = base;
+    }
+    
+    // ---------------------------------------------------------------------
+    // Statements
+    // ---------------------------------------------------------------------
+    
+    private void resolveStatement(Stmt stmt) {
+        switch (stmt.tag) {
+            case BLOCK:
+                openScope();
+                resolveStatements(((Block) stmt).statements);
+                closeScope();
+                break;
+            case LOCAL_VAR:
+                resolveDeclarators(((LocalVarDecl) stmt).variables);
+                break;
+            case EXPRESSION_STATEMENT:
+                resolveExpression(((ExpressionStmt) stmt).expression);
+                break;
+            case IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                resolveExpression(ifStmt.condition);
+                resolveNested(ifStmt.thenStatement);
+                if (ifStmt.elseStatement != null) {
+                    resolveNested(ifStmt.elseStatement);
+                }
+                break;
+            }
+            case WHILE:
+                resolveExpression(((WhileStmt) stmt).condition);
+                resolveNested(((WhileStmt) stmt).body);
+                break;
+            case DO_WHILE:
+                resolveNested(((DoWhileStmt) stmt).body);
+                resolveExpression(((DoWhileStmt) stmt).condition);
+                break;
+            case FOR: {
+                ForStmt loop = (ForStmt) stmt;
+                openScope();
+                resolveStatements(loop.init);
+                if (loop.condition != null) {
+                    resolveExpression(loop.condition);
+                }
+                resolveExpressions(loop.update);
+                resolveNested(loop.body);
+                closeScope();
+                break;
+            }
+            case FOR_EACH: {
+                ForEachStmt loop = (ForEachStmt) stmt;
+                resolveExpression(loop.iterable);
+                openScope();
+                loop.slot = declare(loop.variableName);
+                resolveNested(loop.body);
+                closeScope();
+                break;
+            }
+            case SWITCH: {
+                SwitchStmt switchStmt = (SwitchStmt) stmt;
+                resolveExpression(switchStmt.selector);
+                // colon cases share one scope, as in Java; arrow cases each get their own
+                openScope();
+                for (SwitchCase switchCase : switchStmt.cases) {
+                    resolveExpressions(switchCase.labels);
+                    if (switchCase.arrow) {
+                        openScope();
+                    }
+                    resolveStatements(switchCase.body);
+                    if (switchCase.arrow) {
+                        closeScope();
+                    }
+                }
+                closeScope();
+                break;
+            }
+            case RETURN:
+                if (((ReturnStmt) stmt).value != null) {
+                    resolveExpression(((ReturnStmt) stmt).value);
+                }
+                break;
+            case THROW:
+                resolveExpression(((ThrowStmt) stmt).exception);
+                break;
+            case TRY: {
+                TryStmt tryStmt = (TryStmt) stmt;
+                openScope();
+                for (LocalVarDecl resource : tryStmt.resources) {
+                    resolveDeclarators(resource.variables);
+                }
+                resolveStatement(tryStmt.body);
+                closeScope();
+                for (CatchClause clause : tryStmt.catches) {
+                    for (TypeRef type : clause.types) {
+                        resolveType(type);
+                    }
+                    openScope();
+                    clause.slot = declare(clause.name);
+                    resolveStatement(clause.body);
+                    closeScope();
+                }
+                if (tryStmt.finallyBlock != null) {
+                    resolveStatement(tryStmt.finallyBlock);
+                }
+                break;
+            }
+            case LABELED:
+                resolveNested(((LabeledStmt) stmt).body);
+                break;
+            default:
+                break;
+        }
+    }
+    
+    private void resolveStatements(List<Stmt> statements) {
+        for (Stmt stmt : statements) {
+            resolveStatement(stmt);
+        }
+    }
+    
+    /** Resolves the body of an if or loop, which gets its own scope even without braces. */
+    private void resolveNested(Stmt stmt) {
+        openScope();
+        resolveStatement(stmt);
+        closeScope();
+    }
+    
+    private void resolveDeclarators(List<VarDeclarator> variables) {
+        for (VarDeclarator variable : variables) {
+            // the initializer cannot see the variable it initializes
+            if (variable.initializer != null) {
+                resolveExpression(variable.initializer);
+            }
+            variable.slot = declare(variable.name);
+        }
+    }
+    
+    // ---------------------------------------------------------------------
+    // Expressions
+    // ---------------------------------------------------------------------
+    
+    private void resolveExpression(Expr expr) {
+        switch (expr.tag) {
+            case NAME: {
+                Name name = (Name) expr;
+                name.symbol = intern(name.name);
+                name.slot = slots[name.symbol];
+                break;
+            }
+            case FIELD_ACCESS: {
+                FieldAccess access = (FieldAccess) expr;
+                access.symbol = intern(access.name);
+                resolveExpression(access.target);
+                break;
+            }
+            case METHOD_CALL: {
+                MethodCall call = (MethodCall) expr;
+                call.site = callSites++;
+                call.symbol = intern(call.name);
+                if (call.target != null) {
+                    resolveExpression(call.target);
+                }
+                resolveExpressions(call.arguments);
+                break;
+            }
+            case NEW_OBJECT:
+                resolveType(((NewObject) expr).type);
+                resolveExpressions(((NewObject) expr).arguments);
+                break;
+            case NEW_ARRAY: {
+                NewArray creation = (NewArray) expr;
+                resolveType(creation.elementType);
+                resolveExpressions(creation.dimensions);
+                if (creation.initializer != null) {
+                    resolveExpression(creation.initializer);
+                }
+                break;
+            }
+            case ARRAY_INIT:
+                resolveExpressions(((ArrayInit) expr).elements);
+                break;
+            case ARRAY_ACCESS:
+                resolveExpression(((ArrayAccess) expr).array);
+                resolveExpression(((ArrayAccess) expr).index);
+                break;
+            case UNARY:
+                resolveExpression(((Unary) expr).operand);
+                break;
+            case BINARY:
+                resolveExpression(((Binary) expr).left);
+                resolveExpression(((Binary) expr).right);
+                break;
+            case ASSIGN:
+                resolveExpression(((Assign) expr).target);
+                resolveExpression(((Assign) expr).value);
+                break;
+            case CONDITIONAL: {
+                Conditional conditional = (Conditional) expr;
+                resolveExpression(conditional.condition);
+                resolveExpression(conditional.thenValue);
+                resolveExpression(conditional.elseValue);
+                break;
+            }
+            case CAST:
+                resolveType(((Cast) expr).type);
+                resolveExpression(((Cast) expr).expression);
+                break;
+            case INSTANCE_OF:
+                resolveType(((InstanceOf) expr).type);
+                resolveExpression(((InstanceOf) expr).expression);
+                break;
+            default:
+                break;
+        }
+    }
+    
+    private void resolveExpressions(List<Expr> expressions) {
+        for (Expr expr : expressions) {
+            resolveExpression(expr);
+        }
+    }
+    
+    private void resolveType(TypeRef type) {
+        type.symbol = intern(type.name);
+    }
+    
+    // ---------------------------------------------------------------------
+    // Symbols and scopes
+    // ---------------------------------------------------------------------
+    
+    private int intern(String name) {
+        int symbol = symbols.intern(name);
+        if (symbol >= slots.length) {
+            int oldLength = slots.length;
+            slots = Arrays.copyOf(slots, Math.max(64, slots.length * 2));
+            Arrays.fill(slots, oldLength, slots.length, -1);
+        }
+        return symbol;
+    }
+    
+    private void openScope() {
+        scopes.push(new Scope(nextSlot, declaredCount));
+    }
+    
+    private void closeScope() {
+        Scope scope = scopes.pop();
+        undeclare(scope.mark);
+        nextSlot = scope.base;
+    }
+    
+    private int declare(String name) {
+        int symbol = intern(name);
+        if (declaredCount == declared.length) {
+            declared = Arrays.copyOf(declared, declaredCount * 2);
+            hidden = Arrays.copyOf(hidden, declaredCount * 2);
+        }
+        declared[declaredCount] = symbol;
+        hidden[declaredCount++] = slots[symbol];
+        int slot = nextSlot++;
+        slots[symbol] = slot;
+        frameSize = Math.max(frameSize, nextSlot);
+        return slot;
+    }
+    
+    /** Takes back the declarations made after the first {@code mark}, latest first. */
+    private void undeclare(int mark) {
+        while (declaredCount > mark) {
+            declaredCount--;
+            slots[declared[declaredCount]] = hidden[declaredCount];
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.example.javabuddy.compiler.parser;
+
+/**
+ * Thrown by the lexer and parser on the first syntax error, carrying the
+ * source position so it can be reported as "Line 3:14: ...".
+ */
+public class ParseException extends RuntimeException {
+    
+    private final int line;
+    private final int column;
+    
+    public ParseException(String message, int line, int column) {
+        super(message);
+        this.line = line;
+        this.column = column;
+    }
+    
+    public int getLine() { return line; }
+    public int getColumn() { return column; }
+    
+    @Override
+    public String toString() {
+        return "Line " + line + ":" + column + ": " + getMessage();
+    }
+}
\ No newline at end of file
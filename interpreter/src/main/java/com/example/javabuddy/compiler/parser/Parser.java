@@ -0,0 +1,1546 @@
+package com.example.javabuddy.compiler.parser;
+
+import com.example.javabuddy.compiler.ast.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recursive-descent parser that builds the syntax tree in one pass over the
+ * token list. Top-level statements and methods outside any class (the lesson
+ * snippets) are wrapped in an implicit {@code Main} class whose main method
+ * holds the statements.
+ */
+public class Parser {
+    
+    public static final String SNIPPET_CLASS_NAME = "Main";
+    /**
+     * Deepest nesting of statements, expressions, types and classes the
+     * parser accepts. The parser and every pass after it recurse over the
+     * tree, so a program nested deeper, most likely generated or pasted,
+     * is rejected here rather than overflowing the stack of a later stage.
+     */
+    static final int MAX_NESTING = 500;
+    
+    /** The tokens a method or constructor of a class was parsed from, {@code start} inclusive, {@code end} exclusive. */
+    public static final class MethodSpan {
+        public final MethodDecl method;
+        public final int start;
+        public final int end;
+        
+        public MethodSpan(MethodDecl method, int start, int end) {
+            this.method = method;
+            this.start = start;
+            this.end = end;
+        }
+    }
+    
+    private final List<Token> tokens;
+    private int pos = 0;
+    private String currentClassName;
+    /** How deeply the construct being parsed is nested, see {@link #MAX_NESTING}. */
+    private int depth;
+    private Map<Integer, MethodSpan> reusable = Collections.emptyMap();
+    private final List<MethodSpan> methodSpans = new ArrayList<>();
+    
+    public Parser(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+    
+    /**
+     * Methods from an earlier parse whose tokens are unchanged, keyed by the
+     * index of their first token in this parser's list. When a class member
+     * starts at such an index the parser takes the method as is and skips
+     * its tokens. The caller is responsible for the methods' positions
+     * matching the new tokens.
+     */
+    public void setReusableMethods(Map<Integer, MethodSpan> reusable) {
+        this.reusable = reusable;
+    }
+    
+    /** Where each class method and constructor came from, in the order they were parsed. */
+    public List<MethodSpan> getMethodSpans() {
+        return methodSpans;
+    }
+    
+    /** Parses a standalone expression such as {@code a + b * 2}; names in it are left unresolved. */
+    public static Expr parseExpression(String source) {
+        Parser parser = new Parser(new Lexer(source).tokenize());
+        Expr expression = parser.parseExpression();
+        if (!parser.check(TokenType.EOF)) {
+            throw parser.error(parser.peek(), "unexpected '" + parser.peek().getText() + "' after expression");
+        }
+        return expression;
+    }
+    
+    /** Parses a whole program and resolves its local variables to frame slots. */
+    public static CompilationUnit parse(String source) {
+        return parse(new Lexer(source).tokenize());
+    }
+    
+    /** Like {@link #parse(String)}, for a source that has already been lexed. */
+    public static CompilationUnit parse(List<Token> tokens) {
+        CompilationUnit unit = new Parser(tokens).parseCompilationUnit();
+        new LocalResolver().resolve(unit);
+        return unit;
+    }
+    
+    // ---------------------------------------------------------------------
+    // Compilation unit and declarations
+    // ---------------------------------------------------------------------
+    
+    public CompilationUnit parseCompilationUnit() {
+        Token first = peek();
+        List<String> imports = new ArrayList<>();
+        
+        if (match(TokenType.PACKAGE)) {
+            parseQualifiedName();
+            expect(TokenType.SEMICOLON);
+        }
+        while (check(TokenType.IMPORT)) {
+            next();
+            match(TokenType.STATIC);
+            StringBuilder name = new StringBuilder(parseQualifiedName());
+            if (match(TokenType.DOT)) {
+                expect(TokenType.STAR);
+                name.append(".*");
+            }
+            expect(TokenType.SEMICOLON);
+            imports.add(name.toString());
+        }
+        
+        List<ClassDecl> classes = new ArrayList<>();
+        ClassDecl snippetClass = null;
+        List<Stmt> statements = new ArrayList<>();
+        
+        while (!check(TokenType.EOF)) {
+            if (match(TokenType.SEMICOLON)) {
+                continue;
+            }
+            if (isTypeDeclarationStart()) {
+                classes.add(parseTypeDeclaration(parseModifiers()));
+                continue;
+            }
+            if (snippetClass == null) {
+                snippetClass = at(new ClassDecl(ClassDecl.Kind.CLASS, Modifiers.PUBLIC, SNIPPET_CLASS_NAME, null,
+                        Collections.<TypeRef>emptyList()), peek());
+            }
+            currentClassName = SNIPPET_CLASS_NAME;
+            if (isMethodDeclarationStart()) {
+                Token start = peek();
+                int modifiers = parseModifiers() | Modifiers.STATIC;
+                snippetClass.methods.add(parseMethodRest(modifiers, start, snippetClass));
+            } else {
+                statements.add(parseBlockStatement());
+            }
+        }
+        
+        if (snippetClass != null) {
+            addSnippetMain(snippetClass, statements, first);
+            classes.add(0, snippetClass);
+        }
+        return at(new CompilationUnit(imports, classes, snippetClass != null), first);
+    }
+    
+    /**
+     * Lesson snippets may mix class declarations with top-level statements;
+     * the statements become the body of the implicit class's main method.
+     */
+    private void addSnippetMain(ClassDecl main, List<Stmt> statements, Token first) {
+        List<Param> params = new ArrayList<>();
+        params.add(at(new Param(at(new TypeRef("String", null, 1), first), "args", false), first));
+        Block body = at(new Block(statements), first);
+        MethodDecl mainMethod = at(new MethodDecl(Modifiers.PUBLIC | Modifiers.STATIC,
+                at(new TypeRef("void", null, 0), first), "main", params, body, false), first);
+        mainMethod.owner = main;
+        main.methods.add(mainMethod);
+    }
+    
+    private ClassDecl parseTypeDeclaration(int modifiers) {
+        Token start = peek();
+        nest(start, "class");
+        ClassDecl.Kind kind;
+        if (match(TokenType.CLASS)) {
+            kind = ClassDecl.Kind.CLASS;
+        } else if (match(TokenType.INTERFACE)) {
+            kind = ClassDecl.Kind.INTERFACE;
+        } else if (match(TokenType.ENUM)) {
+            kind = ClassDecl.Kind.ENUM;
+        } else {
+            throw error(peek(), "class, interface, or enum expected");
+        }
+        
+        String name = expectIdentifier().getText();
+        skipTypeParameters();
+        
+        TypeRef superclass = null;
+        List<TypeRef> interfaces = new ArrayList<>();
+        if (kind == ClassDecl.Kind.INTERFACE) {
+            if (match(TokenType.EXTENDS)) {
+                interfaces = parseTypeList();
+            }
+        } else {
+            if (kind == ClassDecl.Kind.CLASS && match(TokenType.EXTENDS)) {
+                superclass = parseType();
+            }
+            if (match(TokenType.IMPLEMENTS)) {
+                interfaces = parseTypeList();
+            }
+        }
+        
+        ClassDecl decl = at(new ClassDecl(kind, modifiers, name, superclass, interfaces), start);
+        String enclosingClassName = currentClassName;
+        currentClassName = name;
+        
+        expect(TokenType.LBRACE);
+        if (kind == ClassDecl.Kind.ENUM) {
+            parseEnumConstants(decl);
+        }
+        while (!check(TokenType.RBRACE)) {
+            if (check(TokenType.EOF)) {
+                throw error(peek(), "reached end of file while parsing");
+            }
+            parseMember(decl);
+        }
+        expect(TokenType.RBRACE);
+        
+        currentClassName = enclosingClassName;
+        depth--;
+        return decl;
+    }
+    
+    private void parseEnumConstants(ClassDecl decl) {
+        while (check(TokenType.IDENTIFIER) || check(TokenType.AT)) {
+            parseModifiers();
+            Token constant = expectIdentifier();
+            if (check(TokenType.LPAREN)) {
+                throw error(peek(), "Enum constants with constructor arguments are not supported");
+            }
+            if (check(TokenType.LBRACE)) {
+                throw error(peek(), "Enum constants with bodies are not supported");
+            }
+            decl.enumConstants.add(constant.getText());
+            if (!match(TokenType.COMMA)) {
+                break;
+            }
+        }
+        if (!check(TokenType.RBRACE)) {
+            expect(TokenType.SEMICOLON);
+        }
+    }
+    
+    private void parseMember(ClassDecl owner) {
+        if (match(TokenType.SEMICOLON)) {
+            return;
+        }
+        if (check(TokenType.LBRACE)) {
+            owner.initializers.add(parseBlock());
+            return;
+        }
+        if (check(TokenType.STATIC) && peek(1).is(TokenType.LBRACE)) {
+            next();
+            owner.staticInitializers.add(parseBlock());
+            return;
+        }
+        
+        if (reuseMethod(owner)) {
+            return;
+        }
+        int startIndex = pos;
+        Token start = peek();
+        int modifiers = parseModifiers();
+        if (owner.kind == ClassDecl.Kind.INTERFACE) {
+            // interface members are implicitly public; bodiless methods are abstract
+            modifiers |= Modifiers.PUBLIC;
+        }
+        
+        if (check(TokenType.CLASS) || check(TokenType.INTERFACE) || check(TokenType.ENUM)) {
+            ClassDecl member = parseTypeDeclaration(modifiers);
+            owner.memberClasses.add(member);
+            return;
+        }
+        
+        skipTypeParameters();
+        
+        if (check(TokenType.IDENTIFIER) && peek(1).is(TokenType.LPAREN)) {
+            Token nameToken = peek();
+            if (!nameToken.getText().equals(owner.name)) {
+                throw error(nameToken, "invalid method declaration; return type required");
+            }
+            next();
+            List<Param> params = parseParameters();
+            skipThrowsClause();
+            Block body = parseBlock();
+            MethodDecl constructor = at(new MethodDecl(modifiers, null, owner.name, params, body, true), start);
+            constructor.owner = owner;
+            owner.constructors.add(constructor);
+            methodSpans.add(new MethodSpan(constructor, startIndex, pos));
+            return;
+        }
+        
+        if (isMethodDeclarationAfterModifiers()) {
+            if (owner.kind == ClassDecl.Kind.INTERFACE && (modifiers & (Modifiers.STATIC | Modifiers.DEFAULT)) == 0) {
+                modifiers |= Modifiers.ABSTRACT;
+            }
+            MethodDecl method = parseMethodRest(modifiers, start, owner);
+            owner.methods.add(method);
+            methodSpans.add(new MethodSpan(method, startIndex, pos));
+            return;
+        }
+        
+        if (owner.kind == ClassDecl.Kind.INTERFACE) {
+            modifiers |= Modifiers.STATIC | Modifiers.FINAL;
+        }
+        TypeRef type = parseType();
+        do {
+            Token nameToken = expectIdentifier();
+            TypeRef fieldType = type.withDimensions(parseDimensions());
+            Expr initializer = null;
+            if (match(TokenType.ASSIGN)) {
+                initializer = parseVariableInitializer(fieldType);
+            }
+            owner.fields.add(at(new FieldDecl(modifiers, fieldType, nameToken.getText(), initializer), nameToken));
+        } while (match(TokenType.COMMA));
+        expect(TokenType.SEMICOLON);
+    }
+    
+    /**
+     * Takes a reusable method starting at the current token, as long as it
+     * was parsed for a class of the same name and kind; both change what its
+     * tokens mean.
+     */
+    private boolean reuseMethod(ClassDecl owner) {
+        MethodSpan span = reusable.get(pos);
+        if (span == null || !span.method.owner.name.equals(owner.name) || span.method.owner.kind != owner.kind) {
+            return false;
+        }
+        MethodDecl method = span.method;
+        method.owner = owner;
+        if (method.constructor) {
+            owner.constructors.add(method);
+        } else {
+            owner.methods.add(method);
+        }
+        int length = span.end - span.start;
+        methodSpans.add(new MethodSpan(method, pos, pos + length));
+        pos += length;
+        return true;
+    }
+    
+    private MethodDecl parseMethodRest(int modifiers, Token start, ClassDecl owner) {
+        skipTypeParameters();
+        TypeRef returnType;
+        if (check(TokenType.VOID)) {
+            Token voidToken = next();
+            returnType = at(new TypeRef("void", null, 0), voidToken);
+        } else {
+            returnType = parseType();
+        }
+        Token nameToken = expectIdentifier();
+        List<Param> params = parseParameters();
+        returnType = returnType.withDimensions(parseDimensions());
+        skipThrowsClause();
+        
+        Block body = null;
+        if (check(TokenType.LBRACE)) {
+            body = parseBlock();
+        } else {
+            expect(TokenType.SEMICOLON);
+            modifiers |= Modifiers.ABSTRACT;
+        }
+        
+        MethodDecl method = at(new MethodDecl(modifiers, returnType, nameToken.getText(), params, body, false), start);
+        method.owner = owner;
+        return method;
+    }
+    
+    private List<Param> parseParameters() {
+        expect(TokenType.LPAREN);
+        List<Param> params = new ArrayList<>();
+        if (!check(TokenType.RPAREN)) {
+            do {
+                parseModifiers();
+                Token start = peek();
+                TypeRef type = parseType();
+                boolean varargs = false;
+                if (match(TokenType.ELLIPSIS)) {
+                    varargs = true;
+                    type = type.withDimensions(1);
+                }
+                Token nameToken = expectIdentifier();
+                type = type.withDimensions(parseDimensions());
+                params.add(at(new Param(type, nameToken.getText(), varargs), start));
+            } while (match(TokenType.COMMA));
+        }
+        expect(TokenType.RPAREN);
+        return params;
+    }
+    
+    private void skipThrowsClause() {
+        if (match(TokenType.THROWS)) {
+            parseTypeList();
+        }
+    }
+    
+    private int parseModifiers() {
+        int flags = 0;
+        while (true) {
+            Token token = peek();
+            switch (token.getType()) {
+                case PUBLIC: flags |= Modifiers.PUBLIC; break;
+                case PRIVATE: flags |= Modifiers.PRIVATE; break;
+                case PROTECTED: flags |= Modifiers.PROTECTED; break;
+                case STATIC: flags |= Modifiers.STATIC; break;
+                case FINAL: flags |= Modifiers.FINAL; break;
+                case ABSTRACT: flags |= Modifiers.ABSTRACT; break;
+                case NATIVE:
+                case SYNCHRONIZED:
+                case TRANSIENT:
+                case VOLATILE:
+                case STRICTFP:
+                    break;
+                case DEFAULT:
+                    if (peek(1).is(TokenType.COLON) || peek(1).is(TokenType.ARROW)) {
+                        return flags;
+                    }
+                    flags |= Modifiers.DEFAULT;
+                    break;
+                case AT:
+                    if (peek(1).is(TokenType.INTERFACE)) {
+                        throw error(token, "Annotation type declarations are not supported");
+                    }
+                    skipAnnotation();
+                    continue;
+                default:
+                    return flags;
+            }
+            next();
+        }
+    }
+    
+    private void skipAnnotation() {
+        expect(TokenType.AT);
+        parseQualifiedName();
+        if (check(TokenType.LPAREN)) {
+            skipBalanced(TokenType.LPAREN, TokenType.RPAREN);
+        }
+    }
+    
+    private void skipBalanced(TokenType open, TokenType close) {
+        int depth = 0;
+        do {
+            Token token = next();
+            if (token.is(TokenType.EOF)) {
+                throw error(token, "'" + close.getText() + "' expected");
+            }
+            if (token.is(open)) depth++;
+            if (token.is(close)) depth--;
+        } while (depth > 0);
+    }
+    
+    private void skipTypeParameters() {
+        if (check(TokenType.LT)) {
+            skipBalanced(TokenType.LT, TokenType.GT);
+        }
+    }
+    
+    // ---------------------------------------------------------------------
+    // Types
+    // ---------------------------------------------------------------------
+    
+    private TypeRef parseType() {
+        Token start = peek();
+        nest(start, "type");
+        String name;
+        List<TypeRef> typeArguments = null;
+        
+        if (start.getType().isPrimitiveType()) {
+            next();
+            name = start.getText();
+        } else if (check(TokenType.IDENTIFIER)) {
+            StringBuilder qualified = new StringBuilder(next().getText());
+            typeArguments = parseTypeArgumentsOpt();
+            while (check(TokenType.DOT) && peek(1).is(TokenType.IDENTIFIER)) {
+                next();
+                qualified.append('.').append(next().getText());
+                typeArguments = parseTypeArgumentsOpt();
+            }
+            name = qualified.toString();
+        } else {
+            throw error(start, "<identifier> expected");
+        }
+        
+        TypeRef type = at(new TypeRef(name, typeArguments, parseDimensions()), start);
+        depth--;
+        return type;
+    }
+    
+    private List<TypeRef> parseTypeArgumentsOpt() {
+        if (!check(TokenType.LT)) {
+            return null;
+        }
+        next();
+        List<TypeRef> arguments = new ArrayList<>();
+        if (match(TokenType.GT)) {
+            return arguments; // diamond
+        }
+        do {
+            if (check(TokenType.QUESTION)) {
+                Token wildcard = next();
+                if (match(TokenType.EXTENDS) || match(TokenType.SUPER)) {
+                    arguments.add(parseType());
+                } else {
+                    arguments.add(at(new TypeRef("Object", null, 0), wildcard));
+                }
+            } else {
+                arguments.add(parseType());
+            }
+        } while (match(TokenType.COMMA));
+        expect(TokenType.GT);
+        return arguments;
+    }
+    
+    private List<TypeRef> parseTypeList() {
+        List<TypeRef> types = new ArrayList<>();
+        do {
+            types.add(parseType());
+        } while (match(TokenType.COMMA));
+        return types;
+    }
+    
+    private int parseDimensions() {
+        int dims = 0;
+        while (check(TokenType.LBRACKET) && peek(1).is(TokenType.RBRACKET)) {
+            next();
+            next();
+            dims++;
+        }
+        return dims;
+    }
+    
+    private String parseQualifiedName() {
+        StringBuilder name = new StringBuilder(expectIdentifier().getText());
+        while (check(TokenType.DOT) && peek(1).is(TokenType.IDENTIFIER)) {
+            next();
+            name.append('.').append(next().getText());
+        }
+        return name.toString();
+    }
+    
+    // ---------------------------------------------------------------------
+    // Statements
+    // ---------------------------------------------------------------------
+    
+    private Block parseBlock() {
+        Token start = expect(TokenType.LBRACE);
+        List<Stmt> statements = new ArrayList<>();
+        while (!check(TokenType.RBRACE)) {
+            if (check(TokenType.EOF)) {
+                throw error(peek(), "reached end of file while parsing");
+            }
+            statements.add(parseBlockStatement());
+        }
+        expect(TokenType.RBRACE);
+        return at(new Block(statements), start);
+    }
+    
+    /** A statement that may also be a local variable declaration. */
+    private Stmt parseBlockStatement() {
+        if (check(TokenType.CLASS) || check(TokenType.INTERFACE) || check(TokenType.ENUM)) {
+            throw error(peek(), "Local class declarations are not supported");
+        }
+        if (isLocalVariableDeclarationStart()) {
+            LocalVarDecl decl = parseLocalVariableDeclaration();
+            expect(TokenType.SEMICOLON);
+            return decl;
+        }
+        return parseStatement();
+    }
+    
+    private Stmt parseStatement() {
+        nest(peek(), "statement");
+        try {
+            Token start = peek();
+            switch (start.getType()) {
+                case LBRACE:
+                    return parseBlock();
+                case SEMICOLON:
+                    next();
+                    return at(new EmptyStmt(), start);
+                case IF:
+                    return parseIf();
+                case WHILE: {
+                    next();
+                    Expr condition = parseParenthesizedExpression();
+                    Stmt body = parseStatement();
+                    return at(new WhileStmt(condition, body), start);
+                }
+                case DO: {
+                    next();
+                    Stmt body = parseStatement();
+                    expect(TokenType.WHILE);
+                    Expr condition = parseParenthesizedExpression();
+                    expect(TokenType.SEMICOLON);
+                    return at(new DoWhileStmt(body, condition), start);
+                }
+                case FOR:
+                    return parseFor();
+                case SWITCH:
+                    return parseSwitch();
+                case RETURN: {
+                    next();
+                    Expr value = check(TokenType.SEMICOLON) ? null : parseExpression();
+                    expect(TokenType.SEMICOLON);
+                    return at(new ReturnStmt(value), start);
+                }
+                case BREAK: {
+                    next();
+                    String label = check(TokenType.IDENTIFIER) ? next().getText() : null;
+                    expect(TokenType.SEMICOLON);
+                    return at(new BreakStmt(label), start);
+                }
+                case CONTINUE: {
+                    next();
+                    String label = check(TokenType.IDENTIFIER) ? next().getText() : null;
+                    expect(TokenType.SEMICOLON);
+                    return at(new ContinueStmt(label), start);
+                }
+                case THROW: {
+                    next();
+                    Expr exception = parseExpression();
+                    expect(TokenType.SEMICOLON);
+                    return at(new ThrowStmt(exception), start);
+                }
+                case TRY:
+                    return parseTry();
+                case SYNCHRONIZED: {
+                    // single-threaded interpreter: the lock is irrelevant, run the block
+                    next();
+                    parseParenthesizedExpression();
+                    return parseBlock();
+                }
+                case IDENTIFIER:
+                    if (peek(1).is(TokenType.COLON)) {
+                        next();
+                        next();
+                        return at(new LabeledStmt(start.getText(), parseStatement()), start);
+                    }
+                    break;
+                case ELSE:
+                    throw error(start, "'else' without 'if'");
+                case CASE:
+                case DEFAULT:
+                    throw error(start, "orphaned " + start.getText());
+                default:
+                    break;
+            }
+            
+            Expr expression = parseExpression();
+            if (!isStatementExpression(expression)) {
+                throw error(start, "not a statement");
+            }
+            expect(TokenType.SEMICOLON);
+            return at(new ExpressionStmt(expression), start);
+        } finally {
+            depth--;
+        }
+    }
+    
+    private boolean isStatementExpression(Expr expression) {
+        switch (expression.tag) {
+            case ASSIGN:
+            case METHOD_CALL:
+            case NEW_OBJECT:
+                return true;
+            case UNARY:
+                return ((Unary) expression).op.isIncrementOrDecrement();
+            default:
+                return false;
+        }
+    }
+    
+    private Stmt parseIf() {
+        Token start = expect(TokenType.IF);
+        Expr condition = parseParenthesizedExpression();
+        Stmt thenStatement = parseStatement();
+        Stmt elseStatement = null;
+        if (match(TokenType.ELSE)) {
+            elseStatement = parseStatement();
+        }
+        return at(new IfStmt(condition, thenStatement, elseStatement), start);
+    }
+    
+    private Stmt parseFor() {
+        Token start = expect(TokenType.FOR);
+        expect(TokenType.LPAREN);
+        
+        List<Stmt> init = new ArrayList<>();
+        if (isLocalVariableDeclarationStart()) {
+            int save = pos;
+            parseModifiers();
+            TypeRef type = parseType();
+            Token nameToken = expectIdentifier();
+            if (match(TokenType.COLON)) {
+                Expr iterable = parseExpression();
+                expect(TokenType.RPAREN);
+                Stmt body = parseStatement();
+                return at(new ForEachStmt(type, nameToken.getText(), iterable, body), start);
+            }
+            pos = save;
+            init.add(parseLocalVariableDeclaration());
+        } else if (!check(TokenType.SEMICOLON)) {
+            for (Expr expression : parseExpressionList()) {
+                ExpressionStmt stmt = new ExpressionStmt(expression);
+                stmt.line = expression.line;
+                stmt.column = expression.column;
+                init.add(stmt);
+            }
+        }
+        expect(TokenType.SEMICOLON);
+        
+        Expr condition = check(TokenType.SEMICOLON) ? null : parseExpression();
+        expect(TokenType.SEMICOLON);
+        
+        List<Expr> update = check(TokenType.RPAREN) ? new ArrayList<Expr>() : parseExpressionList();
+        expect(TokenType.RPAREN);
+        
+        Stmt body = parseStatement();
+        return at(new ForStmt(init, condition, update, body), start);
+    }
+    
+    private Stmt parseSwitch() {
+        Token start = expect(TokenType.SWITCH);
+        Expr selector = parseParenthesizedExpression();
+        expect(TokenType.LBRACE);
+        
+        List<SwitchCase> cases = new ArrayList<>();
+        while (!check(TokenType.RBRACE)) {
+            Token caseStart = peek();
+            List<Expr> labels = new ArrayList<>();
+            if (match(TokenType.DEFAULT)) {
+                // labels stay empty for the default case
+            } else if (match(TokenType.CASE)) {
+                do {
+                    labels.add(parseTernary());
+                } while (match(TokenType.COMMA));
+            } else {
+                throw error(caseStart, "case, default, or '}' expected");
+            }
+            
+            List<Stmt> body = new ArrayList<>();
+            boolean arrow;
+            if (match(TokenType.ARROW)) {
+                arrow = true;
+                if (check(TokenType.LBRACE)) {
+                    body.add(parseBlock());
+                } else if (check(TokenType.THROW)) {
+                    body.add(parseStatement());
+                } else {
+                    Token exprStart = peek();
+                    Expr expression = parseExpression();
+                    expect(TokenType.SEMICOLON);
+                    body.add(at(new ExpressionStmt(expression), exprStart));
+                }
+            } else {
+                arrow = false;
+                expect(TokenType.COLON);
+                while (!check(TokenType.CASE) && !check(TokenType.DEFAULT) && !check(TokenType.RBRACE)) {
+                    if (check(TokenType.EOF)) {
+                        throw error(peek(), "reached end of file while parsing");
+                    }
+                    body.add(parseBlockStatement());
+                }
+            }
+            cases.add(at(new SwitchCase(labels, body, arrow), caseStart));
+        }
+        expect(TokenType.RBRACE);
+        return at(new SwitchStmt(selector, cases), start);
+    }
+    
+    private Stmt parseTry() {
+        Token start = expect(TokenType.TRY);
+        List<LocalVarDecl> resources = new ArrayList<>();
+        if (match(TokenType.LPAREN)) {
+            do {
+                if (check(TokenType.RPAREN)) {
+                    break;
+                }
+                resources.add(parseLocalVariableDeclaration());
+            } while (match(TokenType.SEMICOLON));
+            expect(TokenType.RPAREN);
+        }
+        
+        Block body = parseBlock();
+        List<CatchClause> catches = new ArrayList<>();
+        while (check(TokenType.CATCH)) {
+            Token catchStart = next();
+            expect(TokenType.LPAREN);
+            parseModifiers();
+            List<TypeRef> types = new ArrayList<>();
+            types.add(parseType());
+            while (match(TokenType.BAR)) {
+                types.add(parseType());
+            }
+            Token nameToken = expectIdentifier();
+            expect(TokenType.RPAREN);
+            catches.add(at(new CatchClause(types, nameToken.getText(), parseBlock()), catchStart));
+        }
+        
+        Block finallyBlock = null;
+        if (match(TokenType.FINALLY)) {
+            finallyBlock = parseBlock();
+        }
+        if (catches.isEmpty() && finallyBlock == null && resources.isEmpty()) {
+            throw error(start, "'try' without 'catch', 'finally' or resource declarations");
+        }
+        return at(new TryStmt(resources, body, catches, finallyBlock), start);
+    }
+    
+    private LocalVarDecl parseLocalVariableDeclaration() {
+        parseModifiers();
+        Token start = peek();
+        TypeRef type = parseType();
+        List<VarDeclarator> variables = new ArrayList<>();
+        do {
+            Token nameToken = expectIdentifier();
+            TypeRef variableType = type.withDimensions(parseDimensions());
+            Expr initializer = null;
+            if (match(TokenType.ASSIGN)) {
+                initializer = parseVariableInitializer(variableType);
+            }
+            variables.add(at(new VarDeclarator(nameToken.getText(), variableType, initializer), nameToken));
+        } while (match(TokenType.COMMA));
+        return at(new LocalVarDecl(type, variables), start);
+    }
+    
+    /**
+     * The initializer of a variable of the given type. A bare array
+     * initializer, {@code int[] a = {1, 2}}, becomes the {@code new int[]
+     * {1, 2}} it stands for, so the engines always know its element type.
+     */
+    private Expr parseVariableInitializer(TypeRef type) {
+        if (!check(TokenType.LBRACE)) {
+            return parseExpression();
+        }
+        Token start = peek();
+        if (!type.isArray()) {
+            throw error(start, "illegal initializer for " + type);
+        }
+        ArrayInit initializer = parseArrayInitializer();
+        return at(new NewArray(type.withDimensions(-type.dimensions), Collections.<Expr>emptyList(), type.dimensions,
+                initializer), start);
+    }
+    
+    private ArrayInit parseArrayInitializer() {
+        Token start = expect(TokenType.LBRACE);
+        nest(start, "array initializer");
+        List<Expr> elements = new ArrayList<>();
+        while (!check(TokenType.RBRACE)) {
+            elements.add(check(TokenType.LBRACE) ? parseArrayInitializer() : parseExpression());
+            if (!match(TokenType.COMMA)) {
+                break;
+            }
+        }
+        expect(TokenType.RBRACE);
+        depth--;
+        return at(new ArrayInit(elements), start);
+    }
+    
+    // ---------------------------------------------------------------------
+    // Expressions
+    // ---------------------------------------------------------------------
+    
+    public Expr parseExpression() {
+        return parseAssignment();
+    }
+    
+    private Expr parseParenthesizedExpression() {
+        expect(TokenType.LPAREN);
+        Expr expression = parseExpression();
+        expect(TokenType.RPAREN);
+        return expression;
+    }
+    
+    private List<Expr> parseExpressionList() {
+        List<Expr> expressions = new ArrayList<>();
+        do {
+            expressions.add(parseExpression());
+        } while (match(TokenType.COMMA));
+        return expressions;
+    }
+    
+    private Expr parseAssignment() {
+        nest(peek(), "expression");
+        try {
+            Expr left = parseTernary();
+            Token operator = peek();
+            BinaryOp op;
+            int width = 1;
+            switch (operator.getType()) {
+                case ASSIGN: op = null; break;
+                case PLUS_EQ: op = BinaryOp.ADD; break;
+                case MINUS_EQ: op = BinaryOp.SUB; break;
+                case STAR_EQ: op = BinaryOp.MUL; break;
+                case SLASH_EQ: op = BinaryOp.DIV; break;
+                case PERCENT_EQ: op = BinaryOp.REM; break;
+                case AMP_EQ: op = BinaryOp.BIT_AND; break;
+                case BAR_EQ: op = BinaryOp.BIT_OR; break;
+                case CARET_EQ: op = BinaryOp.BIT_XOR; break;
+                case LT_LT_EQ: op = BinaryOp.SHL; break;
+                case GT: {
+                    TokenType combined = peekCombinedGreater();
+                    if (combined == TokenType.GT_GT_EQ) {
+                        op = BinaryOp.SHR;
+                        width = 3;
+                    } else if (combined == TokenType.GT_GT_GT_EQ) {
+                        op = BinaryOp.USHR;
+                        width = 4;
+                    } else {
+                        return left;
+                    }
+                    break;
+                }
+                default:
+                    return left;
+            }
+            for (int i = 0; i < width; i++) {
+                next();
+            }
+            checkAssignable(left, operator);
+            Expr value = parseAssignment();
+            return at(new Assign(left, op, value), left);
+        } finally {
+            depth--;
+        }
+    }
+    
+    private Expr parseTernary() {
+        Expr condition = parseBinary(BinaryOp.OR.getPrecedence());
+        if (!match(TokenType.QUESTION)) {
+            return condition;
+        }
+        nest(peek(), "expression");
+        Expr thenValue = parseExpression();
+        expect(TokenType.COLON);
+        Expr elseValue = parseTernary();
+        depth--;
+        return at(new Conditional(condition, thenValue, elseValue), condition);
+    }
+    
+    /**
+     * Precedence climbing over every binary operator: parses operands and
+     * operators binding at least as tightly as {@code minPrecedence}, so each
+     * level of Java's operator table does not need its own method.
+     */
+    private Expr parseBinary(int minPrecedence) {
+        // each operator of a chain nests the tree one level deeper
+        int outer = depth;
+        try {
+            Expr left = parseUnary();
+            while (true) {
+                if (check(TokenType.INSTANCEOF) && BinaryOp.LT.getPrecedence() >= minPrecedence) {
+                    next();
+                    parseModifiers();
+                    left = at(new InstanceOf(left, parseType()), left);
+                    nest(peek(), "expression");
+                    continue;
+                }
+                BinaryOp op = peekBinaryOperator();
+                if (op == null || op.getPrecedence() < minPrecedence) {
+                    return left;
+                }
+                // '>' is lexed alone so that nested generics close; >=, >> and >>> span one token per character
+                int width = check(TokenType.GT) ? op.getSymbol().length() : 1;
+                for (int i = 0; i < width; i++) {
+                    next();
+                }
+                // operators are left-associative, so the right operand only takes tighter ones
+                Expr right = parseBinary(op.getPrecedence() + 1);
+                left = at(new Binary(op, left, right), left);
+                nest(peek(), "expression");
+            }
+        } finally {
+            depth = outer;
+        }
+    }
+    
+    private BinaryOp peekBinaryOperator() {
+        switch (peek().getType()) {
+            case BAR_BAR: return BinaryOp.OR;
+            case AMP_AMP: return BinaryOp.AND;
+            case BAR: return BinaryOp.BIT_OR;
+            case CARET: return BinaryOp.BIT_XOR;
+            case AMP: return BinaryOp.BIT_AND;
+            case EQ_EQ: return BinaryOp.EQ;
+            case BANG_EQ: return BinaryOp.NE;
+            case LT: return BinaryOp.LT;
+            case LT_EQ: return BinaryOp.LE;
+            case LT_LT: return BinaryOp.SHL;
+            case PLUS: return BinaryOp.ADD;
+            case MINUS: return BinaryOp.SUB;
+            case STAR: return BinaryOp.MUL;
+            case SLASH: return BinaryOp.DIV;
+            case PERCENT: return BinaryOp.REM;
+            case GT:
+                switch (peekCombinedGreater()) {
+                    case GT: return BinaryOp.GT;
+                    case GT_EQ: return BinaryOp.GE;
+                    case GT_GT: return BinaryOp.SHR;
+                    case GT_GT_GT: return BinaryOp.USHR;
+                    default: return null; // >>= and >>>= are assignments
+                }
+            default:
+                return null;
+        }
+    }
+    
+    private Expr parseUnary() {
+        nest(peek(), "expression");
+        try {
+            Token start = peek();
+            switch (start.getType()) {
+                case PLUS:
+                    next();
+                    return at(new Unary(UnaryOp.PLUS, parseUnary()), start);
+                case MINUS: {
+                    next();
+                    Expr operand = parseUnary();
+                    if (operand instanceof Literal && isNumericLiteral((Literal) operand)) {
+                        // fold so that -2147483648 and friends are representable
+                        return at(new Literal(negate(((Literal) operand).value)), start);
+                    }
+                    return at(new Unary(UnaryOp.NEG, operand), start);
+                }
+                case BANG:
+                    next();
+                    return at(new Unary(UnaryOp.NOT, parseUnary()), start);
+                case TILDE:
+                    next();
+                    return at(new Unary(UnaryOp.BIT_NOT, parseUnary()), start);
+                case PLUS_PLUS: {
+                    next();
+                    Expr operand = parseUnary();
+                    checkAssignable(operand, start);
+                    return at(new Unary(UnaryOp.PRE_INC, operand), start);
+                }
+                case MINUS_MINUS: {
+                    next();
+                    Expr operand = parseUnary();
+                    checkAssignable(operand, start);
+                    return at(new Unary(UnaryOp.PRE_DEC, operand), start);
+                }
+                case LPAREN:
+                    if (isCastStart()) {
+                        next();
+                        TypeRef type = parseType();
+                        expect(TokenType.RPAREN);
+                        return at(new Cast(type, parseUnary()), start);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return parsePostfix();
+        } finally {
+            depth--;
+        }
+    }
+    
+    private Expr parsePostfix() {
+        // each call, field access or index of a chain nests the tree one level deeper
+        int outer = depth;
+        try {
+            Expr expression = parsePrimary();
+            while (true) {
+                Token token = peek();
+                if (token.is(TokenType.DOT)) {
+                    next();
+                    if (check(TokenType.LT)) {
+                        skipBalanced(TokenType.LT, TokenType.GT); // explicit generic method arguments
+                    }
+                    if (check(TokenType.CLASS)) {
+                        throw error(peek(), "Class literals are not supported");
+                    }
+                    Token nameToken = expectIdentifier();
+                    if (check(TokenType.LPAREN)) {
+                        expression = at(new MethodCall(expression, nameToken.getText(), parseArguments()), nameToken);
+                    } else {
+                        expression = at(new FieldAccess(expression, nameToken.getText()), nameToken);
+                    }
+                } else if (token.is(TokenType.LBRACKET)) {
+                    next();
+                    Expr index = parseExpression();
+                    expect(TokenType.RBRACKET);
+                    expression = at(new ArrayAccess(expression, index), token);
+                } else if (token.is(TokenType.PLUS_PLUS)) {
+                    next();
+                    checkAssignable(expression, token);
+                    expression = at(new Unary(UnaryOp.POST_INC, expression), expression);
+                } else if (token.is(TokenType.MINUS_MINUS)) {
+                    next();
+                    checkAssignable(expression, token);
+                    expression = at(new Unary(UnaryOp.POST_DEC, expression), expression);
+                } else if (token.is(TokenType.COLON_COLON)) {
+                    throw error(token, "Method references are not supported");
+                } else {
+                    return expression;
+                }
+                nest(peek(), "expression");
+            }
+        } finally {
+            depth = outer;
+        }
+    }
+    
+    private Expr parsePrimary() {
+        Token token = peek();
+        switch (token.getType()) {
+            case INT_LITERAL:
+            case LONG_LITERAL:
+            case FLOAT_LITERAL:
+            case DOUBLE_LITERAL:
+            case CHAR_LITERAL:
+            case STRING_LITERAL:
+                next();
+                return at(new Literal(token.getValue()), token);
+            case TRUE:
+                next();
+                return at(new Literal(Boolean.TRUE), token);
+            case FALSE:
+                next();
+                return at(new Literal(Boolean.FALSE), token);
+            case NULL:
+                next();
+                return at(new Literal(null), token);
+            case THIS:
+                next();
+                if (check(TokenType.LPAREN)) {
+                    return at(new MethodCall(null, "this", parseArguments()), token);
+                }
+                return at(new This(), token);
+            case SUPER:
+                next();
+                if (check(TokenType.LPAREN)) {
+                    return at(new MethodCall(null, "super", parseArguments()), token);
+                }
+                if (!check(TokenType.DOT)) {
+                    throw error(peek(), "'.' expected");
+                }
+                return at(new Super(), token);
+            case LPAREN: {
+                if (isLambdaStart()) {
+                    throw error(token, "Lambda expressions are not supported");
+                }
+                next();
+                Expr inner = parseExpression();
+                expect(TokenType.RPAREN);
+                return inner;
+            }
+            case NEW:
+                return parseCreator();
+            case IDENTIFIER:
+                if (peek(1).is(TokenType.ARROW)) {
+                    throw error(token, "Lambda expressions are not supported");
+                }
+                next();
+                if (check(TokenType.LPAREN)) {
+                    return at(new MethodCall(null, token.getText(), parseArguments()), token);
+                }
+                return at(new Name(token.getText()), token);
+            default:
+                if (token.getType().isPrimitiveType() || token.is(TokenType.VOID)) {
+                    throw error(token, "'.class' is not supported");
+                }
+                throw error(token, "illegal start of expression");
+        }
+    }
+    
+    private Expr parseCreator() {
+        Token start = expect(TokenType.NEW);
+        Token typeStart = peek();
+        String name;
+        List<TypeRef> typeArguments = null;
+        if (typeStart.getType().isPrimitiveType()) {
+            next();
+            name = typeStart.getText();
+        } else {
+            StringBuilder qualified = new StringBuilder(expectIdentifier().getText());
+            typeArguments = parseTypeArgumentsOpt();
+            while (check(TokenType.DOT) && peek(1).is(TokenType.IDENTIFIER)) {
+                next();
+                qualified.append('.').append(next().getText());
+                typeArguments = parseTypeArgumentsOpt();
+            }
+            name = qualified.toString();
+        }
+        TypeRef type = at(new TypeRef(name, typeArguments, 0), typeStart);
+        
+        if (check(TokenType.LBRACKET)) {
+            List<Expr> dimensions = new ArrayList<>();
+            int totalDimensions = 0;
+            while (check(TokenType.LBRACKET)) {
+                next();
+                if (match(TokenType.RBRACKET)) {
+                    totalDimensions++;
+                    totalDimensions += parseDimensions();
+                    break;
+                }
+                dimensions.add(parseExpression());
+                expect(TokenType.RBRACKET);
+                totalDimensions++;
+            }
+            ArrayInit initializer = null;
+            if (check(TokenType.LBRACE)) {
+                if (!dimensions.isEmpty()) {
+                    throw error(peek(), "array creation with both dimension expression and initialization is illegal");
+                }
+                initializer = parseArrayInitializer();
+            } else if (dimensions.isEmpty()) {
+                throw error(peek(), "array dimension missing");
+            }
+            return at(new NewArray(type, dimensions, totalDimensions, initializer), start);
+        }
+        
+        if (type.isPrimitive()) {
+            throw error(peek(), "'[' expected");
+        }
+        List<Expr> arguments = parseArguments();
+        if (check(TokenType.LBRACE)) {
+            throw error(peek(), "Anonymous classes are not supported");
+        }
+        return at(new NewObject(type, arguments), start);
+    }
+    
+    private List<Expr> parseArguments() {
+        expect(TokenType.LPAREN);
+        List<Expr> arguments = new ArrayList<>();
+        if (!check(TokenType.RPAREN)) {
+            do {
+                arguments.add(parseExpression());
+            } while (match(TokenType.COMMA));
+        }
+        expect(TokenType.RPAREN);
+        return arguments;
+    }
+    
+    private void checkAssignable(Expr target, Token operator) {
+        if (target.tag != Tag.NAME && target.tag != Tag.FIELD_ACCESS && target.tag != Tag.ARRAY_ACCESS) {
+            throw error(operator, "unexpected type: variable expected");
+        }
+    }
+    
+    private static boolean isNumericLiteral(Literal literal) {
+        Object value = literal.value;
+        return value instanceof Integer || value instanceof Long || value instanceof Float || value instanceof Double;
+    }
+    
+    private static Object negate(Object value) {
+        if (value instanceof Integer) return -(Integer) value;
+        if (value instanceof Long) return -(Long) value;
+        if (value instanceof Float) return -(Float) value;
+        return -(Double) value;
+    }
+    
+    // ---------------------------------------------------------------------
+    // Lookahead helpers
+    // ---------------------------------------------------------------------
+    
+    private boolean isTypeDeclarationStart() {
+        int i = skipModifiersFrom(pos);
+        TokenType type = tokens.get(i).getType();
+        return type == TokenType.CLASS || type == TokenType.INTERFACE || type == TokenType.ENUM;
+    }
+    
+    private boolean isMethodDeclarationStart() {
+        int i = skipModifiersFrom(pos);
+        return isMethodDeclarationFrom(i);
+    }
+    
+    private boolean isMethodDeclarationAfterModifiers() {
+        return isMethodDeclarationFrom(pos);
+    }
+    
+    private boolean isMethodDeclarationFrom(int i) {
+        if (tokens.get(i).is(TokenType.LT)) {
+            i = skipBalancedFrom(i, TokenType.LT, TokenType.GT);
+            if (i < 0) return false;
+        }
+        if (tokens.get(i).is(TokenType.VOID)) {
+            i++;
+        } else {
+            i = skipTypeFrom(i);
+            if (i < 0) return false;
+        }
+        return tokens.get(i).is(TokenType.IDENTIFIER) && tokens.get(i + 1).is(TokenType.LPAREN);
+    }
+    
+    private boolean isLocalVariableDeclarationStart() {
+        int i = pos;
+        while (tokens.get(i).is(TokenType.FINAL) || tokens.get(i).is(TokenType.AT)) {
+            if (tokens.get(i).is(TokenType.AT)) {
+                i += 2;
+                while (tokens.get(i).is(TokenType.DOT) && tokens.get(i + 1).is(TokenType.IDENTIFIER)) {
+                    i += 2;
+                }
+                if (tokens.get(i).is(TokenType.LPAREN)) {
+                    i = skipBalancedFrom(i, TokenType.LPAREN, TokenType.RPAREN);
+                    if (i < 0) return false;
+                }
+            } else {
+                i++;
+            }
+        }
+        if (tokens.get(i).getType().isPrimitiveType()) {
+            return true;
+        }
+        int end = skipTypeFrom(i);
+        return end >= 0 && tokens.get(end).is(TokenType.IDENTIFIER);
+    }
+    
+    private boolean isCastStart() {
+        Token first = peek(1);
+        if (first.getType().isPrimitiveType()) {
+            int end = skipTypeFrom(pos + 1);
+            return end >= 0 && tokens.get(end).is(TokenType.RPAREN);
+        }
+        if (!first.is(TokenType.IDENTIFIER)) {
+            return false;
+        }
+        int end = skipTypeFrom(pos + 1);
+        if (end < 0 || !tokens.get(end).is(TokenType.RPAREN)) {
+            return false;
+        }
+        // (Name) is a cast only if an operand follows, e.g. (String) obj or (Dog) (animal)
+        switch (tokens.get(end + 1).getType()) {
+            case IDENTIFIER:
+            case LPAREN:
+            case THIS:
+            case SUPER:
+            case NEW:
+            case STRING_LITERAL:
+            case CHAR_LITERAL:
+            case INT_LITERAL:
+            case LONG_LITERAL:
+            case FLOAT_LITERAL:
+            case DOUBLE_LITERAL:
+            case TRUE:
+            case FALSE:
+            case NULL:
+            case BANG:
+            case TILDE:
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    private boolean isLambdaStart() {
+        int end = skipBalancedFrom(pos, TokenType.LPAREN, TokenType.RPAREN);
+        return end >= 0 && tokens.get(end).is(TokenType.ARROW);
+    }
+    
+    private int skipModifiersFrom(int i) {
+        while (true) {
+            Token token = tokens.get(i);
+            if (token.getType().isModifier()) {
+                i++;
+            } else if (token.is(TokenType.DEFAULT) && !tokens.get(i + 1).is(TokenType.COLON)
+                    && !tokens.get(i + 1).is(TokenType.ARROW)) {
+                i++;
+            } else if (token.is(TokenType.AT) && !tokens.get(i + 1).is(TokenType.INTERFACE)) {
+                i += 2;
+                while (tokens.get(i).is(TokenType.DOT) && tokens.get(i + 1).is(TokenType.IDENTIFIER)) {
+                    i += 2;
+                }
+                if (tokens.get(i).is(TokenType.LPAREN)) {
+                    i = skipBalancedFrom(i, TokenType.LPAREN, TokenType.RPAREN);
+                    if (i < 0) return tokens.size() - 1;
+                }
+            } else {
+                return i;
+            }
+        }
+    }
+    
+    /** Index just past a type starting at {@code i}, or -1 if the tokens there cannot form a type. */
+    private int skipTypeFrom(int i) {
+        Token token = tokens.get(i);
+        if (token.getType().isPrimitiveType()) {
+            i++;
+        } else if (token.is(TokenType.IDENTIFIER)) {
+            i++;
+            while (true) {
+                if (tokens.get(i).is(TokenType.LT)) {
+                    i = skipTypeArgumentsFrom(i);
+                    if (i < 0) return -1;
+                }
+                if (tokens.get(i).is(TokenType.DOT) && tokens.get(i + 1).is(TokenType.IDENTIFIER)) {
+                    i += 2;
+                } else {
+                    break;
+                }
+            }
+        } else {
+            return -1;
+        }
+        while (tokens.get(i).is(TokenType.LBRACKET) && tokens.get(i + 1).is(TokenType.RBRACKET)) {
+            i += 2;
+        }
+        return i;
+    }
+    
+    private int skipTypeArgumentsFrom(int i) {
+        int depth = 0;
+        do {
+            Token token = tokens.get(i);
+            switch (token.getType()) {
+                case LT:
+                    depth++;
+                    break;
+                case GT:
+                    depth--;
+                    break;
+                case IDENTIFIER:
+                case DOT:
+                case COMMA:
+                case QUESTION:
+                case EXTENDS:
+                case SUPER:
+                case LBRACKET:
+                case RBRACKET:
+                case AMP:
+                    break;
+                default:
+                    if (!token.getType().isPrimitiveType()) {
+                        return -1;
+                    }
+            }
+            i++;
+        } while (depth > 0);
+        return i;
+    }
+    
+    private int skipBalancedFrom(int i, TokenType open, TokenType close) {
+        int depth = 0;
+        do {
+            Token token = tokens.get(i);
+            if (token.is(TokenType.EOF)) return -1;
+            if (token.is(open)) depth++;
+            if (token.is(close)) depth--;
+            i++;
+        } while (depth > 0);
+        return i;
+    }
+    
+    /**
+     * The lexer emits every '>' separately so generic types close correctly;
+     * in expression context adjacent tokens are recombined into >=, >> and >>>.
+     */
+    private TokenType peekCombinedGreater() {
+        Token first = peek();
+        Token second = peek(1);
+        if (second.getStart() != first.getEnd()) {
+            return TokenType.GT;
+        }
+        if (second.is(TokenType.ASSIGN)) {
+            return TokenType.GT_EQ;
+        }
+        if (!second.is(TokenType.GT)) {
+            return TokenType.GT;
+        }
+        Token third = peek(2);
+        if (third.getStart() != second.getEnd()) {
+            return TokenType.GT_GT;
+        }
+        if (third.is(TokenType.ASSIGN)) {
+            return TokenType.GT_GT_EQ;
+        }
+        if (!third.is(TokenType.GT)) {
+            return TokenType.GT_GT;
+        }
+        Token fourth = peek(3);
+        if (fourth.getStart() == third.getEnd() && fourth.is(TokenType.ASSIGN)) {
+            return TokenType.GT_GT_GT_EQ;
+        }
+        return TokenType.GT_GT_GT;
+    }
+    
+    // ---------------------------------------------------------------------
+    // Token helpers
+    // ---------------------------------------------------------------------
+    
+    private Token peek() {
+        return tokens.get(pos);
+    }
+    
+    private Token peek(int ahead) {
+        int index = Math.min(pos + ahead, tokens.size() - 1);
+        return tokens.get(index);
+    }
+    
+    private Token next() {
+        Token token = tokens.get(pos);
+        if (!token.is(TokenType.EOF)) {
+            pos++;
+        }
+        return token;
+    }
+    
+    private boolean check(TokenType type) {
+        return peek().is(type);
+    }
+    
+    private boolean match(TokenType type) {
+        if (check(type)) {
+            next();
+            return true;
+        }
+        return false;
+    }
+    
+    private Token expect(TokenType type) {
+        if (check(type)) {
+            return next();
+        }
+        String message = "'" + type.getText() + "' expected";
+        if ((type == TokenType.SEMICOLON || type == TokenType.RPAREN) && pos > 0) {
+            // javac reports a missing ';' or ')' right after the previous token
+            Token previous = tokens.get(pos - 1);
+            int column = previous.getColumn() + (previous.getEnd() - previous.getStart());
+            throw new ParseException(message, previous.getLine(), column);
+        }
+        throw error(peek(), message);
+    }
+    
+    private Token expectIdentifier() {
+        if (check(TokenType.IDENTIFIER)) {
+            return next();
+        }
+        throw error(peek(), "<identifier> expected");
+    }
+    
+    /** Enters one more level of nesting; {@code what} names the construct for the error past the limit. */
+    private void nest(Token token, String what) {
+        if (++depth > MAX_NESTING) {
+            throw error(token, what + " too deeply nested");
+        }
+    }
+    
+    private ParseException error(Token token, String message) {
+        return new ParseException(message, token.getLine(), token.getColumn());
+    }
+    
+    private static <T extends Node> T at(T node, Token token) {
+        node.line = token.getLine();
+        node.column = token.getColumn();
+        return node;
+    }
+    
+    private static <T extends Node> T at(T node, Node position) {
+        node.line = position.line;
+        node.column = position.column;
+        return node;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.example.javabuddy.compiler.parser;
+
+public final class Token {
+    
+    private final TokenType type;
+    private final String text;
+    private final Object value;
+    private final int line;
+    private final int column;
+    private final int start;
+    private final int end;
+    
+    public Token(TokenType type, String text, Object value, int line, int column, int start, int end) {
+        this.type = type;
+        this.text = text;
+        this.value = value;
+        this.line = line;
+        this.column = column;
+        this.start = start;
+        this.end = end;
+    }
+    
+    public TokenType getType() { return type; }
+    public String getText() { return text; }
+    /** Decoded value of a literal token (Integer, Long, Float, Double, Character or String). */
+    public Object getValue() { return value; }
+    /** 1-based line of the first character. */
+    public int getLine() { return line; }
+    /** 1-based column of the first character. */
+    public int getColumn() { return column; }
+    /** Offset of the first character in the source. */
+    public int getStart() { return start; }
+    /** Offset just past the last character in the source. */
+    public int getEnd() { return end; }
+    
+    public boolean is(TokenType other) {
+        return type == other;
+    }
+    
+    @Override
+    public String toString() {
+        return type == TokenType.EOF ? "end of file" : "'" + text + "'";
+    }
+}
\ No newline at end of file
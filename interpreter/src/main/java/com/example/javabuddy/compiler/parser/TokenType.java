@@ -0,0 +1,187 @@
+package com.example.javabuddy.compiler.parser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public enum TokenType {
+    
+    // Literals and names
+    IDENTIFIER,
+    INT_LITERAL,
+    LONG_LITERAL,
+    FLOAT_LITERAL,
+    DOUBLE_LITERAL,
+    CHAR_LITERAL,
+    STRING_LITERAL,
+    
+    // Keywords
+    ABSTRACT("abstract"),
+    ASSERT("assert"),
+    BOOLEAN("boolean"),
+    BREAK("break"),
+    BYTE("byte"),
+    CASE("case"),
+    CATCH("catch"),
+    CHAR("char"),
+    CLASS("class"),
+    CONTINUE("continue"),
+    DEFAULT("default"),
+    DO("do"),
+    DOUBLE("double"),
+    ELSE("else"),
+    ENUM("enum"),
+    EXTENDS("extends"),
+    FALSE("false"),
+    FINAL("final"),
+    FINALLY("finally"),
+    FLOAT("float"),
+    FOR("for"),
+    IF("if"),
+    IMPLEMENTS("implements"),
+    IMPORT("import"),
+    INSTANCEOF("instanceof"),
+    INT("int"),
+    INTERFACE("interface"),
+    LONG("long"),
+    NATIVE("native"),
+    NEW("new"),
+    NULL("null"),
+    PACKAGE("package"),
+    PRIVATE("private"),
+    PROTECTED("protected"),
+    PUBLIC("public"),
+    RETURN("return"),
+    SHORT("short"),
+    STATIC("static"),
+    STRICTFP("strictfp"),
+    SUPER("super"),
+    SWITCH("switch"),
+    SYNCHRONIZED("synchronized"),
+    THIS("this"),
+    THROW("throw"),
+    THROWS("throws"),
+    TRANSIENT("transient"),
+    TRUE("true"),
+    TRY("try"),
+    VOID("void"),
+    VOLATILE("volatile"),
+    WHILE("while"),
+    
+    // Separators
+    LPAREN("("),
+    RPAREN(")"),
+    LBRACE("{"),
+    RBRACE("}"),
+    LBRACKET("["),
+    RBRACKET("]"),
+    SEMICOLON(";"),
+    COMMA(","),
+    DOT("."),
+    ELLIPSIS("..."),
+    AT("@"),
+    COLON_COLON("::"),
+    
+    // Operators
+    ASSIGN("="),
+    GT(">"),
+    LT("<"),
+    BANG("!"),
+    TILDE("~"),
+    QUESTION("?"),
+    COLON(":"),
+    ARROW("->"),
+    EQ_EQ("=="),
+    LT_EQ("<="),
+    GT_EQ(">="),
+    BANG_EQ("!="),
+    AMP_AMP("&&"),
+    BAR_BAR("||"),
+    PLUS_PLUS("++"),
+    MINUS_MINUS("--"),
+    PLUS("+"),
+    MINUS("-"),
+    STAR("*"),
+    SLASH("/"),
+    AMP("&"),
+    BAR("|"),
+    CARET("^"),
+    PERCENT("%"),
+    LT_LT("<<"),
+    GT_GT(">>"),
+    GT_GT_GT(">>>"),
+    PLUS_EQ("+="),
+    MINUS_EQ("-="),
+    STAR_EQ("*="),
+    SLASH_EQ("/="),
+    AMP_EQ("&="),
+    BAR_EQ("|="),
+    CARET_EQ("^="),
+    PERCENT_EQ("%="),
+    LT_LT_EQ("<<="),
+    GT_GT_EQ(">>="),
+    GT_GT_GT_EQ(">>>="),
+    
+    EOF;
+    
+    private static final Map<String, TokenType> KEYWORDS = new HashMap<>();
+    
+    static {
+        for (TokenType type : values()) {
+            if (type.text != null && Character.isLetter(type.text.charAt(0))) {
+                KEYWORDS.put(type.text, type);
+            }
+        }
+    }
+    
+    private final String text;
+    
+    TokenType() {
+        this(null);
+    }
+    
+    TokenType(String text) {
+        this.text = text;
+    }
+    
+    /** Source spelling of keywords and operators, or null for literals and names. */
+    public String getText() { return text; }
+    
+    public static TokenType keyword(String word) {
+        return KEYWORDS.get(word);
+    }
+    
+    public boolean isPrimitiveType() {
+        switch (this) {
+            case BOOLEAN:
+            case BYTE:
+            case CHAR:
+            case SHORT:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    public boolean isModifier() {
+        switch (this) {
+            case PUBLIC:
+            case PRIVATE:
+            case PROTECTED:
+            case STATIC:
+            case FINAL:
+            case ABSTRACT:
+            case NATIVE:
+            case SYNCHRONIZED:
+            case TRANSIENT:
+            case VOLATILE:
+            case STRICTFP:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
\ No newline at end of file
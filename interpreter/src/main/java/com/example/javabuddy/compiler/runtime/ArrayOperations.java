@@ -0,0 +1,209 @@
+package com.example.javabuddy.compiler.runtime;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+/**
+ * Arrays of interpreted programs. They are real Java arrays, {@code int[]}
+ * for {@code int[]} and {@code double[][]} for {@code double[][]}, so an
+ * element costs what it costs in Java and host methods such as
+ * {@code Arrays.fill} take them as they are. Arrays of the program's own
+ * classes are {@code Object[]}.
+ *
+ * <p>The engines load and store through here with the checks and messages
+ * of the JVM; the bytecode VM has typed instructions for arrays whose static
+ * type it knows and only uses these for the others.
+ */
+public final class ArrayOperations {
+    
+    private ArrayOperations() {
+    }
+    
+    /**
+     * Element class of an array of the named type: the primitive class, the
+     * whitelisted host class, or Object for anything else, such as the
+     * program's own classes.
+     */
+    public static Class<?> elementClass(String typeName) {
+        Class<?> type = HostInterop.primitiveType(typeName);
+        if (type == null) {
+            type = HostInterop.resolveClass(typeName);
+        }
+        return type != null ? type : Object.class;
+    }
+    
+    /** The class of an array of {@code elementClass} with {@code dimensions} dimensions, e.g. int[][]. */
+    public static Class<?> arrayClass(Class<?> elementClass, int dimensions) {
+        Class<?> type = elementClass;
+        for (int i = 0; i < dimensions; i++) {
+            type = Array.newInstance(type, 0).getClass();
+        }
+        return type;
+    }
+    
+    /**
+     * {@code new T[l0][l1]...[]}: an array with {@code dimensions} dimensions
+     * of which the first {@code lengths.length} are given, filled with zeros,
+     * nulls or further arrays. The budget is charged before anything is
+     * allocated, so a program cannot take the app down with one huge array.
+     */
+    public static Object newArray(Class<?> elementClass, int[] lengths, int dimensions, ExecutionBudget budget) {
+        for (int length : lengths) {
+            if (length < 0) {
+                throw new NegativeArraySizeException(String.valueOf(length));
+            }
+        }
+        budget.reserve(HeapMeter.sizeOfNewArray(elementClass, lengths, dimensions));
+        Class<?> component = arrayClass(elementClass, dimensions - lengths.length);
+        return lengths.length == 1 ? Array.newInstance(component, lengths[0]) : Array.newInstance(component, lengths);
+    }
+    
+    /** {@code array.length}. */
+    public static int length(Object array) {
+        if (array == null) {
+            throw new NullPointerException("Cannot read field \"length\" because value is null");
+        }
+        if (!array.getClass().isArray()) {
+            throw new InterpreterException("Field access on objects is not supported yet");
+        }
+        return Array.getLength(array);
+    }
+    
+    /** {@code array[index]}, boxed. */
+    public static Object load(Object array, int index) {
+        if (array instanceof int[]) {
+            int[] values = (int[]) array;
+            checkIndex(index, values.length);
+            return values[index];
+        }
+        if (array instanceof Object[]) {
+            Object[] values = (Object[]) array;
+            checkIndex(index, values.length);
+            return values[index];
+        }
+        if (array instanceof double[]) {
+            double[] values = (double[]) array;
+            checkIndex(index, values.length);
+            return values[index];
+        }
+        if (array instanceof char[]) {
+            char[] values = (char[]) array;
+            checkIndex(index, values.length);
+            return values[index];
+        }
+        if (array instanceof long[]) {
+            long[] values = (long[]) array;
+            checkIndex(index, values.length);
+            return values[index];
+        }
+        if (array instanceof boolean[]) {
+            boolean[] values = (boolean[]) array;
+            checkIndex(index, values.length);
+            return values[index];
+        }
+        checkArray(array, "load from");
+        checkIndex(index, Array.getLength(array));
+        return Array.get(array, index);
+    }
+    
+    /**
+     * {@code array[index] = value}, converting the value to the element type
+     * as an assignment would. Returns the stored value.
+     */
+    public static Object store(Object array, int index, Object value) {
+        if (array instanceof int[]) {
+            int[] values = (int[]) array;
+            checkIndex(index, values.length);
+            int converted = Operators.intValue(Operators.cast("int", value));
+            values[index] = converted;
+            return converted;
+        }
+        if (array instanceof Object[]) {
+            Object[] values = (Object[]) array;
+            checkIndex(index, values.length);
+            if (value != null && !values.getClass().getComponentType().isInstance(value)) {
+                throw new ArrayStoreException(Operators.typeName(value));
+            }
+            values[index] = value;
+            return value;
+        }
+        checkArray(array, "store to");
+        checkIndex(index, Array.getLength(array));
+        Object converted = Operators.cast(array.getClass().getComponentType().getName(), value);
+        Array.set(array, index, converted);
+        return converted;
+    }
+    
+    /** Throws what the JVM throws for an index outside {@code [0, length)}. */
+    public static void checkIndex(int index, int length) {
+        if (index < 0 || index >= length) {
+            throw outOfBounds(index, length);
+        }
+    }
+    
+    public static ArrayIndexOutOfBoundsException outOfBounds(int index, int length) {
+        return new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+    }
+    
+    private static void checkArray(Object array, String action) {
+        if (array == null) {
+            throw new NullPointerException("Cannot " + action + " array because value is null");
+        }
+        if (!array.getClass().isArray()) {
+            throw new InterpreterException("array required, but " + Operators.typeName(array) + " found");
+        }
+    }
+    
+    // ---------------------------------------------------------------------
+    // Intrinsics
+    // ---------------------------------------------------------------------
+    
+    /** {@code Arrays.sort(array)}, on the typed overload rather than one found by reflection per call. */
+    public static void sort(Object array) {
+        if (array instanceof int[]) {
+            Arrays.sort((int[]) array);
+        } else if (array instanceof double[]) {
+            Arrays.sort((double[]) array);
+        } else if (array instanceof char[]) {
+            Arrays.sort((char[]) array);
+        } else if (array instanceof long[]) {
+            Arrays.sort((long[]) array);
+        } else if (array instanceof Object[]) {
+            Arrays.sort((Object[]) array);
+        } else if (array instanceof byte[]) {
+            Arrays.sort((byte[]) array);
+        } else if (array instanceof short[]) {
+            Arrays.sort((short[]) array);
+        } else if (array instanceof float[]) {
+            Arrays.sort((float[]) array);
+        } else {
+            checkArray(array, "sort");
+            throw new InterpreterException("no suitable method found for sort(boolean[])");
+        }
+    }
+    
+    /** {@code Arrays.toString(array)}; "null" for a null array, like the JDK. */
+    public static String toString(Object array) {
+        if (array == null) {
+            return "null";
+        }
+        if (array instanceof int[]) return Arrays.toString((int[]) array);
+        if (array instanceof Object[]) return Arrays.toString((Object[]) array);
+        if (array instanceof double[]) return Arrays.toString((double[]) array);
+        if (array instanceof char[]) return Arrays.toString((char[]) array);
+        if (array instanceof long[]) return Arrays.toString((long[]) array);
+        if (array instanceof boolean[]) return Arrays.toString((boolean[]) array);
+        if (array instanceof byte[]) return Arrays.toString((byte[]) array);
+        if (array instanceof short[]) return Arrays.toString((short[]) array);
+        if (array instanceof float[]) return Arrays.toString((float[]) array);
+        throw new InterpreterException("no suitable method found for toString(" + Operators.typeName(array) + ")");
+    }
+    
+    /** {@code array.clone()}: a shallow copy, as in Java. */
+    public static Object copy(Object array) {
+        int length = Array.getLength(array);
+        Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.javabuddy.compiler.runtime;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sink for the output of a running program. The interpreters print into it
+ * as the program runs, and a reader on another thread (the IDE console)
+ * picks up new lines with {@link #readLines} while the run is still going.
+ *
+ * <p>Completed lines are kept in a ring buffer capped by line count and by
+ * total characters; once either cap is hit the oldest lines are dropped, so
+ * a program printing in an endless loop cannot run the app out of memory.
+ * Lines are numbered from the start of the run, so a reader can tell how
+ * many it missed.
+ *
+ * <p>The buffer also holds what the program reads from {@code System.in}:
+ * text set before the run, since there is no keyboard to type into.
+ */
+public final class ConsoleBuffer {
+    
+    public static final int DEFAULT_MAX_LINES = 10_000;
+    public static final int DEFAULT_MAX_CHARS = 1_000_000;
+    /** Longer lines are wrapped, so output without any newline is bounded too. */
+    static final int MAX_LINE_LENGTH = 8_192;
+    
+    private final int maxChars;
+    private final String[] ring;
+    private final Object lock = new Object();
+    private int head;
+    private int size;
+    private int retainedChars;
+    /** Number of the oldest retained line, which is also how many were dropped. */
+    private long firstLine;
+    private final StringBuilder partial = new StringBuilder();
+    private String input = "";
+    private InputStream inputStream;
+    
+    public ConsoleBuffer() {
+        this(DEFAULT_MAX_LINES, DEFAULT_MAX_CHARS);
+    }
+    
+    public ConsoleBuffer(int maxLines, int maxChars) {
+        this.ring = new String[maxLines];
+        this.maxChars = maxChars;
+    }
+    
+    public void print(String text) {
+        synchronized (lock) {
+            int start = 0;
+            int newline;
+            while ((newline = text.indexOf('\n', start)) >= 0) {
+                appendPartial(text, start, newline);
+                completeLine();
+                start = newline + 1;
+            }
+            appendPartial(text, start, text.length());
+        }
+    }
+    
+    public void println(String text) {
+        synchronized (lock) {
+            print(text);
+            completeLine();
+        }
+    }
+    
+    /** Sets what {@code System.in} reads; must be called before the run starts. */
+    public void setInput(String text) {
+        synchronized (lock) {
+            input = text != null ? text : "";
+            inputStream = null;
+        }
+    }
+    
+    /** {@code System.in} of the run: one stream, so every reader of it shares the same position. */
+    public InputStream getInputStream() {
+        synchronized (lock) {
+            if (inputStream == null) {
+                inputStream = new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+            }
+            return inputStream;
+        }
+    }
+    
+    public void clear() {
+        synchronized (lock) {
+            Arrays.fill(ring, null);
+            head = 0;
+            size = 0;
+            retainedChars = 0;
+            firstLine = 0;
+            partial.setLength(0);
+        }
+    }
+    
+    /** Completed lines printed so far, including dropped ones. */
+    public long getLineCount() {
+        synchronized (lock) {
+            return firstLine + size;
+        }
+    }
+    
+    public long getDroppedLineCount() {
+        synchronized (lock) {
+            return firstLine;
+        }
+    }
+    
+    /**
+     * Adds the completed lines numbered {@code from} and up to {@code into},
+     * skipping any that were dropped in the meantime, and returns the number
+     * to pass next time.
+     */
+    public long readLines(long from, List<String> into) {
+        synchronized (lock) {
+            long end = firstLine + size;
+            for (long line = Math.max(from, firstLine); line < end; line++) {
+                into.add(ring[(int) ((head + (line - firstLine)) % ring.length)]);
+            }
+            return end;
+        }
+    }
+    
+    /** Text printed after the last newline. */
+    public String getPartialLine() {
+        synchronized (lock) {
+            return partial.toString();
+        }
+    }
+    
+    /** All retained output, as the program printed it. */
+    @Override
+    public String toString() {
+        synchronized (lock) {
+            StringBuilder text = new StringBuilder(retainedChars + size + partial.length());
+            for (int i = 0; i < size; i++) {
+                text.append(ring[(head + i) % ring.length]).append('\n');
+            }
+            return text.append(partial).toString();
+        }
+    }
+    
+    private void appendPartial(String text, int start, int end) {
+        while (partial.length() + (end - start) > MAX_LINE_LENGTH) {
+            int room = MAX_LINE_LENGTH - partial.length();
+            partial.append(text, start, start + room);
+            completeLine();
+            start += room;
+        }
+        partial.append(text, start, end);
+    }
+    
+    private void completeLine() {
+        String line = partial.toString();
+        partial.setLength(0);
+        while (size > 0 && (size == ring.length || retainedChars + line.length() > maxChars)) {
+            retainedChars -= ring[head].length();
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+            size--;
+            firstLine++;
+        }
+        ring[(head + size) % ring.length] = line;
+        size++;
+        retainedChars += line.length();
+    }
+}
\ No newline at end of file
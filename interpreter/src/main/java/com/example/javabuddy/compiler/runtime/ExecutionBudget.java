@@ -0,0 +1,187 @@
+package com.example.javabuddy.compiler.runtime;
+
+/**
+ * Limits one run of a program: an instruction budget, a wall-clock timeout,
+ * a heap quota and a flag another thread can set to stop it. The VM calls
+ * {@link #step()} for every instruction it executes, the tree-walker for
+ * every statement it runs, whether walked or compiled, so a program uses the
+ * same budget before and after its hot code tiers up. Both call
+ * {@link #checkpoint()} at loop back-edges and calls, which is where a runaway program spends its
+ * time; either throws {@link ExecutionStoppedException} once the run must end.
+ *
+ * <p>The engines also charge what they allocate to {@link #allocate}. Once
+ * enough has been allocated since the last look, the budget measures what the
+ * program can still reach with a {@link HeapMeter} and carries on from there,
+ * so garbage does not count against the quota for long. The interval grows
+ * with the live heap, which keeps the cost of measuring proportional to the
+ * allocation, as with a garbage collector.
+ *
+ * <p>A budget belongs to a single run. Only {@link #cancel()} may be called
+ * from a different thread.
+ */
+public final class ExecutionBudget {
+    
+    /**
+     * Sized for a bubble sort over 10,000 ints, the largest array workload
+     * the engines are meant to run: about 200 million statements on the
+     * tree-walker and 1.5 billion instructions on the VM, which takes the VM
+     * 10 to 20 s on a desktop JVM. A runaway program still ends, and Stop
+     * ends any run sooner.
+     */
+    public static final long DEFAULT_MAX_INSTRUCTIONS = 3_000_000_000L;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30_000L;
+    public static final long DEFAULT_MAX_HEAP_BYTES = 32L * 1024 * 1024;
+    /** Smallest allocation between two heap measurements, so small programs are measured a few times at most. */
+    static final long MIN_MEASURE_INTERVAL = 256 * 1024;
+    /** Checkpoints between two reads of the clock; reading it on every back-edge would slow tight loops down. */
+    private static final int CLOCK_INTERVAL = 1024;
+    
+    private final long maxInstructions;
+    private final long timeoutMillis;
+    private final long maxHeapBytes;
+    private volatile boolean cancelled;
+    private long instructions;
+    private int checkpoints;
+    private long deadline;
+    private HeapMeter.Roots heapRoots;
+    /** Live bytes at the last measurement plus everything allocated since. */
+    private long heapBytes;
+    private long nextHeapMeasure;
+    private long peakHeapBytes;
+    
+    public ExecutionBudget() {
+        this(DEFAULT_MAX_INSTRUCTIONS, DEFAULT_TIMEOUT_MILLIS);
+    }
+    
+    public ExecutionBudget(long maxInstructions, long timeoutMillis) {
+        this(maxInstructions, timeoutMillis, DEFAULT_MAX_HEAP_BYTES);
+    }
+    
+    public ExecutionBudget(long maxInstructions, long timeoutMillis, long maxHeapBytes) {
+        this.maxInstructions = maxInstructions;
+        this.timeoutMillis = timeoutMillis;
+        this.maxHeapBytes = maxHeapBytes;
+        start();
+    }
+    
+    /** Resets the counters and starts the clock. A cancellation that already happened stays in effect. */
+    public void start() {
+        instructions = 0;
+        checkpoints = 0;
+        deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        heapBytes = 0;
+        peakHeapBytes = 0;
+        nextHeapMeasure = Math.min(MIN_MEASURE_INTERVAL, maxHeapBytes);
+    }
+    
+    /**
+     * Tells the budget where to find the values of the run, so it can measure
+     * them; null when the run is over. Without roots every allocation counts
+     * for the rest of the run.
+     */
+    public void setHeapRoots(HeapMeter.Roots roots) {
+        this.heapRoots = roots;
+    }
+    
+    /** Asks the run to stop at its next checkpoint. Safe to call from any thread. */
+    public void cancel() {
+        cancelled = true;
+    }
+    
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    public long getInstructionCount() {
+        return instructions;
+    }
+    
+    public long getMaxInstructions() {
+        return maxInstructions;
+    }
+    
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+    
+    public long getMaxHeapBytes() {
+        return maxHeapBytes;
+    }
+    
+    /** Estimated bytes in use: the live heap at the last measurement plus what was allocated since. */
+    public long getHeapBytes() {
+        return heapBytes;
+    }
+    
+    /**
+     * The most the run had in use at once, as far as measured. Garbage made
+     * since the last measurement counts too, so this is an upper bound, off
+     * by at most one measuring interval.
+     */
+    public long getPeakHeapBytes() {
+        return Math.max(peakHeapBytes, heapBytes);
+    }
+    
+    /** Charges one instruction. */
+    public void step() {
+        if (++instructions > maxInstructions) {
+            throw new ExecutionStoppedException(ExecutionStoppedException.Reason.INSTRUCTION_LIMIT,
+                    "Program exceeded " + maxInstructions + " instructions (possible infinite loop)");
+        }
+    }
+    
+    /** Charges {@code bytes} of newly allocated memory, measuring the heap once enough has been. */
+    public void allocate(long bytes) {
+        heapBytes += bytes;
+        if (heapBytes > nextHeapMeasure) {
+            measureHeap();
+        }
+    }
+    
+    /**
+     * Charges {@code bytes} for an allocation that has not happened yet,
+     * failing before it does if the live heap and the new value together
+     * would not fit in the quota.
+     */
+    public void reserve(long bytes) {
+        if (heapBytes + bytes > maxHeapBytes) {
+            measureHeap(bytes);
+        }
+        allocate(bytes);
+    }
+    
+    private void measureHeap() {
+        measureHeap(0);
+    }
+    
+    private void measureHeap(long pending) {
+        long live = heapRoots != null ? HeapMeter.measure(heapRoots, maxHeapBytes) : heapBytes;
+        peakHeapBytes = Math.max(peakHeapBytes, live);
+        if (live + pending > maxHeapBytes) {
+            throw memoryLimitExceeded();
+        }
+        heapBytes = live;
+        // measure again after allocating about as much as is live, so each measurement pays for itself
+        nextHeapMeasure = live + Math.max(MIN_MEASURE_INTERVAL, Math.min(live, maxHeapBytes / 8));
+    }
+    
+    /**
+     * What stops a run over its heap quota; also thrown for an allocation
+     * the host itself had no memory for, which the quota did not foresee.
+     */
+    public ExecutionStoppedException memoryLimitExceeded() {
+        return new ExecutionStoppedException(ExecutionStoppedException.Reason.MEMORY_LIMIT,
+                "Memory limit exceeded: program used more than " + HeapMeter.formatBytes(maxHeapBytes));
+    }
+    
+    /** Checks for cancellation, and every so often for the timeout. */
+    public void checkpoint() {
+        if (cancelled) {
+            throw new ExecutionStoppedException(ExecutionStoppedException.Reason.CANCELLED, "Program stopped");
+        }
+        if (++checkpoints % CLOCK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+            throw new ExecutionStoppedException(ExecutionStoppedException.Reason.TIMEOUT,
+                    "Program timed out after " + timeoutMillis + " ms (possible infinite loop)");
+        }
+    }
+}
\ No newline at end of file
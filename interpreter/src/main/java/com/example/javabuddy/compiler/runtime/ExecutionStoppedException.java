@@ -0,0 +1,26 @@
+package com.example.javabuddy.compiler.runtime;
+
+/**
+ * Thrown when an {@link ExecutionBudget} ends a run. Like every
+ * {@link InterpreterException} it cannot be caught by the program, so the
+ * run unwinds to the engine, which reports it together with the output
+ * printed so far.
+ */
+public class ExecutionStoppedException extends InterpreterException {
+    
+    public enum Reason {
+        INSTRUCTION_LIMIT,
+        TIMEOUT,
+        MEMORY_LIMIT,
+        CANCELLED
+    }
+    
+    private final Reason reason;
+    
+    public ExecutionStoppedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+    
+    public Reason getReason() { return reason; }
+}
\ No newline at end of file
@@ -0,0 +1,207 @@
+package com.example.javabuddy.compiler.runtime;
+
+import java.lang.reflect.Array;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Estimates how much memory the values of a running program take. Sizes
+ * are approximations of a 64-bit JVM with compressed references: close
+ * enough to stop a program that fills a list in an endless loop long before
+ * the app runs out of memory, not an exact account.
+ *
+ * <p>{@link #sizeOf} prices a single new value, which is what the engines
+ * charge to their {@link ExecutionBudget} as they allocate. Since nothing
+ * tells the engines when a value becomes garbage, the budget every so often
+ * {@link #measure measures} what is still reachable from the run's
+ * {@link Roots}, the way a garbage collector would, and continues from that.
+ */
+public final class HeapMeter {
+    
+    static final int HEADER = 16;
+    static final int REFERENCE = 4;
+    /** A slot in a list or set plus its share of the backing array or node. */
+    static final int COLLECTION_ENTRY = 24;
+    /** A hash map node: hash, key, value and next. */
+    static final int MAP_ENTRY = 32;
+    
+    /** Where the values of a run are reachable from: its static fields and the frames on its stack. */
+    public interface Roots {
+        void addRoots(HeapMeter meter);
+    }
+    
+    private final IdentityHashMap<Object, Boolean> seen = new IdentityHashMap<>();
+    private final ArrayDeque<Object> pending = new ArrayDeque<>();
+    
+    private HeapMeter() {
+    }
+    
+    /**
+     * The estimated size of everything reachable from {@code roots}. Stops
+     * counting once the size passes {@code limit}, so measuring a program
+     * that is far over its quota costs no more than one that is just over.
+     */
+    public static long measure(Roots roots, long limit) {
+        HeapMeter meter = new HeapMeter();
+        roots.addRoots(meter);
+        return meter.drain(limit);
+    }
+    
+    /** Adds a value reachable from a root. */
+    public void add(Object value) {
+        if (value != null && !seen.containsKey(value)) {
+            seen.put(value, Boolean.TRUE);
+            pending.add(value);
+        }
+    }
+    
+    /** Adds the first {@code length} values of a frame or table, not counting the array itself. */
+    public void addAll(Object[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            add(values[i]);
+        }
+    }
+    
+    private long drain(long limit) {
+        long total = 0;
+        Object value;
+        while (total <= limit && (value = pending.poll()) != null) {
+            total += sizeOf(value);
+            if (value instanceof ProgramObject) {
+                for (Object field : ((ProgramObject) value).fields) {
+                    add(field);
+                }
+            } else if (value instanceof Object[]) {
+                for (Object element : (Object[]) value) {
+                    add(element);
+                }
+            } else if (value instanceof Collection || value instanceof Map) {
+                addContents(value);
+            }
+        }
+        return total;
+    }
+    
+    private void addContents(Object container) {
+        try {
+            if (container instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) container).entrySet()) {
+                    add(entry.getKey());
+                    add(entry.getValue());
+                }
+            } else {
+                for (Object element : (Collection<?>) container) {
+                    add(element);
+                }
+            }
+        } catch (RuntimeException e) {
+            // measured while a host call on it is still running; its own size is counted already
+        }
+    }
+    
+    // ---------------------------------------------------------------------
+    // Sizes
+    // ---------------------------------------------------------------------
+    
+    /** Estimated size of {@code value} itself, without the values it refers to. */
+    public static long sizeOf(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return sizeOfNewString(((String) value).length());
+        }
+        if (value instanceof ProgramObject) {
+            ProgramObject object = (ProgramObject) value;
+            return HEADER + 3 * REFERENCE + arraySize(object.fields.length, REFERENCE)
+                    + arraySize(object.primitiveFields.length, 8);
+        }
+        if (value.getClass().isArray()) {
+            Class<?> component = value.getClass().getComponentType();
+            return arraySize(Array.getLength(value), component.isPrimitive() ? primitiveSize(component) : REFERENCE);
+        }
+        if (value instanceof Collection || value instanceof Map) {
+            return HEADER + 32 + footprint(value);
+        }
+        if (value instanceof StringBuilder) {
+            return HEADER + 8 + arraySize(((StringBuilder) value).capacity(), 2);
+        }
+        return HEADER;
+    }
+    
+    /** Estimated size of a string of {@code length} characters about to be created. */
+    public static long sizeOfNewString(long length) {
+        // saturate rather than overflow, as for arrays
+        return HEADER + 8 + HEADER + 2 * Math.min(Math.max(length, 0), Long.MAX_VALUE / 4);
+    }
+    
+    /**
+     * Estimated size of an array about to be created: {@code dimensions}
+     * deep, with the first {@code lengths.length} levels allocated. Counted
+     * from the lengths alone, so it can be charged before the allocation.
+     */
+    public static long sizeOfNewArray(Class<?> elementType, int[] lengths, int dimensions) {
+        long total = 0;
+        long count = 1;
+        for (int i = 0; i < lengths.length; i++) {
+            int elementSize = i == dimensions - 1 && elementType.isPrimitive() ? primitiveSize(elementType) : REFERENCE;
+            total = Math.min(total + count * arraySize(lengths[i], elementSize), Long.MAX_VALUE / 2);
+            // saturate rather than overflow; anything this large is far over any quota
+            count = Math.min(count * lengths[i], Integer.MAX_VALUE);
+        }
+        return total;
+    }
+    
+    /**
+     * Estimated size of what a host object keeps inside: the entries of a
+     * collection or map, the characters of a string builder. Compared before
+     * and after a host call, it tells how much the call made the object grow.
+     */
+    public static long footprint(Object value) {
+        try {
+            if (value instanceof Collection) {
+                return (long) COLLECTION_ENTRY * ((Collection<?>) value).size();
+            }
+            if (value instanceof Map) {
+                return (long) MAP_ENTRY * ((Map<?, ?>) value).size();
+            }
+            if (value instanceof StringBuilder) {
+                return 2L * ((StringBuilder) value).length();
+            }
+        } catch (RuntimeException e) {
+            // a collection that cannot tell its size holds nothing we can charge for
+        }
+        return 0;
+    }
+    
+    /** A size for people: "512 B", "12.5 KB", "32.0 MB". */
+    public static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.US, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.US, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+    
+    private static long arraySize(int length, int elementSize) {
+        return HEADER + (long) length * elementSize;
+    }
+    
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == char.class || type == short.class) {
+            return 2;
+        }
+        return 1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,470 @@
+package com.example.javabuddy.compiler.runtime;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.InputMismatchException;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+/**
+ * Calls into real JDK classes on behalf of the interpreted program. Only
+ * the whitelisted classes below can be named from source, so programs can
+ * use Math, String or Integer but not System.exit or reflection.
+ */
+public final class HostInterop {
+    
+    private static final Map<String, Class<?>> CLASSES = new HashMap<>();
+    
+    private static final int BOOLEAN = 0;
+    private static final int BYTE = 1;
+    private static final int SHORT = 2;
+    private static final int CHAR = 3;
+    private static final int INT = 4;
+    private static final int LONG = 5;
+    private static final int FLOAT = 6;
+    private static final int DOUBLE = 7;
+    
+    static {
+        Class<?>[] allowed = {
+                Object.class, String.class, StringBuilder.class, CharSequence.class, Comparable.class,
+                Math.class, StrictMath.class, Number.class, Integer.class, Long.class, Double.class,
+                Float.class, Short.class, Byte.class, Boolean.class, Character.class, Iterable.class,
+                Throwable.class, Exception.class, Error.class, RuntimeException.class,
+                ArithmeticException.class, ArrayIndexOutOfBoundsException.class,
+                IndexOutOfBoundsException.class, StringIndexOutOfBoundsException.class,
+                NullPointerException.class, IllegalArgumentException.class, IllegalStateException.class,
+                NumberFormatException.class, ClassCastException.class, UnsupportedOperationException.class,
+                NegativeArraySizeException.class, ArrayStoreException.class, CloneNotSupportedException.class,
+                InterruptedException.class, StackOverflowError.class, AssertionError.class, Arrays.class,
+                // reading System.in, which the engines back with the run's console input
+                Scanner.class, BufferedReader.class, InputStreamReader.class, IOException.class,
+                NoSuchElementException.class, InputMismatchException.class
+        };
+        for (Class<?> type : allowed) {
+            CLASSES.put(type.getSimpleName(), type);
+            CLASSES.put(type.getName(), type);
+        }
+    }
+    
+    private HostInterop() {
+    }
+    
+    /** The whitelisted class with the given simple or qualified name, or null. */
+    public static Class<?> resolveClass(String name) {
+        return CLASSES.get(name);
+    }
+    
+    public static boolean hasStaticField(Class<?> type, String name) {
+        try {
+            return Modifier.isStatic(type.getField(name).getModifiers());
+        } catch (NoSuchFieldException e) {
+            return false;
+        }
+    }
+    
+    public static Object getStaticField(Class<?> type, String name) {
+        try {
+            Field field = type.getField(name);
+            if (!Modifier.isStatic(field.getModifiers())) {
+                throw new InterpreterException("non-static variable " + name + " cannot be referenced from a static context");
+            }
+            return field.get(null);
+        } catch (NoSuchFieldException e) {
+            throw new InterpreterException("cannot find symbol: variable " + name + " in class " + type.getSimpleName());
+        } catch (IllegalAccessException e) {
+            throw new InterpreterException(name + " is not accessible");
+        }
+    }
+    
+    public static Object invokeStatic(Class<?> type, String name, Object[] args) {
+        Method method = findMethod(type, name, args, true);
+        if (method == null) {
+            throw new InterpreterException("cannot find symbol: method " + name + describe(args)
+                    + " in class " + type.getSimpleName());
+        }
+        return invoke(method, null, args);
+    }
+    
+    public static Object invokeVirtual(Object target, String name, Object[] args) {
+        if (target == null) {
+            throw new NullPointerException("Cannot invoke \"" + name + "()\" because value is null");
+        }
+        if (isBlocked(target, name)) {
+            throw new InterpreterException("Method " + name + " is not available in this environment");
+        }
+        if (target.getClass().isArray() && name.equals("clone") && args.length == 0) {
+            // arrays have no public clone method for reflection to find
+            return ArrayOperations.copy(target);
+        }
+        // the engines dispatch a program object's own methods; the host only sees what it inherits from Object
+        Class<?> type = target instanceof ProgramObject ? Object.class : target.getClass();
+        Method method = findMethod(type, name, args, false);
+        if (method == null) {
+            throw new InterpreterException("cannot find symbol: method " + name + describe(args)
+                    + " in " + Operators.typeName(target));
+        }
+        return invoke(method, target, args);
+    }
+    
+    public static Object construct(Class<?> type, Object[] args) {
+        if (Modifier.isAbstract(type.getModifiers())) {
+            throw new InterpreterException(type.getSimpleName() + " is abstract; cannot be instantiated");
+        }
+        Constructor<?> best = null;
+        int bestCost = Integer.MAX_VALUE;
+        for (Constructor<?> constructor : type.getConstructors()) {
+            int cost = applicability(constructor, args);
+            if (cost >= 0 && cost < bestCost) {
+                best = constructor;
+                bestCost = cost;
+            }
+        }
+        if (best == null) {
+            throw new InterpreterException("no suitable constructor found for " + type.getSimpleName() + describe(args));
+        }
+        try {
+            return best.newInstance(packArguments(best, args));
+        } catch (InvocationTargetException e) {
+            throw rethrow(e.getCause());
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            throw new InterpreterException("cannot create " + type.getSimpleName() + ": " + e.getMessage());
+        }
+    }
+    
+    // ---------------------------------------------------------------------
+    // Calls charged to a budget
+    // ---------------------------------------------------------------------
+    
+    // A call whose arguments say how much it will allocate, such as
+    // "ab".repeat(n) or new StringBuilder(n), reserves that much first, so
+    // the quota stops it before the host tries. The host running out of
+    // memory anyway ends the run the same way.
+    
+    /** Like {@link #invokeStatic(Class, String, Object[])}, charging {@code budget} for a new string or array. */
+    public static Object invokeStatic(Class<?> type, String name, Object[] args, ExecutionBudget budget) {
+        long reserved = reserve(budget, newStaticCallSize(type, name, args));
+        Object result;
+        try {
+            result = invokeStatic(type, name, args);
+        } catch (OutOfMemoryError e) {
+            throw budget.memoryLimitExceeded();
+        }
+        budget.allocate(Math.max(0, resultSize(result) - reserved));
+        return result;
+    }
+    
+    /**
+     * Like {@link #invokeVirtual(Object, String, Object[])}, charging
+     * {@code budget} for how much the call made the target grow, e.g. a
+     * StringBuilder it appended to, and for a new string or array it returned.
+     */
+    public static Object invokeVirtual(Object target, String name, Object[] args, ExecutionBudget budget) {
+        long before = HeapMeter.footprint(target);
+        long reserved = reserve(budget, newVirtualCallSize(target, name, args));
+        Object result;
+        try {
+            result = invokeVirtual(target, name, args);
+        } catch (OutOfMemoryError e) {
+            throw budget.memoryLimitExceeded();
+        }
+        long grown = Math.max(0, HeapMeter.footprint(target) - before) + resultSize(result);
+        budget.allocate(Math.max(0, grown - reserved));
+        return result;
+    }
+    
+    /** Like {@link #construct(Class, Object[])}, charging {@code budget} for the new object. */
+    public static Object construct(Class<?> type, Object[] args, ExecutionBudget budget) {
+        long reserved = reserve(budget, newInstanceSize(type, args));
+        Object result;
+        try {
+            result = construct(type, args);
+        } catch (OutOfMemoryError e) {
+            throw budget.memoryLimitExceeded();
+        }
+        budget.allocate(Math.max(0, HeapMeter.sizeOf(result) - reserved));
+        return result;
+    }
+    
+    private static long reserve(ExecutionBudget budget, long bytes) {
+        if (bytes > 0) {
+            budget.reserve(bytes);
+        }
+        return Math.max(0, bytes);
+    }
+    
+    /** What {@code String.join} or {@code Arrays.copyOf} is about to allocate; 0 for other static calls. */
+    private static long newStaticCallSize(Class<?> type, String name, Object[] args) {
+        if (type == String.class && name.equals("join") && args.length >= 2 && args[0] instanceof CharSequence) {
+            long delimiter = ((CharSequence) args[0]).length();
+            long length = 0;
+            long count = 0;
+            for (Object element : joinedElements(args)) {
+                // a null element is joined as "null"
+                length += element instanceof CharSequence ? ((CharSequence) element).length() : 4;
+                count++;
+            }
+            return HeapMeter.sizeOfNewString(length + delimiter * Math.max(0, count - 1));
+        }
+        if (type == Arrays.class && name.equals("copyOf") && args.length == 2
+                && args[0] != null && args[0].getClass().isArray() && args[1] instanceof Integer) {
+            int length = Math.max(0, (Integer) args[1]);
+            return HeapMeter.sizeOfNewArray(args[0].getClass().getComponentType(), new int[] { length }, 1);
+        }
+        return 0;
+    }
+    
+    /** The elements of a {@code String.join} call: an Iterable, an array, or the remaining arguments. */
+    private static Iterable<?> joinedElements(Object[] args) {
+        if (args.length == 2 && args[1] instanceof Iterable) {
+            return (Iterable<?>) args[1];
+        }
+        if (args.length == 2 && args[1] instanceof Object[]) {
+            return Arrays.asList((Object[]) args[1]);
+        }
+        return Arrays.asList(args).subList(1, args.length);
+    }
+    
+    /**
+     * What a String's {@code repeat} or {@code concat} is about to allocate,
+     * or what a StringBuilder's {@code ensureCapacity} or {@code setLength}
+     * is about to grow it by; 0 for other calls.
+     */
+    private static long newVirtualCallSize(Object target, String name, Object[] args) {
+        if (args.length != 1) {
+            return 0;
+        }
+        if (target instanceof String) {
+            long length = ((String) target).length();
+            if (name.equals("repeat") && args[0] instanceof Integer) {
+                return HeapMeter.sizeOfNewString(length * Math.max(0, (Integer) args[0]));
+            }
+            if (name.equals("concat") && args[0] instanceof String) {
+                return HeapMeter.sizeOfNewString(length + ((String) args[0]).length());
+            }
+            return 0;
+        }
+        if (target instanceof StringBuilder && args[0] instanceof Integer
+                && (name.equals("ensureCapacity") || name.equals("setLength"))) {
+            long grown = (long) (Integer) args[0] - ((StringBuilder) target).capacity();
+            return grown > 0 ? HeapMeter.sizeOfNewArray(char.class, new int[] { (int) grown }, 1) : 0;
+        }
+        return 0;
+    }
+    
+    /** What a StringBuilder constructed with a capacity is about to allocate; 0 for other constructors. */
+    private static long newInstanceSize(Class<?> type, Object[] args) {
+        if (type == StringBuilder.class && args.length == 1 && args[0] instanceof Integer) {
+            int capacity = Math.max(0, (Integer) args[0]);
+            return HeapMeter.sizeOfNewArray(char.class, new int[] { capacity }, 1);
+        }
+        return 0;
+    }
+    
+    /** Strings and arrays a call returns are usually new; anything else is more likely something that already was. */
+    private static long resultSize(Object result) {
+        return result instanceof String || result != null && result.getClass().isArray() ? HeapMeter.sizeOf(result) : 0;
+    }
+    
+    private static Object invoke(Method method, Object target, Object[] args) {
+        try {
+            if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+                // public methods inherited from a package-private superclass, e.g. AbstractStringBuilder
+                method.setAccessible(true);
+            }
+            return method.invoke(target, packArguments(method, args));
+        } catch (InvocationTargetException e) {
+            throw rethrow(e.getCause());
+        } catch (IllegalAccessException | IllegalArgumentException | SecurityException e) {
+            throw new InterpreterException("cannot call " + method.getName() + ": " + e.getMessage());
+        }
+    }
+    
+    private static boolean isBlocked(Object target, String name) {
+        if (target instanceof Class || target instanceof ClassLoader || target instanceof Thread) {
+            return true;
+        }
+        switch (name) {
+            case "getClass":
+            case "wait":
+            case "notify":
+            case "notifyAll":
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    private static Method findMethod(Class<?> type, String name, Object[] args, boolean wantStatic) {
+        Method best = null;
+        int bestCost = Integer.MAX_VALUE;
+        for (Method method : type.getMethods()) {
+            if (!method.getName().equals(name) || Modifier.isStatic(method.getModifiers()) != wantStatic) {
+                continue;
+            }
+            int cost = applicability(method, args);
+            if (cost >= 0 && cost < bestCost) {
+                best = method;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+    
+    /** Total conversion cost of passing args to the executable, or -1 if it is not applicable. */
+    private static int applicability(Executable executable, Object[] args) {
+        Class<?>[] params = executable.getParameterTypes();
+        if (params.length == args.length) {
+            int cost = 0;
+            for (int i = 0; i < params.length; i++) {
+                int c = conversionCost(params[i], args[i]);
+                if (c < 0) {
+                    cost = -1;
+                    break;
+                }
+                cost += c;
+            }
+            if (cost >= 0) {
+                return cost;
+            }
+        }
+        if (executable.isVarArgs() && args.length >= params.length - 1) {
+            int cost = 100; // prefer fixed-arity methods, as javac does
+            for (int i = 0; i < params.length - 1; i++) {
+                int c = conversionCost(params[i], args[i]);
+                if (c < 0) return -1;
+                cost += c;
+            }
+            Class<?> component = params[params.length - 1].getComponentType();
+            for (int i = params.length - 1; i < args.length; i++) {
+                int c = conversionCost(component, args[i]);
+                if (c < 0) return -1;
+                cost += c;
+            }
+            return cost;
+        }
+        return -1;
+    }
+    
+    private static Object[] packArguments(Executable executable, Object[] args) {
+        Class<?>[] params = executable.getParameterTypes();
+        if (!executable.isVarArgs()) {
+            return args;
+        }
+        int fixed = params.length - 1;
+        if (args.length == params.length && (args[fixed] == null || params[fixed].isInstance(args[fixed]))) {
+            return args;
+        }
+        Class<?> component = params[fixed].getComponentType();
+        Object varargs = Array.newInstance(component, args.length - fixed);
+        for (int i = fixed; i < args.length; i++) {
+            Array.set(varargs, i - fixed, component.isPrimitive() ? convertPrimitive(component, args[i]) : args[i]);
+        }
+        Object[] packed = new Object[params.length];
+        System.arraycopy(args, 0, packed, 0, fixed);
+        packed[fixed] = varargs;
+        return packed;
+    }
+    
+    private static Object convertPrimitive(Class<?> type, Object value) {
+        return Operators.cast(type.getName(), value);
+    }
+    
+    /**
+     * Cost of passing arg to a parameter of the given type: 0 for an exact
+     * match, larger for widening or subtyping, -1 if not assignable.
+     */
+    public static int conversionCost(Class<?> param, Object arg) {
+        if (arg == null) {
+            return param.isPrimitive() ? -1 : 1;
+        }
+        if (param.isPrimitive()) {
+            int from = primitiveRank(arg.getClass());
+            int to = primitiveRank(param);
+            if (from < 0 || to < 0) {
+                return -1;
+            }
+            if (from == to) {
+                return 0;
+            }
+            if (!widens(from, to)) {
+                return -1;
+            }
+            return to - from;
+        }
+        if (param == arg.getClass()) {
+            return 0;
+        }
+        if (param.isInstance(arg)) {
+            return param == Object.class ? 20 : 10;
+        }
+        return -1;
+    }
+    
+    private static int primitiveRank(Class<?> type) {
+        if (type == int.class || type == Integer.class) return INT;
+        if (type == double.class || type == Double.class) return DOUBLE;
+        if (type == long.class || type == Long.class) return LONG;
+        if (type == char.class || type == Character.class) return CHAR;
+        if (type == boolean.class || type == Boolean.class) return BOOLEAN;
+        if (type == float.class || type == Float.class) return FLOAT;
+        if (type == short.class || type == Short.class) return SHORT;
+        if (type == byte.class || type == Byte.class) return BYTE;
+        return -1;
+    }
+    
+    /** Widening primitive conversions (JLS 5.1.2). */
+    private static boolean widens(int from, int to) {
+        if (from == BOOLEAN || to == BOOLEAN || to < from) {
+            return false;
+        }
+        if (to == CHAR) {
+            return false;
+        }
+        return !(from == CHAR && to == SHORT);
+    }
+    
+    /** The class object for a primitive type name such as "int", or null. */
+    public static Class<?> primitiveType(String name) {
+        switch (name) {
+            case "int": return int.class;
+            case "long": return long.class;
+            case "double": return double.class;
+            case "float": return float.class;
+            case "boolean": return boolean.class;
+            case "char": return char.class;
+            case "short": return short.class;
+            case "byte": return byte.class;
+            default: return null;
+        }
+    }
+    
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new ThrownException(cause, 0);
+    }
+    
+    private static String describe(Object[] args) {
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(Operators.typeName(args[i]));
+        }
+        return sb.append(')').toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.example.javabuddy.compiler.runtime;
+
+/**
+ * An error in the interpreted program that javac would have rejected or
+ * that the interpreter cannot handle, as opposed to an exception thrown by
+ * the program itself (see {@link ThrownException}).
+ */
+public class InterpreterException extends RuntimeException {
+    
+    private int line;
+    
+    public InterpreterException(String message) {
+        super(message);
+    }
+    
+    public InterpreterException(String message, int line) {
+        super(message);
+        this.line = line;
+    }
+    
+    /** 1-based source line, or 0 when unknown. */
+    public int getLine() { return line; }
+    
+    /** Fills in the line if the code that threw did not know it. */
+    public InterpreterException atLine(int line) {
+        if (this.line == 0) {
+            this.line = line;
+        }
+        return this;
+    }
+}
\ No newline at end of file
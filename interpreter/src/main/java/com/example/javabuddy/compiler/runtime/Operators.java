@@ -0,0 +1,386 @@
+package com.example.javabuddy.compiler.runtime;
+
+import com.example.javabuddy.compiler.ast.BinaryOp;
+import com.example.javabuddy.compiler.ast.UnaryOp;
+
+/**
+ * Java operator semantics on boxed values. Arithmetic follows binary numeric
+ * promotion (JLS 5.6), so int / int stays an int and char + int is an int,
+ * and {@code +} with a String operand concatenates.
+ */
+public final class Operators {
+    
+    private static final int INT = 0;
+    private static final int LONG = 1;
+    private static final int FLOAT = 2;
+    private static final int DOUBLE = 3;
+    
+    private Operators() {
+    }
+    
+    /** Evaluates every binary operator except the short-circuit && and ||. */
+    public static Object binary(BinaryOp op, Object left, Object right) {
+        if (op == BinaryOp.ADD && (left instanceof String || right instanceof String)) {
+            return String.valueOf(left).concat(String.valueOf(right));
+        }
+        
+        if (op == BinaryOp.EQ || op == BinaryOp.NE) {
+            boolean equal = isNumeric(left) && isNumeric(right)
+                    ? numericEquals(left, right)
+                    : left instanceof Boolean && right instanceof Boolean ? left.equals(right) : left == right;
+            return op == BinaryOp.EQ ? equal : !equal;
+        }
+        
+        if (left instanceof Boolean && right instanceof Boolean) {
+            boolean a = (Boolean) left;
+            boolean b = (Boolean) right;
+            switch (op) {
+                case BIT_AND: return a & b;
+                case BIT_OR: return a | b;
+                case BIT_XOR: return a ^ b;
+                default: throw badOperands(op, left, right);
+            }
+        }
+        
+        if (!isNumeric(left) || !isNumeric(right)) {
+            throw badOperands(op, left, right);
+        }
+        
+        if (op.isShift()) {
+            return shift(op, left, right);
+        }
+        
+        int kind = Math.max(kind(left), kind(right));
+        switch (op) {
+            case LT:
+            case GT:
+            case LE:
+            case GE:
+                return compareOp(op, kind, left, right);
+            default:
+                break;
+        }
+        
+        switch (kind) {
+            case INT: {
+                int a = intValue(left);
+                int b = intValue(right);
+                switch (op) {
+                    case ADD: return a + b;
+                    case SUB: return a - b;
+                    case MUL: return a * b;
+                    case DIV: return a / b;
+                    case REM: return a % b;
+                    case BIT_AND: return a & b;
+                    case BIT_OR: return a | b;
+                    case BIT_XOR: return a ^ b;
+                    default: break;
+                }
+                break;
+            }
+            case LONG: {
+                long a = longValue(left);
+                long b = longValue(right);
+                switch (op) {
+                    case ADD: return a + b;
+                    case SUB: return a - b;
+                    case MUL: return a * b;
+                    case DIV: return a / b;
+                    case REM: return a % b;
+                    case BIT_AND: return a & b;
+                    case BIT_OR: return a | b;
+                    case BIT_XOR: return a ^ b;
+                    default: break;
+                }
+                break;
+            }
+            case FLOAT: {
+                float a = floatValue(left);
+                float b = floatValue(right);
+                switch (op) {
+                    case ADD: return a + b;
+                    case SUB: return a - b;
+                    case MUL: return a * b;
+                    case DIV: return a / b;
+                    case REM: return a % b;
+                    default: break;
+                }
+                break;
+            }
+            default: {
+                double a = doubleValue(left);
+                double b = doubleValue(right);
+                switch (op) {
+                    case ADD: return a + b;
+                    case SUB: return a - b;
+                    case MUL: return a * b;
+                    case DIV: return a / b;
+                    case REM: return a % b;
+                    default: break;
+                }
+                break;
+            }
+        }
+        throw badOperands(op, left, right);
+    }
+    
+    /**
+     * {@code parts[start] + parts[start + 1] + ...}, grouped from the left as
+     * in Java: operands before the first String are added as numbers, so
+     * {@code 1 + 2 + "a" + 1 + 2} is "3a12", and everything from there on is
+     * appended to one builder sized up front. A chain of any length makes one
+     * String instead of one per {@code +}.
+     */
+    public static Object concat(Object[] parts, int start, int count) {
+        int end = start + count;
+        Object sum = parts[start];
+        int next = start + 1;
+        while (next < end && !(sum instanceof String) && !(parts[next] instanceof String)) {
+            sum = binary(BinaryOp.ADD, sum, parts[next++]);
+        }
+        if (next == end) {
+            return sum;
+        }
+        int capacity = estimatedLength(sum);
+        for (int i = next; i < end; i++) {
+            capacity += estimatedLength(parts[i]);
+        }
+        StringBuilder text = new StringBuilder(capacity);
+        append(text, sum);
+        for (int i = next; i < end; i++) {
+            append(text, parts[i]);
+        }
+        return text.toString();
+    }
+    
+    /** Length of a String; for anything else enough for most numbers, so the builder rarely grows. */
+    private static int estimatedLength(Object value) {
+        return value instanceof String ? ((String) value).length() : 16;
+    }
+    
+    /** Appends a value as String.valueOf would show it, without a String for the common primitives. */
+    private static void append(StringBuilder text, Object value) {
+        if (value instanceof String) {
+            text.append((String) value);
+        } else if (value instanceof Integer) {
+            text.append(((Integer) value).intValue());
+        } else if (value instanceof Character) {
+            text.append(((Character) value).charValue());
+        } else if (value instanceof Long) {
+            text.append(((Long) value).longValue());
+        } else if (value instanceof Double) {
+            text.append(((Double) value).doubleValue());
+        } else {
+            text.append(value);
+        }
+    }
+    
+    public static Object unary(UnaryOp op, Object operand) {
+        switch (op) {
+            case NOT:
+                if (operand instanceof Boolean) {
+                    return !(Boolean) operand;
+                }
+                break;
+            case NEG:
+                switch (numericKind(op, operand)) {
+                    case INT: return -intValue(operand);
+                    case LONG: return -longValue(operand);
+                    case FLOAT: return -floatValue(operand);
+                    default: return -doubleValue(operand);
+                }
+            case PLUS:
+                switch (numericKind(op, operand)) {
+                    case INT: return intValue(operand);
+                    default: return operand;
+                }
+            case BIT_NOT:
+                switch (numericKind(op, operand)) {
+                    case INT: return ~intValue(operand);
+                    case LONG: return ~longValue(operand);
+                    default: break;
+                }
+                break;
+            default:
+                break;
+        }
+        throw new InterpreterException("bad operand type " + typeName(operand) + " for unary operator '" + op.getSymbol() + "'");
+    }
+    
+    /** {@code ++} and {@code --}: the result keeps the operand's own type, so a char stays a char. */
+    public static Object increment(Object value, int delta) {
+        if (value instanceof Integer) return (Integer) value + delta;
+        if (value instanceof Long) return (Long) value + delta;
+        if (value instanceof Double) return (Double) value + delta;
+        if (value instanceof Float) return (Float) value + delta;
+        if (value instanceof Character) return (char) ((Character) value + delta);
+        if (value instanceof Short) return (short) ((Short) value + delta);
+        if (value instanceof Byte) return (byte) ((Byte) value + delta);
+        throw new InterpreterException("bad operand type " + typeName(value) + " for unary operator '"
+                + (delta > 0 ? "++" : "--") + "'");
+    }
+    
+    /**
+     * Converts a value to the named primitive type, as a cast or an
+     * assignment to a variable of that type would. Non-primitive type names
+     * leave the value unchanged.
+     */
+    public static Object cast(String type, Object value) {
+        switch (type) {
+            case "int":
+                return intValue(requireNumeric(type, value));
+            case "long":
+                return longValue(requireNumeric(type, value));
+            case "double":
+                return doubleValue(requireNumeric(type, value));
+            case "float":
+                return floatValue(requireNumeric(type, value));
+            case "char":
+                return value instanceof Character ? value : (char) intValue(requireNumeric(type, value));
+            case "short":
+                return (short) intValue(requireNumeric(type, value));
+            case "byte":
+                return (byte) intValue(requireNumeric(type, value));
+            case "boolean":
+                if (!(value instanceof Boolean)) {
+                    throw new InterpreterException("incompatible types: " + typeName(value) + " cannot be converted to boolean");
+                }
+                return value;
+            default:
+                return value;
+        }
+    }
+    
+    public static boolean isTrue(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        throw new InterpreterException("incompatible types: " + typeName(value) + " cannot be converted to boolean");
+    }
+    
+    public static boolean isNumeric(Object value) {
+        return value instanceof Number || value instanceof Character;
+    }
+    
+    public static int intValue(Object value) {
+        if (value instanceof Character) {
+            return (Character) value;
+        }
+        return ((Number) value).intValue();
+    }
+    
+    public static long longValue(Object value) {
+        if (value instanceof Character) {
+            return (Character) value;
+        }
+        return ((Number) value).longValue();
+    }
+    
+    public static float floatValue(Object value) {
+        if (value instanceof Character) {
+            return (Character) value;
+        }
+        return ((Number) value).floatValue();
+    }
+    
+    public static double doubleValue(Object value) {
+        if (value instanceof Character) {
+            return (Character) value;
+        }
+        return ((Number) value).doubleValue();
+    }
+    
+    /** Java-style name of a value's type for error messages. */
+    public static String typeName(Object value) {
+        if (value == null) return "<null>";
+        if (value instanceof Integer) return "int";
+        if (value instanceof Long) return "long";
+        if (value instanceof Double) return "double";
+        if (value instanceof Float) return "float";
+        if (value instanceof Boolean) return "boolean";
+        if (value instanceof Character) return "char";
+        if (value instanceof Short) return "short";
+        if (value instanceof Byte) return "byte";
+        if (value instanceof ProgramObject) return ((ProgramObject) value).type.name;
+        return value.getClass().getSimpleName();
+    }
+    
+    private static int kind(Object value) {
+        if (value instanceof Double) return DOUBLE;
+        if (value instanceof Float) return FLOAT;
+        if (value instanceof Long) return LONG;
+        return INT;
+    }
+    
+    private static int numericKind(UnaryOp op, Object operand) {
+        if (!isNumeric(operand)) {
+            throw new InterpreterException("bad operand type " + typeName(operand) + " for unary operator '" + op.getSymbol() + "'");
+        }
+        return kind(operand);
+    }
+    
+    private static Object requireNumeric(String type, Object value) {
+        if (!isNumeric(value)) {
+            throw new InterpreterException("incompatible types: " + typeName(value) + " cannot be converted to " + type);
+        }
+        return value;
+    }
+    
+    private static boolean numericEquals(Object left, Object right) {
+        switch (Math.max(kind(left), kind(right))) {
+            case INT:
+            case LONG:
+                return longValue(left) == longValue(right);
+            default:
+                return doubleValue(left) == doubleValue(right);
+        }
+    }
+    
+    private static Boolean compareOp(BinaryOp op, int kind, Object left, Object right) {
+        if (kind == INT || kind == LONG) {
+            long a = longValue(left);
+            long b = longValue(right);
+            switch (op) {
+                case LT: return a < b;
+                case GT: return a > b;
+                case LE: return a <= b;
+                default: return a >= b;
+            }
+        }
+        double a = doubleValue(left);
+        double b = doubleValue(right);
+        switch (op) {
+            case LT: return a < b;
+            case GT: return a > b;
+            case LE: return a <= b;
+            default: return a >= b;
+        }
+    }
+    
+    private static Object shift(BinaryOp op, Object left, Object right) {
+        int kind = kind(left);
+        if (kind == FLOAT || kind == DOUBLE || kind(right) >= FLOAT) {
+            throw badOperands(op, left, right);
+        }
+        int distance = (int) longValue(right);
+        if (kind == LONG) {
+            long a = longValue(left);
+            switch (op) {
+                case SHL: return a << distance;
+                case SHR: return a >> distance;
+                default: return a >>> distance;
+            }
+        }
+        int a = intValue(left);
+        switch (op) {
+            case SHL: return a << distance;
+            case SHR: return a >> distance;
+            default: return a >>> distance;
+        }
+    }
+    
+    private static InterpreterException badOperands(BinaryOp op, Object left, Object right) {
+        return new InterpreterException("bad operand types for binary operator '" + op.getSymbol() + "'"
+                + " (" + typeName(left) + ", " + typeName(right) + ")");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,243 @@
+package com.example.javabuddy.compiler.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Counts how often each source line and method of a program ran and how
+ * much time was spent in it. An engine that profiles calls {@link #enter}
+ * on every method entry and {@link #line} at the start of every statement.
+ *
+ * <p>Hit counts are exact. Times are self times, from the start of a
+ * statement to the start of the next one, and are sampled: the first
+ * {@value #EXACT_HITS} runs of a line are all timed, after that one run in
+ * {@value #SAMPLE_INTERVAL} picked at random, counted that many times over.
+ * Reading the clock on every statement would make a hot loop run twice as
+ * slow; sampling keeps the estimate unbiased at a fraction of the cost.
+ *
+ * <p>An engine that compiles hot code as it runs also reports each
+ * {@link #tierUp tier transition}, so the profile shows which methods and
+ * loops left the interpreter, and when.
+ *
+ * <p>Profiling is opt-in per run: the VM only makes these calls from code
+ * compiled for profiling, so a run without a profiler executes exactly the
+ * instructions it would otherwise. Results are read once the run has
+ * finished; the profiler is not safe to read while it is being filled.
+ */
+public final class Profiler {
+    
+    static final int EXACT_HITS = 16;
+    static final int SAMPLE_INTERVAL = 8;
+    
+    /** What one method of the program cost. */
+    public static final class MethodProfile {
+        private final String name;
+        private final long invocations;
+        private final long nanos;
+        
+        MethodProfile(String name, long invocations, long nanos) {
+            this.name = name;
+            this.invocations = invocations;
+            this.nanos = nanos;
+        }
+        
+        public String getName() { return name; }
+        public long getInvocations() { return invocations; }
+        
+        /** Estimated time spent in the method's own statements, not in the methods it called. */
+        public long getNanos() { return nanos; }
+        
+        @Override
+        public String toString() {
+            return name + " x" + invocations + " " + nanos / 1_000 + "us";
+        }
+    }
+    
+    /** A method or loop that an engine compiled while the program ran. */
+    public static final class TierTransition {
+        private final String method;
+        private final int line;
+        private final boolean loop;
+        private final long count;
+        private final long nanos;
+        
+        TierTransition(String method, int line, boolean loop, long count, long nanos) {
+            this.method = method;
+            this.line = line;
+            this.loop = loop;
+            this.count = count;
+            this.nanos = nanos;
+        }
+        
+        /** The method compiled, or the method the compiled loop is in. */
+        public String getMethod() { return method; }
+        public int getLine() { return line; }
+        
+        /** True for a loop compiled while it ran, false for a whole method compiled before a call. */
+        public boolean isLoop() { return loop; }
+        
+        /** Calls of the method, or iterations of the method's loops, it took to get hot. */
+        public long getCount() { return count; }
+        
+        /** When it happened, counted from the start of the run. */
+        public long getNanos() { return nanos; }
+        
+        @Override
+        public String toString() {
+            return (loop ? "loop at line " + line + " of " + method + " compiled after " + count + " iterations"
+                    : method + " compiled after " + count + " calls") + " (" + nanos / 1_000 + "us)";
+        }
+    }
+    
+    private String[] methodNames = new String[0];
+    private long[] methodInvocations = new long[0];
+    private long[] methodNanos = new long[0];
+    private long[] lineHits = new long[0];
+    private long[] lineNanos = new long[0];
+    private int maxLine;
+    /** Line of the statement being timed, charged when the next one starts; -1 while none is. */
+    private int sampledLine = -1;
+    private int sampledMethod;
+    private int sampleWeight;
+    private long sampleStart;
+    private int random = 0x2545f491;
+    private final List<TierTransition> tierTransitions = new ArrayList<>();
+    private long startNanos;
+    
+    /** Clears the counts for a new run of a program with these methods, in the numbering the engine uses. */
+    public void start(String[] methodNames) {
+        this.methodNames = methodNames.clone();
+        methodInvocations = new long[methodNames.length];
+        methodNanos = new long[methodNames.length];
+        Arrays.fill(lineHits, 0);
+        Arrays.fill(lineNanos, 0);
+        maxLine = 0;
+        sampledLine = -1;
+        tierTransitions.clear();
+        startNanos = System.nanoTime();
+    }
+    
+    public void enter(int method) {
+        methodInvocations[method]++;
+    }
+    
+    /** A statement on {@code line} of {@code method} is about to run. */
+    public void line(int method, int line) {
+        if (sampledLine >= 0) {
+            charge();
+        }
+        if (line > maxLine) {
+            maxLine = line;
+            if (line >= lineHits.length) {
+                int capacity = Math.max(line + 1, lineHits.length * 2);
+                lineHits = Arrays.copyOf(lineHits, capacity);
+                lineNanos = Arrays.copyOf(lineNanos, capacity);
+            }
+        }
+        if (++lineHits[line] <= EXACT_HITS) {
+            sampleWeight = 1;
+        } else {
+            // xorshift: cheap, and unlike a fixed stride never in step with a loop
+            random ^= random << 13;
+            random ^= random >>> 17;
+            random ^= random << 5;
+            if ((random & (SAMPLE_INTERVAL - 1)) != 0) {
+                return;
+            }
+            sampleWeight = SAMPLE_INTERVAL;
+        }
+        sampledLine = line;
+        sampledMethod = method;
+        sampleStart = System.nanoTime();
+    }
+    
+    /**
+     * {@code method} was compiled after {@code count} calls, or if
+     * {@code loop}, the loop on {@code line} was compiled mid-run once the
+     * method's loops had iterated {@code count} times.
+     */
+    public void tierUp(int method, int line, boolean loop, long count) {
+        tierTransitions.add(new TierTransition(methodNames[method], line, loop, count, System.nanoTime() - startNanos));
+    }
+    
+    /** Charges the statement being timed, if any; call when the run ends, normally or not. */
+    public void stop() {
+        if (sampledLine >= 0) {
+            charge();
+        }
+    }
+    
+    private void charge() {
+        long elapsed = (System.nanoTime() - sampleStart) * sampleWeight;
+        lineNanos[sampledLine] += elapsed;
+        methodNanos[sampledMethod] += elapsed;
+        sampledLine = -1;
+    }
+    
+    // ---------------------------------------------------------------------
+    // Results
+    // ---------------------------------------------------------------------
+    
+    /** The highest line that ran, or 0 if none did. */
+    public int getMaxLine() {
+        return maxLine;
+    }
+    
+    /** How many times statements starting on {@code line} ran; lines are numbered from 1. */
+    public long getLineHits(int line) {
+        return line < lineHits.length ? lineHits[line] : 0;
+    }
+    
+    /** Estimated time of the statements starting on {@code line}. */
+    public long getLineNanos(int line) {
+        return line < lineNanos.length ? lineNanos[line] : 0;
+    }
+    
+    /** The time of the most expensive line, the 100% of a heat map. */
+    public long getMaxLineNanos() {
+        long max = 0;
+        for (long nanos : lineNanos) {
+            max = Math.max(max, nanos);
+        }
+        return max;
+    }
+    
+    public long getTotalNanos() {
+        long total = 0;
+        for (long nanos : methodNanos) {
+            total += nanos;
+        }
+        return total;
+    }
+    
+    /** Every method that ran, most expensive first. */
+    public List<MethodProfile> getMethods() {
+        List<MethodProfile> profiles = new ArrayList<>();
+        for (int i = 0; i < methodNames.length; i++) {
+            if (methodInvocations[i] > 0) {
+                profiles.add(new MethodProfile(methodNames[i], methodInvocations[i], methodNanos[i]));
+            }
+        }
+        Collections.sort(profiles, new Comparator<MethodProfile>() {
+            @Override
+            public int compare(MethodProfile a, MethodProfile b) {
+                return Long.compare(b.nanos, a.nanos);
+            }
+        });
+        return profiles;
+    }
+    
+    /** Every method and loop compiled during the run, in the order it happened. */
+    public List<TierTransition> getTierTransitions() {
+        return Collections.unmodifiableList(tierTransitions);
+    }
+    
+    @Override
+    public String toString() {
+        return "Profiler[lines=" + maxLine + ", total=" + getTotalNanos() / 1_000 + "us, methods=" + getMethods()
+                + ", tiers=" + tierTransitions + "]";
+    }
+}
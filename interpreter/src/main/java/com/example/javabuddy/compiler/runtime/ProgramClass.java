@@ -0,0 +1,58 @@
+package com.example.javabuddy.compiler.runtime;
+
+/**
+ * A class or interface declared in the interpreted program. Each engine
+ * subclasses it to hang its own method tables off it, and to run the
+ * program's overrides of {@code toString}, {@code equals} and
+ * {@code hashCode}, so that {@link ProgramObject}s behave like the program
+ * says even when JDK code such as {@code String.valueOf} calls those methods.
+ */
+public abstract class ProgramClass {
+    
+    public final String name;
+    /** Null for classes that extend Object, and for interfaces. */
+    public final ProgramClass superclass;
+    public final ProgramClass[] interfaces;
+    /** Field slots of an instance in each lane, inherited fields first. */
+    public final int fieldCount;
+    public final int primitiveFieldCount;
+    
+    protected ProgramClass(String name, ProgramClass superclass, ProgramClass[] interfaces, int fieldCount,
+                           int primitiveFieldCount) {
+        this.name = name;
+        this.superclass = superclass;
+        this.interfaces = interfaces;
+        this.fieldCount = fieldCount;
+        this.primitiveFieldCount = primitiveFieldCount;
+    }
+    
+    /** True if this is {@code type}, or extends or implements it directly or indirectly. */
+    public boolean isSubtypeOf(ProgramClass type) {
+        for (ProgramClass cls = this; cls != null; cls = cls.superclass) {
+            if (cls == type) {
+                return true;
+            }
+            for (ProgramClass implemented : cls.interfaces) {
+                if (implemented.isSubtypeOf(type)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    public boolean isInstance(Object value) {
+        return value instanceof ProgramObject && ((ProgramObject) value).type.isSubtypeOf(this);
+    }
+    
+    protected abstract String invokeToString(ProgramObject object);
+    
+    protected abstract boolean invokeEquals(ProgramObject object, Object other);
+    
+    protected abstract int invokeHashCode(ProgramObject object);
+    
+    @Override
+    public String toString() {
+        return name;
+    }
+}
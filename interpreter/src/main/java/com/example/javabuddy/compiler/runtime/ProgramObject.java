@@ -0,0 +1,53 @@
+package com.example.javabuddy.compiler.runtime;
+
+/**
+ * An instance of a class declared in the interpreted program. Fields are
+ * slots in two lanes, like the VM's locals; the tree-walking interpreter
+ * keeps every field in the reference lane.
+ */
+public final class ProgramObject {
+    
+    private static final Object[] NO_FIELDS = new Object[0];
+    private static final long[] NO_PRIMITIVE_FIELDS = new long[0];
+    
+    public final ProgramClass type;
+    public final Object[] fields;
+    public final long[] primitiveFields;
+    /**
+     * For an instance of a class extending a host Throwable such as
+     * Exception, the Throwable its constructor chain built: the message,
+     * the cause and the rest of what the class inherits. Null otherwise.
+     */
+    public Throwable hostPart;
+    
+    /** Creates an object whose fields all have zero bits: null, 0, 0.0, false and '\0'. */
+    public ProgramObject(ProgramClass type) {
+        this.type = type;
+        this.fields = type.fieldCount == 0 ? NO_FIELDS : new Object[type.fieldCount];
+        this.primitiveFields = type.primitiveFieldCount == 0 ? NO_PRIMITIVE_FIELDS : new long[type.primitiveFieldCount];
+    }
+    
+    @Override
+    public String toString() {
+        return type.invokeToString(this);
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        return type.invokeEquals(this, other);
+    }
+    
+    @Override
+    public int hashCode() {
+        return type.invokeHashCode(this);
+    }
+    
+    /** What Object.toString would return: the class name and the hash code in hex. */
+    public String defaultToString() {
+        return type.name + "@" + Integer.toHexString(hashCode());
+    }
+    
+    public int defaultHashCode() {
+        return System.identityHashCode(this);
+    }
+}
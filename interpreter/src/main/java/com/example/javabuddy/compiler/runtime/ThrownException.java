@@ -0,0 +1,27 @@
+package com.example.javabuddy.compiler.runtime;
+
+/**
+ * Carries a Throwable raised by the interpreted program (a {@code throw}
+ * statement, or an exception from a host method) up to the nearest
+ * matching catch clause. An exception whose class the program declares is
+ * carried as its {@link ProgramObject}.
+ */
+public class ThrownException extends RuntimeException {
+    
+    private final Object value;
+    private final int line;
+    
+    public ThrownException(Object value, int line) {
+        // the program's own toString is not run here, only where the program asks for it
+        super(value instanceof Throwable ? value.toString() : Operators.typeName(value),
+                value instanceof Throwable ? (Throwable) value : null, false, false);
+        this.value = value;
+        this.line = line;
+    }
+    
+    /** The exception object as seen by the program: a Throwable, or a ProgramObject whose class extends one. */
+    public Object getValue() { return value; }
+    
+    /** Line of the statement that raised it. */
+    public int getLine() { return line; }
+}
\ No newline at end of file
@@ -0,0 +1,2373 @@
+package com.example.javabuddy.compiler.vm;
+
+import com.example.javabuddy.compiler.ast.*;
+import com.example.javabuddy.compiler.runtime.ArrayOperations;
+import com.example.javabuddy.compiler.runtime.HostInterop;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lowers a parsed program to VM instructions. Names are resolved to local
+ * slots, global indices and method indices at compile time, so the VM never
+ * looks anything up by string.
+ *
+ * <p>Every expression gets a static type. Primitive values stay in the VM's
+ * primitive lane and use typed instructions, so arithmetic on locals does
+ * not box; values of host calls, and anything mixed with them, take the
+ * boxed path through {@code Operators}. So do the elements of arrays whose
+ * declared type the compiler knows: {@code a[i]} on an {@code int[]} local
+ * is a {@link Opcodes#PALOAD}, while an element of an array of unknown type
+ * is loaded boxed. Constructs that cannot be lowered yet throw
+ * {@link UnsupportedFeatureException}.
+ *
+ * <p>Instance methods and constructors take {@code this} in slot 0. A call
+ * whose receiver has one of the program's classes as its static type binds
+ * its arguments in their lanes and dispatches with {@link Opcodes#INVOKE_METHOD}
+ * on the method's selector; private and {@code super} calls are direct.
+ */
+public class BytecodeCompiler {
+    
+    /** Orders class members as they appear in the source. */
+    private static final Comparator<Node> SOURCE_ORDER = new Comparator<Node>() {
+        @Override
+        public int compare(Node a, Node b) {
+            return a.line != b.line ? Integer.compare(a.line, b.line) : Integer.compare(a.column, b.column);
+        }
+    };
+    
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndex = new HashMap<>();
+    private final Map<String, ClassDecl> classes = new HashMap<>();
+    private final Map<ClassDecl, ClassDecl> outerClasses = new HashMap<>();
+    private final Map<String, List<MethodDecl>> methodsByName = new HashMap<>();
+    private final Map<MethodDecl, Integer> methodIndex = new HashMap<>();
+    private final List<CompiledMethod> methods = new ArrayList<>();
+    private final Map<String, Integer> globalIndex = new HashMap<>();
+    private final List<Integer> globalTypes = new ArrayList<>();
+    /** Declared type of each static field, for the class of its value. */
+    private final List<TypeRef> globalDeclaredTypes = new ArrayList<>();
+    /** Class declaring each static field, which is initialized before the field is used. */
+    private final List<ClassDecl> globalOwners = new ArrayList<>();
+    private final List<ClassDecl> classOrder = new ArrayList<>();
+    private final Map<ClassDecl, Integer> classIndex = new HashMap<>();
+    private final Map<ClassDecl, FieldLayout> fieldLayouts = new HashMap<>();
+    private final Set<ClassDecl> layoutsInProgress = new HashSet<>();
+    /** Constructors of classes that declare none, as javac would add them. */
+    private final Map<ClassDecl, MethodDecl> defaultConstructors = new HashMap<>();
+    /** Method running the instance field initializers and initializer blocks of a class, if it has any. */
+    private final Map<ClassDecl, Integer> fieldInitializerIndex = new HashMap<>();
+    /** Method running the static field initializers and static blocks of a class, if it has any. */
+    private final Map<ClassDecl, Integer> staticInitializerIndex = new HashMap<>();
+    private final Map<String, Integer> selectorIndex = new HashMap<>();
+    private final List<String> selectorNames = new ArrayList<>();
+    private CompiledClass[] compiledClasses;
+    private final boolean profiling;
+    
+    // State of the method being compiled
+    private int[] code;
+    private int[] lines;
+    /** Index of the method being compiled, which its profiling instructions report. */
+    private int methodNumber;
+    private int size;
+    private int line;
+    private int stackDepth;
+    private int maxStack;
+    private int maxLocals;
+    /** Type code of each local slot, set when the declaration holding it is compiled. */
+    private int[] slotTypes;
+    /** Class of the program each local slot holds, or null. */
+    private ClassDecl[] slotClasses;
+    /** Declared type of each local slot that holds an array, or null. */
+    private TypeRef[] slotArrayTypes;
+    /** Whether slot 0 holds {@code this}. */
+    private boolean hasThis;
+    /** Statements enclosing the current one that break or continue can jump out of, innermost first. */
+    private final ArrayDeque<JumpTarget> jumpTargets = new ArrayDeque<>();
+    private final List<int[]> exceptionTable = new ArrayList<>();
+    private ClassDecl currentClass;
+    private int returnType;
+    
+    public BytecodeCompiler() {
+        this(false);
+    }
+    
+    /**
+     * With {@code profiling}, every method starts with
+     * {@link Opcodes#PROFILE_ENTER} and every statement with
+     * {@link Opcodes#PROFILE_LINE}, which report to the VM's profiler.
+     * Without it the code has no trace of profiling at all.
+     */
+    public BytecodeCompiler(boolean profiling) {
+        this.profiling = profiling;
+    }
+    
+    public BytecodeProgram compile(CompilationUnit unit) {
+        declareClasses(unit.classes, null);
+        
+        MethodDecl main = null;
+        for (ClassDecl decl : unit.classes) {
+            for (MethodDecl method : decl.methods) {
+                if (main == null && method.name.equals("main") && method.isStatic() && method.body != null) {
+                    main = method;
+                }
+            }
+        }
+        if (main == null) {
+            throw new UnsupportedFeatureException("no main method");
+        }
+        for (ClassDecl decl : classOrder) {
+            layoutOf(decl);
+            checkOverrides(decl);
+        }
+        compiledClasses = compileClasses();
+        
+        for (Map.Entry<MethodDecl, Integer> entry : methodIndex.entrySet()) {
+            methods.set(entry.getValue(), compileMethod(entry.getKey()));
+        }
+        for (Map.Entry<ClassDecl, Integer> entry : fieldInitializerIndex.entrySet()) {
+            methods.set(entry.getValue(), compileFieldInitializer(entry.getKey()));
+        }
+        for (Map.Entry<ClassDecl, Integer> entry : staticInitializerIndex.entrySet()) {
+            methods.set(entry.getValue(), compileStaticInitializer(entry.getKey()));
+        }
+        int initializerIndex = methods.size();
+        methods.add(compileInitializer(main.owner));
+        
+        return new BytecodeProgram(methods.toArray(new CompiledMethod[0]), constants.toArray(), toArray(globalTypes),
+                initializerIndex, methodIndex.get(main), compiledClasses, selectorNames.toArray(new String[0]),
+                unit.callSiteCount);
+    }
+    
+    // ---------------------------------------------------------------------
+    // Declarations
+    // ---------------------------------------------------------------------
+    
+    private void declareClasses(List<ClassDecl> decls, ClassDecl outer) {
+        for (ClassDecl decl : decls) {
+            if (decl.kind == ClassDecl.Kind.ENUM) {
+                throw new UnsupportedFeatureException("enum " + decl.name);
+            }
+            if (classes.put(decl.name, decl) != null) {
+                throw new UnsupportedFeatureException("duplicate class " + decl.name);
+            }
+            if (outer != null) {
+                outerClasses.put(decl, outer);
+            }
+            classIndex.put(decl, classOrder.size());
+            classOrder.add(decl);
+            boolean hasFieldInitializers = !decl.initializers.isEmpty();
+            boolean hasStaticInitializers = !decl.staticInitializers.isEmpty();
+            for (FieldDecl field : decl.fields) {
+                if (field.isStatic()) {
+                    globalIndex.put(decl.name + "." + field.name, globalTypes.size());
+                    globalTypes.add(typeCode(field.type));
+                    globalDeclaredTypes.add(field.type);
+                    globalOwners.add(decl);
+                    hasStaticInitializers |= field.initializer != null;
+                } else if (field.initializer != null) {
+                    hasFieldInitializers = true;
+                }
+            }
+            for (MethodDecl method : decl.methods) {
+                String key = decl.name + "." + method.name;
+                List<MethodDecl> overloads = methodsByName.get(key);
+                if (overloads == null) {
+                    overloads = new ArrayList<>();
+                    methodsByName.put(key, overloads);
+                }
+                overloads.add(method);
+                declareMethod(method);
+            }
+            if (decl.kind == ClassDecl.Kind.CLASS) {
+                if (decl.constructors.isEmpty()) {
+                    MethodDecl constructor = new MethodDecl(Modifiers.PUBLIC, null, decl.name,
+                            Collections.<Param>emptyList(), new Block(Collections.<Stmt>emptyList()), true);
+                    constructor.owner = decl;
+                    constructor.frameSize = 1;
+                    defaultConstructors.put(decl, constructor);
+                    declareMethod(constructor);
+                }
+                for (MethodDecl constructor : decl.constructors) {
+                    declareMethod(constructor);
+                }
+                if (hasFieldInitializers) {
+                    fieldInitializerIndex.put(decl, methods.size());
+                    methods.add(null);
+                }
+            }
+            if (hasStaticInitializers) {
+                staticInitializerIndex.put(decl, methods.size());
+                methods.add(null);
+            }
+            declareClasses(decl.memberClasses, decl);
+        }
+    }
+    
+    /** Reserves an index for a method with a body, so calls can be compiled before the method itself. */
+    private void declareMethod(MethodDecl method) {
+        if (method.body != null) {
+            methodIndex.put(method, methods.size());
+            methods.add(null);
+        }
+    }
+    
+    private CompiledMethod compileMethod(MethodDecl method) {
+        boolean instance = !method.isStatic();
+        beginMethod(methodIndex.get(method), method.owner, method.frameSize, instance);
+        returnType = typeCode(method.returnType);
+        int receiver = instance ? 1 : 0;
+        int[] paramTypes = new int[receiver + method.params.size()];
+        for (int i = 0; i < method.params.size(); i++) {
+            Param param = method.params.get(i);
+            if (param.varargs) {
+                throw new UnsupportedFeatureException("varargs parameter");
+            }
+            paramTypes[receiver + i] = typeCode(param.type);
+            slotTypes[param.slot] = paramTypes[receiver + i];
+            slotClasses[param.slot] = classFor(param.type);
+            slotArrayTypes[param.slot] = arrayType(param.type);
+        }
+        if (method.constructor) {
+            List<Stmt> statements = method.body.statements;
+            for (int i = compileConstructorPrologue(method); i < statements.size(); i++) {
+                compileStatement(statements.get(i));
+            }
+        } else {
+            compileStatement(method.body);
+        }
+        line = method.body.line;
+        emit(Opcodes.RETURN);
+        String name = method.constructor ? "<init>" : method.name;
+        return finishMethod(method.owner.name + "." + name, paramTypes, returnType);
+    }
+    
+    /**
+     * Emits what runs before a constructor's own statements: the chained
+     * {@code this(...)} call, or the superclass constructor followed by this
+     * class's field initializers. Returns the number of statements consumed.
+     */
+    private int compileConstructorPrologue(MethodDecl constructor) {
+        MethodCall chained = chainedConstructorCall(constructor);
+        if (chained != null) {
+            line = chained.line;
+        }
+        if (chained != null && chained.name.equals("this")) {
+            emitConstructorCall(constructor.owner, chained.arguments);
+            return 1;
+        }
+        List<Expr> arguments = chained != null ? chained.arguments : Collections.<Expr>emptyList();
+        ClassDecl superclass = superclassOf(constructor.owner);
+        if (superclass != null) {
+            emitConstructorCall(superclass, arguments);
+        } else if (!arguments.isEmpty()) {
+            throw new UnsupportedFeatureException("arguments to constructor Object");
+        }
+        Integer initializer = fieldInitializerIndex.get(constructor.owner);
+        if (initializer != null) {
+            emit(Opcodes.LOAD, 0);
+            emit(Opcodes.CALL, initializer, 1);
+            emit(Opcodes.POP);
+        }
+        return chained != null ? 1 : 0;
+    }
+    
+    private static MethodCall chainedConstructorCall(MethodDecl constructor) {
+        List<Stmt> statements = constructor.body.statements;
+        if (statements.isEmpty() || !(statements.get(0) instanceof ExpressionStmt)) {
+            return null;
+        }
+        Expr expression = ((ExpressionStmt) statements.get(0)).expression;
+        if (!(expression instanceof MethodCall)) {
+            return null;
+        }
+        MethodCall call = (MethodCall) expression;
+        return call.target == null && (call.name.equals("this") || call.name.equals("super")) ? call : null;
+    }
+    
+    /** Runs a constructor of {@code decl} on {@code this}, as a chained or superclass constructor call. */
+    private void emitConstructorCall(ClassDecl decl, List<Expr> arguments) {
+        MethodDecl constructor = resolveConstructor(decl, arguments.size());
+        emit(Opcodes.LOAD, 0);
+        compileUserArguments(constructor, arguments);
+        emit(Opcodes.CALL, indexOf(constructor), arguments.size() + 1);
+        emit(Opcodes.POP);
+    }
+    
+    /** Compiles the instance field initializers and initializer blocks of a class, in source order, into one method. */
+    private CompiledMethod compileFieldInitializer(ClassDecl decl) {
+        beginMethod(fieldInitializerIndex.get(decl), decl, Math.max(decl.initializerFrameSize, 1), true);
+        List<Node> members = new ArrayList<>();
+        for (FieldDecl field : decl.fields) {
+            if (!field.isStatic() && field.initializer != null) {
+                members.add(field);
+            }
+        }
+        members.addAll(decl.initializers);
+        Collections.sort(members, SOURCE_ORDER);
+        for (Node member : members) {
+            if (member instanceof FieldDecl) {
+                FieldDecl field = (FieldDecl) member;
+                line = field.line;
+                Target target = fieldTarget(decl, field.name, null);
+                emitTargetObject(target);
+                compileExpression(field.initializer, target.type);
+                emitStore(target);
+            } else {
+                compileStatement((Block) member);
+            }
+        }
+        emit(Opcodes.RETURN);
+        return finishMethod(decl.name + ".<fields>", new int[] { Opcodes.T_REFERENCE }, Opcodes.T_REFERENCE);
+    }
+    
+    /**
+     * Compiles the static field initializers and static blocks of a class,
+     * interleaved in source order, into the method {@link Opcodes#INIT_CLASS}
+     * runs the first time the class is used.
+     */
+    private CompiledMethod compileStaticInitializer(ClassDecl decl) {
+        beginMethod(staticInitializerIndex.get(decl), decl, decl.initializerFrameSize, false);
+        List<Node> members = new ArrayList<>();
+        for (FieldDecl field : decl.fields) {
+            if (field.isStatic() && field.initializer != null) {
+                members.add(field);
+            }
+        }
+        members.addAll(decl.staticInitializers);
+        Collections.sort(members, SOURCE_ORDER);
+        for (Node member : members) {
+            if (member instanceof FieldDecl) {
+                FieldDecl field = (FieldDecl) member;
+                line = field.line;
+                int global = globalIndex.get(decl.name + "." + field.name);
+                compileExpression(field.initializer, globalTypes.get(global));
+                emitStore(globalTarget(global));
+            } else {
+                compileStatement((Block) member);
+            }
+        }
+        emit(Opcodes.RETURN);
+        return finishMethod(decl.name + ".<clinit>", new int[0], Opcodes.T_REFERENCE);
+    }
+    
+    /** Compiles the method run before main, which initializes the class declaring main. */
+    private CompiledMethod compileInitializer(ClassDecl mainClass) {
+        beginMethod(methods.size(), null, 0, false);
+        emitInitialize(mainClass);
+        emit(Opcodes.RETURN);
+        return finishMethod("<clinit>", new int[0], Opcodes.T_REFERENCE);
+    }
+    
+    /**
+     * Initializes {@code decl} if it may not be yet: code of a class or of
+     * one of its subclasses only runs once the class is initialized, and a
+     * class whose chain has no static initializers needs nothing.
+     */
+    private void emitInitialize(ClassDecl decl) {
+        for (ClassDecl cls = currentClass; cls != null; cls = superclassOf(cls)) {
+            if (cls == decl) {
+                return;
+            }
+        }
+        for (ClassDecl cls = decl; cls != null; cls = superclassOf(cls)) {
+            if (staticInitializerIndex.containsKey(cls)) {
+                emit(Opcodes.INIT_CLASS, classIndex.get(decl));
+                return;
+            }
+        }
+    }
+    
+    private void beginMethod(int number, ClassDecl owner, int frameSize, boolean hasThis) {
+        methodNumber = number;
+        code = new int[64];
+        lines = new int[64];
+        size = 0;
+        stackDepth = 0;
+        maxStack = 0;
+        maxLocals = frameSize;
+        slotTypes = new int[frameSize];
+        slotClasses = new ClassDecl[frameSize];
+        slotArrayTypes = new TypeRef[frameSize];
+        jumpTargets.clear();
+        exceptionTable.clear();
+        currentClass = owner;
+        this.hasThis = hasThis;
+        if (hasThis) {
+            slotClasses[0] = owner;
+        }
+        if (profiling) {
+            emit(Opcodes.PROFILE_ENTER, number);
+        }
+    }
+    
+    private CompiledMethod finishMethod(String name, int[] paramTypes, int returnType) {
+        int[] table = new int[exceptionTable.size() * 4];
+        for (int i = 0; i < exceptionTable.size(); i++) {
+            System.arraycopy(exceptionTable.get(i), 0, table, i * 4, 4);
+        }
+        return new CompiledMethod(name, Arrays.copyOf(code, size), Arrays.copyOf(lines, size), paramTypes,
+                returnType, maxLocals, Math.max(maxStack, 1), table);
+    }
+    
+    // ---------------------------------------------------------------------
+    // Statements
+    // ---------------------------------------------------------------------
+    
+    private void compileStatement(Stmt stmt) {
+        line = stmt.line;
+        if (profiling && stmt.tag != Tag.BLOCK) {
+            emit(Opcodes.PROFILE_LINE, methodNumber, line);
+        }
+        switch (stmt.tag) {
+            case BLOCK:
+                for (Stmt child : ((Block) stmt).statements) {
+                    compileStatement(child);
+                }
+                return;
+            case LOCAL_VAR:
+                for (VarDeclarator variable : ((LocalVarDecl) stmt).variables) {
+                    int type = typeCode(variable.type);
+                    if (variable.initializer != null) {
+                        compileExpression(variable.initializer, type);
+                    } else if (type == Opcodes.T_REFERENCE) {
+                        emitConstant(null);
+                    } else {
+                        emit(Opcodes.ICONST, 0); // zero bits are 0, 0.0, false and '\0' alike
+                    }
+                    slotTypes[variable.slot] = type;
+                    slotClasses[variable.slot] = classFor(variable.type);
+                    slotArrayTypes[variable.slot] = arrayType(variable.type);
+                    emitStore(Target.local(variable.slot, type, null));
+                }
+                return;
+            case EXPRESSION_STATEMENT:
+                compileEffect(((ExpressionStmt) stmt).expression);
+                return;
+            case IF: {
+                IfStmt ifStmt = (IfStmt) stmt;
+                int elseJump = compileCondition(ifStmt.condition, false);
+                compileStatement(ifStmt.thenStatement);
+                if (ifStmt.elseStatement != null) {
+                    int endJump = emitJump(Opcodes.JUMP);
+                    patch(elseJump);
+                    compileStatement(ifStmt.elseStatement);
+                    patch(endJump);
+                } else {
+                    patch(elseJump);
+                }
+                return;
+            }
+            case WHILE:
+            case DO_WHILE:
+            case FOR:
+            case FOR_EACH:
+                compileLoop(stmt, null);
+                return;
+            case SWITCH:
+                compileSwitch((SwitchStmt) stmt);
+                return;
+            case LABELED: {
+                LabeledStmt labeled = (LabeledStmt) stmt;
+                if (isLoop(labeled.body)) {
+                    line = labeled.body.line;
+                    compileLoop(labeled.body, labeled.label);
+                } else {
+                    JumpTarget block = new JumpTarget(JumpTarget.Kind.BLOCK, labeled.label);
+                    jumpTargets.push(block);
+                    compileStatement(labeled.body);
+                    jumpTargets.pop();
+                    patchAll(block.breaks, size);
+                }
+                return;
+            }
+            case BREAK: {
+                String label = ((BreakStmt) stmt).label;
+                JumpTarget target = findJumpTarget(label, false);
+                if (target == null) {
+                    throw new UnsupportedFeatureException(label != null ? "undefined label " + label : "break outside switch or loop");
+                }
+                target.breaks.add(emitJump(Opcodes.JUMP));
+                return;
+            }
+            case CONTINUE: {
+                String label = ((ContinueStmt) stmt).label;
+                JumpTarget target = findJumpTarget(label, true);
+                if (target == null || target.kind != JumpTarget.Kind.LOOP) {
+                    throw new UnsupportedFeatureException(label != null ? "undefined label " + label : "continue outside loop");
+                }
+                target.continues.add(emitJump(Opcodes.JUMP));
+                return;
+            }
+            case RETURN: {
+                Expr value = ((ReturnStmt) stmt).value;
+                if (value == null) {
+                    emit(Opcodes.RETURN);
+                } else {
+                    compileExpression(value, returnType);
+                    emit(returnType == Opcodes.T_REFERENCE ? Opcodes.RETURN_VALUE : Opcodes.PRETURN);
+                }
+                return;
+            }
+            case THROW:
+                compileExpression(((ThrowStmt) stmt).exception, Opcodes.T_REFERENCE);
+                emit(Opcodes.THROW);
+                return;
+            case TRY:
+                compileTry((TryStmt) stmt);
+                return;
+            case EMPTY:
+                return;
+            default:
+                throw new UnsupportedFeatureException(stmt.tag.name().toLowerCase() + " statement");
+        }
+    }
+    
+    private static boolean isLoop(Stmt stmt) {
+        return stmt.tag == Tag.WHILE || stmt.tag == Tag.DO_WHILE || stmt.tag == Tag.FOR || stmt.tag == Tag.FOR_EACH;
+    }
+    
+    /**
+     * Compiles a loop; {@code label} names it for labeled break and continue,
+     * or is null. Every loop jumps back to its start with an unconditional
+     * {@code JUMP}, the one instruction where the VM checks the budget.
+     */
+    private void compileLoop(Stmt loop, String label) {
+        switch (loop.tag) {
+            case WHILE:
+                compileWhile((WhileStmt) loop, label);
+                return;
+            case DO_WHILE:
+                compileDoWhile((DoWhileStmt) loop, label);
+                return;
+            case FOR:
+                compileFor((ForStmt) loop, label);
+                return;
+            default:
+                compileForEach((ForEachStmt) loop, label);
+                return;
+        }
+    }
+    
+    private void compileWhile(WhileStmt loop, String label) {
+        int start = size;
+        int exitJump = compileCondition(loop.condition, false);
+        JumpTarget context = compileLoopBody(loop.body, label);
+        patchAll(context.continues, start);
+        emit(Opcodes.JUMP, start);
+        patch(exitJump);
+        patchAll(context.breaks, size);
+    }
+    
+    private void compileDoWhile(DoWhileStmt loop, String label) {
+        int start = size;
+        JumpTarget context = compileLoopBody(loop.body, label);
+        patchAll(context.continues, size);
+        line = loop.condition.line;
+        int exitJump = compileCondition(loop.condition, false);
+        emit(Opcodes.JUMP, start);
+        patch(exitJump);
+        patchAll(context.breaks, size);
+    }
+    
+    private void compileFor(ForStmt loop, String label) {
+        for (Stmt init : loop.init) {
+            compileStatement(init);
+        }
+        int start = size;
+        int exitJump = -1;
+        if (loop.condition != null) {
+            exitJump = compileCondition(loop.condition, false);
+        }
+        JumpTarget context = compileLoopBody(loop.body, label);
+        patchAll(context.continues, size);
+        for (Expr update : loop.update) {
+            line = update.line;
+            compileEffect(update);
+        }
+        emit(Opcodes.JUMP, start);
+        if (exitJump >= 0) {
+            patch(exitJump);
+        }
+        patchAll(context.breaks, size);
+    }
+    
+    private void compileForEach(ForEachStmt loop, String label) {
+        compileExpression(loop.iterable, Opcodes.T_REFERENCE);
+        emit(Opcodes.GET_ITERATOR);
+        // the iterator gets a slot past the ones the parser assigned
+        int iterator = maxLocals++;
+        emit(Opcodes.STORE, iterator);
+        
+        int start = size;
+        emit(Opcodes.LOAD, iterator);
+        emit(Opcodes.ITER_HAS_NEXT);
+        int exitJump = emitJump(Opcodes.PJUMP_IF_FALSE);
+        emit(Opcodes.LOAD, iterator);
+        emit(Opcodes.ITER_NEXT);
+        int type = typeCode(loop.variableType);
+        emitConvert(Opcodes.T_REFERENCE, type);
+        slotTypes[loop.slot] = type;
+        slotClasses[loop.slot] = classFor(loop.variableType);
+        slotArrayTypes[loop.slot] = arrayType(loop.variableType);
+        emitStore(Target.local(loop.slot, type, null));
+        
+        JumpTarget context = compileLoopBody(loop.body, label);
+        patchAll(context.continues, start);
+        emit(Opcodes.JUMP, start);
+        patch(exitJump);
+        patchAll(context.breaks, size);
+    }
+    
+    private JumpTarget compileLoopBody(Stmt body, String label) {
+        JumpTarget context = new JumpTarget(JumpTarget.Kind.LOOP, label);
+        jumpTargets.push(context);
+        compileStatement(body);
+        jumpTargets.pop();
+        return context;
+    }
+    
+    /**
+     * Compiles a switch as a chain of comparisons against the selector, kept
+     * in a slot past the parser's, each jumping to its case body. Bodies are
+     * laid out in order, so colon cases fall through; arrow cases jump to the
+     * end instead.
+     */
+    private void compileSwitch(SwitchStmt stmt) {
+        int selectorType = unaryPromotion(compileExpression(stmt.selector));
+        if (selectorType != Opcodes.T_INT && selectorType != Opcodes.T_REFERENCE) {
+            throw new UnsupportedFeatureException("switch on " + Opcodes.typeName(selectorType));
+        }
+        Target selector = Target.local(maxLocals++, selectorType, null);
+        emitStore(selector);
+        
+        List<List<Integer>> caseJumps = new ArrayList<>();
+        int defaultCase = -1;
+        for (int i = 0; i < stmt.cases.size(); i++) {
+            SwitchCase switchCase = stmt.cases.get(i);
+            List<Integer> jumps = new ArrayList<>();
+            caseJumps.add(jumps);
+            if (switchCase.isDefault()) {
+                defaultCase = i;
+                continue;
+            }
+            line = switchCase.line;
+            for (Expr label : switchCase.labels) {
+                emitLoad(selector);
+                if (selectorType == Opcodes.T_INT) {
+                    compileExpression(label, Opcodes.T_INT);
+                    emit(Opcodes.LEQ);
+                    jumps.add(emitJump(Opcodes.PJUMP_IF_TRUE));
+                } else if (typeOf(label) == Opcodes.T_REFERENCE) {
+                    // strings match by equals(); a null selector throws, as in Java
+                    compileExpression(label, Opcodes.T_REFERENCE);
+                    emit(Opcodes.INVOKE_VIRTUAL, constant("equals"), 1);
+                    jumps.add(emitJump(Opcodes.JUMP_IF_TRUE));
+                } else {
+                    compileExpression(label, Opcodes.T_REFERENCE);
+                    emit(Opcodes.EQ);
+                    jumps.add(emitJump(Opcodes.JUMP_IF_TRUE));
+                }
+            }
+        }
+        int noMatch = emitJump(Opcodes.JUMP);
+        
+        JumpTarget context = new JumpTarget(JumpTarget.Kind.SWITCH, null);
+        jumpTargets.push(context);
+        for (int i = 0; i < stmt.cases.size(); i++) {
+            SwitchCase switchCase = stmt.cases.get(i);
+            patchAll(caseJumps.get(i), size);
+            if (i == defaultCase) {
+                patch(noMatch);
+            }
+            for (Stmt child : switchCase.body) {
+                compileStatement(child);
+            }
+            if (switchCase.arrow) {
+                context.breaks.add(emitJump(Opcodes.JUMP));
+            }
+        }
+        jumpTargets.pop();
+        if (defaultCase < 0) {
+            patch(noMatch);
+        }
+        patchAll(context.breaks, size);
+    }
+    
+    /**
+     * Innermost enclosing statement a jump with this label goes to: the one
+     * named {@code label}, or without a label the innermost loop, or for
+     * break also switch. Null if there is none.
+     */
+    private JumpTarget findJumpTarget(String label, boolean isContinue) {
+        for (JumpTarget target : jumpTargets) {
+            if (label != null ? label.equals(target.label)
+                    : target.kind == JumpTarget.Kind.LOOP || (!isContinue && target.kind == JumpTarget.Kind.SWITCH)) {
+                return target;
+            }
+        }
+        return null;
+    }
+    
+    private void compileTry(TryStmt stmt) {
+        if (!stmt.resources.isEmpty()) {
+            throw new UnsupportedFeatureException("try-with-resources");
+        }
+        if (stmt.finallyBlock != null) {
+            throw new UnsupportedFeatureException("finally");
+        }
+        
+        int start = size;
+        compileStatement(stmt.body);
+        int end = size;
+        List<Integer> exits = new ArrayList<>();
+        exits.add(emitJump(Opcodes.JUMP));
+        
+        for (CatchClause clause : stmt.catches) {
+            int handler = size;
+            line = clause.line;
+            for (TypeRef type : clause.types) {
+                exceptionTable.add(new int[] { start, end, handler, constant(hostClass(type)) });
+            }
+            stackDepth = 1; // the VM pushes the caught exception
+            maxStack = Math.max(maxStack, 1);
+            slotTypes[clause.slot] = Opcodes.T_REFERENCE;
+            slotClasses[clause.slot] = null;
+            slotArrayTypes[clause.slot] = null;
+            emit(Opcodes.STORE, clause.slot);
+            compileStatement(clause.body);
+            exits.add(emitJump(Opcodes.JUMP));
+        }
+        
+        patchAll(exits, size);
+    }
+    
+    /** Compiles a boolean expression and a jump taken when it equals {@code jumpIf}; returns the jump to patch. */
+    private int compileCondition(Expr condition, boolean jumpIf) {
+        int type = compileExpression(condition);
+        if (type == Opcodes.T_REFERENCE) {
+            return emitJump(jumpIf ? Opcodes.JUMP_IF_TRUE : Opcodes.JUMP_IF_FALSE);
+        }
+        if (type != Opcodes.T_BOOLEAN) {
+            throw new UnsupportedFeatureException("non-boolean condition");
+        }
+        return emitJump(jumpIf ? Opcodes.PJUMP_IF_TRUE : Opcodes.PJUMP_IF_FALSE);
+    }
+    
+    // ---------------------------------------------------------------------
+    // Expressions
+    // ---------------------------------------------------------------------
+    
+    /** Compiles an expression statement, leaving nothing on the stack. */
+    private void compileEffect(Expr expr) {
+        switch (expr.tag) {
+            case ASSIGN:
+                compileAssign((Assign) expr, false);
+                return;
+            case UNARY: {
+                Unary unary = (Unary) expr;
+                if (unary.op.isIncrementOrDecrement()) {
+                    compileIncrement(unary, false);
+                    return;
+                }
+                break;
+            }
+            case METHOD_CALL: {
+                MethodCall call = (MethodCall) expr;
+                if (isSystemStream(call.target)) {
+                    compilePrint(call);
+                    return;
+                }
+                break;
+            }
+            default:
+                break;
+        }
+        compileExpression(expr);
+        emit(Opcodes.POP);
+    }
+    
+    /** Compiles an expression and converts its value to the given type. */
+    private void compileExpression(Expr expr, int type) {
+        emitConvert(compileExpression(expr), type);
+    }
+    
+    /** Compiles an expression that leaves exactly one value on the stack and returns its static type. */
+    private int compileExpression(Expr expr) {
+        switch (expr.tag) {
+            case LITERAL:
+                return emitConstant(((Literal) expr).value);
+            case NAME:
+                return compileName((Name) expr);
+            case BINARY: {
+                Binary binary = (Binary) expr;
+                if (binary.op == BinaryOp.AND || binary.op == BinaryOp.OR) {
+                    return compileShortCircuit(binary);
+                }
+                if (binary.op == BinaryOp.ADD && isAddition(binary.left)) {
+                    return compileAdditions(binary);
+                }
+                return compileOperation(binary.op, binary.left, typeOf(binary.left), binary.right);
+            }
+            case UNARY:
+                return compileUnary((Unary) expr);
+            case ASSIGN:
+                return compileAssign((Assign) expr, true);
+            case CONDITIONAL:
+                return compileConditional((Conditional) expr);
+            case METHOD_CALL:
+                return compileMethodCall((MethodCall) expr);
+            case FIELD_ACCESS:
+                return compileFieldAccess((FieldAccess) expr);
+            case ARRAY_ACCESS: {
+                Target element = resolveTarget(expr);
+                emitTargetObject(element);
+                emitLoad(element);
+                return element.type;
+            }
+            case NEW_ARRAY:
+                return compileNewArray((NewArray) expr);
+            case CAST: {
+                Cast cast = (Cast) expr;
+                if (cast.type.isPrimitive()) {
+                    int type = typeCode(cast.type);
+                    compileExpression(cast.expression, type);
+                    return type;
+                }
+                compileExpression(cast.expression, Opcodes.T_REFERENCE);
+                emit(Opcodes.CHECKCAST, constant(typeConstant(cast.type)));
+                return Opcodes.T_REFERENCE;
+            }
+            case INSTANCE_OF: {
+                InstanceOf test = (InstanceOf) expr;
+                compileExpression(test.expression, Opcodes.T_REFERENCE);
+                emit(Opcodes.INSTANCEOF, constant(typeConstant(test.type)));
+                return Opcodes.T_BOOLEAN;
+            }
+            case NEW_OBJECT: {
+                NewObject creation = (NewObject) expr;
+                ClassDecl decl = classFor(creation.type);
+                if (decl != null) {
+                    return compileNewInstance(decl, creation.arguments);
+                }
+                Class<?> type = hostClass(creation.type);
+                compileArguments(creation.arguments);
+                emit(Opcodes.NEW, constant(type), creation.arguments.size());
+                return Opcodes.T_REFERENCE;
+            }
+            case THIS:
+                if (!hasThis) {
+                    throw new UnsupportedFeatureException("this in a static context");
+                }
+                emit(Opcodes.LOAD, 0);
+                return Opcodes.T_REFERENCE;
+            default:
+                throw new UnsupportedFeatureException(expr.tag.name().toLowerCase() + " expression");
+        }
+    }
+    
+    private int compileName(Name name) {
+        Target target = resolveName(name);
+        emitTargetObject(target);
+        emitLoad(target);
+        return target.type;
+    }
+    
+    /** Allocates an object of {@code decl} and runs the constructor that fits the arguments on it. */
+    private int compileNewInstance(ClassDecl decl, List<Expr> arguments) {
+        if (decl.kind == ClassDecl.Kind.INTERFACE || Modifiers.isAbstract(decl.modifiers)) {
+            throw new UnsupportedFeatureException("abstract class " + decl.name + " instantiated");
+        }
+        MethodDecl constructor = resolveConstructor(decl, arguments.size());
+        emitInitialize(decl);
+        emit(Opcodes.NEW_INSTANCE, classIndex.get(decl));
+        emit(Opcodes.DUP);
+        compileUserArguments(constructor, arguments);
+        emit(Opcodes.CALL, indexOf(constructor), arguments.size() + 1);
+        emit(Opcodes.POP);
+        return Opcodes.T_REFERENCE;
+    }
+    
+    private int compileNewArray(NewArray creation) {
+        if (creation.initializer != null) {
+            compileArrayInitializer(creation.elementType.withDimensions(creation.totalDimensions), creation.initializer);
+            return Opcodes.T_REFERENCE;
+        }
+        for (Expr dimension : creation.dimensions) {
+            compileExpression(dimension, Opcodes.T_INT);
+        }
+        emit(Opcodes.NEW_ARRAY, constant(elementClass(creation.elementType)), creation.totalDimensions,
+                creation.dimensions.size());
+        return Opcodes.T_REFERENCE;
+    }
+    
+    /** Creates an array of {@code type} and stores each element, a nested initializer making a row. */
+    private void compileArrayInitializer(TypeRef type, ArrayInit initializer) {
+        TypeRef elementType = type.withDimensions(-1);
+        int storedType = typeCode(elementType);
+        emit(Opcodes.ICONST, initializer.elements.size());
+        emit(Opcodes.NEW_ARRAY, constant(elementClass(type.withDimensions(-type.dimensions))), type.dimensions, 1);
+        for (int i = 0; i < initializer.elements.size(); i++) {
+            Expr element = initializer.elements.get(i);
+            emit(Opcodes.DUP);
+            emit(Opcodes.ICONST, i);
+            if (element.tag != Tag.ARRAY_INIT) {
+                compileExpression(element, storedType);
+            } else if (elementType.isArray()) {
+                compileArrayInitializer(elementType, (ArrayInit) element);
+            } else {
+                throw new UnsupportedFeatureException("illegal initializer for " + elementType);
+            }
+            if (storedType == Opcodes.T_REFERENCE) {
+                emit(Opcodes.ARRAY_STORE);
+            } else {
+                emit(Opcodes.PASTORE, storedType);
+            }
+        }
+    }
+    
+    /** What the innermost elements of an array of {@code type} are stored as; the program's classes are Object. */
+    private Object elementClass(TypeRef type) {
+        return classes.containsKey(type.name) ? Object.class : ArrayOperations.elementClass(type.name);
+    }
+    
+    private int compileShortCircuit(Binary binary) {
+        compileExpression(binary.left, Opcodes.T_BOOLEAN);
+        emit(Opcodes.DUP);
+        int shortCircuit = emitJump(binary.op == BinaryOp.AND ? Opcodes.PJUMP_IF_FALSE : Opcodes.PJUMP_IF_TRUE);
+        emit(Opcodes.POP);
+        compileExpression(binary.right, Opcodes.T_BOOLEAN);
+        patch(shortCircuit);
+        return Opcodes.T_BOOLEAN;
+    }
+    
+    /**
+     * Emits {@code left op right}. The left operand is compiled from
+     * {@code left}, or is already on the stack when {@code left} is null.
+     */
+    private int compileOperation(BinaryOp op, Expr left, int leftType, Expr right) {
+        int rightType = typeOf(right);
+        int operandType = operandType(op, leftType, rightType);
+        if (left != null) {
+            compileExpression(left);
+        }
+        if (operandType == Opcodes.T_REFERENCE) {
+            emitConvert(leftType, Opcodes.T_REFERENCE);
+            compileExpression(right, Opcodes.T_REFERENCE);
+            emit(genericOpcode(op));
+            return Opcodes.T_REFERENCE;
+        }
+        emitConvert(leftType, operandType);
+        compileExpression(right, op.isShift() ? Opcodes.T_INT : operandType);
+        emit(typedOpcode(op, operandType));
+        if (operandType == Opcodes.T_FLOAT && !op.isComparison()) {
+            emit(Opcodes.D2F);
+        }
+        return op.isComparison() ? Opcodes.T_BOOLEAN : operandType;
+    }
+    
+    /**
+     * Compiles {@code a + b + c ...}. From the first operand of reference
+     * type on, which is where a String can enter, the chain becomes one
+     * CONCAT of all its parts, so it makes a single String rather than one
+     * per {@code +}. Primitive operands in front of it are added with the
+     * typed instructions first, as Java groups them: {@code 1 + 2 + s}.
+     */
+    private int compileAdditions(Binary chain) {
+        List<Expr> operands = new ArrayList<>();
+        addOperands(chain, operands);
+        int first = 0;
+        while (first < operands.size() && typeOf(operands.get(first)) != Opcodes.T_REFERENCE) {
+            first++;
+        }
+        int parts = first > 0 ? operands.size() - first + 1 : operands.size();
+        if (first == operands.size() || parts < 3) {
+            return compileOperation(chain.op, chain.left, typeOf(chain.left), chain.right);
+        }
+        if (first > 0) {
+            // the sum of the primitive operands is the Binary that many steps down the left of the chain
+            Expr sum = chain;
+            for (int i = first; i < operands.size(); i++) {
+                sum = ((Binary) sum).left;
+            }
+            compileExpression(sum, Opcodes.T_REFERENCE);
+        }
+        for (int i = first; i < operands.size(); i++) {
+            compileExpression(operands.get(i), Opcodes.T_REFERENCE);
+        }
+        emit(Opcodes.CONCAT, parts);
+        return Opcodes.T_REFERENCE;
+    }
+    
+    private static boolean isAddition(Expr expr) {
+        return expr.tag == Tag.BINARY && ((Binary) expr).op == BinaryOp.ADD;
+    }
+    
+    /** The operands of a chain of {@code +}, left to right. */
+    private static void addOperands(Expr expr, List<Expr> operands) {
+        if (isAddition(expr)) {
+            addOperands(((Binary) expr).left, operands);
+            operands.add(((Binary) expr).right);
+        } else {
+            operands.add(expr);
+        }
+    }
+    
+    private int compileConditional(Conditional conditional) {
+        int type = typeOf(conditional);
+        int elseJump = compileCondition(conditional.condition, false);
+        compileExpression(conditional.thenValue, type);
+        int endJump = emitJump(Opcodes.JUMP);
+        stackDepth--; // only one of the branches leaves its value
+        patch(elseJump);
+        compileExpression(conditional.elseValue, type);
+        patch(endJump);
+        return type;
+    }
+    
+    private int compileUnary(Unary unary) {
+        if (unary.op.isIncrementOrDecrement()) {
+            return compileIncrement(unary, true);
+        }
+        int operandType = typeOf(unary.operand);
+        if (operandType == Opcodes.T_REFERENCE) {
+            compileExpression(unary.operand);
+            emit(genericOpcode(unary.op));
+            return Opcodes.T_REFERENCE;
+        }
+        if (unary.op == UnaryOp.NOT) {
+            if (operandType != Opcodes.T_BOOLEAN) {
+                throw new UnsupportedFeatureException("! on " + Opcodes.typeName(operandType));
+            }
+            compileExpression(unary.operand);
+            emit(Opcodes.BNOT);
+            return Opcodes.T_BOOLEAN;
+        }
+        int type = unaryPromotion(operandType);
+        if (type == Opcodes.T_BOOLEAN || (unary.op == UnaryOp.BIT_NOT && isFloating(type))) {
+            throw new UnsupportedFeatureException(unary.op.getSymbol() + " on " + Opcodes.typeName(operandType));
+        }
+        compileExpression(unary.operand, type);
+        switch (unary.op) {
+            case NEG:
+                emit(type == Opcodes.T_INT ? Opcodes.INEG : type == Opcodes.T_LONG ? Opcodes.LNEG : Opcodes.DNEG);
+                break;
+            case BIT_NOT:
+                emit(Opcodes.PNOT);
+                break;
+            default:
+                break;
+        }
+        return type;
+    }
+    
+    private int compileAssign(Assign assign, boolean keepValue) {
+        Target target = resolveTarget(assign.target);
+        emitTargetObject(target);
+        if (assign.op == null) {
+            compileExpression(assign.value, target.type);
+        } else {
+            emitLoadForUpdate(target);
+            // compound assignment narrows back to the variable's type: int x; x += 1.5;
+            emitConvert(compileOperation(assign.op, null, target.type, assign.value), target.type);
+        }
+        if (keepValue) {
+            emitKeepValue(target);
+        }
+        emitStore(target);
+        return target.type;
+    }
+    
+    private int compileIncrement(Unary unary, boolean keepValue) {
+        Target target = resolveTarget(unary.operand);
+        int delta = isIncrement(unary.op) ? 1 : -1;
+        if (!keepValue && target.kind == Target.Kind.LOCAL
+                && (target.type == Opcodes.T_INT || target.type == Opcodes.T_REFERENCE)) {
+            emit(target.type == Opcodes.T_INT ? Opcodes.IINC : Opcodes.INC_LOCAL, target.index, delta);
+            return target.type;
+        }
+        boolean postfix = unary.op == UnaryOp.POST_INC || unary.op == UnaryOp.POST_DEC;
+        emitTargetObject(target);
+        emitLoadForUpdate(target);
+        if (keepValue && postfix) {
+            emitKeepValue(target);
+        }
+        if (target.type == Opcodes.T_REFERENCE) {
+            emit(Opcodes.INCREMENT, delta);
+        } else if (target.type == Opcodes.T_BOOLEAN) {
+            throw new UnsupportedFeatureException(unary.op.getSymbol() + " on boolean");
+        } else {
+            int type = unaryPromotion(target.type);
+            emitConvert(target.type, type);
+            if (type == Opcodes.T_INT) {
+                emit(Opcodes.ICONST, delta);
+                emit(Opcodes.IADD);
+            } else if (type == Opcodes.T_LONG) {
+                emit(Opcodes.PCONST, constant((long) delta));
+                emit(Opcodes.LADD);
+            } else {
+                emit(Opcodes.PCONST, constant(Double.doubleToRawLongBits(delta)));
+                emit(Opcodes.DADD);
+            }
+            emitConvert(type, target.type);
+        }
+        if (keepValue && !postfix) {
+            emitKeepValue(target);
+        }
+        emitStore(target);
+        return target.type;
+    }
+    
+    /** Loads a variable about to be updated; a field's object, or an element's array and index, stay for the store. */
+    private void emitLoadForUpdate(Target target) {
+        if (target.kind == Target.Kind.FIELD) {
+            emit(Opcodes.DUP);
+        } else if (target.kind == Target.Kind.ELEMENT) {
+            emit(Opcodes.DUP2);
+        }
+        emitLoad(target);
+    }
+    
+    /** Copies the value about to be stored so it remains as the expression's result. */
+    private void emitKeepValue(Target target) {
+        switch (target.kind) {
+            case FIELD:
+                emit(Opcodes.DUP_X1);
+                return;
+            case ELEMENT:
+                emit(Opcodes.DUP_X2);
+                return;
+            default:
+                emit(Opcodes.DUP);
+                return;
+        }
+    }
+    
+    private int compileMethodCall(MethodCall call) {
+        Expr target = call.target;
+        int argc = call.arguments.size();
+        
+        if (target == null && (call.name.equals("this") || call.name.equals("super"))) {
+            throw new UnsupportedFeatureException("constructor call");
+        }
+        if (isSystemStream(target)) {
+            compilePrint(call);
+            return emitConstant(null);
+        }
+        
+        boolean onClass = target instanceof Name && !isVariable((Name) target);
+        MethodDecl method = userMethod(call);
+        if (method == null) {
+            if (onClass) {
+                String name = ((Name) target).name;
+                Class<?> hostClass = HostInterop.resolveClass(name);
+                if (hostClass == null) {
+                    throw new UnsupportedFeatureException("unresolved name " + name);
+                }
+                if (hostClass == Arrays.class && argc == 1 && (call.name.equals("sort") || call.name.equals("toString"))) {
+                    compileArguments(call.arguments);
+                    emit(call.name.equals("sort") ? Opcodes.ARRAYS_SORT : Opcodes.ARRAYS_TO_STRING);
+                    return Opcodes.T_REFERENCE;
+                }
+                compileArguments(call.arguments);
+                emit(Opcodes.INVOKE_STATIC, constant(hostClass), constant(call.name), argc);
+                return Opcodes.T_REFERENCE;
+            }
+            compileExpression(target, Opcodes.T_REFERENCE);
+            compileArguments(call.arguments);
+            emit(Opcodes.INVOKE_VIRTUAL, constant(call.name), argc);
+            return Opcodes.T_REFERENCE;
+        }
+        
+        if (method.isStatic()) {
+            if (target != null && !onClass) {
+                // the receiver is evaluated for its side effects; its static type already picked the method
+                compileExpression(target);
+                emit(Opcodes.POP);
+            }
+            compileUserArguments(method, call.arguments);
+            emitInitialize(method.owner);
+            emit(Opcodes.CALL, indexOf(method), argc);
+            return typeCode(method.returnType);
+        }
+        
+        boolean onThis = target == null || target.tag == Tag.SUPER;
+        if (onClass || (onThis && (!hasThis || !isSubclass(currentClass, method.owner)))) {
+            throw new UnsupportedFeatureException("instance method " + call.name + " from a static context");
+        }
+        if (onThis) {
+            emit(Opcodes.LOAD, 0);
+        } else {
+            compileExpression(target, Opcodes.T_REFERENCE);
+        }
+        compileUserArguments(method, call.arguments);
+        if ((target != null && target.tag == Tag.SUPER) || Modifiers.isPrivate(method.modifiers)) {
+            emit(Opcodes.CALL, indexOf(method), argc + 1);
+        } else {
+            emit(Opcodes.INVOKE_METHOD, selector(method.name, argc), argc + 1, call.site);
+        }
+        return typeCode(method.returnType);
+    }
+    
+    /**
+     * The program's method a call resolves to at compile time, or null when
+     * it calls into the host. An instance method found here may still be
+     * overridden by the class of the receiver at run time.
+     */
+    private MethodDecl userMethod(MethodCall call) {
+        Expr target = call.target;
+        int argc = call.arguments.size();
+        if (target == null) {
+            return selectByArity(findMethods(currentClass, call.name), call.name, argc);
+        }
+        if (target.tag == Tag.SUPER) {
+            ClassDecl superclass = hasThis ? superclassOf(currentClass) : null;
+            return superclass != null ? findInstanceMethod(superclass, call.name, argc) : null;
+        }
+        if (target instanceof Name && !isVariable((Name) target)) {
+            ClassDecl decl = classes.get(((Name) target).name);
+            return decl != null ? selectByArity(findMethods(decl, call.name), call.name, argc) : null;
+        }
+        ClassDecl decl = classOf(target);
+        return decl != null ? findInstanceMethod(decl, call.name, argc) : null;
+    }
+    
+    /** Compiles arguments of a call to the program's method, each into the lane of its parameter. */
+    private void compileUserArguments(MethodDecl method, List<Expr> arguments) {
+        for (int i = 0; i < arguments.size(); i++) {
+            Param param = method.params.get(i);
+            if (param.varargs) {
+                throw new UnsupportedFeatureException("varargs parameter");
+            }
+            compileExpression(arguments.get(i), typeCode(param.type));
+        }
+    }
+    
+    private int indexOf(MethodDecl method) {
+        Integer index = methodIndex.get(method);
+        if (index == null) {
+            throw new UnsupportedFeatureException("call to abstract method " + method.name);
+        }
+        return index;
+    }
+    
+    private MethodDecl selectByArity(List<MethodDecl> overloads, String name, int argc) {
+        MethodDecl match = null;
+        if (overloads != null) {
+            for (MethodDecl method : overloads) {
+                if (method.params.size() != argc) {
+                    continue;
+                }
+                if (match != null) {
+                    // choosing between same-arity overloads needs argument types
+                    throw new UnsupportedFeatureException("overloaded method " + name);
+                }
+                match = method;
+            }
+        }
+        if (match == null) {
+            throw new UnsupportedFeatureException("call to " + name);
+        }
+        return match;
+    }
+    
+    private MethodDecl resolveConstructor(ClassDecl decl, int argc) {
+        List<MethodDecl> constructors = decl.constructors.isEmpty()
+                ? Collections.singletonList(defaultConstructors.get(decl))
+                : decl.constructors;
+        return selectByArity(constructors, decl.name, argc);
+    }
+    
+    private void compilePrint(MethodCall call) {
+        int argc = call.arguments.size();
+        compileArguments(call.arguments);
+        switch (call.name) {
+            case "println":
+                if (argc == 0) {
+                    emit(Opcodes.PRINTLN_EMPTY);
+                    return;
+                }
+                if (argc == 1) {
+                    emit(Opcodes.PRINTLN);
+                    return;
+                }
+                break;
+            case "print":
+                if (argc == 1) {
+                    emit(Opcodes.PRINT);
+                    return;
+                }
+                break;
+            case "printf":
+            case "format":
+                if (argc >= 1) {
+                    emit(Opcodes.PRINTF, argc);
+                    return;
+                }
+                break;
+            case "flush":
+                if (argc == 0) {
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        throw new UnsupportedFeatureException("System.out." + call.name);
+    }
+    
+    private int compileFieldAccess(FieldAccess access) {
+        if (access.target instanceof Name && !isVariable((Name) access.target)) {
+            String className = ((Name) access.target).name;
+            ClassDecl decl = classes.get(className);
+            if (decl != null) {
+                Target target = resolveTarget(access);
+                emitLoad(target);
+                return target.type;
+            }
+            // host constants such as Math.PI and Integer.MAX_VALUE are final, so fold them
+            return emitConstant(hostConstant(access));
+        }
+        if (classOf(access.target) != null) {
+            Target target = resolveTarget(access);
+            emitTargetObject(target);
+            emitLoad(target);
+            return target.type;
+        }
+        if (!access.name.equals("length")) {
+            throw new UnsupportedFeatureException("instance field " + access.name);
+        }
+        compileExpression(access.target, Opcodes.T_REFERENCE);
+        emit(Opcodes.ARRAY_LENGTH);
+        return Opcodes.T_INT;
+    }
+    
+    /** Compiles arguments of host calls, which always take boxed values. */
+    private void compileArguments(List<Expr> arguments) {
+        for (Expr argument : arguments) {
+            compileExpression(argument, Opcodes.T_REFERENCE);
+        }
+    }
+    
+    private boolean isSystemStream(Expr target) {
+        if (!(target instanceof FieldAccess)) {
+            return false;
+        }
+        FieldAccess access = (FieldAccess) target;
+        return access.target instanceof Name
+                && ((Name) access.target).name.equals("System")
+                && !isVariable((Name) access.target)
+                && (access.name.equals("out") || access.name.equals("err"));
+    }
+    
+    private static boolean isIncrement(UnaryOp op) {
+        return op == UnaryOp.PRE_INC || op == UnaryOp.POST_INC;
+    }
+    
+    // ---------------------------------------------------------------------
+    // Static types
+    // ---------------------------------------------------------------------
+    
+    /** Static type of an expression, without emitting anything. */
+    private int typeOf(Expr expr) {
+        switch (expr.tag) {
+            case LITERAL:
+                return literalType(((Literal) expr).value);
+            case NAME:
+                return resolveName((Name) expr).type;
+            case BINARY: {
+                Binary binary = (Binary) expr;
+                if (binary.op == BinaryOp.AND || binary.op == BinaryOp.OR) {
+                    return Opcodes.T_BOOLEAN;
+                }
+                int type = operandType(binary.op, typeOf(binary.left), typeOf(binary.right));
+                return type != Opcodes.T_REFERENCE && binary.op.isComparison() ? Opcodes.T_BOOLEAN : type;
+            }
+            case UNARY: {
+                Unary unary = (Unary) expr;
+                int type = typeOf(unary.operand);
+                if (unary.op.isIncrementOrDecrement() || unary.op == UnaryOp.NOT || type == Opcodes.T_REFERENCE) {
+                    return type;
+                }
+                return unaryPromotion(type);
+            }
+            case ASSIGN:
+                return resolveTarget(((Assign) expr).target).type;
+            case CONDITIONAL: {
+                Conditional conditional = (Conditional) expr;
+                return conditionalType(conditional.thenValue, conditional.elseValue);
+            }
+            case METHOD_CALL: {
+                MethodCall call = (MethodCall) expr;
+                if (call.target == null && (call.name.equals("this") || call.name.equals("super"))) {
+                    return Opcodes.T_REFERENCE;
+                }
+                MethodDecl method = isSystemStream(call.target) ? null : userMethod(call);
+                return method != null ? typeCode(method.returnType) : Opcodes.T_REFERENCE;
+            }
+            case FIELD_ACCESS: {
+                FieldAccess access = (FieldAccess) expr;
+                if (access.target instanceof Name && !isVariable((Name) access.target)) {
+                    if (classes.containsKey(((Name) access.target).name)) {
+                        return resolveTarget(access).type;
+                    }
+                    return literalType(hostConstant(access));
+                }
+                return classOf(access.target) != null ? resolveTarget(access).type : Opcodes.T_INT;
+            }
+            case ARRAY_ACCESS:
+                return resolveTarget(expr).type;
+            case CAST:
+                return typeCode(((Cast) expr).type);
+            case INSTANCE_OF:
+                return Opcodes.T_BOOLEAN;
+            default:
+                return Opcodes.T_REFERENCE;
+        }
+    }
+    
+    /**
+     * Type both operands are converted to before the operator is applied
+     * (binary numeric promotion), or Opcodes.T_REFERENCE when a boxed operand sends
+     * the operation through the generic instructions.
+     */
+    private static int operandType(BinaryOp op, int left, int right) {
+        if (left == Opcodes.T_REFERENCE || right == Opcodes.T_REFERENCE) {
+            return Opcodes.T_REFERENCE;
+        }
+        boolean booleans = left == Opcodes.T_BOOLEAN && right == Opcodes.T_BOOLEAN;
+        switch (op) {
+            case EQ:
+            case NE:
+                if (booleans) {
+                    return Opcodes.T_BOOLEAN;
+                }
+                break;
+            case BIT_AND:
+            case BIT_OR:
+            case BIT_XOR:
+                if (booleans) {
+                    return Opcodes.T_BOOLEAN;
+                }
+                if (isFloating(left) || isFloating(right)) {
+                    throw new UnsupportedFeatureException("bad operands for " + op.getSymbol());
+                }
+                break;
+            case SHL:
+            case SHR:
+            case USHR:
+                if (isFloating(left) || isFloating(right) || left == Opcodes.T_BOOLEAN || right == Opcodes.T_BOOLEAN) {
+                    throw new UnsupportedFeatureException("bad operands for " + op.getSymbol());
+                }
+                return unaryPromotion(left);
+            default:
+                break;
+        }
+        if (left == Opcodes.T_BOOLEAN || right == Opcodes.T_BOOLEAN) {
+            throw new UnsupportedFeatureException("bad operands for " + op.getSymbol());
+        }
+        if (left == Opcodes.T_DOUBLE || right == Opcodes.T_DOUBLE) return Opcodes.T_DOUBLE;
+        if (left == Opcodes.T_FLOAT || right == Opcodes.T_FLOAT) return Opcodes.T_FLOAT;
+        if (left == Opcodes.T_LONG || right == Opcodes.T_LONG) return Opcodes.T_LONG;
+        return Opcodes.T_INT;
+    }
+    
+    /** Type of {@code c ? a : b}, following Java's rules closely enough for printing and arithmetic. */
+    private int conditionalType(Expr thenValue, Expr elseValue) {
+        int thenType = typeOf(thenValue);
+        int elseType = typeOf(elseValue);
+        if (thenType == elseType) {
+            return thenType;
+        }
+        if (thenType == Opcodes.T_REFERENCE || elseType == Opcodes.T_REFERENCE
+                || thenType == Opcodes.T_BOOLEAN || elseType == Opcodes.T_BOOLEAN) {
+            return Opcodes.T_REFERENCE;
+        }
+        // an int constant next to a char, short or byte keeps the narrower type: c ? 'x' : 0
+        if (representable(elseValue, thenType)) {
+            return thenType;
+        }
+        if (representable(thenValue, elseType)) {
+            return elseType;
+        }
+        return operandType(BinaryOp.ADD, thenType, elseType);
+    }
+    
+    private static boolean representable(Expr expr, int type) {
+        if (!(expr instanceof Literal) || !(((Literal) expr).value instanceof Integer)) {
+            return false;
+        }
+        int value = (Integer) ((Literal) expr).value;
+        switch (type) {
+            case Opcodes.T_CHAR: return value == (char) value;
+            case Opcodes.T_SHORT: return value == (short) value;
+            case Opcodes.T_BYTE: return value == (byte) value;
+            default: return false;
+        }
+    }
+    
+    private static int unaryPromotion(int type) {
+        return type == Opcodes.T_CHAR || type == Opcodes.T_SHORT || type == Opcodes.T_BYTE ? Opcodes.T_INT : type;
+    }
+    
+    private static boolean isFloating(int type) {
+        return type == Opcodes.T_FLOAT || type == Opcodes.T_DOUBLE;
+    }
+    
+    private static int literalType(Object value) {
+        if (value instanceof Integer) return Opcodes.T_INT;
+        if (value instanceof Long) return Opcodes.T_LONG;
+        if (value instanceof Double) return Opcodes.T_DOUBLE;
+        if (value instanceof Float) return Opcodes.T_FLOAT;
+        if (value instanceof Character) return Opcodes.T_CHAR;
+        if (value instanceof Boolean) return Opcodes.T_BOOLEAN;
+        if (value instanceof Short) return Opcodes.T_SHORT;
+        if (value instanceof Byte) return Opcodes.T_BYTE;
+        return Opcodes.T_REFERENCE;
+    }
+    
+    private static int typedOpcode(BinaryOp op, int type) {
+        boolean floating = isFloating(type);
+        boolean isInt = type == Opcodes.T_INT;
+        switch (op) {
+            case ADD: return floating ? Opcodes.DADD : isInt ? Opcodes.IADD : Opcodes.LADD;
+            case SUB: return floating ? Opcodes.DSUB : isInt ? Opcodes.ISUB : Opcodes.LSUB;
+            case MUL: return floating ? Opcodes.DMUL : isInt ? Opcodes.IMUL : Opcodes.LMUL;
+            case DIV: return floating ? Opcodes.DDIV : isInt ? Opcodes.IDIV : Opcodes.LDIV;
+            case REM: return floating ? Opcodes.DREM : isInt ? Opcodes.IREM : Opcodes.LREM;
+            case SHL: return isInt ? Opcodes.ISHL : Opcodes.LSHL;
+            case SHR: return isInt ? Opcodes.ISHR : Opcodes.LSHR;
+            case USHR: return isInt ? Opcodes.IUSHR : Opcodes.LUSHR;
+            case BIT_AND: return Opcodes.LAND;
+            case BIT_OR: return Opcodes.LOR;
+            case BIT_XOR: return Opcodes.LXOR;
+            case LT: return floating ? Opcodes.DLT : Opcodes.LLT;
+            case GT: return floating ? Opcodes.DGT : Opcodes.LGT;
+            case LE: return floating ? Opcodes.DLE : Opcodes.LLE;
+            case GE: return floating ? Opcodes.DGE : Opcodes.LGE;
+            case EQ: return floating ? Opcodes.DEQ : Opcodes.LEQ;
+            case NE: return floating ? Opcodes.DNE : Opcodes.LNE;
+            default: throw new UnsupportedFeatureException("operator " + op.getSymbol());
+        }
+    }
+    
+    private static int genericOpcode(BinaryOp op) {
+        switch (op) {
+            case ADD: return Opcodes.ADD;
+            case SUB: return Opcodes.SUB;
+            case MUL: return Opcodes.MUL;
+            case DIV: return Opcodes.DIV;
+            case REM: return Opcodes.REM;
+            case LT: return Opcodes.LT;
+            case GT: return Opcodes.GT;
+            case LE: return Opcodes.LE;
+            case GE: return Opcodes.GE;
+            case EQ: return Opcodes.EQ;
+            case NE: return Opcodes.NE;
+            case BIT_AND: return Opcodes.BIT_AND;
+            case BIT_OR: return Opcodes.BIT_OR;
+            case BIT_XOR: return Opcodes.BIT_XOR;
+            case SHL: return Opcodes.SHL;
+            case SHR: return Opcodes.SHR;
+            case USHR: return Opcodes.USHR;
+            default: throw new UnsupportedFeatureException("operator " + op.getSymbol());
+        }
+    }
+    
+    private static int genericOpcode(UnaryOp op) {
+        switch (op) {
+            case NEG: return Opcodes.NEG;
+            case PLUS: return Opcodes.POS;
+            case NOT: return Opcodes.NOT;
+            default: return Opcodes.BIT_NOT;
+        }
+    }
+    
+    /** Emits the conversion of the value on the stack from one static type to another. */
+    private void emitConvert(int from, int to) {
+        if (from == to) {
+            return;
+        }
+        if (to == Opcodes.T_REFERENCE) {
+            emit(Opcodes.BOX, from);
+            return;
+        }
+        if (from == Opcodes.T_REFERENCE) {
+            emit(Opcodes.UNBOX, to);
+            return;
+        }
+        if (from == Opcodes.T_BOOLEAN || to == Opcodes.T_BOOLEAN) {
+            throw new UnsupportedFeatureException(Opcodes.typeName(from) + " cannot be converted to " + Opcodes.typeName(to));
+        }
+        if (isFloating(from)) {
+            if (to == Opcodes.T_DOUBLE) {
+                return;
+            }
+            if (to == Opcodes.T_FLOAT) {
+                emit(Opcodes.D2F);
+                return;
+            }
+            if (to == Opcodes.T_LONG) {
+                emit(Opcodes.D2L);
+                return;
+            }
+            emit(Opcodes.D2I);
+            from = Opcodes.T_INT;
+        } else if (to == Opcodes.T_DOUBLE) {
+            emit(Opcodes.L2D);
+            return;
+        } else if (to == Opcodes.T_FLOAT) {
+            emit(Opcodes.L2F);
+            return;
+        }
+        // int-like and long values share the sign-extended representation
+        switch (to) {
+            case Opcodes.T_INT:
+                if (from == Opcodes.T_LONG) {
+                    emit(Opcodes.L2I);
+                }
+                return;
+            case Opcodes.T_CHAR:
+                emit(Opcodes.I2C);
+                return;
+            case Opcodes.T_SHORT:
+                if (from != Opcodes.T_BYTE) {
+                    emit(Opcodes.I2S);
+                }
+                return;
+            case Opcodes.T_BYTE:
+                emit(Opcodes.I2B);
+                return;
+            default:
+                return;
+        }
+    }
+    
+    // ---------------------------------------------------------------------
+    // Names
+    // ---------------------------------------------------------------------
+    
+    /**
+     * A local slot, a global index, an instance field slot or an array
+     * element, with the variable's type code. An element of an array whose
+     * type is not known has the reference type.
+     */
+    private static class Target {
+        enum Kind { LOCAL, GLOBAL, FIELD, ELEMENT }
+        
+        final Kind kind;
+        /** Slot, global index, or field slot in the field's lane. */
+        final int index;
+        final int type;
+        /** Class of the program the variable holds, or null. */
+        final ClassDecl valueClass;
+        /** Declared type of the variable if it holds an array, such as int[][]; otherwise null. */
+        final TypeRef arrayType;
+        /** For a field: the expression for the object, or null for {@code this}. For an element: the array. */
+        final Expr object;
+        /** For an element: the expression for the index. */
+        final Expr subscript;
+        final String name;
+        
+        Target(Kind kind, int index, int type, ClassDecl valueClass, TypeRef arrayType, Expr object, Expr subscript,
+                String name) {
+            this.kind = kind;
+            this.index = index;
+            this.type = type;
+            this.valueClass = valueClass;
+            this.arrayType = arrayType;
+            this.object = object;
+            this.subscript = subscript;
+            this.name = name;
+        }
+        
+        static Target local(int slot, int type, ClassDecl valueClass) {
+            return new Target(Kind.LOCAL, slot, type, valueClass, null, null, null, null);
+        }
+    }
+    
+    private Target globalTarget(int global) {
+        TypeRef declared = globalDeclaredTypes.get(global);
+        return new Target(Target.Kind.GLOBAL, global, globalTypes.get(global), classFor(declared), arrayType(declared),
+                null, null, null);
+    }
+    
+    /** The instance field {@code name} of objects of {@code decl}, or null; {@code object} evaluates to the object. */
+    private Target fieldTarget(ClassDecl decl, String name, Expr object) {
+        FieldLayout layout = layoutOf(decl);
+        FieldDecl field = layout.fields.get(name);
+        if (field == null) {
+            return null;
+        }
+        return new Target(Target.Kind.FIELD, layout.slots.get(name), typeCode(field.type), classFor(field.type),
+                arrayType(field.type), object, null, name);
+    }
+    
+    private Target elementTarget(ArrayAccess access) {
+        TypeRef array = arrayTypeOf(access.array);
+        TypeRef element = array != null ? array.withDimensions(-1) : null;
+        return new Target(Target.Kind.ELEMENT, -1, typeCode(element), classFor(element), arrayType(element),
+                access.array, access.index, null);
+    }
+    
+    private Target resolveName(Name name) {
+        if (name.slot >= 0) {
+            return new Target(Target.Kind.LOCAL, name.slot, slotTypes[name.slot], slotClasses[name.slot],
+                    slotArrayTypes[name.slot], null, null, null);
+        }
+        for (ClassDecl cls = currentClass; cls != null; cls = outerClasses.get(cls)) {
+            Target field = fieldTarget(cls, name.name, null);
+            if (field != null) {
+                if (cls != currentClass || !hasThis) {
+                    throw new UnsupportedFeatureException("instance field " + name.name + " from a static context");
+                }
+                return field;
+            }
+            Integer global = findStaticField(cls, name.name);
+            if (global != null) {
+                return globalTarget(global);
+            }
+        }
+        throw new UnsupportedFeatureException("unresolved name " + name.name);
+    }
+    
+    private Target resolveTarget(Expr expr) {
+        if (expr instanceof Name) {
+            return resolveName((Name) expr);
+        }
+        if (expr instanceof ArrayAccess) {
+            return elementTarget((ArrayAccess) expr);
+        }
+        if (expr instanceof FieldAccess) {
+            FieldAccess access = (FieldAccess) expr;
+            if (access.target instanceof Name && !isVariable((Name) access.target)) {
+                ClassDecl decl = classes.get(((Name) access.target).name);
+                Integer global = decl != null ? findStaticField(decl, access.name) : null;
+                if (global != null) {
+                    return globalTarget(global);
+                }
+            } else {
+                ClassDecl decl = classOf(access.target);
+                Target field = decl != null ? fieldTarget(decl, access.name, access.target) : null;
+                if (field != null) {
+                    return field;
+                }
+            }
+        }
+        throw new UnsupportedFeatureException("assignment target");
+    }
+    
+    private Object hostConstant(FieldAccess access) {
+        String className = ((Name) access.target).name;
+        Class<?> hostClass = HostInterop.resolveClass(className);
+        if (hostClass == null || !HostInterop.hasStaticField(hostClass, access.name)) {
+            throw new UnsupportedFeatureException("unresolved field " + className + "." + access.name);
+        }
+        return HostInterop.getStaticField(hostClass, access.name);
+    }
+    
+    /**
+     * Pushes the object a field belongs to, or the array and index of an
+     * element, ahead of loading or storing it; other variables need nothing.
+     */
+    private void emitTargetObject(Target target) {
+        if (target.kind == Target.Kind.ELEMENT) {
+            compileExpression(target.object, Opcodes.T_REFERENCE);
+            compileExpression(target.subscript, Opcodes.T_INT);
+            return;
+        }
+        if (target.kind != Target.Kind.FIELD) {
+            return;
+        }
+        if (target.object == null) {
+            emit(Opcodes.LOAD, 0);
+        } else {
+            compileExpression(target.object, Opcodes.T_REFERENCE);
+        }
+    }
+    
+    private void emitLoad(Target target) {
+        boolean primitive = target.type != Opcodes.T_REFERENCE;
+        switch (target.kind) {
+            case GLOBAL:
+                emitInitialize(globalOwners.get(target.index));
+                emit(primitive ? Opcodes.PGET_GLOBAL : Opcodes.GET_GLOBAL, target.index);
+                return;
+            case FIELD:
+                emit(primitive ? Opcodes.PGET_FIELD : Opcodes.GET_FIELD, target.index, constant(target.name));
+                return;
+            case ELEMENT:
+                if (primitive) {
+                    emit(Opcodes.PALOAD, target.type);
+                } else {
+                    emit(Opcodes.ARRAY_LOAD);
+                }
+                return;
+            default:
+                emit(primitive ? Opcodes.PLOAD : Opcodes.LOAD, target.index);
+                return;
+        }
+    }
+    
+    private void emitStore(Target target) {
+        boolean primitive = target.type != Opcodes.T_REFERENCE;
+        switch (target.kind) {
+            case GLOBAL:
+                emitInitialize(globalOwners.get(target.index));
+                emit(primitive ? Opcodes.PPUT_GLOBAL : Opcodes.PUT_GLOBAL, target.index);
+                return;
+            case FIELD:
+                emit(primitive ? Opcodes.PPUT_FIELD : Opcodes.PUT_FIELD, target.index, constant(target.name));
+                return;
+            case ELEMENT:
+                if (primitive) {
+                    emit(Opcodes.PASTORE, target.type);
+                } else {
+                    emit(Opcodes.ARRAY_STORE);
+                }
+                return;
+            default:
+                emit(primitive ? Opcodes.PSTORE : Opcodes.STORE, target.index);
+                return;
+        }
+    }
+    
+    private boolean isVariable(Name name) {
+        if (name.slot >= 0) {
+            return true;
+        }
+        for (ClassDecl cls = currentClass; cls != null; cls = outerClasses.get(cls)) {
+            if (layoutOf(cls).fields.containsKey(name.name) || findStaticField(cls, name.name) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /** Global index of the static field {@code name} of {@code decl}, inherited from a superclass or an interface. */
+    private Integer findStaticField(ClassDecl decl, String name) {
+        for (ClassDecl type = decl; type != null; type = superclassOf(type)) {
+            Integer global = globalIndex.get(type.name + "." + name);
+            if (global != null) {
+                return global;
+            }
+        }
+        for (ClassDecl type = decl; type != null; type = superclassOf(type)) {
+            for (TypeRef implemented : type.interfaces) {
+                ClassDecl superinterface = classes.get(implemented.name);
+                Integer global = superinterface != null ? findStaticField(superinterface, name) : null;
+                if (global != null) {
+                    return global;
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Class of the program an expression's value has as its static type, or
+     * null for primitives, arrays and host objects. Calls on a value with a
+     * class are bound to the program's methods at compile time.
+     */
+    private ClassDecl classOf(Expr expr) {
+        switch (expr.tag) {
+            case NAME:
+                return isVariable((Name) expr) ? resolveName((Name) expr).valueClass : null;
+            case ARRAY_ACCESS:
+                return resolveTarget(expr).valueClass;
+            case THIS:
+                return hasThis ? currentClass : null;
+            case FIELD_ACCESS: {
+                FieldAccess access = (FieldAccess) expr;
+                if (access.target instanceof Name && !isVariable((Name) access.target)) {
+                    return classes.containsKey(((Name) access.target).name) ? resolveTarget(access).valueClass : null;
+                }
+                return classOf(access.target) != null ? resolveTarget(access).valueClass : null;
+            }
+            case METHOD_CALL: {
+                MethodCall call = (MethodCall) expr;
+                if (isSystemStream(call.target)
+                        || (call.target == null && (call.name.equals("this") || call.name.equals("super")))) {
+                    return null;
+                }
+                MethodDecl method = userMethod(call);
+                return method != null ? classFor(method.returnType) : null;
+            }
+            case NEW_OBJECT:
+                return classFor(((NewObject) expr).type);
+            case CAST:
+                return classFor(((Cast) expr).type);
+            case ASSIGN:
+                return resolveTarget(((Assign) expr).target).valueClass;
+            case CONDITIONAL: {
+                Conditional conditional = (Conditional) expr;
+                ClassDecl thenClass = classOf(conditional.thenValue);
+                return thenClass == classOf(conditional.elseValue) ? thenClass : null;
+            }
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * Declared type of an array-valued expression, such as int[][], or null
+     * if the expression is not an array or its type is not known here.
+     */
+    private TypeRef arrayTypeOf(Expr expr) {
+        switch (expr.tag) {
+            case NAME:
+                return isVariable((Name) expr) ? resolveName((Name) expr).arrayType : null;
+            case FIELD_ACCESS: {
+                FieldAccess access = (FieldAccess) expr;
+                boolean programField = access.target instanceof Name && !isVariable((Name) access.target)
+                        ? classes.containsKey(((Name) access.target).name)
+                        : classOf(access.target) != null;
+                return programField ? resolveTarget(access).arrayType : null;
+            }
+            case ARRAY_ACCESS:
+                return resolveTarget(expr).arrayType;
+            case ASSIGN:
+                return resolveTarget(((Assign) expr).target).arrayType;
+            case METHOD_CALL: {
+                MethodCall call = (MethodCall) expr;
+                if (isSystemStream(call.target)
+                        || (call.target == null && (call.name.equals("this") || call.name.equals("super")))) {
+                    return null;
+                }
+                MethodDecl method = userMethod(call);
+                return method != null ? arrayType(method.returnType) : null;
+            }
+            case NEW_ARRAY: {
+                NewArray creation = (NewArray) expr;
+                return creation.elementType.withDimensions(creation.totalDimensions);
+            }
+            case CAST:
+                return arrayType(((Cast) expr).type);
+            default:
+                return null;
+        }
+    }
+    
+    private static TypeRef arrayType(TypeRef type) {
+        return type != null && type.isArray() ? type : null;
+    }
+    
+    private ClassDecl classFor(TypeRef type) {
+        return type != null && !type.isArray() && !type.isPrimitive() ? classes.get(type.name) : null;
+    }
+    
+    /** Operand of CHECKCAST and INSTANCEOF: the compiled class, or the host class. */
+    private Object typeConstant(TypeRef type) {
+        ClassDecl decl = classFor(type);
+        return decl != null ? compiledClasses[classIndex.get(decl)] : hostClass(type);
+    }
+    
+    /** Methods called {@code name} in the innermost class, searching outwards, that declares or inherits one. */
+    private List<MethodDecl> findMethods(ClassDecl decl, String name) {
+        for (ClassDecl cls = decl; cls != null; cls = outerClasses.get(cls)) {
+            List<MethodDecl> overloads = findMemberMethods(cls, name);
+            if (overloads != null) {
+                return overloads;
+            }
+        }
+        return null;
+    }
+    
+    private List<MethodDecl> findMemberMethods(ClassDecl type, String name) {
+        for (ClassDecl cls = type; cls != null; cls = superclassOf(cls)) {
+            List<MethodDecl> overloads = methodsByName.get(cls.name + "." + name);
+            if (overloads != null) {
+                return overloads;
+            }
+        }
+        for (ClassDecl cls = type; cls != null; cls = superclassOf(cls)) {
+            for (TypeRef implemented : cls.interfaces) {
+                ClassDecl decl = classes.get(implemented.name);
+                List<MethodDecl> overloads = decl != null ? findMemberMethods(decl, name) : null;
+                if (overloads != null) {
+                    return overloads;
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * The method called {@code name} with {@code argc} parameters that an
+     * object of {@code decl} responds to, most derived first, then from
+     * interfaces; null if there is none.
+     */
+    private MethodDecl findInstanceMethod(ClassDecl decl, String name, int argc) {
+        for (ClassDecl type = decl; type != null; type = superclassOf(type)) {
+            MethodDecl method = declaredMethod(type, name, argc);
+            if (method != null) {
+                return method;
+            }
+        }
+        for (ClassDecl type = decl; type != null; type = superclassOf(type)) {
+            for (TypeRef implemented : type.interfaces) {
+                ClassDecl superinterface = classes.get(implemented.name);
+                MethodDecl method = superinterface != null ? findInstanceMethod(superinterface, name, argc) : null;
+                if (method != null) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+    
+    private MethodDecl declaredMethod(ClassDecl decl, String name, int argc) {
+        List<MethodDecl> overloads = methodsByName.get(decl.name + "." + name);
+        MethodDecl match = null;
+        if (overloads != null) {
+            for (MethodDecl method : overloads) {
+                if (method.params.size() == argc) {
+                    if (match != null) {
+                        throw new UnsupportedFeatureException("overloaded method " + name);
+                    }
+                    match = method;
+                }
+            }
+        }
+        return match;
+    }
+    
+    /** True if {@code decl} is {@code type} or extends or implements it. */
+    private boolean isSubclass(ClassDecl decl, ClassDecl type) {
+        for (ClassDecl cls = decl; cls != null; cls = superclassOf(cls)) {
+            if (cls == type) {
+                return true;
+            }
+            for (TypeRef implemented : cls.interfaces) {
+                ClassDecl superinterface = classes.get(implemented.name);
+                if (superinterface != null && isSubclass(superinterface, type)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private ClassDecl superclassOf(ClassDecl decl) {
+        return decl.superclass != null ? classes.get(decl.superclass.name) : null;
+    }
+    
+    private Class<?> hostClass(TypeRef type) {
+        Class<?> hostClass = type.isArray() || classes.containsKey(type.name) ? null : HostInterop.resolveClass(type.name);
+        if (hostClass == null) {
+            throw new UnsupportedFeatureException("type " + type);
+        }
+        return hostClass;
+    }
+    
+    // ---------------------------------------------------------------------
+    // Classes
+    // ---------------------------------------------------------------------
+    
+    /** Where the instance fields of a class live, inherited ones included. */
+    private static class FieldLayout {
+        final Map<String, FieldDecl> fields = new HashMap<>();
+        final Map<String, Integer> slots = new HashMap<>();
+        int referenceCount;
+        int primitiveCount;
+    }
+    
+    private FieldLayout layoutOf(ClassDecl decl) {
+        FieldLayout layout = fieldLayouts.get(decl);
+        if (layout != null) {
+            return layout;
+        }
+        if (!layoutsInProgress.add(decl)) {
+            throw new UnsupportedFeatureException("cyclic inheritance involving " + decl.name);
+        }
+        ClassDecl superclass = superclassOf(decl);
+        if (decl.superclass != null && superclass == null) {
+            throw new UnsupportedFeatureException("class extending " + decl.superclass.name);
+        }
+        layout = new FieldLayout();
+        if (superclass != null) {
+            FieldLayout inherited = layoutOf(superclass);
+            layout.fields.putAll(inherited.fields);
+            layout.slots.putAll(inherited.slots);
+            layout.referenceCount = inherited.referenceCount;
+            layout.primitiveCount = inherited.primitiveCount;
+        }
+        for (TypeRef implemented : decl.interfaces) {
+            ClassDecl superinterface = classes.get(implemented.name);
+            if (superinterface != null) {
+                layoutOf(superinterface);
+            }
+        }
+        for (FieldDecl field : decl.fields) {
+            if (!field.isStatic() && decl.kind != ClassDecl.Kind.INTERFACE) {
+                layout.fields.put(field.name, field);
+                layout.slots.put(field.name, field.type.isPrimitive() ? layout.primitiveCount++ : layout.referenceCount++);
+            }
+        }
+        layoutsInProgress.remove(decl);
+        fieldLayouts.put(decl, layout);
+        return layout;
+    }
+    
+    /**
+     * Rejects instance methods that share a name and arity without one
+     * overriding the other, since a selector would stand for both.
+     */
+    private void checkOverrides(ClassDecl decl) {
+        List<ClassDecl> supertypes = new ArrayList<>();
+        if (superclassOf(decl) != null) {
+            supertypes.add(superclassOf(decl));
+        }
+        for (TypeRef implemented : decl.interfaces) {
+            ClassDecl superinterface = classes.get(implemented.name);
+            if (superinterface != null) {
+                supertypes.add(superinterface);
+            }
+        }
+        for (MethodDecl method : decl.methods) {
+            if (method.isStatic()) {
+                continue;
+            }
+            declaredMethod(decl, method.name, method.params.size());
+            for (ClassDecl supertype : supertypes) {
+                MethodDecl inherited = findInstanceMethod(supertype, method.name, method.params.size());
+                if (inherited != null && !sameSignature(method, inherited)) {
+                    throw new UnsupportedFeatureException("overloaded method " + method.name);
+                }
+            }
+        }
+    }
+    
+    private static boolean sameSignature(MethodDecl a, MethodDecl b) {
+        if (a.isStatic() != b.isStatic() || typeCode(a.returnType) != typeCode(b.returnType)) {
+            return false;
+        }
+        for (int i = 0; i < a.params.size(); i++) {
+            if (!a.params.get(i).type.toString().equals(b.params.get(i).type.toString())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private CompiledClass[] compileClasses() {
+        CompiledClass[] compiled = new CompiledClass[classOrder.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            ClassDecl decl = classOrder.get(i);
+            ClassDecl superclass = superclassOf(decl);
+            List<Integer> interfaces = new ArrayList<>();
+            for (TypeRef implemented : decl.interfaces) {
+                ClassDecl superinterface = classes.get(implemented.name);
+                if (superinterface != null) {
+                    interfaces.add(classIndex.get(superinterface));
+                }
+            }
+            List<Integer> selectors = new ArrayList<>();
+            List<Integer> declared = new ArrayList<>();
+            for (MethodDecl method : decl.methods) {
+                if (!method.isStatic() && method.body != null) {
+                    selectors.add(selector(method.name, method.params.size()));
+                    declared.add(methodIndex.get(method));
+                }
+            }
+            FieldLayout layout = layoutOf(decl);
+            Integer staticInitializer = staticInitializerIndex.get(decl);
+            compiled[i] = new CompiledClass(decl.name, i, superclass != null ? classIndex.get(superclass) : -1,
+                    toArray(interfaces), layout.referenceCount, layout.primitiveCount, toArray(selectors),
+                    toArray(declared), staticInitializer != null ? staticInitializer : -1);
+        }
+        return compiled;
+    }
+    
+    /** Number standing for a method name and arity, which overriding methods share. */
+    private int selector(String name, int argc) {
+        String key = name + "/" + argc;
+        Integer index = selectorIndex.get(key);
+        if (index == null) {
+            index = selectorNames.size();
+            selectorNames.add(name);
+            selectorIndex.put(key, index);
+        }
+        return index;
+    }
+    
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+    
+    /** A loop, switch or labeled block, collecting the jumps that leave or restart it until their target is known. */
+    private static class JumpTarget {
+        enum Kind { LOOP, SWITCH, BLOCK }
+        
+        final Kind kind;
+        /** Null for an unlabeled statement. */
+        final String label;
+        final List<Integer> breaks = new ArrayList<>();
+        final List<Integer> continues = new ArrayList<>();
+        
+        JumpTarget(Kind kind, String label) {
+            this.kind = kind;
+            this.label = label;
+        }
+    }
+    
+    // ---------------------------------------------------------------------
+    // Emitting
+    // ---------------------------------------------------------------------
+    
+    private void emit(int opcode, int... operands) {
+        ensureCapacity(1 + operands.length);
+        lines[size] = line;
+        code[size++] = opcode;
+        for (int operand : operands) {
+            lines[size] = line;
+            code[size++] = operand;
+        }
+        stackDepth += stackEffect(opcode, operands);
+        maxStack = Math.max(maxStack, stackDepth);
+    }
+    
+    /** Emits a jump with a placeholder target and returns the operand's position for {@link #patch}. */
+    private int emitJump(int opcode) {
+        emit(opcode, -1);
+        return size - 1;
+    }
+    
+    private void patch(int operandPosition) {
+        code[operandPosition] = size;
+    }
+    
+    private void patchAll(List<Integer> operandPositions, int target) {
+        for (int position : operandPositions) {
+            code[position] = target;
+        }
+    }
+    
+    /** Pushes a literal, primitives into the primitive lane, and returns its type. */
+    private int emitConstant(Object value) {
+        int type = literalType(value);
+        switch (type) {
+            case Opcodes.T_INT:
+            case Opcodes.T_SHORT:
+            case Opcodes.T_BYTE:
+                emit(Opcodes.ICONST, ((Number) value).intValue());
+                break;
+            case Opcodes.T_CHAR:
+                emit(Opcodes.ICONST, (Character) value);
+                break;
+            case Opcodes.T_BOOLEAN:
+                emit(Opcodes.ICONST, (Boolean) value ? 1 : 0);
+                break;
+            case Opcodes.T_LONG:
+                emit(Opcodes.PCONST, constant(value));
+                break;
+            case Opcodes.T_FLOAT:
+            case Opcodes.T_DOUBLE:
+                emit(Opcodes.PCONST, constant(Double.doubleToRawLongBits(((Number) value).doubleValue())));
+                break;
+            default:
+                emit(Opcodes.CONST, constant(value));
+                break;
+        }
+        return type;
+    }
+    
+    private int constant(Object value) {
+        Integer index = constantIndex.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndex.put(value, index);
+        }
+        return index;
+    }
+    
+    private void ensureCapacity(int extra) {
+        if (size + extra > code.length) {
+            int capacity = Math.max(code.length * 2, size + extra);
+            code = Arrays.copyOf(code, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+        }
+    }
+    
+    private static int stackEffect(int opcode, int[] operands) {
+        switch (opcode) {
+            case Opcodes.CONST:
+            case Opcodes.LOAD:
+            case Opcodes.GET_GLOBAL:
+            case Opcodes.DUP:
+            case Opcodes.DUP_X1:
+            case Opcodes.NEW_INSTANCE:
+            case Opcodes.ICONST:
+            case Opcodes.PCONST:
+            case Opcodes.PLOAD:
+            case Opcodes.PGET_GLOBAL:
+            case Opcodes.DUP_X2:
+                return 1;
+            case Opcodes.DUP2:
+                return 2;
+            case Opcodes.STORE:
+            case Opcodes.PUT_GLOBAL:
+            case Opcodes.POP:
+            case Opcodes.JUMP_IF_FALSE:
+            case Opcodes.JUMP_IF_TRUE:
+            case Opcodes.RETURN_VALUE:
+            case Opcodes.PRINT:
+            case Opcodes.PRINTLN:
+            case Opcodes.THROW:
+            case Opcodes.ARRAY_LOAD:
+            case Opcodes.PSTORE:
+            case Opcodes.PPUT_GLOBAL:
+            case Opcodes.PJUMP_IF_FALSE:
+            case Opcodes.PJUMP_IF_TRUE:
+            case Opcodes.PRETURN:
+            case Opcodes.PALOAD:
+                return -1;
+            case Opcodes.ARRAY_STORE:
+            case Opcodes.PASTORE:
+                return -3;
+            case Opcodes.NEW_ARRAY:
+                return 1 - operands[2];
+            case Opcodes.CALL:
+            case Opcodes.NEW:
+                return 1 - operands[1];
+            case Opcodes.INVOKE_STATIC:
+                return 1 - operands[2];
+            case Opcodes.INVOKE_VIRTUAL:
+                return -operands[1];
+            case Opcodes.INVOKE_METHOD:
+                return 1 - operands[1];
+            case Opcodes.PUT_FIELD:
+            case Opcodes.PPUT_FIELD:
+                return -2;
+            case Opcodes.PRINTF:
+                return -operands[0];
+            case Opcodes.CONCAT:
+                return 1 - operands[0];
+            default:
+                // binary operators, generic and typed, pop two and push one
+                return isBinary(opcode) ? -1 : 0;
+        }
+    }
+    
+    private static boolean isBinary(int opcode) {
+        return (opcode >= Opcodes.ADD && opcode <= Opcodes.NE)
+                || (opcode >= Opcodes.IADD && opcode <= Opcodes.DNE && opcode != Opcodes.INEG && opcode != Opcodes.LNEG && opcode != Opcodes.DNEG);
+    }
+    
+    private static int typeCode(TypeRef type) {
+        return type != null && type.isPrimitive() ? Opcodes.typeCode(type.name) : Opcodes.T_REFERENCE;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.example.javabuddy.compiler.vm;
+
+/** Output of {@link BytecodeCompiler}: every method and class plus the shared constant pool. */
+public final class BytecodeProgram {
+    
+    public final CompiledMethod[] methods;
+    public final Object[] constants;
+    /** Type code of each static field, used for its default value. */
+    public final int[] globalTypes;
+    /** Initializes the class declaring main; other classes are initialized on first use. */
+    public final int initializerIndex;
+    public final int mainIndex;
+    public final CompiledClass[] classes;
+    /** Name of each method selector; a selector stands for a method name and arity. */
+    public final String[] selectorNames;
+    /** Number of {@link Opcodes#INVOKE_METHOD} sites, each with its own inline cache slot. */
+    public final int callSiteCount;
+    
+    public BytecodeProgram(CompiledMethod[] methods, Object[] constants, int[] globalTypes, int initializerIndex,
+                           int mainIndex, CompiledClass[] classes, String[] selectorNames, int callSiteCount) {
+        this.methods = methods;
+        this.constants = constants;
+        this.globalTypes = globalTypes;
+        this.initializerIndex = initializerIndex;
+        this.mainIndex = mainIndex;
+        this.classes = classes;
+        this.selectorNames = selectorNames;
+        this.callSiteCount = callSiteCount;
+    }
+}
\ No newline at end of file
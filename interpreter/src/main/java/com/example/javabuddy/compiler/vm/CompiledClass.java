@@ -0,0 +1,38 @@
+package com.example.javabuddy.compiler.vm;
+
+/**
+ * A class or interface of the program. Instance fields are numbered per
+ * lane, so reference fields and primitive fields each start at slot 0 of
+ * their own array in the object.
+ */
+public final class CompiledClass {
+    
+    public final String name;
+    /** Position in {@link BytecodeProgram#classes}. */
+    public final int index;
+    /** Index of the superclass, or -1 when it is Object. */
+    public final int superclass;
+    public final int[] interfaces;
+    /** Fields in each lane, inherited ones included. */
+    public final int referenceFieldCount;
+    public final int primitiveFieldCount;
+    /** Selector of each instance method the class declares, paired with {@link #methods}. */
+    public final int[] selectors;
+    /** Index of each of those methods in {@link BytecodeProgram#methods}. */
+    public final int[] methods;
+    /** Index of the method running the static initializers, or -1 when the class has none. */
+    public final int staticInitializer;
+    
+    public CompiledClass(String name, int index, int superclass, int[] interfaces, int referenceFieldCount,
+                         int primitiveFieldCount, int[] selectors, int[] methods, int staticInitializer) {
+        this.name = name;
+        this.index = index;
+        this.superclass = superclass;
+        this.interfaces = interfaces;
+        this.referenceFieldCount = referenceFieldCount;
+        this.primitiveFieldCount = primitiveFieldCount;
+        this.selectors = selectors;
+        this.methods = methods;
+        this.staticInitializer = staticInitializer;
+    }
+}
\ No newline at end of file
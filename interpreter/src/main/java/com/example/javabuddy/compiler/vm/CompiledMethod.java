@@ -0,0 +1,30 @@
+package com.example.javabuddy.compiler.vm;
+
+/** One method lowered to VM instructions. */
+public final class CompiledMethod {
+    
+    public final String name;
+    public final int[] code;
+    /** Source line of the instruction starting at each pc. */
+    public final int[] lines;
+    /** Type code of each parameter, which tells the VM which lane the argument is in. */
+    public final int[] paramTypes;
+    /** Type code of the result; void methods use {@link Opcodes#T_REFERENCE} and return null. */
+    public final int returnType;
+    public final int maxLocals;
+    public final int maxStack;
+    /** Entries of {start, end, handler, class constant}; end is exclusive. */
+    public final int[] exceptionTable;
+    
+    public CompiledMethod(String name, int[] code, int[] lines, int[] paramTypes, int returnType, int maxLocals,
+                          int maxStack, int[] exceptionTable) {
+        this.name = name;
+        this.code = code;
+        this.lines = lines;
+        this.paramTypes = paramTypes;
+        this.returnType = returnType;
+        this.maxLocals = maxLocals;
+        this.maxStack = maxStack;
+        this.exceptionTable = exceptionTable;
+    }
+}
\ No newline at end of file
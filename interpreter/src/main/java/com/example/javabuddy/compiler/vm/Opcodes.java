@@ -0,0 +1,245 @@
+package com.example.javabuddy.compiler.vm;
+
+/**
+ * Instruction set of the stack VM. Each instruction is an opcode followed by
+ * its operands inline in the method's int[] code array; the comment after
+ * each opcode lists the operands and the effect on the operand stack.
+ */
+public final class Opcodes {
+    
+    public static final int NOP = 0;
+    public static final int CONST = 1;          // index               -> value
+    public static final int LOAD = 2;           // slot                -> value
+    public static final int STORE = 3;          // slot          value ->
+    public static final int GET_GLOBAL = 4;     // index               -> value
+    public static final int PUT_GLOBAL = 5;     // index         value ->
+    public static final int DUP = 6;            //               value -> value, value
+    public static final int POP = 7;            //               value ->
+    public static final int DUP_X1 = 8;         //        under, value -> value, under, value
+    
+    public static final int ADD = 10;           //                a, b -> a + b
+    public static final int SUB = 11;
+    public static final int MUL = 12;
+    public static final int DIV = 13;
+    public static final int REM = 14;
+    public static final int BIT_AND = 15;
+    public static final int BIT_OR = 16;
+    public static final int BIT_XOR = 17;
+    public static final int SHL = 18;
+    public static final int SHR = 19;
+    public static final int USHR = 20;
+    public static final int LT = 21;            //                a, b -> boolean
+    public static final int GT = 22;
+    public static final int LE = 23;
+    public static final int GE = 24;
+    public static final int EQ = 25;
+    public static final int NE = 26;
+    public static final int CONCAT = 27;        // count           parts -> a + b + ..., see Operators.concat
+    
+    public static final int NEG = 30;           //               value -> result
+    public static final int POS = 31;
+    public static final int NOT = 32;
+    public static final int BIT_NOT = 33;
+    public static final int INC_LOCAL = 34;     // slot, delta         ->
+    public static final int INCREMENT = 35;     // delta         value -> value + delta, same type
+    public static final int CHECKCAST = 37;     // class index   value -> value
+    public static final int INSTANCEOF = 38;    // class index   value -> p:boolean
+    
+    public static final int JUMP = 40;          // target
+    public static final int JUMP_IF_FALSE = 41; // target      boolean ->
+    public static final int JUMP_IF_TRUE = 42;  // target      boolean ->
+    
+    public static final int CALL = 50;          // method, argc   args -> result
+    public static final int INVOKE_STATIC = 51; // class, name, argc args -> result
+    public static final int INVOKE_VIRTUAL = 52; // name, argc receiver, args -> result
+    public static final int NEW = 53;           // class, argc    args -> object
+    public static final int RETURN = 54;        //                     ->
+    public static final int RETURN_VALUE = 55;  //               value ->
+    public static final int INVOKE_METHOD = 56; // selector, argc, site  receiver, args -> result
+    public static final int NEW_INSTANCE = 57;  // class               -> object, not yet constructed
+    public static final int INIT_CLASS = 58;    // class               -> runs its static initializers the first time
+    
+    public static final int PRINT = 60;         //               value ->
+    public static final int PRINTLN = 61;       //               value ->
+    public static final int PRINTLN_EMPTY = 62; //                     ->
+    public static final int PRINTF = 63;        // argc  format, args ->
+    
+    // Arrays are Java arrays; see ArrayOperations. Elements of primitive
+    // arrays whose type the compiler knows move through PALOAD and PASTORE.
+    public static final int NEW_ARRAY = 64;     // class, dimensions, given  p:lengths -> array
+    public static final int ARRAY_STORE = 65;   //  array, p:index, value ->
+    public static final int DUP2 = 66;          //      array, p:index -> array, index, array, index
+    public static final int DUP_X2 = 67;        // array, p:index, value -> value, array, index, value
+    public static final int ARRAYS_SORT = 68;   //               array -> null
+    public static final int ARRAYS_TO_STRING = 69; //            array -> string
+    
+    public static final int THROW = 70;         //           throwable ->
+    public static final int ARRAY_LOAD = 71;    //      array, p:index -> element
+    public static final int ARRAY_LENGTH = 72;  //               array -> p:length
+    public static final int GET_ITERATOR = 73;  //            iterable -> iterator
+    public static final int ITER_HAS_NEXT = 74; //            iterator -> p:boolean
+    public static final int ITER_NEXT = 75;     //            iterator -> element
+    public static final int GET_FIELD = 76;     // slot, name   object -> value
+    public static final int PUT_FIELD = 77;     // slot, name object, value ->
+    
+    // Emitted only in code compiled for profiling, see BytecodeCompiler(boolean)
+    public static final int PROFILE_ENTER = 78; // method              ->
+    public static final int PROFILE_LINE = 79;  // method, line        ->
+    
+    // Primitive lane. Every stack entry and local slot also has a long;
+    // int, char, short, byte and boolean values live there sign-extended,
+    // float and double values as double bits. Operands marked p: use it.
+    public static final int ICONST = 80;        // value               -> p
+    public static final int PCONST = 81;        // index of raw bits   -> p
+    public static final int PLOAD = 82;         // slot                -> p
+    public static final int PSTORE = 83;        // slot              p ->
+    public static final int PGET_GLOBAL = 84;   // index               -> p
+    public static final int PPUT_GLOBAL = 85;   // index             p ->
+    public static final int IINC = 86;          // slot, delta         ->
+    public static final int BOX = 87;           // type code         p -> value
+    public static final int UNBOX = 88;         // type code     value -> p, converted as by a cast
+    public static final int PJUMP_IF_FALSE = 89; // target           p ->
+    public static final int PJUMP_IF_TRUE = 90; // target            p ->
+    public static final int PRETURN = 91;       //                   p ->
+    public static final int PGET_FIELD = 92;    // slot, name   object -> p
+    public static final int PPUT_FIELD = 93;    // slot, name object, p ->
+    public static final int PALOAD = 94;        // type code  array, p:index -> p
+    public static final int PASTORE = 95;       // type code array, p:index, p ->
+    
+    public static final int IADD = 100;         //                p, p -> p, wrapped to int
+    public static final int ISUB = 101;
+    public static final int IMUL = 102;
+    public static final int IDIV = 103;
+    public static final int IREM = 104;
+    public static final int ISHL = 105;
+    public static final int ISHR = 106;
+    public static final int IUSHR = 107;
+    public static final int INEG = 108;         //                   p -> p
+    public static final int LADD = 110;         //                p, p -> p
+    public static final int LSUB = 111;
+    public static final int LMUL = 112;
+    public static final int LDIV = 113;
+    public static final int LREM = 114;
+    public static final int LSHL = 115;
+    public static final int LSHR = 116;
+    public static final int LUSHR = 117;
+    public static final int LNEG = 118;         //                   p -> p
+    public static final int LAND = 119;         // also int and boolean, which are sign-extended
+    public static final int LOR = 120;
+    public static final int LXOR = 121;
+    public static final int DADD = 125;         //                p, p -> p; float rounds after with D2F
+    public static final int DSUB = 126;
+    public static final int DMUL = 127;
+    public static final int DDIV = 128;
+    public static final int DREM = 129;
+    public static final int DNEG = 130;         //                   p -> p
+    public static final int LLT = 131;          //                p, p -> p:boolean; also int and boolean
+    public static final int LGT = 132;
+    public static final int LLE = 133;
+    public static final int LGE = 134;
+    public static final int LEQ = 135;
+    public static final int LNE = 136;
+    public static final int DLT = 137;
+    public static final int DGT = 138;
+    public static final int DLE = 139;
+    public static final int DGE = 140;
+    public static final int DEQ = 141;
+    public static final int DNE = 142;
+    public static final int L2I = 145;          //                   p -> p
+    public static final int I2C = 146;
+    public static final int I2S = 147;
+    public static final int I2B = 148;
+    public static final int L2D = 149;
+    public static final int L2F = 150;
+    public static final int D2I = 151;
+    public static final int D2L = 152;
+    public static final int D2F = 153;
+    public static final int PNOT = 154;         // ~ on int or long
+    public static final int BNOT = 155;         // ! on boolean
+    
+    // Type codes used by BOX, UNBOX, PALOAD and PASTORE and for static types in the compiler
+    public static final int T_REFERENCE = 0;
+    public static final int T_INT = 1;
+    public static final int T_LONG = 2;
+    public static final int T_FLOAT = 3;
+    public static final int T_DOUBLE = 4;
+    public static final int T_CHAR = 5;
+    public static final int T_SHORT = 6;
+    public static final int T_BYTE = 7;
+    public static final int T_BOOLEAN = 8;
+    
+    private static final String[] TYPE_NAMES = {
+            null, "int", "long", "float", "double", "char", "short", "byte", "boolean"
+    };
+    
+    private Opcodes() {
+    }
+    
+    public static String typeName(int typeCode) {
+        return TYPE_NAMES[typeCode];
+    }
+    
+    public static int typeCode(String primitiveName) {
+        if (primitiveName == null) {
+            return T_REFERENCE;
+        }
+        for (int i = 1; i < TYPE_NAMES.length; i++) {
+            if (TYPE_NAMES[i].equals(primitiveName)) {
+                return i;
+            }
+        }
+        return T_REFERENCE;
+    }
+    
+    /** Number of int operands that follow the opcode. */
+    public static int operandCount(int opcode) {
+        switch (opcode) {
+            case CONST:
+            case LOAD:
+            case STORE:
+            case GET_GLOBAL:
+            case PUT_GLOBAL:
+            case INCREMENT:
+            case CHECKCAST:
+            case INSTANCEOF:
+            case JUMP:
+            case JUMP_IF_FALSE:
+            case JUMP_IF_TRUE:
+            case PRINTF:
+            case ICONST:
+            case PCONST:
+            case PLOAD:
+            case PSTORE:
+            case PGET_GLOBAL:
+            case PPUT_GLOBAL:
+            case BOX:
+            case UNBOX:
+            case PJUMP_IF_FALSE:
+            case PJUMP_IF_TRUE:
+            case NEW_INSTANCE:
+            case INIT_CLASS:
+            case PROFILE_ENTER:
+            case PALOAD:
+            case PASTORE:
+            case CONCAT:
+                return 1;
+            case INC_LOCAL:
+            case IINC:
+            case CALL:
+            case INVOKE_VIRTUAL:
+            case NEW:
+            case GET_FIELD:
+            case PUT_FIELD:
+            case PGET_FIELD:
+            case PPUT_FIELD:
+            case PROFILE_LINE:
+                return 2;
+            case INVOKE_STATIC:
+            case INVOKE_METHOD:
+            case NEW_ARRAY:
+                return 3;
+            default:
+                return 0;
+        }
+    }
+}
\ No newline at end of file
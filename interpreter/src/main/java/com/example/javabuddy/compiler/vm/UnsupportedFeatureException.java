@@ -0,0 +1,12 @@
+package com.example.javabuddy.compiler.vm;
+
+/**
+ * Thrown by {@link BytecodeCompiler} for constructs it cannot lower yet;
+ * the program then runs on the tree-walking interpreter instead.
+ */
+public class UnsupportedFeatureException extends RuntimeException {
+    
+    public UnsupportedFeatureException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
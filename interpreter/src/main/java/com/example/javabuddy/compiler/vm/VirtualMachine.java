@@ -0,0 +1,1278 @@
+package com.example.javabuddy.compiler.vm;
+
+import com.example.javabuddy.compiler.AdvancedJavaInterpreter;
+import com.example.javabuddy.compiler.AdvancedJavaInterpreter.CompileResult;
+import com.example.javabuddy.compiler.CompilationPipeline;
+import com.example.javabuddy.compiler.CompilerLog;
+import com.example.javabuddy.compiler.ast.BinaryOp;
+import com.example.javabuddy.compiler.ast.UnaryOp;
+import com.example.javabuddy.compiler.runtime.ArrayOperations;
+import com.example.javabuddy.compiler.runtime.ConsoleBuffer;
+import com.example.javabuddy.compiler.runtime.ExecutionBudget;
+import com.example.javabuddy.compiler.runtime.HeapMeter;
+import com.example.javabuddy.compiler.runtime.HostInterop;
+import com.example.javabuddy.compiler.runtime.InterpreterException;
+import com.example.javabuddy.compiler.runtime.Operators;
+import com.example.javabuddy.compiler.runtime.Profiler;
+import com.example.javabuddy.compiler.runtime.ProgramClass;
+import com.example.javabuddy.compiler.runtime.ProgramObject;
+import com.example.javabuddy.compiler.runtime.ThrownException;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Runs Java source by compiling it to the instruction set in {@link Opcodes}
+ * and executing that in a dispatch loop. Programs the compiler cannot lower
+ * yet run on {@link AdvancedJavaInterpreter} instead, so results and error
+ * messages look the same whichever engine ran the code.
+ *
+ * <p>Every operand stack entry, local and static field has a reference and a
+ * {@code long}; primitive values live in the long, so typed arithmetic never
+ * boxes. Frames are pooled per call depth, which keeps calls allocation-free
+ * as well.
+ *
+ * <p>Virtual calls go through a monomorphic inline cache per call site: the
+ * site remembers the last receiver class it saw and the method that class
+ * runs, so only a call on a new class walks the class chain.
+ */
+public class VirtualMachine {
+    
+    private static final String TAG = "VirtualMachine";
+    /** As in the tree-walker, so a recursive program overflows at the same depth on either engine. */
+    private static final int MAX_CALL_DEPTH = 5000;
+    
+    private ConsoleBuffer output;
+    private CompiledMethod[] methods;
+    private Object[] constants;
+    private Object[] globals;
+    private long[] primitiveGlobals;
+    private LoadedClass[] classes;
+    /** Whether each class's initialization has started, see {@link Opcodes#INIT_CLASS}. */
+    private boolean[] initialized;
+    private String[] selectorNames;
+    /** Receiver class each INVOKE_METHOD site last saw, and the index of the method it dispatched to. */
+    private ProgramClass[] cachedTypes;
+    private int[] cachedTargets;
+    private final List<Frame> framePool = new ArrayList<>();
+    /** Value of the last PRETURN, read by the caller right after the call. */
+    private long primitiveResult;
+    private int depth;
+    private ExecutionBudget budget;
+    /** Only code compiled for profiling reaches it, so it may be null otherwise. */
+    private Profiler profiler;
+    
+    public VirtualMachine() {
+    }
+    
+    public CompileResult compileAndRun(String sourceCode) {
+        return compileAndRun(sourceCode, new ExecutionBudget());
+    }
+    
+    public CompileResult compileAndRun(String sourceCode, ExecutionBudget budget) {
+        return compileAndRun(sourceCode, budget, new ConsoleBuffer());
+    }
+    
+    /**
+     * Like {@link #compileAndRun(String, ExecutionBudget)}, printing into {@code console} as the program runs.
+     * Programs the VM does not support run on the tree-walking interpreter instead.
+     */
+    public CompileResult compileAndRun(String sourceCode, ExecutionBudget budget, ConsoleBuffer console) {
+        return compileAndRun(sourceCode, budget, console, null);
+    }
+    
+    /** Like {@link #compileAndRun(String, ExecutionBudget, ConsoleBuffer)}, profiling the run if {@code profiler} is not null. */
+    public CompileResult compileAndRun(String sourceCode, ExecutionBudget budget, ConsoleBuffer console,
+                                       Profiler profiler) {
+        return new CompilationPipeline().run(sourceCode, budget, console, profiler);
+    }
+    
+    public CompileResult execute(BytecodeProgram program) {
+        return execute(program, new ExecutionBudget());
+    }
+    
+    public CompileResult execute(BytecodeProgram program, ExecutionBudget budget) {
+        return execute(program, budget, new ConsoleBuffer());
+    }
+    
+    /**
+     * Runs a compiled program, printing into {@code console} as it goes.
+     * Every instruction is charged to the budget, which is checked for
+     * cancellation and timeout at back-edges and calls.
+     */
+    public CompileResult execute(BytecodeProgram program, ExecutionBudget budget, ConsoleBuffer console) {
+        return execute(program, budget, console, null);
+    }
+    
+    /**
+     * Runs a program compiled with {@code new BytecodeCompiler(true)},
+     * recording into {@code profiler} which lines and methods ran and for how
+     * long. Without a profiler the program must not be compiled for profiling.
+     */
+    public CompileResult execute(BytecodeProgram program, ExecutionBudget budget, ConsoleBuffer console,
+                                 Profiler profiler) {
+        methods = program.methods;
+        constants = program.constants;
+        // zero bits are the default value of every type, in both lanes
+        globals = new Object[program.globalTypes.length];
+        primitiveGlobals = new long[program.globalTypes.length];
+        selectorNames = program.selectorNames;
+        classes = new LoadedClass[program.classes.length];
+        for (CompiledClass compiled : program.classes) {
+            loadClass(program.classes, compiled.index);
+        }
+        initialized = new boolean[program.classes.length];
+        cachedTypes = new ProgramClass[program.callSiteCount];
+        cachedTargets = new int[program.callSiteCount];
+        output = console;
+        depth = 0;
+        this.budget = budget;
+        this.profiler = profiler;
+        if (profiler != null) {
+            String[] names = new String[methods.length];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = methods[i].name;
+            }
+            profiler.start(names);
+        }
+        budget.setHeapRoots(heapRoots);
+        budget.start();
+        
+        try {
+            CompiledMethod initializer = methods[program.initializerIndex];
+            run(initializer, frameFor(initializer));
+            CompiledMethod main = methods[program.mainIndex];
+            Frame mainFrame = frameFor(main);
+            if (main.maxLocals > 0) {
+                mainFrame.locals[0] = new String[0];
+            }
+            run(main, mainFrame);
+            return new CompileResult(true, "Execution successful", output.toString());
+        } catch (InterpreterException e) {
+            return new CompileResult(false, "Execution errors:\nLine " + e.getLine() + ": " + e.getMessage(),
+                    output.toString());
+        } catch (ThrownException e) {
+            CompilerLog.d(TAG, "Uncaught exception in interpreted program", e);
+            return uncaught(e.getValue(), e.getLine());
+        } finally {
+            if (profiler != null) {
+                profiler.stop();
+            }
+            this.profiler = null;
+            methods = null;
+            constants = null;
+            globals = null;
+            primitiveGlobals = null;
+            classes = null;
+            initialized = null;
+            selectorNames = null;
+            cachedTypes = null;
+            cachedTargets = null;
+            budget.setHeapRoots(null);
+            this.budget = null;
+            output = null;
+            framePool.clear();
+        }
+    }
+    
+    /** What a run can still reach: static fields and the locals and operand stacks of its frames. */
+    private final HeapMeter.Roots heapRoots = new HeapMeter.Roots() {
+        @Override
+        public void addRoots(HeapMeter meter) {
+            meter.addAll(globals, globals.length);
+            // frames deeper than the current call were cleared when they returned
+            for (Frame frame : framePool) {
+                meter.addAll(frame.locals, frame.locals.length);
+                meter.addAll(frame.stack, frame.stack.length);
+            }
+        }
+    };
+    
+    private CompileResult uncaught(Object exception, int line) {
+        String message = "Exception in thread \"main\" " + exception + "\n\tat line " + line;
+        return new CompileResult(false, "Execution errors:\n" + message, output.toString());
+    }
+    
+    // ---------------------------------------------------------------------
+    // Classes
+    // ---------------------------------------------------------------------
+    
+    /**
+     * A class of the program for the current run. Host code that calls
+     * toString, equals or hashCode on one of its objects, such as string
+     * concatenation, runs the program's override here.
+     */
+    private final class LoadedClass extends ProgramClass {
+        final CompiledClass compiled;
+        final int toStringMethod;
+        final int equalsMethod;
+        final int hashCodeMethod;
+        
+        LoadedClass(CompiledClass compiled, LoadedClass superclass, ProgramClass[] interfaces) {
+            super(compiled.name, superclass, interfaces, compiled.referenceFieldCount, compiled.primitiveFieldCount);
+            this.compiled = compiled;
+            toStringMethod = findMethod(this, "toString", 0);
+            equalsMethod = findMethod(this, "equals", 1);
+            hashCodeMethod = findMethod(this, "hashCode", 0);
+        }
+        
+        @Override
+        protected String invokeToString(ProgramObject object) {
+            return toStringMethod >= 0 ? String.valueOf(invokeBoxed(toStringMethod, object)) : object.defaultToString();
+        }
+        
+        @Override
+        protected boolean invokeEquals(ProgramObject object, Object other) {
+            return equalsMethod >= 0 ? Operators.isTrue(invokeBoxed(equalsMethod, object, other)) : object == other;
+        }
+        
+        @Override
+        protected int invokeHashCode(ProgramObject object) {
+            return hashCodeMethod >= 0 ? Operators.intValue(invokeBoxed(hashCodeMethod, object)) : object.defaultHashCode();
+        }
+    }
+    
+    /** Loads a class after its superclass and interfaces, which may come later in the program. */
+    private LoadedClass loadClass(CompiledClass[] compiled, int index) {
+        if (classes[index] == null) {
+            CompiledClass type = compiled[index];
+            LoadedClass superclass = type.superclass >= 0 ? loadClass(compiled, type.superclass) : null;
+            ProgramClass[] interfaces = new ProgramClass[type.interfaces.length];
+            for (int i = 0; i < interfaces.length; i++) {
+                interfaces[i] = loadClass(compiled, type.interfaces[i]);
+            }
+            classes[index] = new LoadedClass(type, superclass, interfaces);
+        }
+        return classes[index];
+    }
+    
+    /**
+     * Runs the static initializers of a class, after those of its
+     * superclass. The class counts as initialized from the start, so code
+     * its initializers reach sees it part-way, as in Java.
+     */
+    private void initializeClass(int index) {
+        initialized[index] = true;
+        CompiledClass compiled = classes[index].compiled;
+        if (compiled.superclass >= 0 && !initialized[compiled.superclass]) {
+            initializeClass(compiled.superclass);
+        }
+        if (compiled.staticInitializer >= 0) {
+            CompiledMethod initializer = methods[compiled.staticInitializer];
+            budget.checkpoint();
+            run(initializer, frameFor(initializer));
+        }
+    }
+    
+    /** Index of the method an object of {@code type} runs for {@code selector}; the slow path of INVOKE_METHOD. */
+    private int lookup(ProgramClass type, int selector) {
+        int method = findMethod(type, selector, null, 0);
+        if (method < 0) {
+            throw new InterpreterException("abstract method " + selectorNames[selector] + " cannot be called");
+        }
+        return method;
+    }
+    
+    /** Index of the instance method {@code name} taking {@code argc} arguments that {@code type} runs, or -1. */
+    private int findMethod(ProgramClass type, String name, int argc) {
+        return findMethod(type, -1, name, argc);
+    }
+    
+    /**
+     * Searches the class chain, then the default methods of interfaces, for
+     * the method with {@code selector}, or if that is -1 for the one called
+     * {@code name} taking {@code argc} arguments.
+     */
+    private int findMethod(ProgramClass type, int selector, String name, int argc) {
+        for (ProgramClass cls = type; cls != null; cls = cls.superclass) {
+            int method = declaredMethod(cls, selector, name, argc);
+            if (method >= 0) {
+                return method;
+            }
+        }
+        for (ProgramClass cls = type; cls != null; cls = cls.superclass) {
+            for (ProgramClass superinterface : cls.interfaces) {
+                int method = findMethod(superinterface, selector, name, argc);
+                if (method >= 0) {
+                    return method;
+                }
+            }
+        }
+        return -1;
+    }
+    
+    private int declaredMethod(ProgramClass type, int selector, String name, int argc) {
+        CompiledClass compiled = ((LoadedClass) type).compiled;
+        for (int i = 0; i < compiled.selectors.length; i++) {
+            int method = compiled.methods[i];
+            if (selector >= 0 ? compiled.selectors[i] == selector
+                    : selectorNames[compiled.selectors[i]].equals(name) && methods[method].paramTypes.length == argc + 1) {
+                return method;
+            }
+        }
+        return -1;
+    }
+    
+    /** Calls an instance method of the program from host code, with boxed arguments and result. */
+    private Object invokeBoxed(int methodIndex, ProgramObject receiver, Object... args) {
+        CompiledMethod callee = methods[methodIndex];
+        budget.checkpoint();
+        Frame calleeFrame = frameFor(callee);
+        calleeFrame.locals[0] = receiver;
+        for (int i = 0; i < args.length; i++) {
+            int type = callee.paramTypes[i + 1];
+            if (type == Opcodes.T_REFERENCE) {
+                calleeFrame.locals[i + 1] = args[i];
+            } else {
+                calleeFrame.primitives[i + 1] = unbox(type, args[i]);
+            }
+        }
+        Object result = run(callee, calleeFrame);
+        return callee.returnType == Opcodes.T_REFERENCE ? result : box(callee.returnType, primitiveResult);
+    }
+    
+    /** A call the compiler could not bind, on an object of the program: its own method if it has one, else Object's. */
+    private Object invokeDynamic(ProgramObject receiver, String name, Object[] args) {
+        int method = findMethod(receiver.type, name, args.length);
+        return method >= 0
+                ? invokeBoxed(method, receiver, args)
+                : HostInterop.invokeVirtual(receiver, name, args, budget);
+    }
+    
+    private boolean isInstance(Object type, Object value) {
+        return type instanceof CompiledClass
+                ? classes[((CompiledClass) type).index].isInstance(value)
+                : ((Class<?>) type).isInstance(value);
+    }
+    
+    // ---------------------------------------------------------------------
+    // Frames
+    // ---------------------------------------------------------------------
+    
+    /** Locals and operand stack of one activation, in both lanes. */
+    private static final class Frame {
+        Object[] locals = new Object[0];
+        long[] primitives = new long[0];
+        Object[] stack = new Object[0];
+        long[] primitiveStack = new long[0];
+        
+        void ensure(int maxLocals, int maxStack) {
+            if (locals.length < maxLocals) {
+                locals = new Object[maxLocals];
+                primitives = new long[maxLocals];
+            }
+            if (stack.length < maxStack) {
+                stack = new Object[maxStack];
+                primitiveStack = new long[maxStack];
+            }
+        }
+        
+        /** Drops references so a pooled frame does not keep objects of a finished call alive. */
+        void clear(CompiledMethod method) {
+            Arrays.fill(locals, 0, method.maxLocals, null);
+            Arrays.fill(stack, 0, method.maxStack, null);
+        }
+    }
+    
+    /** Frame for a call one level deeper than the current one. */
+    private Frame frameFor(CompiledMethod method) {
+        while (framePool.size() <= depth) {
+            framePool.add(new Frame());
+        }
+        Frame frame = framePool.get(depth);
+        frame.ensure(method.maxLocals, method.maxStack);
+        return frame;
+    }
+    
+    // ---------------------------------------------------------------------
+    // Dispatch loop
+    // ---------------------------------------------------------------------
+    
+    private Object run(CompiledMethod method, Frame frame) {
+        if (depth >= MAX_CALL_DEPTH) {
+            throw new StackOverflowError();
+        }
+        depth++;
+        try {
+            return dispatch(method, frame);
+        } finally {
+            frame.clear(method);
+            depth--;
+        }
+    }
+    
+    private Object dispatch(CompiledMethod method, Frame frame) {
+        final int[] code = method.code;
+        final Object[] locals = frame.locals;
+        final long[] primitives = frame.primitives;
+        final Object[] stack = frame.stack;
+        final long[] pstack = frame.primitiveStack;
+        final ExecutionBudget budget = this.budget;
+        int sp = 0;
+        int pc = 0;
+        int opPc = 0;
+        
+        while (true) {
+            try {
+                while (true) {
+                    opPc = pc;
+                    budget.step();
+                    switch (code[pc++]) {
+                        case Opcodes.NOP:
+                            break;
+                        case Opcodes.CONST:
+                            stack[sp++] = constants[code[pc++]];
+                            break;
+                        case Opcodes.LOAD:
+                            stack[sp++] = locals[code[pc++]];
+                            break;
+                        case Opcodes.STORE:
+                            locals[code[pc++]] = stack[--sp];
+                            break;
+                        case Opcodes.GET_GLOBAL:
+                            stack[sp++] = globals[code[pc++]];
+                            break;
+                        case Opcodes.PUT_GLOBAL:
+                            globals[code[pc++]] = stack[--sp];
+                            break;
+                        case Opcodes.DUP:
+                            stack[sp] = stack[sp - 1];
+                            pstack[sp] = pstack[sp - 1];
+                            sp++;
+                            break;
+                        case Opcodes.POP:
+                            stack[--sp] = null;
+                            break;
+                        case Opcodes.DUP_X1:
+                            stack[sp] = stack[sp - 1];
+                            pstack[sp] = pstack[sp - 1];
+                            stack[sp - 1] = stack[sp - 2];
+                            pstack[sp - 1] = pstack[sp - 2];
+                            stack[sp - 2] = stack[sp];
+                            pstack[sp - 2] = pstack[sp];
+                            sp++;
+                            break;
+                        case Opcodes.DUP2:
+                            stack[sp] = stack[sp - 2];
+                            pstack[sp] = pstack[sp - 2];
+                            stack[sp + 1] = stack[sp - 1];
+                            pstack[sp + 1] = pstack[sp - 1];
+                            sp += 2;
+                            break;
+                        case Opcodes.DUP_X2:
+                            for (int i = sp; i > sp - 3; i--) {
+                                stack[i] = stack[i - 1];
+                                pstack[i] = pstack[i - 1];
+                            }
+                            stack[sp - 3] = stack[sp];
+                            pstack[sp - 3] = pstack[sp];
+                            sp++;
+                            break;
+                        
+                        case Opcodes.ADD:
+                        case Opcodes.SUB:
+                        case Opcodes.MUL:
+                        case Opcodes.DIV:
+                        case Opcodes.REM:
+                        case Opcodes.BIT_AND:
+                        case Opcodes.BIT_OR:
+                        case Opcodes.BIT_XOR:
+                        case Opcodes.SHL:
+                        case Opcodes.SHR:
+                        case Opcodes.USHR:
+                        case Opcodes.LT:
+                        case Opcodes.GT:
+                        case Opcodes.LE:
+                        case Opcodes.GE:
+                        case Opcodes.EQ:
+                        case Opcodes.NE: {
+                            // boxed operands; primitive ones use the typed instructions below
+                            Object b = stack[--sp];
+                            Object result = Operators.binary(BINARY_OPS[code[opPc]], stack[sp - 1], b);
+                            if (result instanceof String) {
+                                budget.allocate(HeapMeter.sizeOf(result));
+                            }
+                            stack[sp - 1] = result;
+                            stack[sp] = null;
+                            break;
+                        }
+                        case Opcodes.CONCAT: {
+                            int count = code[pc++];
+                            sp -= count;
+                            Object result = Operators.concat(stack, sp, count);
+                            if (result instanceof String) {
+                                budget.allocate(HeapMeter.sizeOf(result));
+                            }
+                            Arrays.fill(stack, sp + 1, sp + count, null);
+                            stack[sp++] = result;
+                            break;
+                        }
+                        
+                        case Opcodes.NEG:
+                        case Opcodes.POS:
+                        case Opcodes.NOT:
+                        case Opcodes.BIT_NOT:
+                            stack[sp - 1] = Operators.unary(UNARY_OPS[code[opPc] - Opcodes.NEG], stack[sp - 1]);
+                            break;
+                        case Opcodes.INC_LOCAL: {
+                            int slot = code[pc++];
+                            locals[slot] = Operators.increment(locals[slot], code[pc++]);
+                            break;
+                        }
+                        case Opcodes.INCREMENT:
+                            stack[sp - 1] = Operators.increment(stack[sp - 1], code[pc++]);
+                            break;
+                        case Opcodes.CHECKCAST: {
+                            Object type = constants[code[pc++]];
+                            Object value = stack[sp - 1];
+                            if (value != null && !isInstance(type, value)) {
+                                throw new ClassCastException("class " + className(value) + " cannot be cast to class "
+                                        + (type instanceof CompiledClass ? ((CompiledClass) type).name : ((Class<?>) type).getName()));
+                            }
+                            break;
+                        }
+                        case Opcodes.INSTANCEOF: {
+                            Object type = constants[code[pc++]];
+                            pstack[sp - 1] = isInstance(type, stack[sp - 1]) ? 1 : 0;
+                            stack[sp - 1] = null;
+                            break;
+                        }
+                        
+                        case Opcodes.JUMP: {
+                            int target = code[pc];
+                            if (target <= opPc) {
+                                budget.checkpoint();
+                            }
+                            pc = target;
+                            break;
+                        }
+                        case Opcodes.JUMP_IF_FALSE:
+                            pc = Operators.isTrue(stack[--sp]) ? pc + 1 : code[pc];
+                            break;
+                        case Opcodes.JUMP_IF_TRUE:
+                            pc = Operators.isTrue(stack[--sp]) ? code[pc] : pc + 1;
+                            break;
+                        
+                        case Opcodes.CALL: {
+                            CompiledMethod callee = methods[code[pc++]];
+                            int argc = code[pc++];
+                            sp -= argc;
+                            Object result = call(callee, stack, pstack, sp, argc);
+                            if (callee.returnType == Opcodes.T_REFERENCE) {
+                                stack[sp++] = result;
+                            } else {
+                                pstack[sp++] = primitiveResult;
+                            }
+                            break;
+                        }
+                        case Opcodes.INVOKE_METHOD: {
+                            int selector = code[pc++];
+                            int argc = code[pc++];
+                            int site = code[pc++];
+                            sp -= argc;
+                            Object receiver = stack[sp];
+                            if (receiver == null) {
+                                throw new NullPointerException("Cannot invoke \"" + selectorNames[selector]
+                                        + "()\" because value is null");
+                            }
+                            ProgramClass type = ((ProgramObject) receiver).type;
+                            int target;
+                            if (cachedTypes[site] == type) {
+                                target = cachedTargets[site];
+                            } else {
+                                target = lookup(type, selector);
+                                cachedTypes[site] = type;
+                                cachedTargets[site] = target;
+                            }
+                            CompiledMethod callee = methods[target];
+                            Object result = call(callee, stack, pstack, sp, argc);
+                            if (callee.returnType == Opcodes.T_REFERENCE) {
+                                stack[sp++] = result;
+                            } else {
+                                pstack[sp++] = primitiveResult;
+                            }
+                            break;
+                        }
+                        case Opcodes.INIT_CLASS: {
+                            int type = code[pc++];
+                            if (!initialized[type]) {
+                                initializeClass(type);
+                            }
+                            break;
+                        }
+                        case Opcodes.NEW_INSTANCE: {
+                            ProgramObject object = new ProgramObject(classes[code[pc++]]);
+                            budget.allocate(HeapMeter.sizeOf(object));
+                            stack[sp++] = object;
+                            break;
+                        }
+                        case Opcodes.INVOKE_STATIC: {
+                            Class<?> type = (Class<?>) constants[code[pc++]];
+                            String name = (String) constants[code[pc++]];
+                            Object[] args = popArguments(stack, sp, code[pc++]);
+                            sp -= args.length;
+                            stack[sp++] = HostInterop.invokeStatic(type, name, args, budget);
+                            break;
+                        }
+                        case Opcodes.INVOKE_VIRTUAL: {
+                            String name = (String) constants[code[pc++]];
+                            Object[] args = popArguments(stack, sp, code[pc++]);
+                            sp -= args.length;
+                            Object receiver = stack[sp - 1];
+                            stack[sp - 1] = receiver instanceof ProgramObject
+                                    ? invokeDynamic((ProgramObject) receiver, name, args)
+                                    : HostInterop.invokeVirtual(receiver, name, args, budget);
+                            break;
+                        }
+                        case Opcodes.NEW: {
+                            Class<?> type = (Class<?>) constants[code[pc++]];
+                            Object[] args = popArguments(stack, sp, code[pc++]);
+                            sp -= args.length;
+                            stack[sp++] = HostInterop.construct(type, args, budget);
+                            break;
+                        }
+                        case Opcodes.RETURN:
+                            return null;
+                        case Opcodes.RETURN_VALUE:
+                            return stack[--sp];
+                        case Opcodes.PRETURN:
+                            primitiveResult = pstack[--sp];
+                            return null;
+                        
+                        case Opcodes.PRINT:
+                            output.print(String.valueOf(stack[--sp]));
+                            break;
+                        case Opcodes.PRINTLN:
+                            output.println(String.valueOf(stack[--sp]));
+                            break;
+                        case Opcodes.PRINTLN_EMPTY:
+                            output.println("");
+                            break;
+                        case Opcodes.PRINTF: {
+                            Object[] args = popArguments(stack, sp, code[pc++] - 1);
+                            sp -= args.length;
+                            output.print(String.format(String.valueOf(stack[--sp]), args));
+                            break;
+                        }
+                        
+                        case Opcodes.NEW_ARRAY: {
+                            Class<?> elementClass = (Class<?>) constants[code[pc++]];
+                            int dimensions = code[pc++];
+                            int[] lengths = new int[code[pc++]];
+                            sp -= lengths.length;
+                            for (int i = 0; i < lengths.length; i++) {
+                                lengths[i] = (int) pstack[sp + i];
+                            }
+                            stack[sp++] = ArrayOperations.newArray(elementClass, lengths, dimensions, budget);
+                            break;
+                        }
+                        case Opcodes.ARRAY_STORE: {
+                            sp -= 3;
+                            ArrayOperations.store(stack[sp], (int) pstack[sp + 1], stack[sp + 2]);
+                            stack[sp] = null;
+                            stack[sp + 2] = null;
+                            break;
+                        }
+                        case Opcodes.ARRAYS_SORT:
+                            ArrayOperations.sort(stack[sp - 1]);
+                            stack[sp - 1] = null;
+                            break;
+                        case Opcodes.ARRAYS_TO_STRING: {
+                            String text = ArrayOperations.toString(stack[sp - 1]);
+                            budget.allocate(HeapMeter.sizeOf(text));
+                            stack[sp - 1] = text;
+                            break;
+                        }
+                        
+                        case Opcodes.THROW: {
+                            Object exception = stack[--sp];
+                            if (exception == null) {
+                                throw new NullPointerException("Cannot throw exception because value is null");
+                            }
+                            if (!(exception instanceof Throwable)) {
+                                throw new InterpreterException("incompatible types: " + Operators.typeName(exception)
+                                        + " cannot be converted to Throwable");
+                            }
+                            throw new ThrownException((Throwable) exception, method.lines[opPc]);
+                        }
+                        case Opcodes.ARRAY_LOAD: {
+                            int index = (int) pstack[--sp];
+                            stack[sp - 1] = ArrayOperations.load(stack[sp - 1], index);
+                            break;
+                        }
+                        case Opcodes.ARRAY_LENGTH:
+                            pstack[sp - 1] = ArrayOperations.length(stack[sp - 1]);
+                            stack[sp - 1] = null;
+                            break;
+                        case Opcodes.GET_ITERATOR:
+                            stack[sp - 1] = iterator(stack[sp - 1]);
+                            break;
+                        case Opcodes.ITER_HAS_NEXT:
+                            pstack[sp - 1] = ((Iterator<?>) stack[sp - 1]).hasNext() ? 1 : 0;
+                            stack[sp - 1] = null;
+                            break;
+                        case Opcodes.ITER_NEXT:
+                            stack[sp - 1] = ((Iterator<?>) stack[sp - 1]).next();
+                            break;
+                        case Opcodes.GET_FIELD: {
+                            int slot = code[pc++];
+                            String name = (String) constants[code[pc++]];
+                            stack[sp - 1] = fieldOwner(stack[sp - 1], name, true).fields[slot];
+                            break;
+                        }
+                        case Opcodes.PUT_FIELD: {
+                            int slot = code[pc++];
+                            String name = (String) constants[code[pc++]];
+                            sp -= 2;
+                            fieldOwner(stack[sp], name, false).fields[slot] = stack[sp + 1];
+                            stack[sp] = null;
+                            stack[sp + 1] = null;
+                            break;
+                        }
+                        case Opcodes.PGET_FIELD: {
+                            int slot = code[pc++];
+                            String name = (String) constants[code[pc++]];
+                            pstack[sp - 1] = fieldOwner(stack[sp - 1], name, true).primitiveFields[slot];
+                            stack[sp - 1] = null;
+                            break;
+                        }
+                        case Opcodes.PPUT_FIELD: {
+                            int slot = code[pc++];
+                            String name = (String) constants[code[pc++]];
+                            sp -= 2;
+                            fieldOwner(stack[sp], name, false).primitiveFields[slot] = pstack[sp + 1];
+                            stack[sp] = null;
+                            break;
+                        }
+                        case Opcodes.PALOAD: {
+                            int type = code[pc++];
+                            sp--;
+                            pstack[sp - 1] = loadElement(type, stack[sp - 1], (int) pstack[sp]);
+                            stack[sp - 1] = null;
+                            break;
+                        }
+                        case Opcodes.PASTORE: {
+                            int type = code[pc++];
+                            sp -= 3;
+                            storeElement(type, stack[sp], (int) pstack[sp + 1], pstack[sp + 2]);
+                            stack[sp] = null;
+                            break;
+                        }
+                        case Opcodes.PROFILE_ENTER:
+                            profiler.enter(code[pc++]);
+                            break;
+                        case Opcodes.PROFILE_LINE:
+                            profiler.line(code[pc], code[pc + 1]);
+                            pc += 2;
+                            break;
+                        
+                        // Primitive lane
+                        case Opcodes.ICONST:
+                            pstack[sp++] = code[pc++];
+                            break;
+                        case Opcodes.PCONST:
+                            pstack[sp++] = (Long) constants[code[pc++]];
+                            break;
+                        case Opcodes.PLOAD:
+                            pstack[sp++] = primitives[code[pc++]];
+                            break;
+                        case Opcodes.PSTORE:
+                            primitives[code[pc++]] = pstack[--sp];
+                            break;
+                        case Opcodes.PGET_GLOBAL:
+                            pstack[sp++] = primitiveGlobals[code[pc++]];
+                            break;
+                        case Opcodes.PPUT_GLOBAL:
+                            primitiveGlobals[code[pc++]] = pstack[--sp];
+                            break;
+                        case Opcodes.IINC: {
+                            int slot = code[pc++];
+                            primitives[slot] = (int) (primitives[slot] + code[pc++]);
+                            break;
+                        }
+                        case Opcodes.BOX:
+                            stack[sp - 1] = box(code[pc++], pstack[sp - 1]);
+                            break;
+                        case Opcodes.UNBOX:
+                            pstack[sp - 1] = unbox(code[pc++], stack[sp - 1]);
+                            stack[sp - 1] = null;
+                            break;
+                        case Opcodes.PJUMP_IF_FALSE:
+                            pc = pstack[--sp] != 0 ? pc + 1 : code[pc];
+                            break;
+                        case Opcodes.PJUMP_IF_TRUE:
+                            pc = pstack[--sp] != 0 ? code[pc] : pc + 1;
+                            break;
+                        
+                        case Opcodes.IADD:
+                            sp--;
+                            pstack[sp - 1] = (int) (pstack[sp - 1] + pstack[sp]);
+                            break;
+                        case Opcodes.ISUB:
+                            sp--;
+                            pstack[sp - 1] = (int) (pstack[sp - 1] - pstack[sp]);
+                            break;
+                        case Opcodes.IMUL:
+                            sp--;
+                            pstack[sp - 1] = (int) pstack[sp - 1] * (int) pstack[sp];
+                            break;
+                        case Opcodes.IDIV: {
+                            int b = (int) pstack[--sp];
+                            if (b == 0) {
+                                throw new ArithmeticException("/ by zero");
+                            }
+                            pstack[sp - 1] = (int) pstack[sp - 1] / b;
+                            break;
+                        }
+                        case Opcodes.IREM: {
+                            int b = (int) pstack[--sp];
+                            if (b == 0) {
+                                throw new ArithmeticException("/ by zero");
+                            }
+                            pstack[sp - 1] = (int) pstack[sp - 1] % b;
+                            break;
+                        }
+                        case Opcodes.ISHL:
+                            sp--;
+                            pstack[sp - 1] = (int) pstack[sp - 1] << pstack[sp];
+                            break;
+                        case Opcodes.ISHR:
+                            sp--;
+                            pstack[sp - 1] = (int) pstack[sp - 1] >> pstack[sp];
+                            break;
+                        case Opcodes.IUSHR:
+                            sp--;
+                            pstack[sp - 1] = (int) pstack[sp - 1] >>> pstack[sp];
+                            break;
+                        case Opcodes.INEG:
+                            pstack[sp - 1] = -(int) pstack[sp - 1];
+                            break;
+                        case Opcodes.LADD:
+                            sp--;
+                            pstack[sp - 1] += pstack[sp];
+                            break;
+                        case Opcodes.LSUB:
+                            sp--;
+                            pstack[sp - 1] -= pstack[sp];
+                            break;
+                        case Opcodes.LMUL:
+                            sp--;
+                            pstack[sp - 1] *= pstack[sp];
+                            break;
+                        case Opcodes.LDIV: {
+                            long b = pstack[--sp];
+                            if (b == 0) {
+                                throw new ArithmeticException("/ by zero");
+                            }
+                            pstack[sp - 1] /= b;
+                            break;
+                        }
+                        case Opcodes.LREM: {
+                            long b = pstack[--sp];
+                            if (b == 0) {
+                                throw new ArithmeticException("/ by zero");
+                            }
+                            pstack[sp - 1] %= b;
+                            break;
+                        }
+                        case Opcodes.LSHL:
+                            sp--;
+                            pstack[sp - 1] <<= pstack[sp];
+                            break;
+                        case Opcodes.LSHR:
+                            sp--;
+                            pstack[sp - 1] >>= pstack[sp];
+                            break;
+                        case Opcodes.LUSHR:
+                            sp--;
+                            pstack[sp - 1] >>>= pstack[sp];
+                            break;
+                        case Opcodes.LNEG:
+                            pstack[sp - 1] = -pstack[sp - 1];
+                            break;
+                        case Opcodes.LAND:
+                            sp--;
+                            pstack[sp - 1] &= pstack[sp];
+                            break;
+                        case Opcodes.LOR:
+                            sp--;
+                            pstack[sp - 1] |= pstack[sp];
+                            break;
+                        case Opcodes.LXOR:
+                            sp--;
+                            pstack[sp - 1] ^= pstack[sp];
+                            break;
+                        case Opcodes.DADD:
+                            sp--;
+                            pstack[sp - 1] = bits(real(pstack[sp - 1]) + real(pstack[sp]));
+                            break;
+                        case Opcodes.DSUB:
+                            sp--;
+                            pstack[sp - 1] = bits(real(pstack[sp - 1]) - real(pstack[sp]));
+                            break;
+                        case Opcodes.DMUL:
+                            sp--;
+                            pstack[sp - 1] = bits(real(pstack[sp - 1]) * real(pstack[sp]));
+                            break;
+                        case Opcodes.DDIV:
+                            sp--;
+                            pstack[sp - 1] = bits(real(pstack[sp - 1]) / real(pstack[sp]));
+                            break;
+                        case Opcodes.DREM:
+                            sp--;
+                            pstack[sp - 1] = bits(real(pstack[sp - 1]) % real(pstack[sp]));
+                            break;
+                        case Opcodes.DNEG:
+                            pstack[sp - 1] = bits(-real(pstack[sp - 1]));
+                            break;
+                        case Opcodes.LLT:
+                            sp--;
+                            pstack[sp - 1] = pstack[sp - 1] < pstack[sp] ? 1 : 0;
+                            break;
+                        case Opcodes.LGT:
+                            sp--;
+                            pstack[sp - 1] = pstack[sp - 1] > pstack[sp] ? 1 : 0;
+                            break;
+                        case Opcodes.LLE:
+                            sp--;
+                            pstack[sp - 1] = pstack[sp - 1] <= pstack[sp] ? 1 : 0;
+                            break;
+                        case Opcodes.LGE:
+                            sp--;
+                            pstack[sp - 1] = pstack[sp - 1] >= pstack[sp] ? 1 : 0;
+                            break;
+                        case Opcodes.LEQ:
+                            sp--;
+                            pstack[sp - 1] = pstack[sp - 1] == pstack[sp] ? 1 : 0;
+                            break;
+                        case Opcodes.LNE:
+                            sp--;
+                            pstack[sp - 1] = pstack[sp - 1] != pstack[sp] ? 1 : 0;
+                            break;
+                        case Opcodes.DLT:
+                            sp--;
+                            pstack[sp - 1] = real(pstack[sp - 1]) < real(pstack[sp]) ? 1 : 0;
+                            break;
+                        case Opcodes.DGT:
+                            sp--;
+                            pstack[sp - 1] = real(pstack[sp - 1]) > real(pstack[sp]) ? 1 : 0;
+                            break;
+                        case Opcodes.DLE:
+                            sp--;
+                            pstack[sp - 1] = real(pstack[sp - 1]) <= real(pstack[sp]) ? 1 : 0;
+                            break;
+                        case Opcodes.DGE:
+                            sp--;
+                            pstack[sp - 1] = real(pstack[sp - 1]) >= real(pstack[sp]) ? 1 : 0;
+                            break;
+                        case Opcodes.DEQ:
+                            sp--;
+                            pstack[sp - 1] = real(pstack[sp - 1]) == real(pstack[sp]) ? 1 : 0;
+                            break;
+                        case Opcodes.DNE:
+                            sp--;
+                            pstack[sp - 1] = real(pstack[sp - 1]) != real(pstack[sp]) ? 1 : 0;
+                            break;
+                        case Opcodes.L2I:
+                            pstack[sp - 1] = (int) pstack[sp - 1];
+                            break;
+                        case Opcodes.I2C:
+                            pstack[sp - 1] = (char) pstack[sp - 1];
+                            break;
+                        case Opcodes.I2S:
+                            pstack[sp - 1] = (short) pstack[sp - 1];
+                            break;
+                        case Opcodes.I2B:
+                            pstack[sp - 1] = (byte) pstack[sp - 1];
+                            break;
+                        case Opcodes.L2D:
+                            pstack[sp - 1] = bits((double) pstack[sp - 1]);
+                            break;
+                        case Opcodes.L2F:
+                            pstack[sp - 1] = bits((float) pstack[sp - 1]);
+                            break;
+                        case Opcodes.D2I:
+                            pstack[sp - 1] = (int) real(pstack[sp - 1]);
+                            break;
+                        case Opcodes.D2L:
+                            pstack[sp - 1] = (long) real(pstack[sp - 1]);
+                            break;
+                        case Opcodes.D2F:
+                            pstack[sp - 1] = bits((float) real(pstack[sp - 1]));
+                            break;
+                        case Opcodes.PNOT:
+                            pstack[sp - 1] = ~pstack[sp - 1];
+                            break;
+                        case Opcodes.BNOT:
+                            pstack[sp - 1] ^= 1;
+                            break;
+                        
+                        default:
+                            throw new IllegalStateException("bad opcode " + code[opPc] + " at " + method.name + ":" + opPc);
+                    }
+                }
+            } catch (InterpreterException e) {
+                throw e.atLine(method.lines[opPc]);
+            } catch (RuntimeException | StackOverflowError e) {
+                ThrownException thrown = e instanceof ThrownException
+                        ? (ThrownException) e
+                        : new ThrownException(e, method.lines[opPc]);
+                int handler = findHandler(method, opPc, thrown.getValue());
+                if (handler < 0) {
+                    throw thrown;
+                }
+                for (int i = 0; i < sp; i++) {
+                    stack[i] = null;
+                }
+                stack[0] = thrown.getValue();
+                sp = 1;
+                pc = handler;
+            }
+        }
+    }
+    
+    /**
+     * Copies the {@code argc} arguments at {@code base} into a frame for
+     * {@code callee}, each in the lane of its parameter, and runs it. A
+     * primitive result is left in {@link #primitiveResult}.
+     */
+    private Object call(CompiledMethod callee, Object[] stack, long[] pstack, int base, int argc) {
+        budget.checkpoint();
+        Frame calleeFrame = frameFor(callee);
+        for (int i = 0; i < argc; i++) {
+            if (callee.paramTypes[i] == Opcodes.T_REFERENCE) {
+                calleeFrame.locals[i] = stack[base + i];
+                stack[base + i] = null;
+            } else {
+                calleeFrame.primitives[i] = pstack[base + i];
+            }
+        }
+        return run(callee, calleeFrame);
+    }
+    
+    private int findHandler(CompiledMethod method, int pc, Object exception) {
+        int[] table = method.exceptionTable;
+        for (int i = 0; i < table.length; i += 4) {
+            if (pc >= table[i] && pc < table[i + 1] && ((Class<?>) constants[table[i + 3]]).isInstance(exception)) {
+                return table[i + 2];
+            }
+        }
+        return -1;
+    }
+    
+    // ---------------------------------------------------------------------
+    // Helpers
+    // ---------------------------------------------------------------------
+    
+    private static final BinaryOp[] BINARY_OPS = new BinaryOp[Opcodes.NE + 1];
+    private static final UnaryOp[] UNARY_OPS = { UnaryOp.NEG, UnaryOp.PLUS, UnaryOp.NOT, UnaryOp.BIT_NOT };
+    
+    static {
+        BINARY_OPS[Opcodes.ADD] = BinaryOp.ADD;
+        BINARY_OPS[Opcodes.SUB] = BinaryOp.SUB;
+        BINARY_OPS[Opcodes.MUL] = BinaryOp.MUL;
+        BINARY_OPS[Opcodes.DIV] = BinaryOp.DIV;
+        BINARY_OPS[Opcodes.REM] = BinaryOp.REM;
+        BINARY_OPS[Opcodes.BIT_AND] = BinaryOp.BIT_AND;
+        BINARY_OPS[Opcodes.BIT_OR] = BinaryOp.BIT_OR;
+        BINARY_OPS[Opcodes.BIT_XOR] = BinaryOp.BIT_XOR;
+        BINARY_OPS[Opcodes.SHL] = BinaryOp.SHL;
+        BINARY_OPS[Opcodes.SHR] = BinaryOp.SHR;
+        BINARY_OPS[Opcodes.USHR] = BinaryOp.USHR;
+        BINARY_OPS[Opcodes.LT] = BinaryOp.LT;
+        BINARY_OPS[Opcodes.GT] = BinaryOp.GT;
+        BINARY_OPS[Opcodes.LE] = BinaryOp.LE;
+        BINARY_OPS[Opcodes.GE] = BinaryOp.GE;
+        BINARY_OPS[Opcodes.EQ] = BinaryOp.EQ;
+        BINARY_OPS[Opcodes.NE] = BinaryOp.NE;
+    }
+    
+    private static double real(long bits) {
+        return Double.longBitsToDouble(bits);
+    }
+    
+    private static long bits(double value) {
+        return Double.doubleToRawLongBits(value);
+    }
+    
+    /** Boxes a primitive-lane value of the given type. */
+    private static Object box(int type, long value) {
+        switch (type) {
+            case Opcodes.T_INT: return (int) value;
+            case Opcodes.T_LONG: return value;
+            case Opcodes.T_FLOAT: return (float) real(value);
+            case Opcodes.T_DOUBLE: return real(value);
+            case Opcodes.T_CHAR: return (char) value;
+            case Opcodes.T_SHORT: return (short) value;
+            case Opcodes.T_BYTE: return (byte) value;
+            default: return value != 0;
+        }
+    }
+    
+    /** Converts a boxed value to the given primitive type, as a cast would, and returns its lane bits. */
+    private static long unbox(int type, Object value) {
+        if (type == Opcodes.T_INT && value instanceof Integer) {
+            return (Integer) value;
+        }
+        Object converted = Operators.cast(Opcodes.typeName(type), value);
+        switch (type) {
+            case Opcodes.T_FLOAT:
+            case Opcodes.T_DOUBLE:
+                return bits(((Number) converted).doubleValue());
+            case Opcodes.T_CHAR:
+                return (Character) converted;
+            case Opcodes.T_BOOLEAN:
+                return (Boolean) converted ? 1 : 0;
+            default:
+                return ((Number) converted).longValue();
+        }
+    }
+    
+    /**
+     * {@code array[index]} of a primitive array of the given type, as lane
+     * bits. The common element types are read directly; anything else,
+     * including a null array, goes through {@link ArrayOperations}.
+     */
+    private static long loadElement(int type, Object array, int index) {
+        switch (type) {
+            case Opcodes.T_INT:
+                if (array instanceof int[]) {
+                    int[] values = (int[]) array;
+                    ArrayOperations.checkIndex(index, values.length);
+                    return values[index];
+                }
+                break;
+            case Opcodes.T_LONG:
+                if (array instanceof long[]) {
+                    long[] values = (long[]) array;
+                    ArrayOperations.checkIndex(index, values.length);
+                    return values[index];
+                }
+                break;
+            case Opcodes.T_DOUBLE:
+                if (array instanceof double[]) {
+                    double[] values = (double[]) array;
+                    ArrayOperations.checkIndex(index, values.length);
+                    return bits(values[index]);
+                }
+                break;
+            case Opcodes.T_CHAR:
+                if (array instanceof char[]) {
+                    char[] values = (char[]) array;
+                    ArrayOperations.checkIndex(index, values.length);
+                    return values[index];
+                }
+                break;
+            case Opcodes.T_BOOLEAN:
+                if (array instanceof boolean[]) {
+                    boolean[] values = (boolean[]) array;
+                    ArrayOperations.checkIndex(index, values.length);
+                    return values[index] ? 1 : 0;
+                }
+                break;
+            default:
+                break;
+        }
+        return unbox(type, ArrayOperations.load(array, index));
+    }
+    
+    /** {@code array[index] = value} for lane bits of the array's element type. */
+    private static void storeElement(int type, Object array, int index, long value) {
+        switch (type) {
+            case Opcodes.T_INT:
+                if (array instanceof int[]) {
+                    int[] values = (int[]) array;
+                    ArrayOperations.checkIndex(index, values.length);
+                    values[index] = (int) value;
+                    return;
+                }
+                break;
+            case Opcodes.T_LONG:
+                if (array instanceof long[]) {
+                    long[] values = (long[]) array;
+                    ArrayOperations.checkIndex(index, values.length);
+                    values[index] = value;
+                    return;
+                }
+                break;
+            case Opcodes.T_DOUBLE:
+                if (array instanceof double[]) {
+                    double[] values = (double[]) array;
+                    ArrayOperations.checkIndex(index, values.length);
+                    values[index] = real(value);
+                    return;
+                }
+                break;
+            case Opcodes.T_CHAR:
+                if (array instanceof char[]) {
+                    char[] values = (char[]) array;
+                    ArrayOperations.checkIndex(index, values.length);
+                    values[index] = (char) value;
+                    return;
+                }
+                break;
+            case Opcodes.T_BOOLEAN:
+                if (array instanceof boolean[]) {
+                    boolean[] values = (boolean[]) array;
+                    ArrayOperations.checkIndex(index, values.length);
+                    values[index] = value != 0;
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        ArrayOperations.store(array, index, box(type, value));
+    }
+    
+    /** The object whose field an instruction reads or assigns; {@code reads} picks the message for null. */
+    private static ProgramObject fieldOwner(Object object, String field, boolean reads) {
+        if (object == null) {
+            throw new NullPointerException("Cannot " + (reads ? "read" : "assign") + " field \"" + field
+                    + "\" because value is null");
+        }
+        return (ProgramObject) object;
+    }
+    
+    private static String className(Object value) {
+        return value instanceof ProgramObject ? ((ProgramObject) value).type.name : value.getClass().getName();
+    }
+    
+    private static Object[] popArguments(Object[] stack, int sp, int argc) {
+        Object[] args = new Object[argc];
+        System.arraycopy(stack, sp - argc, args, 0, argc);
+        for (int i = sp - argc; i < sp; i++) {
+            stack[i] = null;
+        }
+        return args;
+    }
+    
+    private static Iterator<?> iterator(final Object iterable) {
+        if (iterable instanceof Iterable) {
+            return ((Iterable<?>) iterable).iterator();
+        }
+        if (iterable == null) {
+            throw new NullPointerException("Cannot iterate over null");
+        }
+        if (!iterable.getClass().isArray()) {
+            throw new InterpreterException("for-each not applicable to expression type " + Operators.typeName(iterable));
+        }
+        final int length = Array.getLength(iterable);
+        return new Iterator<Object>() {
+            private int index;
+            
+            @Override
+            public boolean hasNext() {
+                return index < length;
+            }
+            
+            @Override
+            public Object next() {
+                return ArrayOperations.load(iterable, index++);
+            }
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,266 @@
+package com.example.javabuddy.compiler;
+
+import com.example.javabuddy.compiler.AdvancedJavaInterpreter.CompileResult;
+import com.example.javabuddy.compiler.ast.CompilationUnit;
+import com.example.javabuddy.compiler.parser.Parser;
+import com.example.javabuddy.compiler.runtime.ConsoleBuffer;
+import com.example.javabuddy.compiler.runtime.ExecutionBudget;
+import com.example.javabuddy.compiler.runtime.Profiler;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the tree-walking {@link AdvancedJavaInterpreter}.
+ */
+public class AdvancedJavaInterpreterTest {
+    
+    /** One identifier, {@code count}, used as a class, a static and an instance field, a method and a local. */
+    private static final String SHARED_NAMES =
+            "public class Main {\n" +
+            "    static class count {\n" +
+            "        static int count = 1;\n" +
+            "    }\n" +
+            "    static class Base {\n" +
+            "        static int total = 10;\n" +
+            "        int count = 2;\n" +
+            "    }\n" +
+            "    static class Derived extends Base {\n" +
+            "        int count() { return count + total; }\n" +
+            "        int shadowed() {\n" +
+            "            int count = 100;\n" +
+            "            { int total = 1000; count += total; }\n" +
+            "            return count + this.count;\n" +
+            "        }\n" +
+            "    }\n" +
+            "    public static void main(String[] args) {\n" +
+            "        Derived d = new Derived();\n" +
+            "        d.count = count.count + d.count();\n" +
+            "        System.out.println(d.count + \" \" + d.shadowed() + \" \" + Derived.total);\n" +
+            "    }\n" +
+            "}";
+    
+    /** A method called often enough and a loop long enough to be compiled. */
+    private static final String HOT =
+            "public class Main {\n" +
+            "    static int steps(long n) {\n" +
+            "        int steps = 0;\n" +
+            "        while (n != 1) {\n" +
+            "            n = n % 2 == 0 ? n / 2 : 3 * n + 1;\n" +
+            "            steps++;\n" +
+            "        }\n" +
+            "        return steps;\n" +
+            "    }\n" +
+            "    public static void main(String[] args) {\n" +
+            "        int longest = 0;\n" +
+            "        long total = 0;\n" +
+            "        double mean = 0;\n" +
+            "        for (int i = 1; i <= 3000; i++) {\n" +
+            "            int steps = steps(i);\n" +
+            "            if (steps > longest) { longest = steps; }\n" +
+            "            total += steps;\n" +
+            "            mean = total / (double) i;\n" +
+            "        }\n" +
+            "        System.out.println(longest + \" \" + total + \" \" + (mean > 70 ? \"long\" : \"short\"));\n" +
+            "    }\n" +
+            "}";
+    
+    /** A bubble sort long enough for its loops to be compiled, with element updates of each kind. */
+    private static final String SORT =
+            "public class Main {\n" +
+            "    public static void main(String[] args) {\n" +
+            "        int[] values = new int[300];\n" +
+            "        for (int i = 0; i < values.length; i++) {\n" +
+            "            values[i] = (i * 7919) % 1000;\n" +
+            "        }\n" +
+            "        for (int i = 0; i < values.length; i++) {\n" +
+            "            for (int j = 0; j + 1 < values.length - i; j++) {\n" +
+            "                if (values[j] > values[j + 1]) { int t = values[j]; values[j] = values[j + 1]; values[j + 1] = t; }\n" +
+            "            }\n" +
+            "        }\n" +
+            "        long[] sums = new long[2];\n" +
+            "        double[] means = new double[1];\n" +
+            "        for (int i = 0; i < values.length; i++) {\n" +
+            "            sums[i % 2] += values[i];\n" +
+            "            means[0] += values[i] / (double) values.length;\n" +
+            "            values[i]++;\n" +
+            "        }\n" +
+            "        System.out.println(values[0] + \" \" + values[299] + \" \" + sums[0] + \" \" + sums[1] + \" \" + (int) means[0]);\n" +
+            "    }\n" +
+            "}";
+    
+    /** Concatenations of every kind in a loop long enough to be compiled. */
+    private static final String CONCATENATIONS =
+            "public class Main {\n" +
+            "    public static void main(String[] args) {\n" +
+            "        String last = \"\";\n" +
+            "        char c = 'q';\n" +
+            "        Integer boxed = 5;\n" +
+            "        for (int i = 0; i < 2000; i++) {\n" +
+            "            int a = i % 7, b = i % 11;\n" +
+            "            last = \"i=\" + i + \" a+b=\" + (a + b) + \" \" + a + b + c + 0.5;\n" +
+            "            last = a + b + \":\" + a + b + \" \" + last + \" \" + boxed + boxed + \"\" + boxed;\n" +
+            "        }\n" +
+            "        System.out.println(last);\n" +
+            "    }\n" +
+            "}";
+    
+    /** Static state read before it is initialized, and classes whose initialization prints. */
+    private static final String INITIALIZATION_ORDER =
+            "public class Main {\n" +
+            "    static final int C = compute();\n" +
+            "    static int counter = 5;\n" +
+            "    static { x = 10; }\n" +
+            "    static int x;\n" +
+            "    static int y = x + 1;\n" +
+            "    static int compute() { return counter + 100; }\n" +
+            "    static class Helper {\n" +
+            "        static int value = 42;\n" +
+            "        static { System.out.println(\"Helper init\"); }\n" +
+            "    }\n" +
+            "    static class Base {\n" +
+            "        static { System.out.println(\"Base init\"); }\n" +
+            "    }\n" +
+            "    static class Derived extends Base {\n" +
+            "        int a = b(); int b = 7; { a += 1; } int c = a;\n" +
+            "        int b() { return b + 3; }\n" +
+            "    }\n" +
+            "    public static void main(String[] args) {\n" +
+            "        System.out.println(C + \" \" + counter + \" \" + y);\n" +
+            "        System.out.println(Helper.value);\n" +
+            "        Derived d = new Derived();\n" +
+            "        System.out.println(d.a + \" \" + d.c);\n" +
+            "    }\n" +
+            "}";
+    
+    /** A checked exception the program declares, thrown from a hot method and caught by its own type and by Exception. */
+    private static final String CUSTOM_EXCEPTION =
+            "public class Main {\n" +
+            "    static class InsufficientFundsException extends Exception {\n" +
+            "        final int deficit;\n" +
+            "        InsufficientFundsException(int deficit) {\n" +
+            "            super(\"short by \" + deficit);\n" +
+            "            this.deficit = deficit;\n" +
+            "        }\n" +
+            "    }\n" +
+            "    static int withdraw(int balance, int amount) throws InsufficientFundsException {\n" +
+            "        if (amount > balance) { throw new InsufficientFundsException(amount - balance); }\n" +
+            "        return balance - amount;\n" +
+            "    }\n" +
+            "    public static void main(String[] args) {\n" +
+            "        int failed = 0;\n" +
+            "        String last = \"\";\n" +
+            "        for (int i = 0; i < 2000; i++) {\n" +
+            "            try { withdraw(1000, i); }\n" +
+            "            catch (InsufficientFundsException e) { failed++; last = e.getMessage() + \" \" + e.deficit; }\n" +
+            "        }\n" +
+            "        System.out.println(failed + \" \" + last);\n" +
+            "        try { withdraw(0, 5); }\n" +
+            "        catch (Exception e) { System.out.println(e + \" \" + (e instanceof InsufficientFundsException)); }\n" +
+            "    }\n" +
+            "}";
+    
+    @Test
+    public void identifiers_areInternedOnce() {
+        CompilationUnit unit = Parser.parse(SHARED_NAMES);
+        
+        int count = unit.symbols.lookup("count");
+        assertTrue(count >= 0);
+        assertEquals("count", unit.symbols.name(count));
+        assertEquals(count, unit.classes.get(0).memberClasses.get(0).symbol);
+        assertEquals(-1, unit.symbols.lookup("missing"));
+    }
+    
+    @Test
+    public void oneNameForEveryKindOfSymbol_resolvesEachUse() {
+        CompileResult result = new AdvancedJavaInterpreter().compileAndRun(SHARED_NAMES, new ExecutionBudget());
+        
+        assertTrue(result.getMessage(), result.isSuccess());
+        assertEquals("13 1113 10\n", result.getOutput());
+    }
+    
+    @Test
+    public void hotMethodsAndLoops_compileWithoutChangingTheOutput() {
+        Profiler profiler = new Profiler();
+        CompileResult tiered = new AdvancedJavaInterpreter().compileAndRun(HOT, new ExecutionBudget(),
+                new ConsoleBuffer(), profiler);
+        CompileResult walked = new AdvancedJavaInterpreter(false).compileAndRun(HOT, new ExecutionBudget());
+        
+        assertTrue(tiered.getMessage(), tiered.isSuccess());
+        assertEquals(walked.getOutput(), tiered.getOutput());
+        boolean method = false;
+        boolean loop = false;
+        for (Profiler.TierTransition transition : profiler.getTierTransitions()) {
+            method |= !transition.isLoop() && transition.getMethod().equals("Main.steps");
+            loop |= transition.isLoop();
+        }
+        assertTrue(profiler.toString(), method);
+        assertTrue(profiler.toString(), loop);
+    }
+    
+    @Test
+    public void arrays_matchOnEveryTier() {
+        CompileResult tiered = new AdvancedJavaInterpreter().compileAndRun(SORT, new ExecutionBudget());
+        CompileResult walked = new AdvancedJavaInterpreter(false).compileAndRun(SORT, new ExecutionBudget());
+        
+        assertTrue(tiered.getMessage(), tiered.isSuccess());
+        assertEquals("1 997 74806 75344 500\n", tiered.getOutput());
+        assertEquals(walked.getOutput(), tiered.getOutput());
+    }
+    
+    @Test
+    public void instructionCount_isTheSameOnEveryTier() {
+        for (String program : new String[] {HOT, SORT, CONCATENATIONS}) {
+            ExecutionBudget tieredBudget = new ExecutionBudget();
+            ExecutionBudget walkedBudget = new ExecutionBudget();
+            CompileResult tiered = new AdvancedJavaInterpreter().compileAndRun(program, tieredBudget);
+            new AdvancedJavaInterpreter(false).compileAndRun(program, walkedBudget);
+            
+            assertTrue(tiered.getMessage(), tiered.isSuccess());
+            assertEquals(walkedBudget.getInstructionCount(), tieredBudget.getInstructionCount());
+        }
+    }
+    
+    @Test
+    public void stringConcatenation_matchesOnEveryTier() {
+        CompileResult tiered = new AdvancedJavaInterpreter().compileAndRun(CONCATENATIONS, new ExecutionBudget());
+        CompileResult walked = new AdvancedJavaInterpreter(false).compileAndRun(CONCATENATIONS, new ExecutionBudget());
+        
+        assertTrue(tiered.getMessage(), tiered.isSuccess());
+        assertEquals("12:48 i=1999 a+b=12 48q0.5 555\n", tiered.getOutput());
+        assertEquals(walked.getOutput(), tiered.getOutput());
+    }
+    
+    @Test
+    public void classes_initializeLazilyInSourceOrder() {
+        CompileResult result = new AdvancedJavaInterpreter().compileAndRun(INITIALIZATION_ORDER, new ExecutionBudget());
+        
+        assertTrue(result.getMessage(), result.isSuccess());
+        assertEquals("100 5 11\nHelper init\n42\nBase init\n4 4\n", result.getOutput());
+    }
+    
+    @Test
+    public void customCheckedException_isThrownAndCaught() {
+        CompileResult tiered = new AdvancedJavaInterpreter().compileAndRun(CUSTOM_EXCEPTION, new ExecutionBudget());
+        CompileResult walked = new AdvancedJavaInterpreter(false).compileAndRun(CUSTOM_EXCEPTION, new ExecutionBudget());
+        
+        assertTrue(tiered.getMessage(), tiered.isSuccess());
+        assertEquals("999 short by 999 999\nInsufficientFundsException: short by 5 true\n", tiered.getOutput());
+        assertEquals(walked.getOutput(), tiered.getOutput());
+    }
+    
+    @Test
+    public void shortRun_staysWalked() {
+        Profiler profiler = new Profiler();
+        CompileResult result = new AdvancedJavaInterpreter().compileAndRun(SHARED_NAMES, new ExecutionBudget(),
+                new ConsoleBuffer(), profiler);
+        
+        assertTrue(result.getMessage(), result.isSuccess());
+        List<Profiler.TierTransition> transitions = profiler.getTierTransitions();
+        assertTrue(transitions.toString(), transitions.isEmpty());
+        assertTrue(profiler.getLineHits(20) > 0);
+    }
+}
\ No newline at end of file
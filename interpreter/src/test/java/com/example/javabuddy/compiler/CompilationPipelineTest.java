@@ -0,0 +1,116 @@
+package com.example.javabuddy.compiler;
+
+import com.example.javabuddy.compiler.AdvancedJavaInterpreter.CompileResult;
+import com.example.javabuddy.compiler.ast.CompilationUnit;
+import com.example.javabuddy.compiler.diagnostics.Diagnostic;
+import com.example.javabuddy.compiler.parser.Token;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link CompilationPipeline}.
+ */
+public class CompilationPipelineTest {
+    
+    private static final String COUNT =
+            "public class Main {\n" +
+            "    public static void main(String[] args) {\n" +
+            "        int sum = 0;\n" +
+            "        for (int i = 1; i <= 4; i++) sum += i;\n" +
+            "        System.out.println(sum);\n" +
+            "    }\n" +
+            "}";
+    
+    @Test
+    public void validatorAndEngine_shareOneParse() {
+        ProgramCache cache = new ProgramCache(4);
+        final List<CompilationUnit> seen = new ArrayList<>();
+        final List<List<Token>> seenTokens = new ArrayList<>();
+        CompilationPipeline pipeline = new CompilationPipeline(new CompilationPipeline.Validator() {
+            @Override
+            public List<Diagnostic> validate(String source, List<Token> tokens, CompilationUnit unit) {
+                seen.add(unit);
+                seenTokens.add(tokens);
+                return Collections.emptyList();
+            }
+        }, cache);
+        
+        CompileResult first = pipeline.run(COUNT);
+        CompileResult second = pipeline.run(COUNT);
+        
+        assertTrue(first.getMessage(), first.isSuccess());
+        assertEquals("10\n", first.getOutput());
+        assertEquals("10\n", second.getOutput());
+        assertSame(cache.get(COUNT).getUnit(), seen.get(0));
+        assertSame(seen.get(0), seen.get(1));
+        assertSame(seenTokens.get(0), seenTokens.get(1));
+        assertEquals(1, cache.getMissCount());
+    }
+    
+    @Test
+    public void timings_coverEveryStage() {
+        CompileResult result = new CompilationPipeline(new CompilationPipeline.Validator() {
+            @Override
+            public List<Diagnostic> validate(String source, List<Token> tokens, CompilationUnit unit) {
+                return Collections.emptyList();
+            }
+        }, new ProgramCache(4)).run(COUNT);
+        
+        StageTimings timings = result.getTimings();
+        assertNotNull(timings);
+        assertTrue(timings.lexNanos > 0);
+        assertTrue(timings.parseNanos > 0);
+        assertTrue(timings.compileNanos > 0);
+        assertTrue(timings.executeNanos > 0);
+        assertEquals(timings.lexNanos + timings.parseNanos + timings.validateNanos + timings.compileNanos
+                + timings.executeNanos, timings.getTotalNanos());
+    }
+    
+    @Test
+    public void validationErrors_stopTheRun() {
+        CompileResult result = new CompilationPipeline(new CompilationPipeline.Validator() {
+            @Override
+            public List<Diagnostic> validate(String source, List<Token> tokens, CompilationUnit unit) {
+                return Collections.singletonList(new Diagnostic(Diagnostic.Severity.ERROR, "loops are not allowed yet", 4, 9));
+            }
+        }, new ProgramCache(4)).run(COUNT);
+        
+        assertFalse(result.isSuccess());
+        assertEquals("Compilation errors:\nLine 4:9: loops are not allowed yet", result.getMessage());
+        assertEquals("", result.getOutput());
+        assertEquals(0, result.getTimings().executeNanos);
+    }
+    
+    @Test
+    public void lexErrors_areReportedWithTheirStage() {
+        CompileResult result = new CompilationPipeline().run("public class Main { char c = ''; }");
+        
+        assertFalse(result.isSuccess());
+        assertTrue(result.getMessage(), result.getMessage().startsWith("Parse errors:"));
+        assertTrue(result.getTimings().lexNanos > 0);
+        assertEquals(0, result.getTimings().parseNanos);
+    }
+    
+    @Test
+    public void deeplyNestedPrograms_areParseErrors() {
+        StringBuilder parens = new StringBuilder();
+        StringBuilder sum = new StringBuilder("1");
+        for (int i = 0; i < 5_000; i++) {
+            parens.append('(');
+            sum.append(" + 1");
+        }
+        CompilationPipeline pipeline = new CompilationPipeline();
+        for (String expression : new String[] {parens + "1", sum.toString()}) {
+            CompileResult result = pipeline.run("public class Main { int x = " + expression + "; }");
+            
+            assertFalse(result.isSuccess());
+            assertTrue(result.getMessage(), result.getMessage().endsWith("expression too deeply nested"));
+        }
+    }
+}
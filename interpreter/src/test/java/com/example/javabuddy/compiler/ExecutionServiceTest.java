@@ -0,0 +1,158 @@
+package com.example.javabuddy.compiler;
+
+import com.example.javabuddy.compiler.AdvancedJavaInterpreter.CompileResult;
+import com.example.javabuddy.compiler.grading.Grade;
+import com.example.javabuddy.compiler.grading.Grader;
+import com.example.javabuddy.compiler.runtime.ConsoleBuffer;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ExecutionService}.
+ */
+public class ExecutionServiceTest {
+    
+    private static final String COUNT =
+            "public class Main {\n" +
+            "    public static void main(String[] args) {\n" +
+            "        int sum = 0;\n" +
+            "        for (int i = 1; i <= 4; i++) sum += i;\n" +
+            "        System.out.println(sum);\n" +
+            "    }\n" +
+            "}";
+    
+    private static final String RUNAWAY =
+            "public class Main {\n" +
+            "    public static void main(String[] args) {\n" +
+            "        int i = 0;\n" +
+            "        while (true) { i++; }\n" +
+            "    }\n" +
+            "}";
+    
+    private static final String DEEP_RECURSION =
+            "public class Main {\n" +
+            "    static int sum(int n) { return n == 0 ? 0 : n + sum(n - 1); }\n" +
+            "    public static void main(String[] args) {\n" +
+            "        System.out.println(sum(1000));\n" +
+            "    }\n" +
+            "}";
+    
+    @Test
+    public void everyEngine_runsOnThePool() throws InterruptedException {
+        ExecutionService service = new ExecutionService(2);
+        Results results = new Results(8);
+        for (int round = 0; round < 2; round++) {
+            for (ExecutionService.Engine engine : ExecutionService.Engine.values()) {
+                service.submit(engine + "#" + round, engine, COUNT, new ConsoleBuffer(), results.collect(engine + "#" + round));
+            }
+        }
+        results.await();
+        
+        for (String run : results.byName.keySet()) {
+            Object result = results.byName.get(run);
+            String output = result instanceof CompileResult
+                    ? ((CompileResult) result).getOutput()
+                    : ((JavaCompiler.CompileResult) result).getOutput();
+            assertEquals(run, "10\n", output);
+        }
+        assertEquals(8, service.getCompletedRunCount());
+        assertEquals(0, service.getCancelledRunCount());
+        assertTrue(service.getMaxLatencyNanos() >= service.getAverageLatencyNanos());
+    }
+    
+    @Test
+    public void deepRecursion_runsOnEveryEngineThatHasMethods() throws InterruptedException {
+        ExecutionService service = new ExecutionService(1);
+        ExecutionService.Engine[] engines = {
+                ExecutionService.Engine.ADVANCED, ExecutionService.Engine.REAL, ExecutionService.Engine.VM };
+        Results results = new Results(engines.length);
+        for (ExecutionService.Engine engine : engines) {
+            service.submit(engine, engine, DEEP_RECURSION, new ConsoleBuffer(), results.collect(engine.name()));
+        }
+        results.await();
+        
+        for (ExecutionService.Engine engine : engines) {
+            CompileResult result = (CompileResult) results.byName.get(engine.name());
+            assertTrue(engine + ": " + result.getMessage(), result.isSuccess());
+            assertEquals("500500\n", result.getOutput());
+        }
+    }
+    
+    @Test
+    public void newRun_cancelsTheOwnersPreviousRun() throws InterruptedException {
+        ExecutionService service = new ExecutionService(1);
+        Results results = new Results(2);
+        ExecutionService.Run runaway = service.submit("ide", ExecutionService.Engine.VM, RUNAWAY, new ConsoleBuffer(), results.collect("runaway"));
+        ExecutionService.Run count = service.submit("ide", ExecutionService.Engine.VM, COUNT, new ConsoleBuffer(), results.collect("count"));
+        results.await();
+        
+        assertTrue(runaway.isCancelled());
+        assertFalse(count.isCancelled());
+        assertFalse(((CompileResult) results.byName.get("runaway")).isSuccess());
+        assertEquals("10\n", ((CompileResult) results.byName.get("count")).getOutput());
+        assertEquals(1, service.getCancelledRunCount());
+    }
+    
+    @Test
+    public void otherOwners_waitInTheQueue() throws InterruptedException {
+        ExecutionService service = new ExecutionService(1);
+        Results results = new Results(2);
+        service.submit("ide", ExecutionService.Engine.ADVANCED, RUNAWAY, new ConsoleBuffer(), results.collect("runaway"));
+        ExecutionService.Run lesson = service.submit("lesson", ExecutionService.Engine.ADVANCED, COUNT, new ConsoleBuffer(), results.collect("lesson"));
+        
+        assertEquals(1, service.getQueueDepth());
+        service.cancel("ide");
+        results.await();
+        
+        assertFalse(lesson.isCancelled());
+        assertEquals("10\n", ((CompileResult) results.byName.get("lesson")).getOutput());
+        assertEquals(0, service.getQueueDepth());
+        assertTrue(lesson.getQueuedNanos() > 0);
+    }
+    
+    @Test
+    public void cancellingATask_stopsItsProgram() throws InterruptedException {
+        ExecutionService service = new ExecutionService(1);
+        final Grader grader = new Grader();
+        for (int round = 1; round <= 2; round++) {
+            Results results = new Results(1);
+            ExecutionService.Run run = service.submit("problem",
+                    budget -> grader.grade(1, RUNAWAY, "", "", budget), results.collect("grade"));
+            service.cancel("problem");
+            results.await();
+            
+            assertTrue(run.isCancelled());
+            assertEquals(Grade.Verdict.RUNTIME_ERROR, ((Grade) results.byName.get("grade")).getVerdict());
+            // a cancelled grade is not cached, so the second round runs the program again
+            assertEquals(round, grader.getMissCount());
+        }
+    }
+    
+    /** Collects callback results by run name. */
+    private static final class Results {
+        final Map<String, Object> byName = new ConcurrentHashMap<>();
+        final CountDownLatch done;
+        
+        Results(int expected) {
+            done = new CountDownLatch(expected);
+        }
+        
+        ExecutionService.Callback collect(final String name) {
+            return (run, result) -> {
+                byName.put(name, result);
+                done.countDown();
+            };
+        }
+        
+        void await() throws InterruptedException {
+            assertTrue("runs did not finish", done.await(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.javabuddy.compiler;
+
+import com.example.javabuddy.compiler.parser.ParseException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ProgramCache}.
+ */
+public class ProgramCacheTest {
+    
+    private static final String HELLO =
+            "public class Main {\n" +
+            "    public static void main(String[] args) {\n" +
+            "        System.out.println(\"hi\");\n" +
+            "    }\n" +
+            "}";
+    
+    @Test
+    public void sameSource_isParsedOnce() {
+        ProgramCache cache = new ProgramCache(4);
+        ProgramCache.Entry first = cache.get(HELLO);
+        ProgramCache.Entry second = cache.get(HELLO);
+        
+        assertSame(first, second);
+        assertSame(first.getUnit(), second.getUnit());
+        assertSame(first.getBytecode(), second.getBytecode());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+    
+    @Test
+    public void lineEndingsAndTrailingWhitespace_shareAnEntry() {
+        ProgramCache cache = new ProgramCache(4);
+        ProgramCache.Entry entry = cache.get(HELLO);
+        
+        assertSame(entry, cache.get(HELLO.replace("\n", "  \r\n")));
+        assertNotSame(entry, cache.get(HELLO.replace("hi", "bye")));
+    }
+    
+    @Test
+    public void leastRecentlyUsed_isEvicted() {
+        ProgramCache cache = new ProgramCache(2);
+        ProgramCache.Entry a = cache.get(HELLO.replace("hi", "a"));
+        cache.get(HELLO.replace("hi", "b"));
+        cache.get(HELLO.replace("hi", "a"));
+        cache.get(HELLO.replace("hi", "c"));
+        
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertSame(a, cache.get(HELLO.replace("hi", "a")));
+    }
+    
+    @Test
+    public void parseErrors_areCached() {
+        ProgramCache cache = new ProgramCache(4);
+        ProgramCache.Entry entry = cache.get("public class Main { void main( }");
+        ParseException first = null;
+        try {
+            entry.getUnit();
+            fail("expected a parse error");
+        } catch (ParseException e) {
+            first = e;
+        }
+        try {
+            cache.get("public class Main { void main( }").getUnit();
+            fail("expected a parse error");
+        } catch (ParseException e) {
+            assertSame(first, e);
+        }
+    }
+}
\ No newline at end of file
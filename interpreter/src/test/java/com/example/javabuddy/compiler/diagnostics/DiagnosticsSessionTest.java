@@ -0,0 +1,129 @@
+package com.example.javabuddy.compiler.diagnostics;
+
+import com.example.javabuddy.compiler.parser.Lexer;
+import com.example.javabuddy.compiler.parser.ParseException;
+import com.example.javabuddy.compiler.parser.Token;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link DiagnosticsSession}: an incremental update has
+ * to end up exactly where analyzing the new text from scratch would.
+ */
+public class DiagnosticsSessionTest {
+    
+    private static final String PROGRAM =
+            "import java.util.List;\n" +
+            "public class Main {\n" +
+            "    static int twice(int n) {\n" +
+            "        return n * 2;\n" +
+            "    }\n" +
+            "    static int sum(int[] xs) {\n" +
+            "        int total = 0, copy[] = xs;\n" +
+            "        for (int x : xs) { total += x; }\n" +
+            "        return total;\n" +
+            "    }\n" +
+            "    Main() { }\n" +
+            "    public static void main(String[] args) {\n" +
+            "        byte b = 200;\n" +
+            "        System.out.println(twice(3) + sum(new int[] {1, 2}));\n" +
+            "    }\n" +
+            "}";
+    
+    @Test
+    public void randomEdits_matchAFreshAnalysis() {
+        String[] inserts = {"x", " ", "\n", "+", "=", "1", ";", "{", "}", "(", ")", "\"", "/*", "*/", "//", "int ", "static void f() { }\n"};
+        Random random = new Random(42);
+        DiagnosticsSession session = new DiagnosticsSession(RuleEngine.withStandardRules());
+        String text = PROGRAM;
+        session.update(text);
+        for (int step = 0; step < 1_000; step++) {
+            int at = random.nextInt(text.length() + 1);
+            if (random.nextInt(3) == 0 && at < text.length()) {
+                int end = Math.min(text.length(), at + 1 + random.nextInt(6));
+                text = text.substring(0, at) + text.substring(end);
+            } else {
+                text = text.substring(0, at) + inserts[random.nextInt(inserts.length)] + text.substring(at);
+            }
+            if (step % 50 == 0) {
+                text = PROGRAM;
+            }
+            
+            List<DiagnosticsSession.Marker> markers = session.update(text);
+            
+            List<Token> expected = lexOrNull(text);
+            if (expected == null) {
+                assertNull(session.getTokens());
+            } else {
+                assertEquals("step " + step, describe(expected), describe(session.getTokens()));
+            }
+            List<DiagnosticsSession.Marker> fresh = new DiagnosticsSession(RuleEngine.withStandardRules()).update(text);
+            assertEquals("step " + step + ":\n" + text, fresh.toString(), markers.toString());
+        }
+    }
+    
+    @Test
+    public void editInsideOneMethod_reusesTheOthers() {
+        DiagnosticsSession session = new DiagnosticsSession(RuleEngine.withStandardRules());
+        session.update(PROGRAM);
+        
+        String edited = PROGRAM.replace("return n * 2;", "int m = n;\n        return m * 2;");
+        List<DiagnosticsSession.Marker> markers = session.update(edited);
+        
+        assertEquals(3, session.getReusedMethodCount());
+        assertTrue("relexed " + session.getRelexedTokenCount(), session.getRelexedTokenCount() < 12);
+        assertEquals(new DiagnosticsSession(RuleEngine.withStandardRules()).update(edited).toString(), markers.toString());
+        assertEquals("Line 14:18: incompatible types: possible lossy conversion from int to byte",
+                markers.get(markers.size() - 1).diagnostic.toString());
+    }
+    
+    @Test
+    public void lexError_isReportedAndRecoveredFrom() {
+        DiagnosticsSession session = new DiagnosticsSession(RuleEngine.withStandardRules());
+        session.update(PROGRAM);
+        
+        String broken = PROGRAM.replace("return n * 2;", "return \"n * 2;");
+        List<DiagnosticsSession.Marker> markers = session.update(broken);
+        assertNull(session.getTokens());
+        assertEquals("Line 4:16: Unterminated string literal", markers.get(0).diagnostic.toString());
+        
+        session.update(PROGRAM);
+        assertNotNull(session.getUnit());
+        assertEquals(describe(new Lexer(PROGRAM).tokenize()), describe(session.getTokens()));
+    }
+    
+    @Test
+    public void markers_coverTheReportedToken() {
+        DiagnosticsSession session = new DiagnosticsSession(RuleEngine.withStandardRules());
+        List<DiagnosticsSession.Marker> markers = session.update(PROGRAM);
+        
+        assertEquals(2, markers.size());
+        DiagnosticsSession.Marker unusedImport = markers.get(0);
+        assertEquals("List", PROGRAM.substring(unusedImport.start, unusedImport.end));
+        DiagnosticsSession.Marker lossy = markers.get(1);
+        assertEquals("200", PROGRAM.substring(lossy.start, lossy.end));
+    }
+    
+    private static List<Token> lexOrNull(String source) {
+        try {
+            return new Lexer(source).tokenize();
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+    
+    private static List<String> describe(List<Token> tokens) {
+        List<String> described = new ArrayList<>();
+        for (Token token : tokens) {
+            described.add(token.getType() + " " + token.getText() + " " + token.getLine() + ":" + token.getColumn()
+                    + " " + token.getStart() + "-" + token.getEnd());
+        }
+        return described;
+    }
+}
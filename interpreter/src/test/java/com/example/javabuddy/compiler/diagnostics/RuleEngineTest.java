@@ -0,0 +1,184 @@
+package com.example.javabuddy.compiler.diagnostics;
+
+import com.example.javabuddy.compiler.ProgramCache;
+import com.example.javabuddy.compiler.ast.Node;
+import com.example.javabuddy.compiler.ast.Tag;
+import com.example.javabuddy.compiler.parser.ParseException;
+import com.example.javabuddy.compiler.parser.Token;
+import com.example.javabuddy.compiler.parser.TokenType;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link RuleEngine} and the standard rules.
+ */
+public class RuleEngineTest {
+    
+    @Test
+    public void javacErrors_carryLineAndColumn() {
+        List<String> found = validate(
+                "import java.util.List;\n" +
+                "import java.util.Map;\n" +
+                "public class Main {\n" +
+                "    static abstract class Shape { abstract double area(); }\n" +
+                "    public static void main(String[] args) {\n" +
+                "        int half = 5 / 2.0;\n" +
+                "        byte b = 100 + 100;\n" +
+                "        char c = 'a' + 1;\n" +
+                "        String s = 5;\n" +
+                "        List<int> xs = null;\n" +
+                "        Shape shape = new Shape();\n" +
+                "        return;\n" +
+                "        System.out.println(s);\n" +
+                "    }\n" +
+                "}");
+        
+        assertEquals(Arrays.asList(
+                "WARNING Line 2:18: unused import 'Map'",
+                "ERROR Line 6:20: incompatible types: possible lossy conversion from double to int",
+                "ERROR Line 7:18: incompatible types: possible lossy conversion from int to byte",
+                "ERROR Line 9:20: incompatible types: int cannot be converted to String",
+                "ERROR Line 10:14: unexpected type: type arguments must be reference types, found int",
+                "ERROR Line 11:23: Shape is abstract; cannot be instantiated",
+                "ERROR Line 13:9: unreachable statement"), found);
+    }
+    
+    @Test
+    public void jumpsThatOnlyEndABranch_areNotUnreachable() {
+        List<String> found = validate(
+                "public class Main {\n" +
+                "    public static void main(String[] args) {\n" +
+                "        int n = args.length;\n" +
+                "        for (int i = 0; i < 3; i++) {\n" +
+                "            if (i == 1) continue;\n" +
+                "            else if (i == 2) break;\n" +
+                "            n++;\n" +
+                "        }\n" +
+                "        switch (n) {\n" +
+                "            case 1: n++; break;\n" +
+                "            case 2: return;\n" +
+                "            default: throw new IllegalStateException(\"n = \" + n);\n" +
+                "        }\n" +
+                "    }\n" +
+                "}");
+        
+        assertEquals(Collections.<String>emptyList(), found);
+    }
+    
+    @Test
+    public void wrongMainSignature_andMissingClass_areErrors() {
+        assertEquals(Arrays.asList("ERROR Line 2:5: main method should be: public static void main(String[] args)"),
+                validate("public class Main {\n    static void main(String[] args) {\n    }\n}"));
+        assertEquals(Arrays.asList("ERROR Line 1:1: No class, interface, or enum declaration found"),
+                validate("System.out.println(1);"));
+    }
+    
+    @Test
+    public void unbalancedBrackets_areFoundWithoutATree() {
+        String source =
+                "public class Main {\n" +
+                "    public static void main(String[] args) {\n" +
+                "        System.out.println((1 + 2);\n" +
+                "    }\n";
+        ProgramCache.Entry entry = new ProgramCache(1).get(source);
+        try {
+            entry.getUnit();
+            fail("expected a parse error");
+        } catch (ParseException expected) {
+        }
+        List<String> found = format(RuleEngine.withStandardRules().validate(entry.getTokens(), null));
+        
+        assertEquals(Arrays.asList(
+                "ERROR Line 1:19: '{' is never closed",
+                "ERROR Line 4:5: expected ')' to close '(' from line 3, found '}'"), found);
+    }
+    
+    @Test
+    public void rules_onlySeeWhatTheySubscribedTo() {
+        final List<String> seen = new ArrayList<>();
+        Rule rule = new Rule() {
+            @Override
+            protected Set<TokenType> getTokenTypes() {
+                return EnumSet.of(TokenType.RETURN);
+            }
+            
+            @Override
+            protected Set<Tag> getNodeTags() {
+                return EnumSet.of(Tag.METHOD_CALL);
+            }
+            
+            @Override
+            protected void visitToken(Token token, int index, RuleContext context) {
+                seen.add(token.getText());
+            }
+            
+            @Override
+            protected void visitNode(Node node, RuleContext context) {
+                seen.add(node.tag + "@" + node.line);
+            }
+        };
+        ProgramCache.Entry entry = new ProgramCache(1).get(
+                "public class Main {\n" +
+                "    static int twice(int n) { return n * 2; }\n" +
+                "    public static void main(String[] args) {\n" +
+                "        System.out.println(twice(3));\n" +
+                "    }\n" +
+                "}");
+        new RuleEngine(Collections.singletonList(rule)).validate(entry.getTokens(), entry.getUnit());
+        
+        assertEquals(Arrays.asList("return", "METHOD_CALL@4", "METHOD_CALL@4"), seen);
+    }
+    
+    @Test
+    public void fiveHundredLines_validateInAFewMilliseconds() {
+        StringBuilder source = new StringBuilder("public class Main {\n");
+        for (int m = 0; m < 42; m++) {
+            source.append("    static int method").append(m).append("(int n) {\n")
+                    .append("        int total = 0;\n")
+                    .append("        for (int i = 0; i < n; i++) {\n")
+                    .append("            if (i % 2 == 0) {\n")
+                    .append("                total += i * 10;\n")
+                    .append("            } else {\n")
+                    .append("                total -= (i + 1) / 2;\n")
+                    .append("            }\n")
+                    .append("        }\n")
+                    .append("        System.out.println(\"method: \" + total);\n")
+                    .append("        return total;\n")
+                    .append("    }\n");
+        }
+        source.append("    public static void main(String[] args) {\n        method0(3);\n    }\n}");
+        ProgramCache.Entry entry = new ProgramCache(1).get(source.toString());
+        List<Token> tokens = entry.getTokens();
+        RuleEngine engine = RuleEngine.withStandardRules();
+        
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 50; i++) {
+            long start = System.nanoTime();
+            assertTrue(engine.validate(tokens, entry.getUnit()).isEmpty());
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        assertTrue("best run took " + best / 1_000 + "us", best < 5_000_000);
+    }
+    
+    private static List<String> validate(String source) {
+        ProgramCache.Entry entry = new ProgramCache(1).get(source);
+        return format(RuleEngine.withStandardRules().validate(entry.getTokens(), entry.getUnit()));
+    }
+    
+    private static List<String> format(List<Diagnostic> diagnostics) {
+        List<String> formatted = new ArrayList<>();
+        for (Diagnostic diagnostic : diagnostics) {
+            formatted.add(diagnostic.getSeverity() + " " + diagnostic);
+        }
+        return formatted;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.javabuddy.compiler.grading;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link Grader}.
+ */
+public class GraderTest {
+    
+    private static final String SUM =
+            "import java.util.Scanner;\n" +
+            "\n" +
+            "public class Sum {\n" +
+            "    public static void main(String[] args) {\n" +
+            "        Scanner scanner = new Scanner(System.in);\n" +
+            "        int a = scanner.nextInt();\n" +
+            "        int b = scanner.nextInt();\n" +
+            "        System.out.println(a + b);\n" +
+            "        scanner.close();\n" +
+            "    }\n" +
+            "}";
+    
+    private static final String COUNT_DOWN =
+            "public class CountDown {\n" +
+            "    public static void main(String[] args) {\n" +
+            "        for (int i = 3; i >= 0; i--) {\n" +
+            "            System.out.println(i);\n" +
+            "        }\n" +
+            "    }\n" +
+            "}";
+    
+    @Test
+    public void programReadingSystemIn_isAccepted() {
+        Grade grade = new Grader().grade(2, SUM, "5 3", "8");
+        
+        assertEquals(grade.getMessage(), Grade.Verdict.ACCEPTED, grade.getVerdict());
+        assertEquals("8", grade.getActualOutput());
+    }
+    
+    @Test
+    public void wrongAnswer_reportsFirstDifferentLine() {
+        Grade grade = new Grader().grade(7, COUNT_DOWN, "", "3\n2\n1\n");
+        
+        assertEquals(Grade.Verdict.WRONG_ANSWER, grade.getVerdict());
+        assertEquals(4, grade.getMismatchLine());
+        assertEquals("3\n2\n1\n0", grade.getActualOutput());
+    }
+    
+    @Test
+    public void compileAndRuntimeErrors_haveTheirOwnVerdicts() {
+        Grader grader = new Grader();
+        
+        assertEquals(Grade.Verdict.COMPILE_ERROR,
+                grader.grade(1, "public class A { public static void main(String[] args) { int x = ; } }", "", "").getVerdict());
+        assertEquals(Grade.Verdict.RUNTIME_ERROR,
+                grader.grade(1, SUM, "five three", "8").getVerdict());
+    }
+    
+    @Test
+    public void normalizeOutput_ignoresLineEndingsAndTrailingWhitespace() {
+        assertEquals("a\nb", Grader.normalizeOutput("a  \r\nb\t\n\n\n"));
+        assertEquals("a\n\nb", Grader.normalizeOutput("a\n\nb"));
+        assertEquals("", Grader.normalizeOutput(null));
+    }
+    
+    @Test
+    public void resubmission_isServedFromCache() {
+        Grader grader = new Grader();
+        Grade first = grader.grade(2, SUM, "5 3", "8\n");
+        Grade second = grader.grade(2, SUM.replace(";\n", ";   \r\n"), "5 3", "8\n");
+        
+        assertSame(first, second);
+        assertEquals(1, grader.getHitCount());
+        assertEquals(1, grader.getMissCount());
+        
+        grader.grade(3, SUM, "5 3", "8\n");
+        assertEquals(2, grader.getMissCount());
+    }
+}
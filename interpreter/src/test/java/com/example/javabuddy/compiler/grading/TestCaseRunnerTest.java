@@ -0,0 +1,94 @@
+package com.example.javabuddy.compiler.grading;
+
+import com.example.javabuddy.compiler.grading.TestCaseRunner.TestCase;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link TestCaseRunner}.
+ */
+public class TestCaseRunnerTest {
+    
+    private static final String DOUBLE =
+            "import java.util.Scanner;\n" +
+            "\n" +
+            "public class Main {\n" +
+            "    public static void main(String[] args) {\n" +
+            "        Scanner scanner = new Scanner(System.in);\n" +
+            "        int n = scanner.nextInt();\n" +
+            "        if (n < 0) {\n" +
+            "            while (true) { n++; }\n" +
+            "        }\n" +
+            "        System.out.println(n * 2);\n" +
+            "    }\n" +
+            "}";
+    
+    private final TestCaseRunner runner = new TestCaseRunner(new ForkJoinPool(4), 500);
+    
+    private static List<TestCase> doubling(int count) {
+        List<TestCase> cases = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            cases.add(new TestCase(String.valueOf(i), String.valueOf(i * 2)));
+        }
+        return cases;
+    }
+    
+    @Test
+    public void everyCase_runsWithItsOwnInput() {
+        TestCaseRunner.Report report = runner.run(DOUBLE, doubling(20), false);
+        
+        assertEquals(report.toString(), 20, report.getPassedCount());
+        assertTrue(report.isAllPassed());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, report.getResults().get(i).getIndex());
+            assertEquals(String.valueOf(i * 2), report.getResults().get(i).getGrade().getActualOutput());
+        }
+    }
+    
+    @Test
+    public void failingCase_doesNotAffectTheOthers() {
+        List<TestCase> cases = doubling(6);
+        cases.set(2, new TestCase("2", "5"));
+        cases.set(4, new TestCase("-1", "-2"));
+        TestCaseRunner.Report report = runner.run(DOUBLE, cases, false);
+        
+        assertEquals(4, report.getPassedCount());
+        assertEquals(0, report.getSkippedCount());
+        assertEquals(2, report.getFirstFailure().getIndex());
+        assertEquals(Grade.Verdict.WRONG_ANSWER, report.getResults().get(2).getGrade().getVerdict());
+        // the runaway case times out on its own budget
+        assertEquals(Grade.Verdict.RUNTIME_ERROR, report.getResults().get(4).getGrade().getVerdict());
+    }
+    
+    @Test
+    public void stopOnFirstFailure_cancelsTheRest() {
+        List<TestCase> cases = new ArrayList<>();
+        cases.add(new TestCase("1", "3"));
+        for (int i = 0; i < 7; i++) {
+            cases.add(new TestCase("-1", "-2"));
+        }
+        long start = System.nanoTime();
+        TestCaseRunner.Report report = new TestCaseRunner(new ForkJoinPool(1), 5_000).run(DOUBLE, cases, true);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        assertEquals(0, report.getFirstFailure().getIndex());
+        assertEquals(0, report.getPassedCount());
+        assertEquals(7, report.getSkippedCount());
+        assertTrue("took " + elapsedMillis + "ms", elapsedMillis < 5_000);
+    }
+    
+    @Test
+    public void compileError_failsEveryCase() {
+        TestCaseRunner.Report report = runner.run("public class Main { void main( }", doubling(3), false);
+        
+        for (TestCaseRunner.CaseResult result : report.getResults()) {
+            assertEquals(Grade.Verdict.COMPILE_ERROR, result.getGrade().getVerdict());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.javabuddy.compiler.optimizer;
+
+import com.example.javabuddy.compiler.AdvancedJavaInterpreter;
+import com.example.javabuddy.compiler.AdvancedJavaInterpreter.CompileResult;
+import com.example.javabuddy.compiler.ast.*;
+import com.example.javabuddy.compiler.parser.Parser;
+import com.example.javabuddy.compiler.vm.BytecodeCompiler;
+import com.example.javabuddy.compiler.vm.VirtualMachine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the {@link Optimizer} passes. Optimized programs are
+ * run on both engines, which must still print what Java prints.
+ */
+public class OptimizerTest {
+    
+    private static final String LOOPS =
+            "public class Main {\n" +
+            "    public static void main(String[] args) {\n" +
+            "        int n = 4;\n" +
+            "        double scale = 1.5;\n" +
+            "        int total = 0;\n" +
+            "        outer:\n" +
+            "        for (int i = 0; i < n * 2; i++) {\n" +
+            "            for (int j = 0; j < n + 1; j++) {\n" +
+            "                if (j > n - 2) continue outer;\n" +
+            "                total += (int) (scale * 3) + j * (n - 1);\n" +
+            "            }\n" +
+            "        }\n" +
+            "        int k = 0;\n" +
+            "        while (k < n * n) { k += n % 3 == 0 ? 2 : 1; }\n" +
+            "        for (int i = 0; i < 0; i++) { k += 10 / (n - 4); }\n" +
+            "        System.out.println(total + \" \" + k);\n" +
+            "    }\n" +
+            "}";
+    
+    @Test
+    public void constantExpressions_areFolded() {
+        CompilationUnit unit = Parser.parse(
+                "public class Main {\n" +
+                "    static final int DAY = 60 * 60 * 24;\n" +
+                "    static final double RATE = 5;\n" +
+                "    public static void main(String[] args) {\n" +
+                "        String greeting = \"Hello\" + \" \" + \"World\";\n" +
+                "        double half = RATE / 2;\n" +
+                "        String name = args.length + \"!\" + '?' + 1;\n" +
+                "        System.out.println(greeting + DAY + half + name);\n" +
+                "    }\n" +
+                "}");
+        OptimizationReport report = new Optimizer().optimize(unit);
+        
+        MethodDecl main = unit.classes.get(0).findMethod("main");
+        assertEquals("Hello World", initializer(main, 0).value);
+        assertEquals(2.5, initializer(main, 1).value);
+        Binary name = (Binary) ((LocalVarDecl) main.body.statements.get(2)).variables.get(0).initializer;
+        assertEquals("!?1", ((Literal) name.right).value);
+        assertEquals(86400, ((Literal) unit.classes.get(0).fields.get(0).initializer).value);
+        assertTrue(report.getRewriteCount(OptimizationReport.CONSTANT_FOLDING) >= 6);
+    }
+    
+    @Test
+    public void constantConditions_dropDeadBranches() {
+        CompilationUnit unit = Parser.parse(
+                "public class Main {\n" +
+                "    static final boolean DEBUG = false;\n" +
+                "    public static void main(String[] args) {\n" +
+                "        if (DEBUG) {\n" +
+                "            System.out.println(\"debug\");\n" +
+                "        }\n" +
+                "        if (!DEBUG && args.length == 0) System.out.println(\"run\");\n" +
+                "        return;\n" +
+                "    }\n" +
+                "}");
+        OptimizationReport report = new Optimizer().optimize(unit);
+        
+        MethodDecl main = unit.classes.get(0).findMethod("main");
+        assertEquals(2, main.body.statements.size());
+        assertEquals(Tag.IF, main.body.statements.get(0).tag);
+        assertEquals(1, report.getRewriteCount(OptimizationReport.DEAD_CODE));
+    }
+    
+    @Test
+    public void loopInvariants_areHoistedWithoutChangingOutput() {
+        CompilationUnit unit = Parser.parse(LOOPS);
+        int frameSize = unit.classes.get(0).findMethod("main").frameSize;
+        OptimizationReport report = new Optimizer().optimize(unit);
+        
+        assertEquals(8, report.getRewriteCount(OptimizationReport.LOOP_INVARIANTS));
+        assertEquals(frameSize + 8, unit.classes.get(0).findMethod("main").frameSize);
+        // 10 / (n - 4) could throw, so it stays in the loop that never runs
+        CompileResult vm = new VirtualMachine().execute(new BytecodeCompiler().compile(unit));
+        assertTrue(vm.getMessage(), vm.isSuccess());
+        assertEquals("168 16\n", vm.getOutput());
+    }
+    
+    @Test
+    public void optimizedPrograms_runTheSameOnTheTreeWalker() {
+        CompileResult result = new AdvancedJavaInterpreter().compileAndRun(LOOPS.replace("int total = 0;",
+                "int total = 0;\n        try { System.out.println(1 / 0); } catch (ArithmeticException e) { System.out.println(e.getMessage()); }"));
+        assertTrue(result.getMessage(), result.isSuccess());
+        assertEquals("/ by zero\n168 16\n", result.getOutput());
+    }
+    
+    private static Literal initializer(MethodDecl method, int statement) {
+        return (Literal) ((LocalVarDecl) method.body.statements.get(statement)).variables.get(0).initializer;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.example.javabuddy.compiler.runtime;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link ConsoleBuffer}.
+ */
+public class ConsoleBufferTest {
+    
+    @Test
+    public void printedText_isSplitIntoLines() {
+        ConsoleBuffer console = new ConsoleBuffer();
+        console.print("a");
+        console.println("b");
+        console.print("c\nd\ne");
+        
+        List<String> lines = new ArrayList<>();
+        assertEquals(3, console.readLines(0, lines));
+        assertEquals(Arrays.asList("ab", "c", "d"), lines);
+        assertEquals("e", console.getPartialLine());
+        assertEquals("ab\nc\nd\ne", console.toString());
+    }
+    
+    @Test
+    public void readLines_returnsOnlyNewLines() {
+        ConsoleBuffer console = new ConsoleBuffer();
+        console.println("one");
+        List<String> lines = new ArrayList<>();
+        long next = console.readLines(0, lines);
+        
+        console.println("two");
+        lines.clear();
+        assertEquals(2, console.readLines(next, lines));
+        assertEquals(Arrays.asList("two"), lines);
+    }
+    
+    @Test
+    public void oldestLines_areDroppedAtTheLineCap() {
+        ConsoleBuffer console = new ConsoleBuffer(3, 1_000);
+        for (int i = 0; i < 10; i++) {
+            console.println("line " + i);
+        }
+        
+        List<String> lines = new ArrayList<>();
+        assertEquals(10, console.readLines(0, lines));
+        assertEquals(Arrays.asList("line 7", "line 8", "line 9"), lines);
+        assertEquals(7, console.getDroppedLineCount());
+    }
+    
+    @Test
+    public void oldestLines_areDroppedAtTheCharacterCap() {
+        ConsoleBuffer console = new ConsoleBuffer(100, 10);
+        console.println("aaaa");
+        console.println("bbbb");
+        console.println("cccc");
+        
+        assertEquals("bbbb\ncccc\n", console.toString());
+        assertEquals(1, console.getDroppedLineCount());
+    }
+    
+    @Test
+    public void outputWithoutNewlines_isWrapped() {
+        ConsoleBuffer console = new ConsoleBuffer();
+        char[] chars = new char[ConsoleBuffer.MAX_LINE_LENGTH * 2 + 5];
+        Arrays.fill(chars, 'x');
+        console.print(new String(chars));
+        
+        assertEquals(2, console.getLineCount());
+        assertEquals(5, console.getPartialLine().length());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,179 @@
+package com.example.javabuddy.compiler.runtime;
+
+import com.example.javabuddy.compiler.AdvancedJavaInterpreter;
+import com.example.javabuddy.compiler.AdvancedJavaInterpreter.CompileResult;
+import com.example.javabuddy.compiler.vm.VirtualMachine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link HeapMeter} and the heap quota of {@link ExecutionBudget}.
+ */
+public class HeapMeterTest {
+    
+    private static final long QUOTA = 1024 * 1024;
+    
+    private static final String LINKED_LIST =
+            "public class Main {\n" +
+            "    static class Node {\n" +
+            "        Node next;\n" +
+            "        String label;\n" +
+            "        Node(Node next, String label) { this.next = next; this.label = label; }\n" +
+            "    }\n" +
+            "    public static void main(String[] args) {\n" +
+            "        Node head = null;\n" +
+            "        int i = 0;\n" +
+            "        System.out.println(\"filling\");\n" +
+            "        while (true) {\n" +
+            "            head = new Node(head, \"node \" + i);\n" +
+            "            i++;\n" +
+            "        }\n" +
+            "    }\n" +
+            "}";
+    
+    private static final String STRING_BUILDER =
+            "public class Main {\n" +
+            "    public static void main(String[] args) {\n" +
+            "        StringBuilder sb = new StringBuilder();\n" +
+            "        while (true) {\n" +
+            "            sb.append(\"0123456789\");\n" +
+            "        }\n" +
+            "    }\n" +
+            "}";
+    
+    private static final String GARBAGE =
+            "public class Main {\n" +
+            "    public static void main(String[] args) {\n" +
+            "        int total = 0;\n" +
+            "        for (int i = 0; i < 100000; i++) {\n" +
+            "            String label = \"item number \" + i;\n" +
+            "            total += label.length();\n" +
+            "        }\n" +
+            "        System.out.println(total);\n" +
+            "    }\n" +
+            "}";
+    
+    private static final String HUGE_ARRAY =
+            "public class Main {\n" +
+            "    public static void main(String[] args) {\n" +
+            "        System.out.println(\"allocating\");\n" +
+            "        long[] values = new long[100000000];\n" +
+            "        System.out.println(values.length);\n" +
+            "    }\n" +
+            "}";
+    
+    /** Host calls whose arguments ask for gigabytes; %s is the statement making the value. */
+    private static final String HUGE_HOST_VALUE =
+            "public class Main {\n" +
+            "    public static void main(String[] args) {\n" +
+            "        String part = \"x\".repeat(100000);\n" +
+            "        System.out.println(\"allocating\");\n" +
+            "        Object value = %s;\n" +
+            "        System.out.println(value.toString().length());\n" +
+            "    }\n" +
+            "}";
+    
+    private static ExecutionBudget budget() {
+        return new ExecutionBudget(ExecutionBudget.DEFAULT_MAX_INSTRUCTIONS, 10_000, QUOTA);
+    }
+    
+    @Test
+    public void growingObjectGraph_exceedsQuotaOnBothEngines() {
+        ExecutionBudget vmBudget = budget();
+        CompileResult vm = new VirtualMachine().compileAndRun(LINKED_LIST, vmBudget);
+        ExecutionBudget walkerBudget = budget();
+        CompileResult walker = new AdvancedJavaInterpreter().compileAndRun(LINKED_LIST, walkerBudget);
+        
+        for (CompileResult result : new CompileResult[] { vm, walker }) {
+            assertFalse(result.isSuccess());
+            assertTrue(result.getMessage(), result.getMessage().contains("Memory limit exceeded"));
+            assertEquals("filling\n", result.getOutput());
+        }
+        assertTrue(vmBudget.getPeakHeapBytes() > QUOTA);
+        assertTrue(walkerBudget.getPeakHeapBytes() > QUOTA);
+    }
+    
+    @Test
+    public void hugeArray_exceedsQuotaBeforeItIsAllocated() {
+        // 800 MB of longs: the quota has to stop it before the host runs out of memory
+        CompileResult vm = new VirtualMachine().compileAndRun(HUGE_ARRAY, budget());
+        CompileResult walker = new AdvancedJavaInterpreter().compileAndRun(HUGE_ARRAY, budget());
+        
+        for (CompileResult result : new CompileResult[] { vm, walker }) {
+            assertFalse(result.isSuccess());
+            assertTrue(result.getMessage(), result.getMessage().contains("Memory limit exceeded"));
+            assertEquals("allocating\n", result.getOutput());
+        }
+    }
+    
+    @Test
+    public void hugeHostValues_exceedQuotaBeforeTheHostAllocatesThem() {
+        String[] values = {
+                "\"ab\".repeat(1000000000)",
+                "new StringBuilder(2000000000)",
+                "String.join(\",\", part, part, part, part, part, part)",
+                "part.concat(part).concat(part).concat(part).concat(part).concat(part)"
+        };
+        for (String value : values) {
+            String source = String.format(HUGE_HOST_VALUE, value);
+            CompileResult vm = new VirtualMachine().compileAndRun(source, budget());
+            CompileResult walker = new AdvancedJavaInterpreter().compileAndRun(source, budget());
+            
+            for (CompileResult result : new CompileResult[] { vm, walker }) {
+                assertFalse(value, result.isSuccess());
+                assertTrue(value + ": " + result.getMessage(), result.getMessage().contains("Memory limit exceeded"));
+                assertEquals(value, "allocating\n", result.getOutput());
+            }
+        }
+    }
+    
+    @Test
+    public void growingHostObject_exceedsQuota() {
+        CompileResult result = new VirtualMachine().compileAndRun(STRING_BUILDER, budget());
+        
+        assertFalse(result.isSuccess());
+        assertTrue(result.getMessage(), result.getMessage().contains("Memory limit exceeded"));
+    }
+    
+    @Test
+    public void garbage_doesNotCountAgainstQuota() {
+        // a hundred thousand labels are several megabytes in all, but only one is alive at a time
+        ExecutionBudget budget = budget();
+        CompileResult result = new VirtualMachine().compileAndRun(GARBAGE, budget);
+        
+        assertTrue(result.getMessage(), result.isSuccess());
+        assertTrue(String.valueOf(budget.getPeakHeapBytes()), budget.getPeakHeapBytes() < QUOTA);
+        assertTrue(budget.getPeakHeapBytes() > 0);
+    }
+    
+    @Test
+    public void measure_countsSharedValuesOnceAndStopsPastTheLimit() {
+        final String shared = "shared";
+        final List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            list.add(shared);
+        }
+        HeapMeter.Roots roots = new HeapMeter.Roots() {
+            @Override
+            public void addRoots(HeapMeter meter) {
+                meter.add(list);
+                meter.add(shared);
+            }
+        };
+        
+        assertEquals(HeapMeter.sizeOf(list) + HeapMeter.sizeOf(shared), HeapMeter.measure(roots, Long.MAX_VALUE));
+        assertTrue(HeapMeter.measure(roots, 0) <= HeapMeter.sizeOf(list));
+    }
+    
+    @Test
+    public void formatBytes_picksAReadableUnit() {
+        assertEquals("512 B", HeapMeter.formatBytes(512));
+        assertEquals("1.5 KB", HeapMeter.formatBytes(1536));
+        assertEquals("32.0 MB", HeapMeter.formatBytes(ExecutionBudget.DEFAULT_MAX_HEAP_BYTES));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.example.javabuddy.compiler.runtime;
+
+import com.example.javabuddy.compiler.AdvancedJavaInterpreter.CompileResult;
+import com.example.javabuddy.compiler.parser.Parser;
+import com.example.javabuddy.compiler.vm.BytecodeCompiler;
+import com.example.javabuddy.compiler.vm.BytecodeProgram;
+import com.example.javabuddy.compiler.vm.CompiledMethod;
+import com.example.javabuddy.compiler.vm.Opcodes;
+import com.example.javabuddy.compiler.vm.VirtualMachine;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link Profiler} on the bytecode VM.
+ */
+public class ProfilerTest {
+    
+    private static final String LOOP =
+            "public class Main {\n" +
+            "    static int square(int x) {\n" +
+            "        return x * x;\n" +
+            "    }\n" +
+            "    public static void main(String[] args) {\n" +
+            "        long sum = 0;\n" +
+            "        for (int i = 0; i < 1000; i++) {\n" +
+            "            sum += square(i % 10);\n" +
+            "        }\n" +
+            "        System.out.println(sum);\n" +
+            "    }\n" +
+            "}";
+    
+    @Test
+    public void profiledRun_countsEveryLineAndCall() {
+        Profiler profiler = new Profiler();
+        CompileResult result = new VirtualMachine().execute(new BytecodeCompiler(true).compile(Parser.parse(LOOP)),
+                new ExecutionBudget(), new ConsoleBuffer(), profiler);
+        
+        assertEquals("28500\n", result.getOutput());
+        assertEquals(1000, profiler.getLineHits(3));
+        assertEquals(1, profiler.getLineHits(6));
+        assertEquals(1000, profiler.getLineHits(8));
+        assertEquals(1, profiler.getLineHits(10));
+        assertEquals(0, profiler.getLineHits(9));
+        assertEquals(10, profiler.getMaxLine());
+        
+        List<Profiler.MethodProfile> methods = profiler.getMethods();
+        long squareCalls = 0;
+        for (Profiler.MethodProfile method : methods) {
+            if (method.getName().equals("Main.square")) {
+                squareCalls = method.getInvocations();
+            }
+        }
+        assertEquals(1000, squareCalls);
+        assertTrue(profiler.getLineNanos(8) > 0);
+        assertTrue(profiler.getMaxLineNanos() <= profiler.getTotalNanos());
+    }
+    
+    @Test
+    public void profiler_isResetForEachRun() {
+        BytecodeProgram program = new BytecodeCompiler(true).compile(Parser.parse(LOOP));
+        Profiler profiler = new Profiler();
+        new VirtualMachine().execute(program, new ExecutionBudget(), new ConsoleBuffer(), profiler);
+        new VirtualMachine().execute(program, new ExecutionBudget(), new ConsoleBuffer(), profiler);
+        
+        assertEquals(1000, profiler.getLineHits(8));
+    }
+    
+    @Test
+    public void unprofiledCode_hasNoProfilingInstructions() {
+        BytecodeProgram program = new BytecodeCompiler().compile(Parser.parse(LOOP));
+        
+        for (CompiledMethod method : program.methods) {
+            for (int pc = 0; pc < method.code.length; pc += 1 + Opcodes.operandCount(method.code[pc])) {
+                int opcode = method.code[pc];
+                assertTrue(method.name + ":" + pc, opcode != Opcodes.PROFILE_ENTER && opcode != Opcodes.PROFILE_LINE);
+            }
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.javabuddy.compiler.vm;
+
+import com.example.javabuddy.compiler.AdvancedJavaInterpreter.CompileResult;
+import com.example.javabuddy.compiler.parser.Parser;
+import com.example.javabuddy.compiler.runtime.ExecutionBudget;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the bytecode VM, including allocation counts that
+ * show primitive arithmetic and calls do not box.
+ */
+public class VirtualMachineTest {
+    
+    private static final String HOT_LOOP =
+            "public class Main {\n" +
+            "    static int square(int x) { return x * x; }\n" +
+            "    public static void main(String[] args) {\n" +
+            "        long sum = 0;\n" +
+            "        double average = 0.0;\n" +
+            "        for (int i = 0; i < %d; i++) {\n" +
+            "            sum += square(i %% 100) / 3;\n" +
+            "            average = average * 0.5 + i;\n" +
+            "        }\n" +
+            "        System.out.println(sum);\n" +
+            "    }\n" +
+            "}";
+    
+    private static final String CONCATENATION_LOOP =
+            "public class Main {\n" +
+            "    public static void main(String[] args) {\n" +
+            "        String last = \"\";\n" +
+            "        for (int i = 0; i < %d; i++) {\n" +
+            "            last = \"x=\" + i + \", y=\" + (i * 2) + \", z=\" + (i * 3) + \", label \" + i + \"!\";\n" +
+            "        }\n" +
+            "        System.out.println(last);\n" +
+            "    }\n" +
+            "}";
+    
+    private static final String RUNAWAY =
+            "public class Main {\n" +
+            "    public static void main(String[] args) {\n" +
+            "        System.out.println(\"start\");\n" +
+            "        int i = 0;\n" +
+            "        while (true) {\n" +
+            "            try {\n" +
+            "                i++;\n" +
+            "            } catch (Exception e) {\n" +
+            "                System.out.println(\"caught\");\n" +
+            "            }\n" +
+            "        }\n" +
+            "    }\n" +
+            "}";
+    
+    @Test
+    public void primitiveArithmetic_matchesJava() {
+        CompileResult result = run(
+                "public class Main {\n" +
+                "    public static void main(String[] args) {\n" +
+                "        int big = Integer.MAX_VALUE;\n" +
+                "        big++;\n" +
+                "        int x = 7;\n" +
+                "        x /= 2;\n" +
+                "        x += 2.9;\n" +
+                "        char c = 'a';\n" +
+                "        c += 2;\n" +
+                "        float f = 1.1f;\n" +
+                "        f *= 3;\n" +
+                "        System.out.println(big + \" \" + x + \" \" + c + \" \" + (c + 1) + \" \" + f + \" \" + (byte) 200);\n" +
+                "    }\n" +
+                "}");
+        assertTrue(result.getMessage(), result.isSuccess());
+        assertEquals("-2147483648 5 c 100 3.3000002 -56\n", result.getOutput());
+    }
+    
+    @Test
+    public void integerDivisionByZero_throwsArithmeticException() {
+        CompileResult result = run(
+                "public class Main {\n" +
+                "    public static void main(String[] args) {\n" +
+                "        int zero = 0;\n" +
+                "        try {\n" +
+                "            System.out.println(1 / zero);\n" +
+                "        } catch (ArithmeticException e) {\n" +
+                "            System.out.println(e.getMessage());\n" +
+                "        }\n" +
+                "        System.out.println(1.0 / zero);\n" +
+                "    }\n" +
+                "}");
+        assertEquals("/ by zero\nInfinity\n", result.getOutput());
+    }
+    
+    @Test
+    public void switchAndLabeledJumps_matchJava() {
+        CompileResult result = run(
+                "public class Main {\n" +
+                "    public static void main(String[] args) {\n" +
+                "        int i = 0;\n" +
+                "        do { i += 3; } while (i < 10);\n" +
+                "        String s = \"\";\n" +
+                "        for (int k = 0; k < 5; k++) {\n" +
+                "            switch (k) {\n" +
+                "                case 0: continue;\n" +
+                "                case 1:\n" +
+                "                case 2: s += \"a\"; break;\n" +
+                "                default: s += \"b\";\n" +
+                "                case 9: s += \"c\";\n" +
+                "            }\n" +
+                "        }\n" +
+                "        switch (s) {\n" +
+                "            case \"aabcbc\" -> s = \"ok\";\n" +
+                "            default -> s = \"bad \" + s;\n" +
+                "        }\n" +
+                "        outer:\n" +
+                "        for (int a = 0; a < 3; a++) {\n" +
+                "            for (int b = 0; b < 3; b++) {\n" +
+                "                if (b == 1) continue outer;\n" +
+                "                if (a == 2) break outer;\n" +
+                "                s += a;\n" +
+                "            }\n" +
+                "        }\n" +
+                "        System.out.println(i + \" \" + s);\n" +
+                "    }\n" +
+                "}");
+        assertTrue(result.getMessage(), result.isSuccess());
+        assertEquals("12 ok01\n", result.getOutput());
+    }
+    
+    @Test
+    public void classes_dispatchVirtuallyAndRunConstructors() {
+        CompileResult result = run(
+                "public class Main {\n" +
+                "    interface Shape { double area(); default String label() { return \"shape\"; } }\n" +
+                "    static class Rect implements Shape {\n" +
+                "        int w, h;\n" +
+                "        String tag = \"r\";\n" +
+                "        Rect(int w, int h) { this.w = w; this.h = h; }\n" +
+                "        Rect(int side) { this(side, side); tag = \"sq\"; }\n" +
+                "        public double area() { return w * h; }\n" +
+                "        public String toString() { return tag + w + \"x\" + h; }\n" +
+                "    }\n" +
+                "    static class Circle implements Shape {\n" +
+                "        double r;\n" +
+                "        Circle(double r) { this.r = r; }\n" +
+                "        public double area() { return 3 * r * r; }\n" +
+                "        public String label() { return \"circle\"; }\n" +
+                "    }\n" +
+                "    int fib(int n) { return n < 2 ? n : fib(n - 1) + fib(n - 2); }\n" +
+                "    public static void main(String[] args) {\n" +
+                "        Shape rect = new Rect(2, 3), square = new Rect(4), circle = new Circle(1.0);\n" +
+                "        double total = 0;\n" +
+                "        String labels = \"\";\n" +
+                "        for (int i = 0; i < 3; i++) {\n" +
+                "            Shape s = i == 0 ? rect : i == 1 ? square : circle;\n" +
+                "            total += s.area();\n" +
+                "            labels += s.label() + \" \";\n" +
+                "        }\n" +
+                "        System.out.println(total + \" \" + labels + rect + \" \" + square);\n" +
+                "        System.out.println(new Main().fib(20) + \" \" + (circle instanceof Rect));\n" +
+                "    }\n" +
+                "}");
+        assertTrue(result.getMessage(), result.isSuccess());
+        assertEquals("25.0 shape shape circle r2x3 sq4x4\n6765 false\n", result.getOutput());
+    }
+    
+    @Test
+    public void classes_initializeLazilyInSourceOrder() {
+        CompileResult result = run(
+                "public class Main {\n" +
+                "    static final int C = compute();\n" +
+                "    static int counter = 5;\n" +
+                "    static { x = 10; }\n" +
+                "    static int x;\n" +
+                "    static int y = x + 1;\n" +
+                "    static int compute() { return counter + 100; }\n" +
+                "    static class Helper {\n" +
+                "        static int value = 42;\n" +
+                "        static { System.out.println(\"Helper init\"); }\n" +
+                "    }\n" +
+                "    static class Base {\n" +
+                "        static { System.out.println(\"Base init\"); }\n" +
+                "    }\n" +
+                "    static class Derived extends Base {\n" +
+                "        int a = b(); int b = 7; { a += 1; } int c = a;\n" +
+                "        int b() { return b + 3; }\n" +
+                "    }\n" +
+                "    public static void main(String[] args) {\n" +
+                "        System.out.println(C + \" \" + counter + \" \" + y);\n" +
+                "        System.out.println(Helper.value + Helper.value);\n" +
+                "        Derived d = new Derived();\n" +
+                "        System.out.println(d.a + \" \" + d.c);\n" +
+                "    }\n" +
+                "}");
+        assertTrue(result.getMessage(), result.isSuccess());
+        assertEquals("100 5 11\nHelper init\n84\nBase init\n4 4\n", result.getOutput());
+    }
+    
+    @Test
+    public void arrays_matchJava() {
+        CompileResult result = run(
+                "import java.util.Arrays;\n" +
+                "public class Main {\n" +
+                "    public static void main(String[] args) {\n" +
+                "        int[] a = {5, 3, 9, 1, 7};\n" +
+                "        for (int i = 0; i < a.length; i++) {\n" +
+                "            for (int j = 0; j + 1 < a.length - i; j++) {\n" +
+                "                if (a[j] > a[j + 1]) { int t = a[j]; a[j] = a[j + 1]; a[j + 1] = t; }\n" +
+                "            }\n" +
+                "        }\n" +
+                "        double[][] grid = new double[2][3];\n" +
+                "        grid[1][2] += 1.5;\n" +
+                "        grid[0][0]++;\n" +
+                "        char[] word = {'d', 'a', 'c', 'b'};\n" +
+                "        Arrays.sort(word);\n" +
+                "        String[] names = new String[2];\n" +
+                "        names[0] = \"x\";\n" +
+                "        int sum = 0;\n" +
+                "        for (int v : a) sum += v;\n" +
+                "        System.out.println(Arrays.toString(a) + \" \" + sum + \" \" + Arrays.toString(grid[1]) + \" \" + grid[0][0]);\n" +
+                "        System.out.println(new String(word) + \" \" + Arrays.toString(names) + \" \" + grid.length);\n" +
+                "        try {\n" +
+                "            a[a.length] = 0;\n" +
+                "        } catch (ArrayIndexOutOfBoundsException e) {\n" +
+                "            System.out.println(e.getMessage());\n" +
+                "        }\n" +
+                "    }\n" +
+                "}");
+        assertTrue(result.getMessage(), result.isSuccess());
+        assertEquals("[1, 3, 5, 7, 9] 25 [0.0, 0.0, 1.5] 1.0\nabcd [x, null] 2\nIndex 5 out of bounds for length 5\n",
+                result.getOutput());
+    }
+    
+    @Test
+    public void hotLoop_doesNotAllocatePerIteration() {
+        // warm up so class loading and JIT work are not counted
+        allocatedBytes(String.format(HOT_LOOP, 100_000));
+        
+        long small = allocatedBytes(String.format(HOT_LOOP, 1_000));
+        long large = allocatedBytes(String.format(HOT_LOOP, 1_000_000));
+        
+        // boxing even one value per iteration would cost over 16 MB here
+        assertTrue("1M iterations allocated " + (large - small) + " more bytes than 1K",
+                large - small < 64 * 1024);
+    }
+    
+    @Test
+    public void stringConcatenation_groupsFromTheLeft() {
+        CompileResult result = run(
+                "public class Main {\n" +
+                "    static class Point {\n" +
+                "        int x;\n" +
+                "        Point(int x) { this.x = x; }\n" +
+                "        public String toString() { return \"P\" + x; }\n" +
+                "    }\n" +
+                "    public static void main(String[] args) {\n" +
+                "        int a = 3, b = 4;\n" +
+                "        char c = 'z';\n" +
+                "        Integer boxed = 7;\n" +
+                "        String none = null;\n" +
+                "        System.out.println(\"a+b=\" + (a + b) + \" \" + a + b);\n" +
+                "        System.out.println(a + b + \"=\" + a + b + c + 1);\n" +
+                "        System.out.println('a' + 'b' + \"c\" + 'd' + 'e' + 0.5f + 1L);\n" +
+                "        System.out.println(boxed + boxed + boxed + \" \" + boxed + boxed + none + new Point(9));\n" +
+                "    }\n" +
+                "}");
+        assertTrue(result.getMessage(), result.isSuccess());
+        assertEquals("a+b=7 34\n7=34z1\n195cde0.51\n21 77nullP9\n", result.getOutput());
+    }
+    
+    @Test
+    public void stringConcatenation_makesOneStringPerChain() {
+        allocatedBytes(String.format(CONCATENATION_LOOP, 10_000));
+        
+        long small = allocatedBytes(String.format(CONCATENATION_LOOP, 1_000));
+        long large = allocatedBytes(String.format(CONCATENATION_LOOP, 101_000));
+        
+        // a String for every + would be about 800 bytes an iteration here
+        long perIteration = (large - small) / 100_000;
+        assertTrue(perIteration + " bytes an iteration", perIteration < 400);
+    }
+    
+    @Test
+    public void runawayLoop_stopsAtInstructionLimitWithPartialOutput() {
+        CompileResult result = new VirtualMachine().execute(
+                new BytecodeCompiler().compile(Parser.parse(RUNAWAY)), new ExecutionBudget(10_000, 60_000));
+        
+        assertFalse(result.isSuccess());
+        assertEquals("start\n", result.getOutput());
+        assertTrue(result.getMessage(), result.getMessage().contains("Program exceeded 10000 instructions"));
+    }
+    
+    @Test
+    public void runawayLoop_timesOut() {
+        CompileResult result = new VirtualMachine().execute(
+                new BytecodeCompiler().compile(Parser.parse(RUNAWAY)), new ExecutionBudget(Long.MAX_VALUE, 50));
+        
+        assertEquals("start\n", result.getOutput());
+        assertTrue(result.getMessage(), result.getMessage().contains("timed out after 50 ms"));
+    }
+    
+    @Test
+    public void cancel_stopsRunFromAnotherThread() throws InterruptedException {
+        ExecutionBudget budget = new ExecutionBudget(Long.MAX_VALUE, 60_000);
+        CompileResult[] result = new CompileResult[1];
+        Thread worker = new Thread(() -> result[0] = new VirtualMachine().compileAndRun(RUNAWAY, budget));
+        worker.start();
+        Thread.sleep(50);
+        budget.cancel();
+        worker.join(10_000);
+        
+        assertFalse("worker still running after cancel", worker.isAlive());
+        assertEquals("start\n", result[0].getOutput());
+        assertTrue(result[0].getMessage(), result[0].getMessage().contains("Program stopped"));
+    }
+    
+    private static CompileResult run(String source) {
+        return new VirtualMachine().execute(new BytecodeCompiler().compile(Parser.parse(source)));
+    }
+    
+    /**
+     * Bytes the thread allocated running {@code source}, with no instruction
+     * limit and a minute to finish, so a slow or loaded machine cannot fail
+     * the run before its allocations are counted.
+     */
+    private static long allocatedBytes(String source) {
+        BytecodeProgram program = new BytecodeCompiler().compile(Parser.parse(source));
+        VirtualMachine vm = new VirtualMachine();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        CompileResult result = vm.execute(program, new ExecutionBudget(Long.MAX_VALUE, 60_000));
+        long after = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        assertTrue(result.getMessage(), result.isSuccess());
+        return after - before;
+    }
+}
\ No newline at end of file